@@ -7,6 +7,7 @@ import nl.tudelft.pl2.data.storage.HeatMap;
 import nl.tudelft.pl2.representation.GraphPosition;
 import nl.tudelft.pl2.representation.external.Node;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Observer;
 import java.util.Set;
@@ -352,6 +353,18 @@ public interface GraphHandle {
      */
     String[] getGenomes();
 
+    /**
+     * Get the index of a genome, which is the bit representing
+     * the genome in the genome sets of the nodes.
+     *
+     * @param genome genome name.
+     * @return The index of the genome, or -1 if the graph
+     * holds no genome of that name.
+     */
+    default int genomeIndex(final String genome) {
+        return Arrays.asList(getGenomes()).indexOf(genome);
+    }
+
     /**
      * Set the Cache of the ChunkedGraph to the given Cache.
      *
@@ -13,7 +13,9 @@ import nl.tudelft.pl2.representation.graph.GraphHandle;
 import nl.tudelft.pl2.representation.graph.LoadingState;
 import nl.tudelft.pl2.representation.graph.MoveDirection;
 import nl.tudelft.pl2.representation.graph.ZoomDirection;
+import nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper;
 import nl.tudelft.pl2.representation.graph.loaders.ChunkedGraphLoader;
+import nl.tudelft.pl2.representation.graph.loaders.LayerStore;
 import nl.tudelft.pl2.representation.ui.InfoSidePanel.SampleSelectionController;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,7 +29,6 @@ import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
 
 /**
  * Class that handles loading a graph into memory from a cache.
@@ -62,14 +63,10 @@ public class ChunkedGraph extends Observable implements GraphHandle {
     private GraphPosition currentPosition;
 
     /**
-     * A map that maps the layer index to the nodes in that layer.
+     * A store that maps the layer index to the nodes in that layer
+     * and a node id to the vertical index of that node.
      */
-    private Map<Integer, HashSet<Node>> layerMap;
-
-    /**
-     * A map that maps a node id to the vertical index of that node.
-     */
-    private Map<Integer, Integer> verticalMap;
+    private LayerStore layerStore;
 
     /**
      * The loader used to load chunks.
@@ -111,20 +108,17 @@ public class ChunkedGraph extends Observable implements GraphHandle {
      * Constructor for the ChunkedGraph.
      *
      * @param graphLoader Loader used in loading the graph.
-     * @param vMap        Map that maps the id of a segment
-     *                    to its vertical index
-     * @param lMap        Map that maps the index of a layer
-     *                    to the nodes in that layer
+     * @param lStore      Store that maps the index of a layer
+     *                    to the nodes in that layer and the id
+     *                    of a segment to its vertical index
      * @param gfaPath     The path to the gfa file
      */
     public ChunkedGraph(final ChunkedGraphLoader graphLoader,
-                        final Map<Integer, Integer> vMap,
-                        final Map<Integer, HashSet<Node>> lMap,
+                        final LayerStore lStore,
                         final Path gfaPath) {
         this.loader = graphLoader;
         this.path = gfaPath;
-        this.verticalMap = vMap;
-        this.layerMap = lMap;
+        this.layerStore = lStore;
         this.headers = Collections.synchronizedMap(new HashMap<>());
         this.genomes = new String[0];
         this.observers = new HashSet<>();
@@ -165,9 +159,11 @@ public class ChunkedGraph extends Observable implements GraphHandle {
         if (currentPosition.layer() == layer) {
             return layer;
         }
+        int previousLayer = currentPosition.layer();
         int newLayer = Math.max(0, Math.min(layer, getMaxLayer()));
         currentPosition = new GraphPosition(newLayer, currentPosition.zoom());
         loader.checkForNewChunks();
+        loader.prefetchAhead(previousLayer, newLayer);
         if (centreNode == null
                 || centreNode.layer() != currentPosition.layer()) {
             this.updateCentre();
@@ -210,25 +206,23 @@ public class ChunkedGraph extends Observable implements GraphHandle {
 
     @Override
     public final void updateCentre() {
-        int layer = currentPosition.layer();
-        if (layerMap.containsKey(layer)) {
-            Iterator<Node> it = layerMap.get(layer).iterator();
-            if (it.hasNext()) {
-                centreNode = it.next();
-            }
+        Iterator<Node> it =
+                layerStore.get(currentPosition.layer()).iterator();
+        if (it.hasNext()) {
+            centreNode = it.next();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The set returned is the unmodifiable set of the layer as it was
+     * published by the loader, which is neither copied nor locked.
+     */
     @Override
     public final Set<Node> getSegmentsFromLayer(final int layer) {
-        HashSet<Node> returnSet = new HashSet<>();
-        loader.getMapLock().lock();
-        assert layerMap != null;
-        if (layerMap.containsKey(layer)) {
-            returnSet.addAll(layerMap.get(layer));
-        }
-        loader.getMapLock().unlock();
-        return returnSet;
+        assert layerStore != null;
+        return layerStore.get(layer);
     }
 
     @Override
@@ -244,14 +238,10 @@ public class ChunkedGraph extends Observable implements GraphHandle {
     @Override
     public final int getVerticalPosition(
             final Node node) {
-        loader.getMapLock().lock();
-        try {
-            if (verticalMap.containsKey(node.id())) {
-                maxRow = Math.max(maxRow, verticalMap.get(node.id()));
-                return verticalMap.get(node.id());
-            }
-        } finally {
-            loader.getMapLock().unlock();
+        int vertical = layerStore.vertical(node.id());
+        if (vertical != VerticalIndexingHelper.NO_VERTICAL) {
+            maxRow = Math.max(maxRow, vertical);
+            return vertical;
         }
         throw new NodeNotFoundException("Node with id : " + node.id()
                 + " was not found in vertical map", this.getClass().getName());
@@ -304,13 +294,7 @@ public class ChunkedGraph extends Observable implements GraphHandle {
 
     @Override
     public final Set<Integer> getLayerSet() {
-        Lock lock = loader.getMapLock();
-        try {
-            lock.lock();
-            return new HashSet<>(layerMap.keySet());
-        } finally {
-            lock.unlock();
-        }
+        return layerStore.layerSet();
     }
 
     @Override
@@ -336,73 +320,21 @@ public class ChunkedGraph extends Observable implements GraphHandle {
     @Override
     public final Set<Node> getNodesByGenome(final String genome) {
         Set<Node> nodeSet = new HashSet<>();
+        int index = genomeIndex(genome);
+        if (index < 0) {
+            return nodeSet;
+        }
 
-        getLayerSet().stream().filter(layer -> layerMap.containsKey(layer))
-                .forEach(layer -> nodeSet.addAll(
-                        getNodesByGenomeFromLayer(genome, layer)));
-
-        return nodeSet;
-    }
-
-    /**
-     * Get all of the nodes that contain the given genome from
-     * the layer with the given index.
-     *
-     * @param genome The genome to get all the nodes of
-     * @param layer  The layer to get the nodes from
-     * @return The nodes in the given layer that contain the genome
-     */
-    private Set<Node> getNodesByGenomeFromLayer(final String genome,
-                                                final int layer) {
-        Set<Node> nodeSet = new HashSet<>();
-
-        layerMap.get(layer).forEach(node -> {
-            Map<String, String> options = node.getOptions();
-            if (!options.containsKey(SampleSelectionController.GENOME_TAG)) {
-                return;
-            }
-
-            String[] sampleStrings =
-                    options.get(SampleSelectionController.GENOME_TAG)
-                            .split(";");
-            if (sampleStrings.length > 0
-                    && compareSample(sampleStrings, genome)) {
-                nodeSet.add(node);
-            }
-        });
+        getLayerSet().forEach(layer ->
+                layerStore.get(layer).forEach(node -> {
+                    if (node.genomes(genomes).get(index)) {
+                        nodeSet.add(node);
+                    }
+                }));
 
         return nodeSet;
     }
 
-
-    /**
-     * Compare the samples in a node to
-     * the sample we are interested in.
-     * If the node is part of the sample we
-     * return true.
-     *
-     * @param sampleArray The array of samples in the node
-     * @param genome      The genome to check.
-     * @return boolean.
-     */
-    private boolean compareSample(final String[] sampleArray,
-                                  final String genome) {
-
-        for (String sample : sampleArray) {
-            try {
-                int index = Integer.parseInt(sample);
-                if (genomes[index].equals(genome)) {
-                    return true;
-                }
-            } catch (NumberFormatException e) {
-                if (sample.equals(genome)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     @Override
     public final void setCache(final MasterCache masterCache) {
         this.cache = masterCache;
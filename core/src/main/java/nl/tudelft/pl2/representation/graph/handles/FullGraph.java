@@ -12,9 +12,10 @@ import nl.tudelft.pl2.representation.graph.GraphHandle;
 import nl.tudelft.pl2.representation.graph.LoadingState;
 import nl.tudelft.pl2.representation.graph.MoveDirection;
 import nl.tudelft.pl2.representation.graph.ZoomDirection;
+import nl.tudelft.pl2.representation.graph.helpers.IntIntMap;
+import nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper;
 import nl.tudelft.pl2.representation.ui.InfoSidePanel.SampleSelectionController;
 
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -52,7 +53,7 @@ public class FullGraph extends Observable
     /**
      * Map that maps a segment id to its vertical index.
      */
-    private Map<Integer, Integer> verticalMap;
+    private IntIntMap verticalMap;
 
     /**
      * Map that stores a set of Segments based on layer.
@@ -108,7 +109,7 @@ public class FullGraph extends Observable
      *                      of the graph.
      */
     public FullGraph(final Map<Integer, HashSet<Node>> layerMapIn,
-                     final Map<Integer, Integer> verticalMapIn,
+                     final IntIntMap verticalMapIn,
                      final GraphBuilderHelper helperIn) {
         this.helper = helperIn;
         this.verticalMap = verticalMapIn;
@@ -250,9 +251,7 @@ public class FullGraph extends Observable
 
     @Override
     public final int getMaxRow() {
-        return verticalMap.values().stream()
-                .max(Comparator.naturalOrder())
-                .orElse(0);
+        return Math.max(0, verticalMap.maxValue());
     }
 
     @Override
@@ -267,8 +266,10 @@ public class FullGraph extends Observable
 
     @Override
     public final int getVerticalPosition(final Node node) {
-        if (verticalMap.containsKey(node.id())) {
-            return verticalMap.get(node.id());
+        int vertical = verticalMap.getOrDefault(
+                node.id(), VerticalIndexingHelper.NO_VERTICAL);
+        if (vertical != VerticalIndexingHelper.NO_VERTICAL) {
+            return vertical;
         }
         throw new NodeNotFoundException("Node with id : " + node.id()
                 + " was not found in vertical map", this.getClass().getName());
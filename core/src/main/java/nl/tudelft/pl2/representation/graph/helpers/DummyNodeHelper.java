@@ -6,7 +6,6 @@ import nl.tudelft.pl2.representation.external.Node;
 import nl.tudelft.pl2.representation.external.components.DummyLink;
 import nl.tudelft.pl2.representation.external.components.DummyNode;
 import nl.tudelft.pl2.representation.graph.GraphLoader;
-import nl.tudelft.pl2.representation.graph.loaders.ChunkedGraphLoader;
 
 import java.util.HashSet;
 import java.util.Map;
@@ -38,6 +37,11 @@ public class DummyNodeHelper {
      */
     private Lock mapLock;
 
+    /**
+     * The editor that changes the links of the segments.
+     */
+    private EdgeEditor editor;
+
     /**
      * Helper for adding DummyNodes to layers.
      *
@@ -49,20 +53,32 @@ public class DummyNodeHelper {
     public DummyNodeHelper(final GraphLoader loader,
                            final Map<Integer, HashSet<Node>> map,
                            final GraphBuilderHelper graphBuilderHelper) {
+        this(loader, map, graphBuilderHelper,
+                new ReentrantLock(), EdgeEditor.IN_PLACE);
+    }
+
+    /**
+     * Helper for adding DummyNodes to the given layers, which
+     * are locked with the given lock. The links of the segments
+     * are changed through the given editor.
+     *
+     * @param loader             The loader being helped
+     * @param map                The layerMap that maps a layer
+     *                           index to the segments in the layer
+     * @param graphBuilderHelper A helper used in building graphs
+     * @param lock               The lock guarding the layerMap
+     * @param edgeEditor         The editor changing the links
+     */
+    public DummyNodeHelper(final GraphLoader loader,
+                           final Map<Integer, HashSet<Node>> map,
+                           final GraphBuilderHelper graphBuilderHelper,
+                           final Lock lock,
+                           final EdgeEditor edgeEditor) {
         graphLoader = loader;
         helper = graphBuilderHelper;
-        if (loader instanceof ChunkedGraphLoader) {
-            mapLock = ((ChunkedGraphLoader) loader).getMapLock();
-            try {
-                mapLock.lock();
-                layerMap = ((ChunkedGraphLoader) loader).getLayerMap();
-            } finally {
-                mapLock.unlock();
-            }
-        } else {
-            mapLock = new ReentrantLock();
-            layerMap = map;
-        }
+        mapLock = lock;
+        layerMap = map;
+        editor = edgeEditor;
     }
 
     /**
@@ -126,8 +142,9 @@ public class DummyNodeHelper {
             assert toLayer > fromLayer;
 
             if (toLayer - fromLayer > 1) {
-                helper.removeOutgoing(node, edge);
-                helper.removeIncoming(toNode, edge);
+                editor.edit(node, () -> helper.removeOutgoing(node, edge));
+                editor.edit(toNode,
+                        () -> helper.removeIncoming(toNode, edge));
                 dummyNodes.addAll(replaceLinkWithDummyTrail(
                         node,
                         toNode,
@@ -170,8 +187,7 @@ public class DummyNodeHelper {
                     previousNode.id(), nextNode.id(), link
             );
 
-            helper.addOutgoing(previousNode, dummyLink);
-            helper.addIncoming(nextNode, dummyLink);
+            addLink(previousNode, nextNode, dummyLink);
 
             try {
                 mapLock.lock();
@@ -188,8 +204,22 @@ public class DummyNodeHelper {
 
         dummyLink = new DummyLink(nextNode.id(), toNode.id(), link);
 
-        helper.addOutgoing(nextNode, dummyLink);
-        helper.addIncoming(toNode, dummyLink);
+        addLink(nextNode, toNode, dummyLink);
         return dummyNodes;
     }
+
+    /**
+     * Add a link to the outgoing links of one segment and
+     * the incoming links of another through the editor.
+     *
+     * @param fromNode The segment the link comes from
+     * @param toNode   The segment the link goes to
+     * @param link     The link to add
+     */
+    private void addLink(final Node fromNode,
+                         final Node toNode,
+                         final Edge link) {
+        editor.edit(fromNode, () -> helper.addOutgoing(fromNode, link));
+        editor.edit(toNode, () -> helper.addIncoming(toNode, link));
+    }
 }
@@ -0,0 +1,24 @@
+package nl.tudelft.pl2.representation.graph.helpers;
+
+import nl.tudelft.pl2.representation.external.Node;
+
+/**
+ * Applies the changes a helper makes to the links of a segment,
+ * such that the links of segments that are shown already may be
+ * changed later than the links of segments that are not.
+ */
+@FunctionalInterface
+public interface EdgeEditor {
+    /**
+     * Editor that changes the links of every segment at once.
+     */
+    EdgeEditor IN_PLACE = (node, edit) -> edit.run();
+
+    /**
+     * Apply, or schedule, a change to the links of a segment.
+     *
+     * @param node The segment whose links are changed
+     * @param edit The change to the links of the segment
+     */
+    void edit(Node node, Runnable edit);
+}
@@ -0,0 +1,271 @@
+package nl.tudelft.pl2.representation.graph.helpers;
+
+/**
+ * Map from int keys to int values that stores both in plain int
+ * arrays, such that neither keys nor values are boxed.
+ *
+ * The map uses open addressing with linear probing. As any int may
+ * be a key, including the negative IDs of dummy nodes, the key 0 is
+ * used to mark free slots and is stored apart from the arrays.
+ * Removed keys are not marked, but the keys probed past them are
+ * shifted back instead. The map is not thread-safe.
+ */
+public final class IntIntMap {
+    /**
+     * The number of slots of a new map.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The key marking a free slot.
+     */
+    private static final int FREE = 0;
+
+    /**
+     * The golden ratio as a 32 bit fraction, by which keys are
+     * multiplied to spread their bits.
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * The number of high bits folded into the low bits of a
+     * spread key.
+     */
+    private static final int FOLD_SHIFT = 16;
+
+    /**
+     * The keys in the slots of the map.
+     */
+    private int[] keys;
+
+    /**
+     * The values in the slots of the map.
+     */
+    private int[] values;
+
+    /**
+     * Whether the map holds the key 0.
+     */
+    private boolean hasFreeKey;
+
+    /**
+     * The value of the key 0.
+     */
+    private int freeValue;
+
+    /**
+     * The number of keys in the map.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map that holds the given number of keys
+     * without growing.
+     *
+     * @param expected The expected number of keys
+     */
+    public IntIntMap(final int expected) {
+        int capacity = Integer.highestOneBit(
+                Math.max(DEFAULT_CAPACITY, expected) * 2 - 1) * 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Creates a copy of the given map.
+     *
+     * @param map The map to copy
+     */
+    public IntIntMap(final IntIntMap map) {
+        keys = map.keys.clone();
+        values = map.values.clone();
+        hasFreeKey = map.hasFreeKey;
+        freeValue = map.freeValue;
+        size = map.size;
+    }
+
+    /**
+     * @param key The key to look up
+     * @return Whether the map holds the key
+     */
+    public boolean containsKey(final int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        return keys[slot(key)] != FREE;
+    }
+
+    /**
+     * Get the value of the given key.
+     *
+     * @param key      The key to look up
+     * @param fallback The value returned if the key is not in the map
+     * @return The value of the key, or the fallback
+     */
+    public int getOrDefault(final int key, final int fallback) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : fallback;
+        }
+        int slot = slot(key);
+        return keys[slot] != FREE ? values[slot] : fallback;
+    }
+
+    /**
+     * Map the given key to the given value.
+     *
+     * @param key   The key
+     * @param value The value
+     */
+    public void put(final int key, final int value) {
+        if (key == FREE) {
+            size += hasFreeKey ? 0 : 1;
+            hasFreeKey = true;
+            freeValue = value;
+            return;
+        }
+        int slot = slot(key);
+        values[slot] = value;
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            size++;
+            if (size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+    }
+
+    /**
+     * Put all the keys of the given map into this map.
+     *
+     * @param map The map to put
+     */
+    public void putAll(final IntIntMap map) {
+        if (map.hasFreeKey) {
+            put(FREE, map.freeValue);
+        }
+        for (int i = 0; i < map.keys.length; i++) {
+            if (map.keys[i] != FREE) {
+                put(map.keys[i], map.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Remove the given key from the map.
+     *
+     * @param key The key to remove
+     * @return Whether the key was in the map
+     */
+    public boolean remove(final int key) {
+        if (key == FREE) {
+            boolean had = hasFreeKey;
+            size -= had ? 1 : 0;
+            hasFreeKey = false;
+            return had;
+        }
+        int slot = slot(key);
+        if (keys[slot] == FREE) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return The number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The largest value in the map, or -1 if it holds
+     * no values larger than -1
+     */
+    public int maxValue() {
+        int max = hasFreeKey ? Math.max(-1, freeValue) : -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                max = Math.max(max, values[i]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Find the slot holding the given key, or the free slot the
+     * key would be put in.
+     *
+     * @param key The key, which is not 0
+     * @return The slot of the key
+     */
+    private int slot(final int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empty the given slot, shifting back the keys that were
+     * probed past it such that they can still be found.
+     *
+     * @param removed The slot to empty
+     */
+    private void shiftBack(final int removed) {
+        int mask = keys.length - 1;
+        int gap = removed;
+        int slot = (gap + 1) & mask;
+        while (keys[slot] != FREE) {
+            int home = mix(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[gap] = FREE;
+    }
+
+    /**
+     * Move the keys into arrays of the given capacity.
+     *
+     * @param capacity The new number of slots
+     */
+    private void resize(final int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spread the bits of a key, such that consecutive keys do
+     * not probe consecutive slots.
+     *
+     * @param key The key
+     * @return The mixed key
+     */
+    static int mix(final int key) {
+        int h = key * GOLDEN_RATIO;
+        return h ^ (h >>> FOLD_SHIFT);
+    }
+}
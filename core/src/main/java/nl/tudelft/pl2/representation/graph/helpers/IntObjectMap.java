@@ -0,0 +1,194 @@
+package nl.tudelft.pl2.representation.graph.helpers;
+
+/**
+ * Map from int keys to objects that stores the keys in a plain int
+ * array, such that the keys are not boxed.
+ *
+ * The map uses open addressing with linear probing in the same way
+ * as {@link IntIntMap}: the key 0 is stored apart from the arrays,
+ * and the keys probed past a removed key are shifted back. The map
+ * does not hold null values and is not thread-safe.
+ *
+ * @param <V> The type of the values
+ */
+public final class IntObjectMap<V> {
+    /**
+     * The number of slots of a new map.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The key marking a free slot.
+     */
+    private static final int FREE = 0;
+
+    /**
+     * The keys in the slots of the map.
+     */
+    private int[] keys;
+
+    /**
+     * The values in the slots of the map.
+     */
+    private Object[] values;
+
+    /**
+     * The value of the key 0, or null if the map does not hold it.
+     */
+    private V freeValue;
+
+    /**
+     * The number of keys in the map.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntObjectMap() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @param key The key to look up
+     * @return Whether the map holds the key
+     */
+    public boolean containsKey(final int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Get the value of the given key.
+     *
+     * @param key The key to look up
+     * @return The value of the key, or null if the key is not
+     * in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        if (key == FREE) {
+            return freeValue;
+        }
+        return (V) values[slot(key)];
+    }
+
+    /**
+     * Map the given key to the given value.
+     *
+     * @param key   The key
+     * @param value The value, which is not null
+     * @return The previous value of the key, or null if the key
+     * was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final int key, final V value) {
+        assert value != null;
+        if (key == FREE) {
+            V old = freeValue;
+            size += old == null ? 1 : 0;
+            freeValue = value;
+            return old;
+        }
+        int slot = slot(key);
+        V old = (V) values[slot];
+        values[slot] = value;
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            size++;
+            if (size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Remove the given key from the map.
+     *
+     * @param key The key to remove
+     * @return The value of the key, or null if the key was not
+     * in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final int key) {
+        if (key == FREE) {
+            V old = freeValue;
+            size -= old == null ? 0 : 1;
+            freeValue = null;
+            return old;
+        }
+        int slot = slot(key);
+        V old = (V) values[slot];
+        if (old != null) {
+            shiftBack(slot);
+            size--;
+        }
+        return old;
+    }
+
+    /**
+     * @return The number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the slot holding the given key, or the free slot the
+     * key would be put in.
+     *
+     * @param key The key, which is not 0
+     * @return The slot of the key
+     */
+    private int slot(final int key) {
+        int mask = keys.length - 1;
+        int slot = IntIntMap.mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empty the given slot, shifting back the keys that were
+     * probed past it such that they can still be found.
+     *
+     * @param removed The slot to empty
+     */
+    private void shiftBack(final int removed) {
+        int mask = keys.length - 1;
+        int gap = removed;
+        int slot = (gap + 1) & mask;
+        while (keys[slot] != FREE) {
+            int home = IntIntMap.mix(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[gap] = FREE;
+        values[gap] = null;
+    }
+
+    /**
+     * Move the keys into arrays of the given capacity.
+     *
+     * @param capacity The new number of slots
+     */
+    private void resize(final int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -4,17 +4,15 @@ import nl.tudelft.pl2.representation.external.Edge;
 import nl.tudelft.pl2.representation.external.Node;
 import nl.tudelft.pl2.representation.graph.GraphLoader;
 import nl.tudelft.pl2.representation.graph.MoveDirection;
-import nl.tudelft.pl2.representation.graph.loaders.ChunkedGraphLoader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import scala.collection.Iterator;
 import scala.collection.mutable.Buffer;
 
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -30,6 +28,11 @@ public class VerticalIndexingHelper {
     private static final Logger LOGGER =
             LogManager.getLogger("VerticalIndexingHelper");
 
+    /**
+     * The value of a segment without a vertical index.
+     */
+    public static final int NO_VERTICAL = -1;
+
     /**
      * Map that maps the index of a
      * layer to the segments in that layer.
@@ -39,12 +42,7 @@ public class VerticalIndexingHelper {
     /**
      * Map that maps the id of a segment to its vertical index.
      */
-    private Map<Integer, Integer> verticalMap;
-
-    /**
-     * The highest vertical index in the next layer.
-     */
-    private int nextLayerMax = 0;
+    private IntIntMap verticalMap;
 
     /**
      * The lock used to reserve the map for the current thread.
@@ -62,22 +60,28 @@ public class VerticalIndexingHelper {
      */
     public VerticalIndexingHelper(
             final Map<Integer, HashSet<Node>> lMap,
-            final Map<Integer, Integer> vMap,
+            final IntIntMap vMap,
             final GraphLoader loader) {
-        if (loader instanceof ChunkedGraphLoader) {
-            ChunkedGraphLoader chunkedLoader = (ChunkedGraphLoader) loader;
-            this.mapLock = chunkedLoader.getMapLock();
-            try {
-                this.mapLock.lock();
-                this.layerMap = chunkedLoader.getLayerMap();
-            } finally {
-                this.mapLock.unlock();
-            }
-        } else {
-            this.layerMap = lMap;
-            this.mapLock = new ReentrantLock();
-        }
+        this(lMap, vMap, new ReentrantLock());
+    }
+
+    /**
+     * Helper for assigning vertical indexes to the segments of
+     * the given layers, which are locked with the given lock.
+     *
+     * @param lMap Map that maps a layer index to
+     *             the segments in that layer
+     * @param vMap Map that maps a segment ID
+     *             to its vertical index
+     * @param lock The lock guarding the maps
+     */
+    public VerticalIndexingHelper(
+            final Map<Integer, HashSet<Node>> lMap,
+            final IntIntMap vMap,
+            final Lock lock) {
+        this.layerMap = lMap;
         this.verticalMap = vMap;
+        this.mapLock = lock;
     }
 
     /**
@@ -85,16 +89,18 @@ public class VerticalIndexingHelper {
      * based on the verticals of its neighbours.
      *
      * @param verticals   The vertical indexes of the neighbours
-     * @param sum         The sum of the neighbouring indexes
      * @param verticalSet The set of already assigned
      *                    indexes in the current layer
      * @return The index of the segment
      */
     private int calculateVerticalIndex(
             final int[] verticals,
-            final double sum,
-            final HashSet<Integer> verticalSet) {
+            final BitSet verticalSet) {
         Arrays.sort(verticals);
+        double sum = 0.0;
+        for (int vertical : verticals) {
+            sum += (double) vertical;
+        }
         double average = verticals.length != 0
                 ? sum / (double) verticals.length : 0;
         int middle = verticals.length / 2;
@@ -106,20 +112,22 @@ public class VerticalIndexingHelper {
         } else {
             median = 0;
         }
-        int index = median;
-        int step = average >= median ? 1 : -1;
-        while (verticalSet.contains(index) || index < 0) {
-            index += step;
-            if (index < 0 && step == -1) {
-                step = 1;
-            }
+        if (average >= median || median < 0) {
+            return verticalSet.nextClearBit(Math.max(0, median));
         }
-        return index;
+        int index = verticalSet.previousClearBit(median);
+        return index >= 0 ? index : verticalSet.nextClearBit(0);
     }
 
     /**
-     * Add the vertical orientation to
-     * all of the segments in the graph.
+     * Add vertical indexes to the segments in the given layers that
+     * do not have one yet. Segments that have a vertical index keep
+     * it, such that loading a chunk next to the layers already shown
+     * does not move the segments in them, and the work done is linear
+     * in the number of segments and links in the given layers.
+     *
+     * The layers are only read through the maps of the helper, so
+     * the helper may run on any thread holding its lock.
      *
      * @param from The layer to start assigning from
      * @param to   The layer to work towards
@@ -130,16 +138,7 @@ public class VerticalIndexingHelper {
         LOGGER.debug("Adding vertical indexes");
         try {
             mapLock.lock();
-            java.util.Iterator<Node> iterator =
-                    layerMap.get(from).iterator();
-            Node segment;
-            for (int i = 0; iterator.hasNext(); i++) {
-                segment = iterator.next();
-                if (verticalMap.containsKey(segment.id())) {
-                    continue;
-                }
-                verticalMap.put(segment.id(), i);
-            }
+            seedLayer(layerMap.get(from));
             if (from < to) {
                 for (int i = from; i <= to; i++) {
                     assert layerMap.containsKey(i);
@@ -159,7 +158,29 @@ public class VerticalIndexingHelper {
     }
 
     /**
-     * Assign vertical indexes to the segments of a layer.
+     * Assign the free vertical indexes of the layer the assignment
+     * starts from to its segments without a vertical index, in the
+     * order the segments are found in.
+     *
+     * @param segments The segments in the layer
+     */
+    private void seedLayer(final HashSet<Node> segments) {
+        BitSet taken = takenRows(segments);
+        int row = taken.nextClearBit(0);
+        for (Node segment : segments) {
+            if (!verticalMap.containsKey(segment.id())) {
+                verticalMap.put(segment.id(), row);
+                row = taken.nextClearBit(row + 1);
+            }
+        }
+    }
+
+    /**
+     * Assign vertical indexes to the segments of a layer that do not
+     * have one yet. Each of them is given the free index closest to
+     * the median of the indexes of its neighbours, after which they
+     * are packed into the free indexes of the layer in that order.
+     * The indexes of the other segments are not changed.
      *
      * @param segments        The segments in the layer
      * @param assignDirection The direction to assign the indexes in
@@ -167,88 +188,84 @@ public class VerticalIndexingHelper {
     private void assignVerticalToLayer(
             final HashSet<Node> segments,
             final MoveDirection assignDirection) {
-        HashSet<Integer> verticalSet = new HashSet<>();
-        this.nextLayerMax = 0;
+        BitSet taken = takenRows(segments);
+        if (taken.cardinality() == segments.size()) {
+            return;
+        }
+        BitSet wanted = (BitSet) taken.clone();
+        IntObjectMap<Node> byRow = new IntObjectMap<>();
+        int outOfScope = taken.length();
         for (Node segment : segments) {
-            Buffer<Edge> edges;
-            if (assignDirection.equals(MoveDirection.LEFT)) {
-                edges = segment.outgoing();
-            } else {
-                edges = segment.incoming();
+            if (verticalMap.containsKey(segment.id())) {
+                continue;
             }
-            int[] verticals = new int[edges.length()];
-            double sum = 0.0;
-            Iterator<Edge> iterator = edges.iterator();
-            for (int i = 0; iterator.hasNext(); i++) {
-                Edge link = iterator.next();
-                int id;
-                if (assignDirection.equals(MoveDirection.LEFT)) {
-                    id = link.to() == segment.id()
-                            ? link.to() : link.from();
-                } else {
-                    id = link.to() == segment.id()
-                            ? link.from() : link.to();
-                }
+            int[] verticals =
+                    neighbourRows(segment, assignDirection, outOfScope);
+            outOfScope += verticals.length;
+            int index = calculateVerticalIndex(verticals, wanted);
+            wanted.set(index);
+            byRow.put(index, segment);
+        }
 
-                if (!verticalMap.containsKey(id)) {
-                    addOutOfScopeVertical(id, i);
-                }
-                assert verticalMap.containsKey(id);
-                verticals[i] = verticalMap.get(id);
-                sum += (double) verticals[i];
+        int free = taken.nextClearBit(0);
+        for (int row = wanted.nextSetBit(0); row >= 0;
+             row = wanted.nextSetBit(row + 1)) {
+            Node segment = byRow.get(row);
+            if (segment != null) {
+                verticalMap.put(segment.id(), free);
+                free = taken.nextClearBit(free + 1);
             }
-
-            int index = calculateVerticalIndex(verticals, sum, verticalSet);
-
-            verticalMap.put(segment.id(), index);
-            verticalSet.add(index);
         }
+    }
 
-        // The lines below shift the parts that can be moved upwards
-        // depending on the space left above the highest vertical index.
-
-        PriorityQueue<Node> nodeQueue = new PriorityQueue<>(
-                Comparator.comparingInt(o -> verticalMap.get(o.id()))
-        );
-
-        nodeQueue.addAll(segments);
-
-        for (int i = 0; !nodeQueue.isEmpty(); i++) {
-            Node node = nodeQueue.poll();
-            verticalMap.put(node.id(), i);
+    /**
+     * Get the vertical indexes of the segments in the given layer
+     * that have one.
+     *
+     * @param segments The segments in the layer
+     * @return The set of vertical indexes taken in the layer
+     */
+    private BitSet takenRows(final HashSet<Node> segments) {
+        BitSet taken = new BitSet(segments.size());
+        for (Node segment : segments) {
+            int row = verticalMap.getOrDefault(segment.id(), NO_VERTICAL);
+            if (row != NO_VERTICAL) {
+                taken.set(row);
+            }
         }
-
-        // This code could be readded in the future and as such I left it here
-
-//        for (Node segment : segments) {
-//            int old = verticalMap.get(segment.id());
-//            if (old - min < 0) {
-//                System.out.println("INDEX : " + (old - min));
-//            }
-//            verticalMap.put(segment.id(), old - min);
-//        }
+        return taken;
     }
 
     /**
-     * Add an index to a segment
-     * that points to a segment that has not been loaded.
+     * Get the vertical indexes of the neighbours of a segment in
+     * the layer assigned before its own. A neighbour that has not
+     * been loaded is placed below the segments of the layer, at the
+     * given index or after it, without storing an index for it.
      *
-     * @param id    The id of the segment that point out of the scope
-     * @param layer The next layer relative to the segment
+     * @param segment         The segment to get the neighbours of
+     * @param assignDirection The direction the indexes are assigned in
+     * @param outOfScope      The first index for neighbours that
+     *                        have not been loaded
+     * @return The vertical indexes of the neighbours
      */
-    private void addOutOfScopeVertical(
-            final int id,
-            final int layer) {
-        if (layerMap.containsKey(layer + 1)) {
-            for (Node s : layerMap.get(layer + 1)) {
-                if (!verticalMap.containsKey(s.id())) {
-                    continue;
-                }
-                nextLayerMax =
-                        Math.max(nextLayerMax, verticalMap.get(s.id()));
-            }
+    private int[] neighbourRows(final Node segment,
+                                final MoveDirection assignDirection,
+                                final int outOfScope) {
+        Buffer<Edge> edges;
+        if (assignDirection.equals(MoveDirection.LEFT)) {
+            edges = segment.outgoing();
+        } else {
+            edges = segment.incoming();
+        }
+        int[] verticals = new int[edges.length()];
+        int missing = outOfScope;
+        Iterator<Edge> iterator = edges.iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            Edge link = iterator.next();
+            int id = link.to() == segment.id() ? link.from() : link.to();
+            int vertical = verticalMap.getOrDefault(id, NO_VERTICAL);
+            verticals[i] = vertical != NO_VERTICAL ? vertical : missing++;
         }
-        nextLayerMax += 1;
-        verticalMap.put(id, nextLayerMax);
+        return verticals;
     }
 }
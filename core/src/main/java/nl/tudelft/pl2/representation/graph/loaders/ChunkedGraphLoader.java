@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Observer;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -66,32 +67,59 @@ public class ChunkedGraphLoader implements GraphLoader {
      */
     private static final int LOAD_BUFFER_AMOUNT = 300;
 
+    /**
+     * The minimum number of layers prefetched beyond the loaded
+     * layers when the graph is moved.
+     */
+    private static final int MIN_PREFETCH_LAYERS = LOAD_BUFFER_AMOUNT;
+
+    /**
+     * The maximum number of layers prefetched beyond the loaded
+     * layers when the graph is moved.
+     */
+    private static final int MAX_PREFETCH_LAYERS = 20 * LOAD_BUFFER_AMOUNT;
+
+    /**
+     * The number of seconds of moving at the current speed
+     * for which layers are prefetched.
+     */
+    private static final double PREFETCH_SECONDS = 2.0;
+
+    /**
+     * The number of seconds after which a move no longer
+     * continues the previous move.
+     */
+    private static final double MOVE_TIMEOUT_SECONDS = 1.0;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
     /**
      * The cache containing the data about the graph.
      */
     private MasterCache cache;
 
     /**
-     * Map that maps layer to a set of the segment in that layer.
+     * Store that maps layer to a set of the segment in that layer
+     * and the id of a segment to its vertical index.
      */
-    private Map<Integer, HashSet<Node>> layerMap;
+    private LayerStore layerStore;
     /**
      * A helper for building the graph.
      */
     private GraphBuilderHelper helper;
     /**
-     * A helper for adding dummy nodes to layers.
+     * The helper that added dummy nodes to the
+     * most recently loaded chunk.
      */
     private DummyNodeHelper dummyNodeHelper;
     /**
-     * A helper for adding vertical indexes to layers.
+     * The helper that added vertical indexes to the
+     * most recently loaded chunk.
      */
     private VerticalIndexingHelper verticalIndexingHelper;
-    /**
-     * Map that maps the id of a segment to its vertical index.
-     */
-    private Map<Integer, Integer> verticalMap;
-
     /**
      * The chunkedGraph being loaded.
      */
@@ -113,10 +141,16 @@ public class ChunkedGraphLoader implements GraphLoader {
             new IntegerInterval(0, 0);
 
     /**
-     * The loadFutures of the loader.
+     * The loadFutures of the loader, which are added to by the
+     * load threads while other threads iterate over them.
      */
     private List<Future> loadFutures;
 
+    /**
+     * The time of the previous move in nanoseconds.
+     */
+    private long previousMoveNanos = System.nanoTime();
+
     /**
      * The amount of layers shown on screen.
      */
@@ -138,7 +172,8 @@ public class ChunkedGraphLoader implements GraphLoader {
     private Map<Integer, HashSet<DummyNode>> dummyMap;
 
     /**
-     * Lock for the layerMap.
+     * Lock serializing the writers of the layerStore.
+     * Readers of the layerStore never take it.
      */
     private ReentrantLock layerMapLock;
 
@@ -183,25 +218,18 @@ public class ChunkedGraphLoader implements GraphLoader {
     public final GraphHandle load(final Path path,
                                   final ThreadCompleter handler) {
         this.helper = new GraphBuilderHelper();
-        this.verticalMap = Collections.synchronizedMap(new HashMap<>());
         this.currentId = (int) (((double) Integer.MIN_VALUE) * ID_MULTIPLIER);
-        this.layerMap = Collections.synchronizedMap(new HashMap<>());
-        this.loadFutures = new LinkedList<>();
+        this.layerStore = new LayerStore();
+        this.loadFutures = new CopyOnWriteArrayList<>();
         this.chunkIntervalMap = Collections.synchronizedMap(new HashMap<>());
         this.chunkMap = Collections.synchronizedMap(new HashMap<>());
 
         this.dummyMap = Collections.synchronizedMap(new HashMap<>());
-        this.dummyNodeHelper =
-                new DummyNodeHelper(this, layerMap, helper);
-
-        this.verticalIndexingHelper =
-                new VerticalIndexingHelper(layerMap, verticalMap, this);
 
         this.chunkedGraph =
                 new ChunkedGraph(
                         this,
-                        verticalMap,
-                        layerMap,
+                        layerStore,
                         path
                 );
 
@@ -242,7 +270,7 @@ public class ChunkedGraphLoader implements GraphLoader {
     }
 
     /**
-     * Get the lock used for concurrency related to the layerMap.
+     * Get the lock serializing the writers of the layerStore.
      *
      * @return The lock
      */
@@ -281,12 +309,12 @@ public class ChunkedGraphLoader implements GraphLoader {
     }
 
     /**
-     * Get the layer map in the loader.
+     * Get the layer store in the loader.
      *
-     * @return The layermap
+     * @return The layer store
      */
-    public final Map<Integer, HashSet<Node>> getLayerMap() {
-        return layerMap;
+    public final LayerStore getLayerStore() {
+        return layerStore;
     }
 
     /**
@@ -404,19 +432,22 @@ public class ChunkedGraphLoader implements GraphLoader {
     }
 
     /**
-     * Load chunks between the given layers.
+     * Load chunks between the given layers. The chunks covering
+     * the layers are resolved by the cache in a single query, which
+     * reads the chunks that are not cached yet in parallel, before
+     * the chunk maps are locked.
      *
      * @param from The lowest layer to load from
      * @param to   The highest layer to load
      */
     private void loadBetween(final long from, final long to) {
         Set<Integer> newChunks = new HashSet<>();
+        scala.collection.immutable.List<Chunk> chunks =
+                cache.retrieveChunksInLayerRange((int) from, (int) to);
         try {
             chunkMapLock.lock();
-            for (long i = from; i <= to; i++) {
-                cache.retrieveChunksByLayer((int) i).foreach(
-                        (chunk) -> addChunkToNewChunks(chunk, newChunks));
-            }
+            chunks.foreach(
+                    (chunk) -> addChunkToNewChunks(chunk, newChunks));
             chunkIntervalLock.lock();
             newChunks.removeAll(chunkIntervalMap.keySet());
             newChunks.forEach(this::addChunkToMaps);
@@ -458,12 +489,43 @@ public class ChunkedGraphLoader implements GraphLoader {
     }
 
     /**
-     * Load the given chunk into the handle.
+     * Load the given chunk into the handle. The chunk is laid out
+     * apart from the shared maps first, after which it is published
+     * into them in a single step.
      *
      * @param chunk The chunk to load
      */
     private void loadChunk(final Chunk chunk) {
         LOGGER.debug("Loading chunk : {}", chunk.cacheChunk().index());
+        StagedChunk staged = stageChunk(chunk);
+
+        try {
+            layerMapLock.lock();
+            staged.publishTo(layerStore);
+            try {
+                dummyMapLock.lock();
+                dummyMap.put(chunk.cacheChunk().index(), staged.dummies());
+            } finally {
+                dummyMapLock.unlock();
+            }
+        } finally {
+            layerMapLock.unlock();
+        }
+        createAndRunColorRunnable(chunk, true);
+        LOGGER.debug("Handle has {} chunks", chunkMap.keySet().size());
+    }
+
+    /**
+     * Lay out the given chunk in copies of its neighbouring layers.
+     * The nodes of the chunk are added to the copies, after which
+     * dummy nodes are added and vertical indexes are assigned in the
+     * copies only. Changes to the links of nodes that are loaded
+     * already are kept in the staged chunk until it is published.
+     *
+     * @param chunk The chunk to lay out
+     * @return The laid out chunk
+     */
+    private StagedChunk stageChunk(final Chunk chunk) {
         int from = Integer.MAX_VALUE;
         int to = Integer.MIN_VALUE;
         Iterator<Integer> it = chunk.layers().iterator();
@@ -473,26 +535,24 @@ public class ChunkedGraphLoader implements GraphLoader {
             to = Math.max(next, to);
         }
 
-        try {
-            layerMapLock.lock();
-            chunk.graph().segments().foreach(this::addNodeToMaps);
-            createAndRunColorRunnable(chunk, true);
-        } finally {
-            layerMapLock.unlock();
-        }
-        int dummyFrom = layerMap.containsKey(from - 1) ? from - 1 : from;
-        int dummyTo = layerMap.containsKey(to + 1) ? to + 1 : to;
+        StagedChunk staged =
+                StagedChunk.copyOf(layerStore, from - 1, to + 1);
+        chunk.graph().segments().foreach(node -> {
+            helper.addNodeToMap(node);
+            return staged.addNode(node);
+        });
 
-        HashSet<DummyNode> dummyNodes =
-                dummyNodeHelper.addDummyNodeToLayers(dummyFrom, dummyTo);
-        try {
-            dummyMapLock.lock();
-            dummyMap.put(chunk.cacheChunk().index(), dummyNodes);
-        } finally {
-            dummyMapLock.unlock();
-        }
+        int dummyFrom = staged.hasLayer(from - 1) ? from - 1 : from;
+        int dummyTo = staged.hasLayer(to + 1) ? to + 1 : to;
+
+        dummyNodeHelper = new DummyNodeHelper(
+                this, staged.layers(), helper, staged.lock(), staged);
+        verticalIndexingHelper = new VerticalIndexingHelper(
+                staged.layers(), staged.verticals(), staged.lock());
+        staged.setDummies(
+                dummyNodeHelper.addDummyNodeToLayers(dummyFrom, dummyTo));
         verticalIndexingHelper.addVerticalOrientation(dummyFrom, dummyTo);
-        LOGGER.debug("Handle has {} chunks", chunkMap.keySet().size());
+        return staged;
     }
 
     /**
@@ -502,17 +562,19 @@ public class ChunkedGraphLoader implements GraphLoader {
      */
     private void unloadChunk(final Chunk chunk) {
         LOGGER.debug("Unloading chunk : {}", chunk.cacheChunk().index());
-        int index;
+        int index = chunk.cacheChunk().index();
+        List<Node> removed = new LinkedList<>();
+        chunk.graph().segments().foreach(removed::add);
         try {
             layerMapLock.lock();
-            chunk.graph().segments().foreach(this::removeNodeFromMaps);
             createAndRunColorRunnable(chunk, false);
-            index = chunk.cacheChunk().index();
             dummyMapLock.lock();
-            if (dummyMap.containsKey(index)) {
-                dummyMap.get(index).forEach(this::removeNodeFromMaps);
-                dummyMap.remove(index);
+            HashSet<DummyNode> dummies = dummyMap.remove(index);
+            if (dummies != null) {
+                removed.addAll(dummies);
             }
+            layerStore.removeAll(removed);
+            removed.forEach(this::removeNodeFromMaps);
         } finally {
             dummyMapLock.unlock();
             layerMapLock.unlock();
@@ -552,42 +614,17 @@ public class ChunkedGraphLoader implements GraphLoader {
     }
 
     /**
-     * Add the given node to the helper and the layerMap.
-     *
-     * @param node The node to add
-     * @return Whether the node was already present or not
-     */
-    private boolean addNodeToMaps(final Node node) {
-        helper.addNodeToMap(node);
-        if (!layerMap.containsKey(node.layer())) {
-            layerMap.put(node.layer(), new HashSet<>());
-        }
-        return layerMap.get(node.layer()).add(node);
-    }
-
-    /**
-     * Remove a node from the layerMap, helper and the verticalMap.
+     * Remove a node that was removed from the layerStore from the
+     * helper.
      *
      * @param node The node to remove
-     * @return If the node was successfully removed
      */
-    private boolean removeNodeFromMaps(final Node node) {
-        int layer = node.layer();
+    private void removeNodeFromMaps(final Node node) {
         helper.removeSegmentFromMap(node);
-        verticalMap.remove(node.id());
-        if (!layerMap.containsKey(layer)) {
-            return false;
-        }
-        layerMap.get(layer).remove(node);
         if (node instanceof DummyNode) {
             restoreEdges((DummyNode) node);
         }
         UIHelper.removeColorFromNode(node);
-        if (layerMap.get(layer).isEmpty()) {
-            layerMap.remove(layer);
-            return true;
-        }
-        return false;
     }
 
     /**
@@ -607,7 +644,7 @@ public class ChunkedGraphLoader implements GraphLoader {
     /**
      * Clear all currently loaded chunks.
      */
-    public final void clearAllChunks() {
+    public final synchronized void clearAllChunks() {
         try {
             chunkMapLock.lock();
             new HashSet<>(chunkMap.values()).forEach(this::unloadChunk);
@@ -617,6 +654,41 @@ public class ChunkedGraphLoader implements GraphLoader {
         }
     }
 
+    /**
+     * Prefetch the layers beyond the loaded layers in the direction
+     * the graph was moved in. The faster the graph is moved, the
+     * more layers are prefetched, such that moving along the graph
+     * does not have to wait for chunks to be read.
+     *
+     * @param fromLayer The centre layer before the move
+     * @param toLayer   The centre layer after the move
+     */
+    public final void prefetchAhead(final int fromLayer, final int toLayer) {
+        long now = System.nanoTime();
+        double seconds = (now - previousMoveNanos) / NANOS_PER_SECOND;
+        previousMoveNanos = now;
+
+        int layers = MIN_PREFETCH_LAYERS;
+        if (seconds < MOVE_TIMEOUT_SECONDS) {
+            double speed = Math.abs(toLayer - fromLayer) / seconds;
+            layers = (int) Math.max(MIN_PREFETCH_LAYERS,
+                    Math.min(MAX_PREFETCH_LAYERS, speed * PREFETCH_SECONDS));
+        }
+
+        if (cache != null && toLayer > fromLayer) {
+            int edge = calculateMaxToLoad() + 1;
+            if (edge <= chunkedGraph.getMaxLayer()) {
+                cache.prefetch(edge,
+                        Math.min(edge + layers, chunkedGraph.getMaxLayer()));
+            }
+        } else if (cache != null && toLayer < fromLayer) {
+            int edge = calculateMinToLoad() - 1;
+            if (edge >= 0) {
+                cache.prefetch(edge, Math.max(edge - layers, 0));
+            }
+        }
+    }
+
     /**
      * Clear the integer interval that stores the previously loaded interval.
      */
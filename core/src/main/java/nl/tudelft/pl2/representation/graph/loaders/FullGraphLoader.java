@@ -14,6 +14,7 @@ import nl.tudelft.pl2.representation.graph.GraphLoader;
 import nl.tudelft.pl2.representation.graph.LoadingState;
 import nl.tudelft.pl2.representation.graph.handles.FullGraph;
 import nl.tudelft.pl2.representation.graph.helpers.DummyNodeHelper;
+import nl.tudelft.pl2.representation.graph.helpers.IntIntMap;
 import nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper;
 import nl.tudelft.pl2.representation.ui.ThreadCompleter;
 import org.apache.logging.log4j.LogManager;
@@ -71,7 +72,7 @@ public class FullGraphLoader implements GraphLoader {
     /**
      * Map that maps a segment to the vertical index of the segment.
      */
-    private HashMap<Integer, Integer> verticalMap;
+    private IntIntMap verticalMap;
 
     /**
      * The full graph being loaded.
@@ -162,7 +163,7 @@ public class FullGraphLoader implements GraphLoader {
     public final GraphHandle load(final Path path,
                                   final ThreadCompleter handler) {
         LOGGER.debug("Starting graph load");
-        verticalMap = new HashMap<>();
+        verticalMap = new IntIntMap();
         layerMap = new HashMap<>();
         helper = new GraphBuilderHelper();
         fullGraph = new FullGraph(
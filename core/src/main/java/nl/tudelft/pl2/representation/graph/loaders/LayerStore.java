@@ -0,0 +1,156 @@
+package nl.tudelft.pl2.representation.graph.loaders;
+
+import nl.tudelft.pl2.representation.external.Node;
+import nl.tudelft.pl2.representation.graph.helpers.IntIntMap;
+import nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Store that maps the index of a layer to the segments in that
+ * layer and the id of a segment to its vertical index, which is
+ * shared between a {@link ChunkedGraphLoader} and the graph it loads.
+ *
+ * The segments of a layer are kept in a set that is never modified
+ * once it is stored, and the vertical indexes in a map that is never
+ * modified once it is stored. A writer replaces the set of a layer
+ * or the map by a modified copy instead, such that readers never
+ * block, never copy and never see either while it is being modified.
+ * Writers must be serialized by the caller.
+ *
+ * Only the sets and the map are copied, not the segments in them.
+ * The links of a segment in the store are changed in place when a
+ * chunk next to it is published, so chunks must be published on the
+ * thread that reads the links of the segments.
+ */
+public final class LayerStore {
+    /**
+     * Map that maps the index of a layer to the
+     * unmodifiable set of segments in that layer.
+     */
+    private final ConcurrentNavigableMap<Integer, Set<Node>> layers =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * Map that maps the id of a segment to its vertical index.
+     */
+    private volatile IntIntMap verticals = new IntIntMap();
+
+    /**
+     * Get the segments in the given layer. The set returned is
+     * not modified by later writes.
+     *
+     * @param layer The index of the layer
+     * @return The unmodifiable set of segments in the layer,
+     * which is empty if the layer is not stored
+     */
+    public Set<Node> get(final int layer) {
+        return layers.getOrDefault(layer, Collections.emptySet());
+    }
+
+    /**
+     * @param layer The index of a layer
+     * @return Whether the store holds segments in the layer
+     */
+    public boolean contains(final int layer) {
+        return layers.containsKey(layer);
+    }
+
+    /**
+     * Get the indexes of the layers in the store, in ascending
+     * order. The set is a view that reflects later writes.
+     *
+     * @return The unmodifiable set of layer indexes
+     */
+    public Set<Integer> layerSet() {
+        return Collections.unmodifiableSet(layers.keySet());
+    }
+
+    /**
+     * Get the vertical index of the segment with the given id.
+     *
+     * @param id The id of the segment
+     * @return The vertical index of the segment, or
+     * {@link VerticalIndexingHelper#NO_VERTICAL} if it has none
+     */
+    public int vertical(final int id) {
+        return verticals.getOrDefault(
+                id, VerticalIndexingHelper.NO_VERTICAL);
+    }
+
+    /**
+     * Set the vertical indexes of the segments in the given map,
+     * copying the vertical indexes in the store once.
+     *
+     * @param added The vertical indexes to set
+     */
+    public void putVerticals(final IntIntMap added) {
+        IntIntMap copy = new IntIntMap(verticals);
+        copy.putAll(added);
+        verticals = copy;
+    }
+
+    /**
+     * Add the given segments to their layers, copying every layer
+     * written to once.
+     *
+     * @param nodes The segments to add
+     */
+    public void addAll(final Collection<? extends Node> nodes) {
+        byLayer(nodes).forEach((layer, added) -> {
+            Set<Node> segments = new HashSet<>(get(layer));
+            segments.addAll(added);
+            layers.put(layer, Collections.unmodifiableSet(segments));
+        });
+    }
+
+    /**
+     * Remove the given segments from their layers and their vertical
+     * indexes, copying every layer written to and the vertical
+     * indexes once. Layers left empty are removed. The segments are
+     * removed from their layers first, such that every segment a
+     * reader finds in a layer has a vertical index.
+     *
+     * @param nodes The segments to remove
+     */
+    public void removeAll(final Collection<? extends Node> nodes) {
+        byLayer(nodes).forEach((layer, removed) -> {
+            Set<Node> segments = new HashSet<>(get(layer));
+            segments.removeAll(removed);
+            if (segments.isEmpty()) {
+                layers.remove(layer);
+            } else {
+                layers.put(layer, Collections.unmodifiableSet(segments));
+            }
+        });
+        IntIntMap copy = new IntIntMap(verticals);
+        nodes.forEach(node -> copy.remove(node.id()));
+        verticals = copy;
+    }
+
+    /**
+     * Group the given segments by their layer.
+     *
+     * @param nodes The segments to group
+     * @return Map that maps the index of a layer to the
+     * given segments in that layer
+     */
+    private static Map<Integer, List<Node>> byLayer(
+            final Collection<? extends Node> nodes) {
+        Map<Integer, List<Node>> grouped = new HashMap<>();
+        for (Node node : nodes) {
+            grouped.computeIfAbsent(node.layer(), l -> new LinkedList<>())
+                    .add(node);
+        }
+        return grouped;
+    }
+}
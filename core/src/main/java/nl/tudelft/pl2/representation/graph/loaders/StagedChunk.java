@@ -0,0 +1,204 @@
+package nl.tudelft.pl2.representation.graph.loaders;
+
+import nl.tudelft.pl2.representation.external.Node;
+import nl.tudelft.pl2.representation.external.components.DummyNode;
+import nl.tudelft.pl2.representation.graph.helpers.EdgeEditor;
+import nl.tudelft.pl2.representation.graph.helpers.IntIntMap;
+import nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A chunk that is laid out apart from the shared store of a
+ * {@link ChunkedGraphLoader}. The layers around the chunk are
+ * copied from the shared store, after which the nodes of the chunk
+ * are added, dummy nodes are inserted and vertical indexes are
+ * assigned in the copies only. The copies share their segments with
+ * the shared store, so the links of segments in the shared store are
+ * not changed while the chunk is laid out. The changes to them are
+ * kept instead, and made when the chunk is published into the shared
+ * store, after its segments and vertical indexes. Readers of the
+ * shared store thus never find a link to a dummy node that is not
+ * in the store yet.
+ */
+final class StagedChunk implements EdgeEditor {
+    /**
+     * The shared store the layers were copied from.
+     */
+    private final LayerStore source;
+
+    /**
+     * Map that maps the index of a layer to the copied
+     * segments in that layer.
+     */
+    private final Map<Integer, HashSet<Node>> layers = new HashMap<>();
+
+    /**
+     * Map that maps the id of a segment to its vertical index.
+     */
+    private final IntIntMap verticals = new IntIntMap();
+
+    /**
+     * The nodes of the chunk and the dummy nodes added for it,
+     * which are to be published.
+     */
+    private final List<Node> added = new LinkedList<>();
+
+    /**
+     * The dummy nodes added for the chunk.
+     */
+    private HashSet<DummyNode> dummies = new HashSet<>();
+
+    /**
+     * The lock the helpers laying out the chunk lock the copies
+     * with, which is never contended.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * The changes to the links of segments in the shared store,
+     * in the order they were made in.
+     */
+    private final List<Runnable> pendingEdits = new LinkedList<>();
+
+    /**
+     * Creates an empty staged chunk.
+     *
+     * @param layerStore The shared store the layers are copied from
+     */
+    private StagedChunk(final LayerStore layerStore) {
+        this.source = layerStore;
+    }
+
+    /**
+     * Creates a staged chunk from copies of the given layers of the
+     * shared store. Must not be called while the shared store is
+     * written to.
+     *
+     * @param layerStore The shared store of layers to segments
+     * @param minLayer   The first layer to copy
+     * @param maxLayer   The last layer to copy
+     * @return The staged chunk holding the copies
+     */
+    static StagedChunk copyOf(final LayerStore layerStore,
+                              final int minLayer,
+                              final int maxLayer) {
+        StagedChunk staged = new StagedChunk(layerStore);
+        for (int i = minLayer - 1; i <= maxLayer; i++) {
+            Set<Node> segments = layerStore.get(i);
+            if (segments.isEmpty()) {
+                continue;
+            }
+            if (i >= minLayer) {
+                staged.layers.put(i, new HashSet<>(segments));
+            }
+            for (Node node : segments) {
+                int vertical = layerStore.vertical(node.id());
+                if (vertical != VerticalIndexingHelper.NO_VERTICAL) {
+                    staged.verticals.put(node.id(), vertical);
+                }
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * Add a node of the chunk to the copied layers.
+     *
+     * @param node The node to add
+     * @return Whether the node was not in its layer yet
+     */
+    boolean addNode(final Node node) {
+        added.add(node);
+        return layers.computeIfAbsent(node.layer(), l -> new HashSet<>())
+                .add(node);
+    }
+
+    /**
+     * Set the dummy nodes that were added for the chunk.
+     *
+     * @param dummyNodes The dummy nodes
+     */
+    void setDummies(final HashSet<DummyNode> dummyNodes) {
+        this.dummies = dummyNodes;
+        added.addAll(dummyNodes);
+    }
+
+    /**
+     * Change the links of a segment of the chunk at once, and keep
+     * the change to the links of a segment in the shared store until
+     * the chunk is published.
+     *
+     * @param node The segment whose links are changed
+     * @param edit The change to the links of the segment
+     */
+    @Override
+    public void edit(final Node node, final Runnable edit) {
+        if (source.get(node.layer()).contains(node)) {
+            pendingEdits.add(edit);
+        } else {
+            edit.run();
+        }
+    }
+
+    /**
+     * Publish the laid out chunk into the shared store. The vertical
+     * indexes are published first, such that every segment a reader
+     * finds in a layer has a vertical index, and the links of the
+     * segments in the shared store are changed last, such that they
+     * only link to segments a reader finds in a layer. Must be called
+     * by the only writer of the shared store, on the thread reading
+     * the links of its segments.
+     *
+     * @param layerStore The shared store of layers to segments
+     */
+    void publishTo(final LayerStore layerStore) {
+        layerStore.putVerticals(verticals);
+        layerStore.addAll(added);
+        pendingEdits.forEach(Runnable::run);
+        pendingEdits.clear();
+    }
+
+    /**
+     * @param layer A layer
+     * @return Whether the copies hold the layer
+     */
+    boolean hasLayer(final int layer) {
+        return layers.containsKey(layer);
+    }
+
+    /**
+     * @return The copied layers
+     */
+    Map<Integer, HashSet<Node>> layers() {
+        return layers;
+    }
+
+    /**
+     * @return The copied vertical indexes
+     */
+    IntIntMap verticals() {
+        return verticals;
+    }
+
+    /**
+     * @return The dummy nodes added for the chunk
+     */
+    HashSet<DummyNode> dummies() {
+        return dummies;
+    }
+
+    /**
+     * @return The lock of the copies
+     */
+    Lock lock() {
+        return lock;
+    }
+}
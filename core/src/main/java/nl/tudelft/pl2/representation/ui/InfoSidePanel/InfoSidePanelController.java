@@ -294,7 +294,7 @@ public class InfoSidePanelController
             nodePosition.setText("" + currentNode.id());
             nodeLayer.setText("" + currentNode.layer());
             sequence.setText(currentNode.content());
-            sequenceLength.setText("" + currentNode.content().length());
+            sequenceLength.setText("" + currentNode.contentLength());
             incoming.setText("" + helper.createJavaListFromMutableBuffer(
                     currentNode.incoming()).size());
             outgoing.setText("" + helper.createJavaListFromMutableBuffer(
@@ -102,6 +102,6 @@ class DrawableChain extends DrawableAbstractNode {
                 / MAX_SEQUENCE_LENGTH;
         double b = -Math.pow(LOG_BASE, MIN_WIDTH_FACTOR) / a;
 
-        return Math.log(a * (getNode().content().length() - b));
+        return Math.log(a * (getNode().contentLength() - b));
     }
 }
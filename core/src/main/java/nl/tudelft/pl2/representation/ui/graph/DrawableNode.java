@@ -152,7 +152,7 @@ class DrawableNode extends DrawableAbstractNode {
                     width, height(),
                     ARC_WIDTH, ARC_WIDTH);
 
-            String content = getNode().content();
+            int contentLength = getNode().contentLength();
             Set<Color> color;
             if (getGenomePainter() != null) {
                 color = getGenomePainter().getColorById(getNode().id());
@@ -166,12 +166,17 @@ class DrawableNode extends DrawableAbstractNode {
 
             gc.setFill(Color.BLACK);
 
-            if (Math.min(content.length(), MINIMUM_CONTENT_CHARS)
+            String content;
+            if (Math.min(contentLength, MINIMUM_CONTENT_CHARS)
                     * PIXELS_PER_CHAR >= width) {
                 content = "";
-            } else if (content.length() * PIXELS_PER_CHAR >= width) {
+            } else if (contentLength * PIXELS_PER_CHAR >= width) {
                 int charCount = (int) (width / PIXELS_PER_CHAR);
-                content = content.substring(0, charCount) + "...";
+                CharSequence shown =
+                        getNode().sequence().subSequence(0, charCount);
+                content = shown + "...";
+            } else {
+                content = getNode().content();
             }
 
             gc.fillText(content, startX + width / 2,
@@ -263,7 +268,7 @@ class DrawableNode extends DrawableAbstractNode {
             if (!map.isEmpty()) {
                 IntegerInterval coordinates = new IntegerInterval(
                         (long) coordinate,
-                        (long) coordinate + getNode().content().length());
+                        (long) coordinate + getNode().contentLength());
 
                 map.get().valuesIntersecting(coordinates).foreach(tuple -> {
                     drawTrait(gc, counter, coordinates, tuple);
@@ -325,7 +330,7 @@ class DrawableNode extends DrawableAbstractNode {
                 / MAX_SEQUENCE_LENGTH;
         double b = -Math.pow(LOG_BASE, MIN_WIDTH_FACTOR) / a;
 
-        return Math.log(a * (getNode().content().length() - b));
+        return Math.log(a * (getNode().contentLength() - b));
     }
 
     /**
@@ -4,12 +4,10 @@ import javafx.application.Platform;
 import javafx.scene.paint.Color;
 import nl.tudelft.pl2.representation.external.Node;
 import nl.tudelft.pl2.representation.graph.GraphHandle;
-import nl.tudelft.pl2.representation.ui.InfoSidePanel.SampleSelectionController;
-import nl.tudelft.pl2.representation.ui.UIHelper;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -30,9 +28,19 @@ public class GenomePainter {
     private HashMap<Integer, Set<Color>> colorMap;
 
     /**
-     * Genome color map.
+     * Map that maps the index of a selected genome to its color.
      */
-    private HashMap<String, Color> genomeColorMap;
+    private HashMap<Integer, Color> genomeColorMap;
+
+    /**
+     * The indices of the selected genomes.
+     */
+    private BitSet selectedGenomes;
+
+    /**
+     * The names of the genomes in the graph.
+     */
+    private String[] genomeNames;
 
     /**
      * Lock for the colorMap.
@@ -56,6 +64,8 @@ public class GenomePainter {
         this.colorMap = new HashMap<>();
         this.colorMapLock = new ReentrantLock();
         this.genomeColorMap = new HashMap<>();
+        this.selectedGenomes = new BitSet();
+        this.genomeNames = new String[0];
         this.graphHandle = graph;
         this.nodeDrawer = drawer;
     }
@@ -70,7 +80,12 @@ public class GenomePainter {
         try {
             colorMapLock.lock();
 
-            genomeColorMap.put(genome, color);
+            genomeNames = graphHandle.getGenomes();
+            int index = graphHandle.genomeIndex(genome);
+            if (index >= 0) {
+                genomeColorMap.put(index, color);
+                selectedGenomes.set(index);
+            }
 
             graphHandle.getNodesByGenome(genome).forEach(node -> {
                 if (colorMap.containsKey(node.id())) {
@@ -101,11 +116,13 @@ public class GenomePainter {
      * @param color  color of the genome.
      */
     public final void removeSelected(final String genome, final Color color) {
-
-        genomeColorMap.remove(genome);
-
         try {
             colorMapLock.lock();
+            int index = graphHandle.genomeIndex(genome);
+            if (index >= 0) {
+                genomeColorMap.remove(index);
+                selectedGenomes.clear(index);
+            }
             graphHandle.getNodesByGenome(genome).forEach(node -> {
                 if (colorMap.containsKey(node.id())) {
                     Set<Color> colors = colorMap.get(node.id());
@@ -142,60 +159,29 @@ public class GenomePainter {
     }
 
     /**
-     * Adds a new node to the color map.
+     * Adds a new node to the color map. The genomes of the node
+     * are intersected with the selected genomes, so only the
+     * genomes that are both selected and pass through the node
+     * are visited.
      *
      * @param node Node
      * @return If a color was assigned
      */
     public final boolean addNewNode(final Node node) {
-        boolean found = false;
-        if (genomeColorMap.size() != 0) {
-            Map<String, String> options = node.getOptions();
-
-            if (options.containsKey(
-                    SampleSelectionController.GENOME_TAG)) {
-                String[] sampleStrings =
-                        convertIndexToGenome(options
-                                .get(SampleSelectionController.GENOME_TAG)
-                                .split(";"));
-
-                for (String sample : sampleStrings) {
-                    if (genomeColorMap.containsKey(sample)) {
-                        if (colorMap.containsKey(node.id())) {
-                            found = true;
-                            colorMap.get(node.id())
-                                    .add(genomeColorMap.get(sample));
-                        } else {
-                            found = true;
-                            Set<Color> colorSet = new HashSet<>();
-                            colorSet.add(genomeColorMap.get(sample));
-                            colorMap.put(node.id(), colorSet);
-                        }
-                    }
-                }
-            }
+        if (selectedGenomes.isEmpty()) {
+            return false;
         }
-        return found;
-    }
-
-    /**
-     * Converts index strings to genome names.
-     *
-     * @param strings Index strings.
-     * @return Genome name strings
-     */
-    private String[] convertIndexToGenome(final String[] strings) {
-        String[] converted = new String[strings.length];
-        String[] genomes = UIHelper.getGraph().getGenomes();
-        for (int i = 0; i < strings.length; i++) {
-            try {
-                int index = Integer.parseInt(strings[i]);
-                converted[i] = genomes[index];
-            } catch (NumberFormatException e) {
-                return strings;
-            }
+        BitSet shown = (BitSet) node.genomes(genomeNames).clone();
+        shown.and(selectedGenomes);
+        if (shown.isEmpty()) {
+            return false;
         }
-        return converted;
+
+        Set<Color> colorSet = colorMap.computeIfAbsent(node.id(),
+                id -> new HashSet<>());
+        shown.stream().forEach(index ->
+                colorSet.add(genomeColorMap.get(index)));
+        return true;
     }
 
     /**
@@ -0,0 +1,68 @@
+package nl.tudelft.pl2.data
+
+import java.util
+
+import nl.tudelft.pl2.data.Graph.{Coordinates, Options}
+import nl.tudelft.pl2.representation.ui.InfoSidePanel.SampleSelectionController
+
+/**
+  * Builds the sets of genomes passing through nodes, represented
+  * as a [[util.BitSet]] in which bit g is set when genome g passes
+  * through the node. Once built, a node can be tested against a
+  * selection of genomes by a bitwise AND, without splitting or
+  * comparing any of the genome strings of the node again.
+  *
+  * The sets handed out are kept by the nodes and are shared, so
+  * they are cloned before they are modified.
+  */
+object GenomeSet {
+
+  /**
+    * The set holding no genomes.
+    */
+  final val EMPTY: util.BitSet = new util.BitSet(0)
+
+  /**
+    * Builds the genome set of a node from its genome coordinates,
+    * or from its genome option when it has no coordinates. The
+    * entries of the option are either indices into the genomes of
+    * the graph or names of genomes of the graph. Entries naming no
+    * genome of the graph are left out.
+    *
+    * @param coordinates The genome coordinates of the node.
+    * @param options     The options of the node.
+    * @param names       The names of the genomes in the graph.
+    * @return The genomes passing through the node.
+    */
+  //scalastyle:off null
+  def apply(coordinates: Coordinates, options: Options, names: Array[String]): util.BitSet =
+    if (coordinates != null && coordinates.nonEmpty) {
+      val set = new util.BitSet(names.length)
+      coordinates.keys.foreach(g => set.set(g))
+      set
+    } else if (options != null && options.contains(SampleSelectionController.GENOME_TAG)) {
+      fromOption(options(SampleSelectionController.GENOME_TAG)._2, names)
+    } else {
+      EMPTY
+    }
+  //scalastyle:on null
+
+  /**
+    * @param option The value of the genome option of a node.
+    * @param names  The names of the genomes in the graph.
+    * @return The genomes listed by the option.
+    */
+  def fromOption(option: String, names: Array[String]): util.BitSet = {
+    val set = new util.BitSet(names.length)
+    option.split(';').filterNot(_.isEmpty).foreach(s =>
+      if (s forall Character.isDigit) {
+        set.set(s.toInt)
+      } else {
+        val index = names.indexOf(s)
+        if (index >= 0) {
+          set.set(index)
+        }
+      })
+    set
+  }
+}
@@ -1,7 +1,12 @@
 package nl.tudelft.pl2.data
 
 import java.io.BufferedReader
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Path, StandardOpenOption}
 import java.util.Observer
+import java.util.concurrent.{Callable, ExecutionException, Executors, ExecutorService, Future}
 import java.util.logging.Logger
 
 import nl.tudelft.pl2.data.Graph.Options
@@ -10,6 +15,8 @@ import nl.tudelft.pl2.data.AssertionHelper.assertAndThrow
 import nl.tudelft.pl2.representation.graph.LoadingState
 import org.apache.logging.log4j.LogManager
 
+import scala.collection.mutable
+
 /**
   * An exception used to clarify something went wrong
   * during parsing. Most often this includes some syntactical
@@ -31,7 +38,7 @@ case class Gfa1ParseException(msg: String,
   * output manager. This output managing is handled
   * through a Cache.
   *
-  * In functioning, the parsing only splits lines and
+  * In functioning, the parsing only tokenizes lines and
   * checks the syntactical validity of that line. Each
   * line is identified to be either a segment, link,
   * header or comment and appropriate actions are
@@ -41,6 +48,11 @@ case class Gfa1ParseException(msg: String,
   * ignored as these are not present in the population
   * graphs of interest.
   *
+  * Large files can be parsed with [[parseParallel]], which
+  * splits the file into byte ranges starting at segment lines,
+  * tokenizes these ranges on a pool of workers and registers
+  * the resulting [[Gfa1Record]]s with the builder in file order.
+  *
   * @author Chris Lemaire
   */
 object Gfa1Parser {
@@ -75,11 +87,53 @@ object Gfa1Parser {
     */
   private final val DELIMITER = '\t'
 
+
+  /**
+    * The minimum size in bytes of a GFA file for which
+    * parsing it in parallel pays off.
+    */
+  final val PARALLEL_MIN_BYTES: Long = 32L * 1024 * 1024
+
+  /**
+    * The number of bytes of the GFA file handed to a single
+    * worker when parsing in parallel.
+    */
+  final val RANGE_BYTES: Int = 8 * 1024 * 1024
+
   /**
-    * Default delimiter used to separate tag, type and
-    * value in an option.
+    * The number of ranges per worker that may be parsed ahead
+    * of the range that is currently being registered. This
+    * bounds the memory held by parsed, unregistered records.
     */
-  private final val OPTION_DELIMITER = ':'
+  private final val RANGES_AHEAD_PER_WORKER = 2
+
+  /**
+    * The number of bytes read at once while searching for
+    * the start of the next segment line.
+    */
+  private final val SCAN_BYTES = 64 * 1024
+
+  /**
+    * The number of bytes of the GFA file mapped into memory
+    * at once when parsing a mapped file.
+    */
+  final val WINDOW_BYTES: Int = 64 * 1024 * 1024
+
+  private final val NEWLINE: Byte = '\n'.toByte
+
+  /**
+    * The bytes identifying the type of a line.
+    */
+  private final val HEADER_TYPE: Byte = 'H'.toByte
+  private final val SEGMENT_TYPE: Byte = 'S'.toByte
+  private final val LINK_TYPE: Byte = 'L'.toByte
+  private final val COMMENT_TYPE: Byte = '#'.toByte
+
+  /**
+    * The bytes representing the polarity of a segment in a link.
+    */
+  private final val FORWARD: Byte = '+'.toByte
+  private final val REVERSED: Byte = '-'.toByte
 
   /**
     * Parses a GFA1 file through a given buffered reader.
@@ -96,120 +150,419 @@ object Gfa1Parser {
             builder: ZeroZoomBuilder,
             observer: Observer,
             size: Long): Unit = {
-    var lineSplit: Array[String] = new Array[String](0)
-
     LOGGER.debug("Parsing file with {} bytes", size)
-    var bytesRead = 0
-    val milestone = if (size / MILESTONES > 0) size / MILESTONES else 1
-    var passedMilestones: Long = 0
-    LOGGER.debug("A milestone is {} bytes", milestone)
+    val progress = new Gfa1Progress(observer, size)
+    var bytesRead = 0L
 
     reader.lines().forEach(line => {
+      // The reader strips line terminators, count one per line.
+      bytesRead += line.length + 1
+      progress.advanceTo(bytesRead)
       if (!line.isEmpty) {
-        bytesRead += line.length
-
-        val passed = bytesRead / milestone
-        if (passed > passedMilestones) {
-          passedMilestones = passed
-          //scalastyle:off null
-          observer.update(null, LoadingState.MILESTONE)
-          //scalastyle:on null
+        parseLine(line).foreach(_.register(builder))
+      }
+    })
+    progress.finish()
+    LOGGER.debug("Parser parsed {} bytes", bytesRead)
+  }
+
+  /**
+    * Parses a GFA1 file at the given path by mapping it into
+    * memory in windows of roughly `windowBytes` bytes. Lines are
+    * tokenized straight from the mapped ASCII bytes, such that the
+    * file is never decoded to characters as a whole. Each window
+    * ends after the last complete line in it; a line longer than
+    * a window grows the window until the line fits.
+    *
+    * Progress is reported in byte offsets into the file.
+    *
+    * @param path        The path to the GFA file.
+    * @param builder     The [[ZeroZoomBuilder]] used to store the read Graph.
+    * @param observer    The observer notified of the parsing progress.
+    * @param windowBytes The number of bytes mapped at once.
+    */
+  def parseMapped(path: Path,
+                  builder: ZeroZoomBuilder,
+                  observer: Observer,
+                  windowBytes: Int = WINDOW_BYTES): Unit = {
+    val channel = FileChannel.open(path, StandardOpenOption.READ)
+    try {
+      val size = channel.size()
+      LOGGER.debug("Parsing file with {} bytes in windows of {} bytes", size, windowBytes)
+      val progress = new Gfa1Progress(observer, size)
+      var offset = 0L
+      var window = Math.max(1, windowBytes)
+      //scalastyle:off while
+      while (offset < size) {
+        //scalastyle:on while
+        val length = Math.min(size - offset, window.toLong).toInt
+        val buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+        val end = if (offset + length == size) length else lastLineEnd(buffer, length)
+        if (end == 0) {
+          window = Math.min(Integer.MAX_VALUE / 2, window) * 2
+        } else {
+          val tokenizer = new Gfa1Tokenizer(buffer, 0, end)
+          //scalastyle:off while
+          while (tokenizer.nextLine()) {
+            //scalastyle:on while
+            parseRecord(tokenizer).foreach(_.register(builder))
+            progress.advanceTo(offset + tokenizer.lineEnd)
+          }
+          offset += end
+          window = Math.max(1, windowBytes)
         }
+      }
+      progress.finish()
+      LOGGER.debug("Parser parsed {} bytes", size)
+    } finally {
+      channel.close()
+    }
+  }
 
-        lineSplit = line.split(DELIMITER)
-        lineSplit(TYPE_COL) match {
-          case "H" => builder.registerHeader(
-            parseOptionals(lineSplit, HEADER_OPTIONS_COL))
-          case "S" => parseSegment(builder, lineSplit)
-          case "L" => parseLink(builder, lineSplit)
-          case "#" => // A comment, don't do anything
-          case _ => throw Gfa1ParseException(
-            s"Unrecognized line type '${lineSplit(TYPE_COL)}'\n" +
-              s"for line: $line", lineSplit)
+  /**
+    * Finds the end of the last complete line in the buffer.
+    *
+    * @param buffer The buffer to search.
+    * @param length The number of bytes in the buffer.
+    * @return The index after the last newline in the buffer,
+    *         or 0 if the buffer contains no newline.
+    */
+  private def lastLineEnd(buffer: ByteBuffer, length: Int): Int = {
+    var i = length - 1
+    //scalastyle:off while
+    while (i >= 0 && buffer.get(i) != NEWLINE) {
+      i -= 1
+    }
+    //scalastyle:on while
+    i + 1
+  }
+
+  /**
+    * Parses a GFA1 file at the given path using the given number
+    * of workers. The file is split into ranges of roughly
+    * `rangeBytes` bytes, each of which starts at a segment line
+    * so that a segment and the links following it are always parsed
+    * by the same worker. Ranges are tokenized concurrently, but their
+    * records are registered with the builder in file order, which is
+    * required as layers are assigned while registering.
+    *
+    * @param path       The path to the GFA file.
+    * @param builder    The [[ZeroZoomBuilder]] used to store the read Graph.
+    * @param observer   The observer notified of the parsing progress.
+    * @param workers    The number of threads tokenizing ranges.
+    * @param rangeBytes The number of bytes per range.
+    */
+  def parseParallel(path: Path,
+                    builder: ZeroZoomBuilder,
+                    observer: Observer,
+                    workers: Int,
+                    rangeBytes: Int = RANGE_BYTES): Unit = {
+    val size = Files.size(path)
+    val numRanges = ((size + rangeBytes - 1) / rangeBytes).toInt
+    val progress = new Gfa1Progress(observer, size)
+    val maxAhead = Math.max(1, workers) * RANGES_AHEAD_PER_WORKER
+    LOGGER.debug("Parsing file with {} bytes in {} ranges", size, numRanges)
+
+    val pool: ExecutorService = Executors.newFixedThreadPool(Math.max(1, workers))
+    val pending = mutable.Queue[Future[mutable.Buffer[Gfa1Record]]]()
+    var nextRange = 0
+    try {
+      for (range <- 0 until numRanges) {
+        //scalastyle:off while
+        while (nextRange < numRanges && pending.size < maxAhead) {
+          //scalastyle:on while
+          pending.enqueue(pool.submit(rangeParser(path,
+            nextRange.toLong * rangeBytes,
+            Math.min(size, (nextRange + 1L) * rangeBytes), size)))
+          nextRange += 1
         }
+        awaitRange(pending.dequeue()).foreach(_.register(builder))
+        progress.advanceTo(Math.min(size, (range + 1L) * rangeBytes))
       }
-    })
-    //scalastyle:off null
-    observer.update(null, LoadingState.FULLY_PARSED)
-    //scalastyle:on null
-    LOGGER.debug("Parser parsed {} bytes", bytesRead)
+    } finally {
+      pending.foreach(_.cancel(true))
+      pool.shutdownNow()
+    }
+    progress.finish()
+    LOGGER.debug("Parser parsed {} bytes", size)
+  }
+
+  /**
+    * Waits for the records of a range to be parsed. Exceptions
+    * thrown while parsing the range are rethrown as they were
+    * thrown by the worker.
+    *
+    * @param future The future of the range being parsed.
+    * @return The records of the range in file order.
+    */
+  private def awaitRange(future: Future[mutable.Buffer[Gfa1Record]]):
+  mutable.Buffer[Gfa1Record] =
+    try {
+      future.get()
+    } catch {
+      case e: ExecutionException => throw e.getCause
+    }
+
+  /**
+    * Creates a [[Callable]] parsing all lines in the given
+    * range of the file. The range is moved to start at the first
+    * segment line at or after `start` and to end right before the
+    * first segment line at or after `end`, such that consecutive
+    * ranges neither overlap nor leave gaps.
+    *
+    * @param path  The path to the GFA file.
+    * @param start The first byte of the unaligned range.
+    * @param end   The byte after the unaligned range.
+    * @param size  The size of the file.
+    * @return A [[Callable]] returning the records of the range.
+    */
+  private def rangeParser(path: Path,
+                          start: Long,
+                          end: Long,
+                          size: Long): Callable[mutable.Buffer[Gfa1Record]] =
+    () => {
+      val channel = FileChannel.open(path, StandardOpenOption.READ)
+      try {
+        val first = if (start == 0) 0L else findSegmentStart(channel, start, size)
+        val last = if (end >= size) size else findSegmentStart(channel, end, size)
+        if (first < last) {
+          val bytes = new Array[Byte]((last - first).toInt)
+          readFully(channel, first, bytes)
+          parseLines(bytes)
+        } else {
+          mutable.ArrayBuffer[Gfa1Record]()
+        }
+      } finally {
+        channel.close()
+      }
+    }
+
+  /**
+    * Finds the offset of the first segment line starting at or
+    * after the given position in the file.
+    *
+    * @param channel The channel to the GFA file.
+    * @param pos     The position to start searching from, at least 1.
+    * @param size    The size of the file.
+    * @return The offset of the first segment line at or after `pos`,
+    *         or `size` when there is no such line.
+    */
+  private def findSegmentStart(channel: FileChannel, pos: Long, size: Long): Long = {
+    val buf = ByteBuffer.allocate(SCAN_BYTES)
+    var offset = pos - 1
+    var prev: Byte = 0
+    var found = size
+    //scalastyle:off while
+    while (found == size && offset < size) {
+      buf.clear()
+      val read = channel.read(buf, offset)
+      var i = 0
+      while (found == size && i < read) {
+        val b = buf.get(i)
+        if (offset + i >= pos && prev == NEWLINE && b == SEGMENT_TYPE) {
+          found = offset + i
+        }
+        prev = b
+        i += 1
+      }
+      offset += Math.max(read, 1)
+    }
+    //scalastyle:on while
+    found
   }
 
   /**
-    * Parses a single option and returns a tuple
-    * representing the tag, type and value of that
-    * option.
+    * Reads bytes from the channel until the given array is full.
     *
-    * @param option String representing a single option.
-    * @return Tuple representing an option object.
+    * @param channel The channel to read from.
+    * @param offset  The offset in the file to start reading at.
+    * @param bytes   The array to fill.
     */
-  private def parseOption(option: String): (String, (Char, String)) = {
-    val optionSplit = option.split(OPTION_DELIMITER)
-    (optionSplit(0), (optionSplit(1)(0), optionSplit(2)))
+  private def readFully(channel: FileChannel, offset: Long, bytes: Array[Byte]): Unit = {
+    val buf = ByteBuffer.wrap(bytes)
+    //scalastyle:off while
+    while (buf.hasRemaining) {
+      if (channel.read(buf, offset + buf.position()) < 0) {
+        throw Gfa1ParseException(s"Unexpected end of file at ${offset + buf.position()}",
+          Array())
+      }
+    }
+    //scalastyle:on while
   }
 
   /**
-    * Parses the options provided from the end of a
-    * line. Given is a line-split and the index from
-    * which options can be read.
+    * Parses all lines in the given bytes.
     *
-    * @param split Line split from which options will
-    *              have to be parsed.
-    * @param from  Index from which on options should be
-    *              parsed.
-    * @return The map of options parsed.
+    * @param bytes ASCII encoded lines of a GFA file.
+    * @return The records of the lines in order.
     */
-  private def parseOptionals(split: Array[String],
-                             from: Int): Options = {
-    split.drop(from).map(parseOption).toMap
+  private def parseLines(bytes: Array[Byte]): mutable.Buffer[Gfa1Record] = {
+    val records = mutable.ArrayBuffer[Gfa1Record]()
+    val tokenizer = new Gfa1Tokenizer(ByteBuffer.wrap(bytes), 0, bytes.length)
+    //scalastyle:off while
+    while (tokenizer.nextLine()) {
+      //scalastyle:on while
+      parseRecord(tokenizer).foreach(records += _)
+    }
+    records
   }
 
   /**
-    * Parses a single Segment object from a line-split.
+    * Parses a single non-empty line of a GFA1 file into
+    * the record it represents.
     *
-    * @param builder The [[ZeroZoomBuilder]] used to store the
-    *                graph.
-    * @param split   The line split of the line including
-    *                the Segment object to be parsed.
-    * @return Segment object representing given line-split.
+    * @param line The line to parse.
+    * @return The record represented by the line, or [[None]]
+    *         when the line is a comment.
     */
-  private def parseSegment(builder: ZeroZoomBuilder,
-                           split: Array[String]): Unit = {
-    assertAndThrow(split.length >= SEG_OPTIONS_COL, Gfa1ParseException(
+  def parseLine(line: String): Option[Gfa1Record] = {
+    val bytes = line.getBytes(StandardCharsets.US_ASCII)
+    val tokenizer = new Gfa1Tokenizer(ByteBuffer.wrap(bytes), 0, bytes.length)
+    if (tokenizer.nextLine()) parseRecord(tokenizer) else None
+  }
+
+  /**
+    * Parses the line the given tokenizer currently points
+    * at into the record it represents.
+    *
+    * @param tokenizer The tokenizer pointing at the line to parse.
+    * @return The record represented by the line, or [[None]]
+    *         when the line is a comment.
+    */
+  def parseRecord(tokenizer: Gfa1Tokenizer): Option[Gfa1Record] = {
+    val lineType = if (tokenizer.columnLength(TYPE_COL) == 1) {
+      tokenizer.byteAt(TYPE_COL, 0)
+    } else {
+      0.toByte
+    }
+    lineType match {
+      case HEADER_TYPE => Some(Gfa1Header(tokenizer.options(HEADER_OPTIONS_COL)))
+      case SEGMENT_TYPE => Some(parseSegment(tokenizer))
+      case LINK_TYPE => Some(parseLink(tokenizer))
+      case COMMENT_TYPE => None // A comment, don't do anything
+      case _ => throw Gfa1ParseException(
+        s"Unrecognized line type '${tokenizer.string(TYPE_COL)}'\n" +
+          s"for line: ${tokenizer.lineString}", split(tokenizer))
+    }
+  }
+
+  /**
+    * Splits the current line of the tokenizer into [[String]]s.
+    * Only used to report errors.
+    *
+    * @param tokenizer The tokenizer pointing at the line.
+    * @return The columns of the line.
+    */
+  private def split(tokenizer: Gfa1Tokenizer): Array[String] =
+    tokenizer.lineString.split(DELIMITER)
+
+  /**
+    * Parses a single Segment object from a tokenized line.
+    *
+    * @param tokenizer The tokenizer pointing at the line including
+    *                  the Segment object to be parsed.
+    * @return Segment record representing the given line.
+    */
+  private def parseSegment(tokenizer: Gfa1Tokenizer): Gfa1Segment = {
+    assertAndThrow(tokenizer.columns >= SEG_OPTIONS_COL, Gfa1ParseException(
       s"Expected at least $SEG_OPTIONS_COL arguments to segment line,\n" +
-        s"\tbut there were only ${split.length}.", split))
+        s"\tbut there were only ${tokenizer.columns}.", split(tokenizer)))
 
-    builder.registerNode(name = split(SEG_NAME_COL),
-      content = split(SEG_CONTENT_COL),
-      options = parseOptionals(split, SEG_OPTIONS_COL))
+    Gfa1Segment(bytes = tokenizer.buffer,
+      name = tokenizer.columnStart(SEG_NAME_COL),
+      nameLength = tokenizer.columnLength(SEG_NAME_COL),
+      content = tokenizer.columnStart(SEG_CONTENT_COL),
+      contentLength = tokenizer.columnLength(SEG_CONTENT_COL),
+      options = tokenizer.options(SEG_OPTIONS_COL))
   }
 
   /**
-    * Parses a single Link object from a line-split.
+    * Checks whether the given column holds a single
+    * polarity character.
+    *
+    * @param tokenizer The tokenizer pointing at the line.
+    * @param col       The column holding the polarity.
+    * @return `true` if the column is either `+` or `-`.
+    */
+  private def isPolarity(tokenizer: Gfa1Tokenizer, col: Int): Boolean =
+    tokenizer.columnLength(col) == 1 &&
+      (tokenizer.byteAt(col, 0) == FORWARD || tokenizer.byteAt(col, 0) == REVERSED)
+
+  /**
+    * Parses a single Link object from a tokenized line.
     *
-    * @param split The line split of the line including
-    *              the Link object to be parsed.
-    * @return Link object representing given line-split.
+    * @param tokenizer The tokenizer pointing at the line including
+    *                  the Link object to be parsed.
+    * @return Link record representing the given line.
     */
-  private def parseLink(builder: ZeroZoomBuilder,
-                        split: Array[String]): Unit = {
-    assertAndThrow(split.length >= LINK_OPTIONS_COL, Gfa1ParseException(
+  private def parseLink(tokenizer: Gfa1Tokenizer): Gfa1Link = {
+    assertAndThrow(tokenizer.columns >= LINK_OPTIONS_COL, Gfa1ParseException(
       s"Expected at least $LINK_OPTIONS_COL arguments to link line,\n" +
-        s"\tbut there were only ${split.length}.", split))
+        s"\tbut there were only ${tokenizer.columns}.", split(tokenizer)))
 
-    assertAndThrow(split(LINK_FROM_REV_COL).length == 1 &&
-      List("-", "+").contains(split(LINK_FROM_REV_COL)), Gfa1ParseException(
+    assertAndThrow(isPolarity(tokenizer, LINK_FROM_REV_COL), Gfa1ParseException(
       "Expected single character for polarity of 'from' segment," +
-        s"but was: ${split(LINK_FROM_REV_COL)}", split))
-    assertAndThrow(split(LINK_TO_REV_COL).length == 1 &&
-      List("-", "+").contains(split(LINK_TO_REV_COL)), Gfa1ParseException(
+        s"but was: ${tokenizer.string(LINK_FROM_REV_COL)}", split(tokenizer)))
+    assertAndThrow(isPolarity(tokenizer, LINK_TO_REV_COL), Gfa1ParseException(
       "Expected single character for polarity of 'to' segment in join," +
-        s"but was: ${split(LINK_TO_REV_COL)}", split))
+        s"but was: ${tokenizer.string(LINK_TO_REV_COL)}", split(tokenizer)))
+
+    Gfa1Link(bytes = tokenizer.buffer,
+      from = tokenizer.columnStart(LINK_FROM_COL),
+      fromLength = tokenizer.columnLength(LINK_FROM_COL),
+      reversedFrom = tokenizer.byteAt(LINK_FROM_REV_COL, 0) == REVERSED,
+      to = tokenizer.columnStart(LINK_TO_COL),
+      toLength = tokenizer.columnLength(LINK_TO_COL),
+      reversedTo = tokenizer.byteAt(LINK_TO_REV_COL, 0) == REVERSED)
+  }
+}
+
+/**
+  * Reports the progress of parsing a GFA1 file to an observer
+  * as [[LoadingState.MILESTONE]]s. The file is divided into
+  * [[Gfa1Parser.MILESTONES]] milestones of equal byte length.
+  *
+  * @param observer The observer to notify.
+  * @param size     The size of the file in bytes.
+  */
+private class Gfa1Progress(observer: Observer, size: Long) {
+
+  /**
+    * The number of bytes per milestone.
+    */
+  private val milestone = if (size / Gfa1Parser.MILESTONES > 0) {
+    size / Gfa1Parser.MILESTONES
+  } else {
+    1
+  }
 
-    builder.registerEdge(from = split(LINK_FROM_COL),
-      reversedFrom = split(LINK_FROM_REV_COL)(0) == '-',
-      to = split(LINK_TO_COL),
-      reversedTo = split(LINK_TO_REV_COL)(0) == '-',
-      options = parseOptionals(split, LINK_OPTIONS_COL))
+  /**
+    * The number of milestones passed so far.
+    */
+  private var passedMilestones: Long = 0
+
+  /**
+    * Notifies the observer when parsing up to the given byte
+    * offset passes a new milestone.
+    *
+    * @param bytesRead The offset up to which the file was parsed.
+    */
+  def advanceTo(bytesRead: Long): Unit = {
+    val passed = bytesRead / milestone
+    if (passed > passedMilestones) {
+      passedMilestones = passed
+      //scalastyle:off null
+      observer.update(null, LoadingState.MILESTONE)
+      //scalastyle:on null
+    }
+  }
+
+  /**
+    * Notifies the observer that the file was fully parsed.
+    */
+  def finish(): Unit = {
+    //scalastyle:off null
+    observer.update(null, LoadingState.FULLY_PARSED)
+    //scalastyle:on null
   }
 }
@@ -0,0 +1,81 @@
+package nl.tudelft.pl2.data
+
+import java.nio.ByteBuffer
+
+import nl.tudelft.pl2.data.Graph.Options
+import nl.tudelft.pl2.data.builders.ZeroZoomBuilder
+
+/**
+  * A single parsed line of a GFA1.0 file. Records are
+  * produced by the [[Gfa1Parser]] and are registered with
+  * a [[ZeroZoomBuilder]] in the order in which they appear
+  * in the file. This decouples tokenizing a line, which may
+  * happen on any thread, from registering it, which has to
+  * happen in file order on a single thread.
+  *
+  * Names and contents are kept as ranges of the buffer the line
+  * was tokenized from, such that no [[String]] is built for a
+  * column that is only looked up.
+  */
+sealed trait Gfa1Record {
+
+  /**
+    * Registers this record with the given builder.
+    *
+    * @param builder The [[ZeroZoomBuilder]] to register with.
+    */
+  def register(builder: ZeroZoomBuilder): Unit
+}
+
+/**
+  * A parsed header line.
+  *
+  * @param options The options of the header.
+  */
+case class Gfa1Header(options: Options) extends Gfa1Record {
+  override def register(builder: ZeroZoomBuilder): Unit =
+    builder.registerHeader(options)
+}
+
+/**
+  * A parsed segment line.
+  *
+  * @param bytes         The buffer holding the line.
+  * @param name          The index of the name of the segment.
+  * @param nameLength    The number of bytes in the name.
+  * @param content       The index of the content of the segment.
+  * @param contentLength The number of bytes in the content.
+  * @param options       The options of the segment.
+  */
+case class Gfa1Segment(bytes: ByteBuffer,
+                       name: Int,
+                       nameLength: Int,
+                       content: Int,
+                       contentLength: Int,
+                       options: Options) extends Gfa1Record {
+  override def register(builder: ZeroZoomBuilder): Unit =
+    builder.registerNode(bytes, name, nameLength, content, contentLength, options)
+}
+
+/**
+  * A parsed link line. The options of a link are not used,
+  * so they are not parsed.
+  *
+  * @param bytes        The buffer holding the line.
+  * @param from         The index of the name of the origin segment.
+  * @param fromLength   The number of bytes in the name of the origin.
+  * @param reversedFrom Whether the origin segment is reversed.
+  * @param to           The index of the name of the destination segment.
+  * @param toLength     The number of bytes in the name of the destination.
+  * @param reversedTo   Whether the destination segment is reversed.
+  */
+case class Gfa1Link(bytes: ByteBuffer,
+                    from: Int,
+                    fromLength: Int,
+                    reversedFrom: Boolean,
+                    to: Int,
+                    toLength: Int,
+                    reversedTo: Boolean) extends Gfa1Record {
+  override def register(builder: ZeroZoomBuilder): Unit =
+    builder.registerEdge(bytes, from, fromLength, reversedFrom, to, toLength, reversedTo)
+}
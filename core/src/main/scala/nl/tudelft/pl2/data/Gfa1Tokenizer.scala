@@ -0,0 +1,265 @@
+package nl.tudelft.pl2.data
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+import nl.tudelft.pl2.data.Graph.Options
+
+/**
+  * Tokenizes the ASCII encoded lines of a GFA1.0 file directly
+  * from a [[ByteBuffer]]. Instead of splitting a line into
+  * [[String]]s, the tokenizer records the offsets at which the
+  * tab separated columns of the current line start, such that
+  * columns can be compared and inspected byte by byte. Only the
+  * columns that are actually needed are decoded to [[String]]s.
+  *
+  * The buffer is accessed by absolute index only, so its
+  * position and limit are never changed by the tokenizer. Columns
+  * may be passed on as ranges of the buffer, which stay valid after
+  * the tokenizer moved on to the next line.
+  *
+  * @param buffer The buffer containing the lines to tokenize.
+  * @param start  The index of the first byte to tokenize.
+  * @param end    The index after the last byte to tokenize.
+  */
+class Gfa1Tokenizer(val buffer: ByteBuffer, start: Int, end: Int) {
+
+  /**
+    * The initial number of columns reserved per line.
+    */
+  private final val INITIAL_COLUMNS = 16
+
+  private final val TAB: Byte = '\t'.toByte
+  private final val NEWLINE: Byte = '\n'.toByte
+  private final val CARRIAGE_RETURN: Byte = '\r'.toByte
+  private final val COLON: Byte = ':'.toByte
+
+  /**
+    * The position of the next line to tokenize.
+    */
+  private var pos = start
+
+  /**
+    * The start offsets of the columns in the current line. The
+    * entry after the last column points one past the end of the
+    * line, such that the end of any column is the start of the
+    * next column minus one.
+    */
+  private var columnStarts = new Array[Int](INITIAL_COLUMNS + 1)
+
+  /**
+    * The number of columns in the current line.
+    */
+  private var numColumns = 0
+
+  /**
+    * The index of the first byte of the current line.
+    */
+  private var _lineStart = start
+
+  /**
+    * The index after the last byte of the current line,
+    * excluding any line terminators.
+    */
+  private var _lineEnd = start
+
+  /**
+    * Scratch space used to decode columns from buffers
+    * that are not backed by an array.
+    */
+  private var scratch = new Array[Byte](0)
+
+  /**
+    * Advances the tokenizer to the next non-empty line.
+    *
+    * @return `true` when a next line was found, `false` when
+    *         all lines were tokenized.
+    */
+  def nextLine(): Boolean = {
+    var found = false
+    //scalastyle:off while
+    while (!found && pos < end) {
+      _lineStart = pos
+      numColumns = 0
+      addColumn(pos)
+      while (pos < end && buffer.get(pos) != NEWLINE) {
+        if (buffer.get(pos) == TAB) {
+          addColumn(pos + 1)
+        }
+        pos += 1
+      }
+      _lineEnd = pos
+      pos += 1
+      if (_lineEnd > _lineStart && buffer.get(_lineEnd - 1) == CARRIAGE_RETURN) {
+        _lineEnd -= 1
+      }
+      columnStarts(numColumns) = _lineEnd + 1
+      // Like String.split, trailing empty columns are not columns.
+      while (numColumns > 1 && columnLength(numColumns - 1) == 0) {
+        numColumns -= 1
+      }
+      found = _lineEnd > _lineStart
+    }
+    //scalastyle:on while
+    found
+  }
+
+  /**
+    * Registers a new column starting at the given index.
+    *
+    * @param columnStart The index of the first byte of the column.
+    */
+  private def addColumn(columnStart: Int): Unit = {
+    if (numColumns + 1 >= columnStarts.length) {
+      columnStarts = java.util.Arrays.copyOf(columnStarts, columnStarts.length * 2)
+    }
+    columnStarts(numColumns) = columnStart
+    numColumns += 1
+  }
+
+  /**
+    * @return The number of columns in the current line.
+    */
+  def columns: Int = numColumns
+
+  /**
+    * @return The index of the first byte of the current line.
+    */
+  def lineStart: Int = _lineStart
+
+  /**
+    * @return The index after the last byte of the current line.
+    */
+  def lineEnd: Int = _lineEnd
+
+  /**
+    * @param col The column.
+    * @return The index of the first byte of the column.
+    */
+  def columnStart(col: Int): Int = columnStarts(col)
+
+  /**
+    * @param col The column.
+    * @return The index after the last byte of the column.
+    */
+  def columnEnd(col: Int): Int = columnStarts(col + 1) - 1
+
+  /**
+    * @param col The column.
+    * @return The number of bytes in the column.
+    */
+  def columnLength(col: Int): Int = columnEnd(col) - columnStart(col)
+
+  /**
+    * @param col The column.
+    * @param i   The index of the byte within the column.
+    * @return The byte at the given index in the column.
+    */
+  def byteAt(col: Int, i: Int): Byte = buffer.get(columnStart(col) + i)
+
+  /**
+    * Decodes the given column as a [[String]].
+    *
+    * @param col The column to decode.
+    * @return The column as a [[String]].
+    */
+  def string(col: Int): String = decode(columnStart(col), columnEnd(col))
+
+  /**
+    * Decodes the current line as a [[String]]. This is meant
+    * for error reporting only.
+    *
+    * @return The current line as a [[String]].
+    */
+  def lineString: String = decode(_lineStart, _lineEnd)
+
+  /**
+    * Parses the options in the columns starting at the given
+    * column. Each option is formatted as `TAG:TYPE:VALUE`,
+    * where the value may itself contain colons.
+    *
+    * @param from The first column containing an option.
+    * @return The map of options parsed.
+    */
+  def options(from: Int): Options =
+    if (from >= numColumns) {
+      Map()
+    } else {
+      val builder = Map.newBuilder[String, (Char, String)]
+      for (col <- from until numColumns) {
+        val tagEnd = indexOf(COLON, columnStart(col), columnEnd(col))
+        val typeEnd = if (tagEnd < 0) -1 else indexOf(COLON, tagEnd + 1, columnEnd(col))
+        if (typeEnd < 0 || typeEnd == tagEnd + 1) {
+          throw Gfa1ParseException(s"Malformed option '${string(col)}'",
+            lineString.split('\t'))
+        }
+        builder += decode(columnStart(col), tagEnd) ->
+          (buffer.get(tagEnd + 1).toChar, decode(typeEnd + 1, columnEnd(col)))
+      }
+      builder.result()
+    }
+
+  /**
+    * Finds the first index of the given byte in a range.
+    *
+    * @param b    The byte to find.
+    * @param from The first index to inspect.
+    * @param to   The index after the last index to inspect.
+    * @return The index of the byte, or -1 if it was not found.
+    */
+  private def indexOf(b: Byte, from: Int, to: Int): Int = {
+    var i = from
+    //scalastyle:off while
+    while (i < to && buffer.get(i) != b) {
+      i += 1
+    }
+    //scalastyle:on while
+    if (i < to) i else -1
+  }
+
+  /**
+    * Decodes the ASCII bytes in the given range as a [[String]].
+    *
+    * @param from The first index of the range.
+    * @param to   The index after the last index of the range.
+    * @return The decoded [[String]].
+    */
+  private def decode(from: Int, to: Int): String =
+    if (buffer.hasArray) {
+      Gfa1Tokenizer.decode(buffer, from, to - from)
+    } else {
+      if (scratch.length < to - from) {
+        scratch = new Array[Byte](to - from)
+      }
+      val view = buffer.duplicate()
+      view.position(from)
+      view.get(scratch, 0, to - from)
+      new String(scratch, 0, to - from, StandardCharsets.US_ASCII)
+    }
+}
+
+/**
+  * Companion object to the [[Gfa1Tokenizer]].
+  */
+object Gfa1Tokenizer {
+  /**
+    * Decodes the ASCII bytes in a range of a buffer as a [[String]].
+    * This is meant for columns that are stored as a [[String]].
+    *
+    * @param buffer The buffer holding the bytes.
+    * @param offset The index of the first byte of the range.
+    * @param length The number of bytes in the range.
+    * @return The decoded [[String]].
+    */
+  def decode(buffer: ByteBuffer, offset: Int, length: Int): String =
+    if (buffer.hasArray) {
+      new String(buffer.array(), buffer.arrayOffset() + offset, length,
+        StandardCharsets.US_ASCII)
+    } else {
+      val bytes = new Array[Byte](length)
+      val view = buffer.duplicate()
+      view.position(offset)
+      view.get(bytes)
+      new String(bytes, StandardCharsets.US_ASCII)
+    }
+}
@@ -0,0 +1,267 @@
+package nl.tudelft.pl2.data
+
+/**
+  * A multimap from ints to sets of ints backed by primitive
+  * arrays only.
+  *
+  * Keys are kept in an open addressing hash table with linear
+  * probing. The values bound to a key form a linked list through
+  * shared value and next-pointer arrays, whose freed entries are
+  * reused for later bindings. Removing a key shifts the keys
+  * following it in its probe sequence back, such that the table
+  * never contains tombstones.
+  *
+  * The value lists are expected to be short, as adding a binding
+  * scans the values bound to the key to keep them distinct.
+  *
+  * @param initialCapacity The number of keys expected.
+  */
+class IntMultiMap(initialCapacity: Int = IntMultiMap.INITIAL_CAPACITY) {
+
+  import IntMultiMap._
+
+  /**
+    * The number of slots in the key table, always a power of two.
+    */
+  private var capacity = Integer.highestOneBit(Math.max(2, initialCapacity) * 2 - 1) * 2
+
+  /**
+    * The key in a slot of the table.
+    */
+  private var keys = new Array[Int](capacity)
+
+  /**
+    * The first entry bound to the key in a slot, or [[NONE]]
+    * if the slot is empty.
+    */
+  private var heads = Array.fill(capacity)(NONE)
+
+  /**
+    * The value of an entry.
+    */
+  private var values = new Array[Int](capacity)
+
+  /**
+    * The entry following an entry in its list, or [[NONE]].
+    */
+  private var next = new Array[Int](capacity)
+
+  /**
+    * The number of entries ever used.
+    */
+  private var entries = 0
+
+  /**
+    * The first entry that was freed and can be reused, or [[NONE]].
+    */
+  private var freeEntry = NONE
+
+  /**
+    * The number of keys in the map.
+    */
+  private var numKeys = 0
+
+  /**
+    * @return The number of keys in the map.
+    */
+  def size: Int = numKeys
+
+  /**
+    * @param key The key to look for.
+    * @return Whether any value is bound to the key.
+    */
+  def contains(key: Int): Boolean = heads(slotOf(key)) != NONE
+
+  /**
+    * Binds the given value to the given key, unless it
+    * was bound to the key already.
+    *
+    * @param key   The key to bind the value to.
+    * @param value The value to bind.
+    */
+  def addBinding(key: Int, value: Int): Unit = {
+    var slot = slotOf(key)
+    if (heads(slot) == NONE) {
+      if ((numKeys + 1) * MAX_LOAD_DENOMINATOR > capacity * MAX_LOAD_NUMERATOR) {
+        grow()
+        slot = slotOf(key)
+      }
+      keys(slot) = key
+      numKeys += 1
+    }
+    if (!isBound(heads(slot), value)) {
+      val entry = newEntry()
+      values(entry) = value
+      next(entry) = heads(slot)
+      heads(slot) = entry
+    }
+  }
+
+  /**
+    * Removes the given key and returns the values that
+    * were bound to it.
+    *
+    * @param key The key to remove.
+    * @return The values bound to the key, in the order in
+    *         which they were bound.
+    */
+  def remove(key: Int): Array[Int] = {
+    val slot = slotOf(key)
+    var length = 0
+    var entry = heads(slot)
+    //scalastyle:off while
+    while (entry != NONE) {
+      length += 1
+      entry = next(entry)
+    }
+
+    val result = new Array[Int](length)
+    entry = heads(slot)
+    while (entry != NONE) {
+      //scalastyle:on while
+      length -= 1
+      result(length) = values(entry)
+      val following = next(entry)
+      next(entry) = freeEntry
+      freeEntry = entry
+      entry = following
+    }
+
+    if (heads(slot) != NONE) {
+      deleteSlot(slot)
+      numKeys -= 1
+    }
+    result
+  }
+
+  /**
+    * Checks whether a value occurs in a list of entries.
+    *
+    * @param head  The first entry of the list.
+    * @param value The value to look for.
+    * @return Whether the value occurs in the list.
+    */
+  private def isBound(head: Int, value: Int): Boolean = {
+    var entry = head
+    //scalastyle:off while
+    while (entry != NONE && values(entry) != value) {
+      //scalastyle:on while
+      entry = next(entry)
+    }
+    entry != NONE
+  }
+
+  /**
+    * @return An unused entry, reusing freed entries first.
+    */
+  private def newEntry(): Int =
+    if (freeEntry != NONE) {
+      val entry = freeEntry
+      freeEntry = next(entry)
+      entry
+    } else {
+      if (entries == values.length) {
+        values = java.util.Arrays.copyOf(values, entries * 2)
+        next = java.util.Arrays.copyOf(next, entries * 2)
+      }
+      entries += 1
+      entries - 1
+    }
+
+  /**
+    * Finds the slot holding the given key, or the empty slot
+    * at which the key would be inserted.
+    *
+    * @param key The key to look for.
+    * @return The slot for the key.
+    */
+  private def slotOf(key: Int): Int = {
+    val mask = capacity - 1
+    var slot = spread(key) & mask
+    //scalastyle:off while
+    while (heads(slot) != NONE && keys(slot) != key) {
+      //scalastyle:on while
+      slot = (slot + 1) & mask
+    }
+    slot
+  }
+
+  /**
+    * Empties a slot, moving back keys later in the probe
+    * sequence that would otherwise become unreachable.
+    *
+    * @param slot The slot to empty.
+    */
+  private def deleteSlot(slot: Int): Unit = {
+    val mask = capacity - 1
+    var gap = slot
+    var i = (slot + 1) & mask
+    //scalastyle:off while
+    while (heads(i) != NONE) {
+      //scalastyle:on while
+      val home = spread(keys(i)) & mask
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys(gap) = keys(i)
+        heads(gap) = heads(i)
+        gap = i
+      }
+      i = (i + 1) & mask
+    }
+    heads(gap) = NONE
+  }
+
+  /**
+    * Doubles the capacity of the key table.
+    */
+  private def grow(): Unit = {
+    val oldKeys = keys
+    val oldHeads = heads
+    capacity *= 2
+    keys = new Array[Int](capacity)
+    heads = Array.fill(capacity)(NONE)
+    for (old <- oldHeads.indices if oldHeads(old) != NONE) {
+      val slot = slotOf(oldKeys(old))
+      keys(slot) = oldKeys(old)
+      heads(slot) = oldHeads(old)
+    }
+  }
+}
+
+/**
+  * Companion object to the [[IntMultiMap]].
+  */
+object IntMultiMap {
+  /**
+    * The default number of keys expected.
+    */
+  final val INITIAL_CAPACITY = 1024
+
+  /**
+    * Marks the absence of an entry.
+    */
+  private final val NONE = -1
+
+  /**
+    * The key table grows when more than 3/4 of its slots are used.
+    */
+  private final val MAX_LOAD_NUMERATOR = 3
+  private final val MAX_LOAD_DENOMINATOR = 4
+
+  /**
+    * The multiplier of Fibonacci hashing, 2^32 divided
+    * by the golden ratio.
+    */
+  private final val GOLDEN_RATIO = 0x9E3779B9
+
+  /**
+    * Spreads the bits of a key, such that consecutive
+    * keys do not form long probe sequences.
+    *
+    * @param key The key to spread.
+    * @return The spread key.
+    */
+  private def spread(key: Int): Int = {
+    val h = key * GOLDEN_RATIO
+    h ^ (h >>> (Integer.SIZE / 2))
+  }
+}
@@ -0,0 +1,377 @@
+package nl.tudelft.pl2.data
+
+import java.nio.ByteBuffer
+
+/**
+  * A nucleotide sequence packed at 2 bits per base, read in place
+  * from a [[ByteBuffer]]. The bases A, C, G and T are packed four
+  * to a byte, in either case. Any other character, such as N or an
+  * IUPAC code, is kept in a list of runs of a repeated character,
+  * which take precedence over the packed bases at their positions.
+  * The same list holds the runs of lower-case bases, as in
+  * soft-masked sequences, of which the character is
+  * [[PackedSequence.LOWER_CASE]]. Sequences that would not shrink
+  * by packing are kept as ASCII instead.
+  *
+  * The packed form is laid out as follows:
+  *
+  * [RUNS][starts ][lengths][chars][bases         ]
+  * [4   ][4*RUNS ][4*RUNS ][RUNS ][(LENGTH+3)/4  ]
+  *
+  * or, when RUNS is [[PackedSequence.ASCII]]:
+  *
+  * [RUNS][chars  ]
+  * [4   ][LENGTH ]
+  *
+  * The length of the sequence is not part of the packed form and
+  * is kept by the owner of the sequence.
+  *
+  * The buffer is accessed by absolute index only, so its
+  * position and limit are never changed by the sequence.
+  *
+  * @param buf The buffer holding the packed sequence.
+  * @param pos The offset of the packed sequence.
+  * @param len The number of characters in the sequence.
+  */
+class PackedSequence private(buf: ByteBuffer, pos: Int, len: Int) extends CharSequence {
+
+  import PackedSequence._
+
+  /**
+    * The number of runs of other characters, or [[ASCII]].
+    */
+  private val runs = buf.getInt(pos)
+
+  override def length(): Int = len
+
+  override def charAt(index: Int): Char = {
+    if (index < 0 || index >= len) {
+      throw new IndexOutOfBoundsException(s"Index $index of a sequence of length $len.")
+    }
+    if (runs == ASCII) {
+      buf.get(pos + Integer.BYTES + index).toChar
+    } else {
+      val run = runAt(index)
+      if (run >= 0 && index < runStart(run) + runLength(run)) charIn(run, index) else baseAt(index)
+    }
+  }
+
+  override def subSequence(start: Int, end: Int): CharSequence = decode(start, end)
+
+  override def toString: String = decode(0, len)
+
+  /**
+    * @return The number of bytes taken by the packed sequence.
+    */
+  def encodedBytes: Int =
+    if (runs == ASCII) {
+      Integer.BYTES + len
+    } else {
+      Integer.BYTES + runs * RUN_BYTES + packedBases(len)
+    }
+
+  override def equals(other: Any): Boolean = other match {
+    case that: PackedSequence => len == that.length() && toString == that.toString
+    case _ => false
+  }
+
+  override def hashCode(): Int = toString.hashCode
+
+  /**
+    * Decodes a range of the sequence.
+    *
+    * @param start The first index of the range.
+    * @param end   The index after the last index of the range.
+    * @return The characters in the range.
+    */
+  private def decode(start: Int, end: Int): String = {
+    if (start < 0 || end > len || start > end) {
+      throw new IndexOutOfBoundsException(
+        s"Range [$start, $end) of a sequence of length $len.")
+    }
+    val chars = new Array[Char](end - start)
+    var i = start
+    var run = if (runs == ASCII) -1 else Math.max(runAt(start), 0)
+    //scalastyle:off while
+    while (i < end) {
+      //scalastyle:on while
+      chars(i - start) = if (runs == ASCII) {
+        buf.get(pos + Integer.BYTES + i).toChar
+      } else {
+        if (run < runs - 1 && runStart(run + 1) <= i) {
+          run += 1
+        }
+        if (run < runs && runStart(run) <= i && i < runStart(run) + runLength(run)) {
+          charIn(run, i)
+        } else {
+          baseAt(i)
+        }
+      }
+      i += 1
+    }
+    new String(chars)
+  }
+
+  /**
+    * Finds the last run starting at or before an index.
+    *
+    * @param index The index in the sequence.
+    * @return The run, or -1 if every run starts after the index.
+    */
+  private def runAt(index: Int): Int = {
+    var lo = 0
+    var hi = runs - 1
+    var found = -1
+    //scalastyle:off while
+    while (lo <= hi) {
+      //scalastyle:on while
+      val mid = (lo + hi) >>> 1
+      if (runStart(mid) <= index) {
+        found = mid
+        lo = mid + 1
+      } else {
+        hi = mid - 1
+      }
+    }
+    found
+  }
+
+  /**
+    * @param run The run.
+    * @return The index of the first character of the run.
+    */
+  private def runStart(run: Int): Int = buf.getInt(pos + Integer.BYTES + Integer.BYTES * run)
+
+  /**
+    * @param run The run.
+    * @return The number of characters in the run.
+    */
+  private def runLength(run: Int): Int =
+    buf.getInt(pos + Integer.BYTES + Integer.BYTES * (runs + run))
+
+  /**
+    * @param run The run.
+    * @return The character repeated by the run.
+    */
+  private def runChar(run: Int): Char =
+    buf.get(pos + Integer.BYTES + 2 * Integer.BYTES * runs + run).toChar
+
+  /**
+    * @param run   The run.
+    * @param index An index in the run.
+    * @return The character at the index.
+    */
+  private def charIn(run: Int, index: Int): Char = {
+    val c = runChar(run)
+    if (c == LOWER_CASE) Character.toLowerCase(baseAt(index)) else c
+  }
+
+  /**
+    * @param index The index in the sequence.
+    * @return The packed base at the index.
+    */
+  private def baseAt(index: Int): Char = {
+    val packed = buf.get(pos + Integer.BYTES + RUN_BYTES * runs + (index >>> 2))
+    BASES((packed >>> ((index & BASE_MASK) * BITS_PER_BASE)) & BASE_MASK)
+  }
+}
+
+/**
+  * Companion object to the [[PackedSequence]].
+  */
+object PackedSequence {
+  /**
+    * Marks a sequence kept as ASCII.
+    */
+  final val ASCII = -1
+
+  /**
+    * The bases packed, in the order of their code.
+    */
+  private final val BASES = Array('A', 'C', 'G', 'T')
+
+  /**
+    * The character of a run of lower-case bases. Sequences holding
+    * the character itself are kept as ASCII.
+    */
+  final val LOWER_CASE: Char = 0
+
+  private final val BITS_PER_BASE = 2
+  private final val BASES_PER_BYTE = 4
+  private final val BASE_MASK = 3
+
+  /**
+    * The number of bytes describing a run: its start,
+    * length and character.
+    */
+  private final val RUN_BYTES = 2 * Integer.BYTES + 1
+
+  /**
+    * Gives the sequence packed at an offset in a buffer.
+    *
+    * @param buf    The buffer holding the packed sequence.
+    * @param pos    The offset of the packed sequence.
+    * @param length The number of characters in the sequence.
+    * @return The sequence.
+    */
+  def apply(buf: ByteBuffer, pos: Int, length: Int): PackedSequence =
+    new PackedSequence(buf, pos, length)
+
+  /**
+    * Packs a sequence on the heap.
+    *
+    * @param seq The sequence to pack.
+    * @return The packed sequence.
+    */
+  def apply(seq: CharSequence): PackedSequence = {
+    val buf = ByteBuffer.allocate(encodedBytes(seq))
+    write(buf, seq)
+    new PackedSequence(buf, 0, seq.length())
+  }
+
+  /**
+    * @param seq A sequence.
+    * @return The number of bytes the packed sequence takes.
+    */
+  def encodedBytes(seq: CharSequence): Int =
+    Integer.BYTES + Math.min(seq.length(), packedBytes(seq))
+
+  /**
+    * Puts the packed form of a sequence at the position of a buffer.
+    *
+    * @param buf The buffer to put the packed sequence in.
+    * @param seq The sequence to pack.
+    */
+  def write(buf: ByteBuffer, seq: CharSequence): Unit = {
+    val length = seq.length()
+    if (packedBytes(seq) >= length) {
+      buf.putInt(ASCII)
+      for (i <- 0 until length) {
+        buf.put(seq.charAt(i).toByte)
+      }
+    } else {
+      val runs = countRuns(seq)
+      buf.putInt(runs)
+      val starts = buf.position()
+      val lengths = starts + Integer.BYTES * runs
+      val chars = lengths + Integer.BYTES * runs
+      var run = 0
+      var i = 0
+      //scalastyle:off while
+      while (i < length) {
+        val end = runEnd(seq, i)
+        if (end > i) {
+          buf.putInt(starts + Integer.BYTES * run, i)
+          buf.putInt(lengths + Integer.BYTES * run, end - i)
+          val c = if (isLowerBase(seq.charAt(i))) LOWER_CASE else seq.charAt(i)
+          buf.put(chars + run, c.toByte)
+          run += 1
+          i = end
+        } else {
+          i += 1
+        }
+      }
+      //scalastyle:on while
+      buf.position(chars + runs)
+      for (b <- 0 until packedBases(length)) {
+        var packed = 0
+        for (j <- 0 until Math.min(BASES_PER_BYTE, length - b * BASES_PER_BYTE)) {
+          val code = codeOf(seq.charAt(b * BASES_PER_BYTE + j))
+          packed |= Math.max(code, 0) << (j * BITS_PER_BASE)
+        }
+        buf.put(packed.toByte)
+      }
+    }
+  }
+
+  /**
+    * @param seq A sequence.
+    * @return The number of bytes the runs and packed bases of the
+    *         sequence take, or [[Int.MaxValue]] if the sequence
+    *         holds [[LOWER_CASE]] and cannot be packed.
+    */
+  private def packedBytes(seq: CharSequence): Int =
+    if ((0 until seq.length()).exists(seq.charAt(_) == LOWER_CASE)) {
+      Int.MaxValue
+    } else {
+      countRuns(seq) * RUN_BYTES + packedBases(seq.length())
+    }
+
+  /**
+    * Counts the runs of repeated characters other than packed bases
+    * and the runs of lower-case bases.
+    *
+    * @param seq A sequence.
+    * @return The number of runs in the sequence.
+    */
+  private def countRuns(seq: CharSequence): Int = {
+    var runs = 0
+    var i = 0
+    //scalastyle:off while
+    while (i < seq.length()) {
+      //scalastyle:on while
+      val end = runEnd(seq, i)
+      if (end > i) {
+        runs += 1
+        i = end
+      } else {
+        i += 1
+      }
+    }
+    runs
+  }
+
+  /**
+    * Finds the end of the run starting at an index.
+    *
+    * @param seq   A sequence.
+    * @param start The index in the sequence.
+    * @return The index after the run starting at the index, or the
+    *         index itself if it holds an upper-case base.
+    */
+  private def runEnd(seq: CharSequence, start: Int): Int = {
+    val c = seq.charAt(start)
+    if (isLowerBase(c)) {
+      var end = start + 1
+      //scalastyle:off while
+      while (end < seq.length() && isLowerBase(seq.charAt(end))) {
+        end += 1
+      }
+      end
+    } else if (codeOf(c) < 0) {
+      var end = start + 1
+      while (end < seq.length() && seq.charAt(end) == c) {
+        end += 1
+      }
+      //scalastyle:on while
+      end
+    } else {
+      start
+    }
+  }
+
+  /**
+    * @param c A character.
+    * @return The code of the character if it is a packed base of
+    *         either case, or -1.
+    */
+  private def codeOf(c: Char): Int = c match {
+    case 'A' | 'a' => 0
+    case 'C' | 'c' => 1
+    case 'G' | 'g' => 2
+    case 'T' | 't' => BASE_MASK
+    case _ => -1
+  }
+
+  /**
+    * @param c A character.
+    * @return Whether the character is a lower-case packed base.
+    */
+  private def isLowerBase(c: Char): Boolean = codeOf(c) >= 0 && Character.isLowerCase(c)
+
+  /**
+    * @param length The number of characters in a sequence.
+    * @return The number of bytes holding its packed bases.
+    */
+  private def packedBases(length: Int): Int = (length + BASES_PER_BYTE - 1) / BASES_PER_BYTE
+}
@@ -0,0 +1,99 @@
+package nl.tudelft.pl2.data.builders
+
+import java.util.concurrent.{ArrayBlockingQueue, TimeUnit}
+
+import scala.collection.mutable
+
+/**
+  * A bounded queue passing the [[BuilderNode]]s stored by the
+  * builder of one zoom level to the builder of the next zoom
+  * level while both are running.
+  *
+  * The producing builder blocks while the queue is full, such
+  * that the number of nodes in flight between two levels is
+  * bounded. The producer signals the end of its nodes with
+  * [[finish]]. When either side fails, [[abort]] releases the
+  * other side: producers stop blocking and consumers see the
+  * end of the nodes.
+  *
+  * @param capacity The maximum number of nodes in the queue.
+  */
+class BuilderNodeQueue(capacity: Int = BuilderNodeQueue.CAPACITY) {
+
+  /**
+    * The nodes in flight, followed by [[BuilderNodeQueue.END]]
+    * once the producer finished.
+    */
+  private val queue = new ArrayBlockingQueue[BuilderNode](capacity)
+
+  /**
+    * Whether either side of the queue failed.
+    */
+  @volatile private var aborted = false
+
+  /**
+    * Passes a node to the consumer, blocking while the
+    * queue is full.
+    *
+    * @param node The node to pass.
+    */
+  def put(node: BuilderNode): Unit = {
+    //scalastyle:off while
+    while (!aborted &&
+      !queue.offer(node, BuilderNodeQueue.POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+      //scalastyle:on while
+    }
+  }
+
+  /**
+    * Signals the consumer that no more nodes will be passed.
+    */
+  def finish(): Unit = put(BuilderNodeQueue.END)
+
+  /**
+    * Releases both the producer and the consumer of this queue
+    * after either of them failed.
+    */
+  def abort(): Unit = {
+    aborted = true
+    queue.clear()
+  }
+
+  /**
+    * Takes the next node, blocking until one is passed.
+    *
+    * @return The next node, or [[None]] if the producer
+    *         finished or the queue was aborted.
+    */
+  def take(): Option[BuilderNode] = {
+    var node: Option[BuilderNode] = None
+    //scalastyle:off while
+    while (!aborted && node.isEmpty) {
+      //scalastyle:on while
+      node = Option(queue.poll(BuilderNodeQueue.POLL_MILLIS, TimeUnit.MILLISECONDS))
+    }
+    node.filterNot(n => aborted || (n eq BuilderNodeQueue.END))
+  }
+}
+
+/**
+  * Companion object to the [[BuilderNodeQueue]].
+  */
+object BuilderNodeQueue {
+  /**
+    * The default number of nodes in flight between two levels.
+    */
+  final val CAPACITY = 4096
+
+  /**
+    * The number of milliseconds to wait before checking
+    * whether the queue was aborted.
+    */
+  private final val POLL_MILLIS = 100L
+
+  /**
+    * Marks the end of the nodes passed through a queue.
+    */
+  private val END = new BuilderNode(-1, "", -1, "",
+    mutable.Buffer(), mutable.Buffer(), Map(), Map())
+}
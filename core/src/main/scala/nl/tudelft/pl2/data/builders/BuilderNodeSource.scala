@@ -0,0 +1,150 @@
+package nl.tudelft.pl2.data.builders
+
+import java.nio.file.Path
+
+import nl.tudelft.pl2.data.indexing.{BytesIndexReader, ChunkIndex}
+import nl.tudelft.pl2.data.storage.readers.CtagReader
+import org.apache.logging.log4j.LogManager
+
+import scala.collection.mutable
+
+/**
+  * Supplies a [[ZoomBuilder]] with the [[BuilderNode]]s of the
+  * previous zoom level.
+  */
+trait BuilderNodeSource {
+
+  /**
+    * Loads nodes until the node with the given ID was loaded.
+    * Nodes that were loaded before are not loaded again.
+    *
+    * @param id   The ID of the node to load.
+    * @param load Called with every node loaded.
+    */
+  def loadNodeByID(id: Int, load: BuilderNode => Unit): Unit
+
+  /**
+    * Loads nodes that were not loaded before, if there are any.
+    *
+    * @param load Called with every node loaded.
+    * @return Whether any node was loaded.
+    */
+  def loadNext(load: BuilderNode => Unit): Boolean
+
+  /**
+    * Releases the resources held by this source.
+    */
+  def close(): Unit
+}
+
+/**
+  * Reads the nodes of the previous zoom level from its
+  * compressed file by the chunks in its index.
+  *
+  * @param indexPath The path to the index of the previous level.
+  * @param filePath  The path to the file of the previous level.
+  */
+class IndexedNodeSource(indexPath: Path, filePath: Path) extends BuilderNodeSource {
+  /**
+    * Log4J [[org.apache.logging.log4j.Logger]] used to log debug
+    * information and other significant events.
+    */
+  private val LOGGER = LogManager.getLogger("IndexedNodeSource")
+
+  /**
+    * The index of the previous level.
+    */
+  private val index: ChunkIndex = BytesIndexReader.loadIndex(indexPath)
+
+  /**
+    * Reads the previous level file.
+    */
+  private val reader = new CtagReader(filePath)
+
+  /**
+    * Whether the chunk with some index was read.
+    */
+  private val chunksRetrieved = Array.fill[Boolean](index.size)(false)
+
+  /**
+    * All chunks before this index were read.
+    */
+  private var firstUnretrieved = 0
+
+  override def loadNodeByID(id: Int, load: BuilderNode => Unit): Unit =
+    index.getIndexedChunksByNodeID(id).foreach(ic => loadChunk(ic.index, load))
+
+  override def loadNext(load: BuilderNode => Unit): Boolean = {
+    //scalastyle:off while
+    while (firstUnretrieved < chunksRetrieved.length && chunksRetrieved(firstUnretrieved)) {
+      //scalastyle:on while
+      firstUnretrieved += 1
+    }
+    firstUnretrieved < chunksRetrieved.length && loadChunk(firstUnretrieved, load)
+  }
+
+  /**
+    * Reads the chunk with the given index if it was not read before.
+    *
+    * @param chunk The index of the chunk.
+    * @param load  Called with every node in the chunk.
+    * @return Whether the chunk was read.
+    */
+  private def loadChunk(chunk: Int, load: BuilderNode => Unit): Boolean =
+    !chunksRetrieved(chunk) && {
+      val ic = index.getIndexedChunkByIndex(chunk)
+      reader.readDataChunkToBuilderNodes(ic.offset, ic.length, ic.storedLength).foreach(load)
+      LOGGER.debug("Chunk {} was retrieved.", ic.index)
+      chunksRetrieved(chunk) = true
+      true
+    }
+
+  override def close(): Unit = reader.close()
+}
+
+/**
+  * Takes the nodes of the previous zoom level from a
+  * [[BuilderNodeQueue]] while that level is being built.
+  *
+  * @param queue The queue the previous level passes its nodes to.
+  */
+class StreamingNodeSource(queue: BuilderNodeQueue) extends BuilderNodeSource {
+
+  /**
+    * The IDs of the nodes taken from the queue.
+    */
+  private val seen = new mutable.BitSet()
+
+  /**
+    * Whether the previous level passed all its nodes.
+    */
+  private var exhausted = false
+
+  override def loadNodeByID(id: Int, load: BuilderNode => Unit): Unit = {
+    //scalastyle:off while
+    while (!seen(id) && takeNext(load)) {
+      //scalastyle:on while
+    }
+  }
+
+  override def loadNext(load: BuilderNode => Unit): Boolean = takeNext(load)
+
+  /**
+    * Takes the next node from the queue.
+    *
+    * @param load Called with the node taken.
+    * @return Whether a node was taken.
+    */
+  private def takeNext(load: BuilderNode => Unit): Boolean =
+    !exhausted && (queue.take() match {
+      case Some(node) =>
+        seen += node.id
+        load(node)
+        true
+      case None =>
+        exhausted = true
+        false
+    })
+
+  override def close(): Unit = {}
+}
@@ -0,0 +1,415 @@
+package nl.tudelft.pl2.data.builders
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+import scala.collection.mutable
+
+/**
+  * Maps the names of segments to their ID and layer while
+  * building the 0th zoom level.
+  *
+  * The dictionary is an open addressing hash table with linear
+  * probing. Instead of keeping a [[String]] and a boxed tuple per
+  * name, the UTF-8 bytes of each name are interned in off-heap
+  * pages and each slot of the table is described by a handful of
+  * primitive ints. Removed names leave a tombstone in the table,
+  * which is cleaned up when the table is rehashed. Rehashing also
+  * copies the names that are still present to fresh pages, such
+  * that the memory used by removed names is released.
+  *
+  * Names can be given as the bytes in a range of a [[ByteBuffer]],
+  * such that a parser can look them up straight from the file
+  * without decoding them. The [[String]] variants encode the name
+  * as UTF-8 first.
+  *
+  * Slots returned by this dictionary are only valid until the
+  * next call to [[put]].
+  *
+  * @param initialCapacity The number of names expected.
+  */
+class NameDictionary(initialCapacity: Int = NameDictionary.INITIAL_CAPACITY) {
+
+  import NameDictionary._
+
+  /**
+    * The number of slots in the table, always a power of two.
+    */
+  private var capacity = tableSize(initialCapacity)
+
+  /**
+    * The page in which the name in a slot is stored, or
+    * [[EMPTY]] or [[REMOVED]] if the slot holds no name.
+    */
+  private var namePages = Array.fill(capacity)(EMPTY)
+
+  /**
+    * The offset of the name in a slot in its page.
+    */
+  private var nameOffsets = new Array[Int](capacity)
+
+  /**
+    * The number of bytes in the name in a slot.
+    */
+  private var nameLengths = new Array[Int](capacity)
+
+  /**
+    * The hash of the name in a slot.
+    */
+  private var hashes = new Array[Int](capacity)
+
+  /**
+    * The ID of the node with the name in a slot.
+    */
+  private var ids = new Array[Int](capacity)
+
+  /**
+    * The layer of the node with the name in a slot.
+    */
+  private var layers = new Array[Int](capacity)
+
+  /**
+    * The off-heap pages the names are interned in.
+    */
+  private var pages = mutable.ArrayBuffer[ByteBuffer]()
+
+  /**
+    * The number of names in the dictionary.
+    */
+  private var live = 0
+
+  /**
+    * The number of removed names still occupying a slot.
+    */
+  private var removed = 0
+
+  /**
+    * @return The number of names in the dictionary.
+    */
+  def size: Int = live
+
+  /**
+    * Finds the slot holding the given name.
+    *
+    * @param name The name to look for.
+    * @return The slot of the name, or -1 if the name is not
+    *         in the dictionary.
+    */
+  def slotOf(name: String): Int = {
+    val bytes = name.getBytes(StandardCharsets.UTF_8)
+    slotOf(ByteBuffer.wrap(bytes), 0, bytes.length)
+  }
+
+  /**
+    * Finds the slot holding the name with the given bytes.
+    *
+    * @param buffer The buffer holding the bytes of the name.
+    * @param offset The index of the first byte of the name.
+    * @param length The number of bytes in the name.
+    * @return The slot of the name, or -1 if the name is not
+    *         in the dictionary.
+    */
+  def slotOf(buffer: ByteBuffer, offset: Int, length: Int): Int =
+    find(buffer, offset, length, hash(buffer, offset, length))
+
+  /**
+    * @param name The name to look for.
+    * @return Whether the name is in the dictionary.
+    */
+  def contains(name: String): Boolean = slotOf(name) >= 0
+
+  /**
+    * @param slot A slot holding a name.
+    * @return The ID of the node with the name in the slot.
+    */
+  def id(slot: Int): Int = ids(slot)
+
+  /**
+    * @param slot A slot holding a name.
+    * @return The layer of the node with the name in the slot.
+    */
+  def layer(slot: Int): Int = layers(slot)
+
+  /**
+    * Updates the layer of the node with the name in a slot.
+    *
+    * @param slot  A slot holding a name.
+    * @param layer The new layer of the node.
+    */
+  def setLayer(slot: Int, layer: Int): Unit = layers(slot) = layer
+
+  /**
+    * Maps the given name to the given ID and layer, replacing
+    * any earlier mapping of the name.
+    *
+    * @param name  The name of the node.
+    * @param id    The ID of the node.
+    * @param layer The layer of the node.
+    * @return The slot the name is stored in.
+    */
+  def put(name: String, id: Int, layer: Int): Int = {
+    val bytes = name.getBytes(StandardCharsets.UTF_8)
+    put(ByteBuffer.wrap(bytes), 0, bytes.length, id, layer)
+  }
+
+  /**
+    * Maps the name with the given bytes to the given ID and layer,
+    * replacing any earlier mapping of the name. The bytes are
+    * copied, so the buffer may be reused afterwards.
+    *
+    * @param buffer The buffer holding the bytes of the name.
+    * @param offset The index of the first byte of the name.
+    * @param length The number of bytes in the name.
+    * @param id     The ID of the node.
+    * @param layer  The layer of the node.
+    * @return The slot the name is stored in.
+    */
+  def put(buffer: ByteBuffer, offset: Int, length: Int, id: Int, layer: Int): Int = {
+    val h = hash(buffer, offset, length)
+    var slot = find(buffer, offset, length, h)
+    if (slot < 0) {
+      if ((live + removed + 1) * MAX_LOAD_DENOMINATOR > capacity * MAX_LOAD_NUMERATOR) {
+        rehash()
+      }
+      slot = freeSlot(h)
+      if (namePages(slot) == REMOVED) {
+        removed -= 1
+      }
+      store(slot, buffer, offset, length, h)
+      live += 1
+    }
+    ids(slot) = id
+    layers(slot) = layer
+    slot
+  }
+
+  /**
+    * Removes the given name from the dictionary.
+    *
+    * @param name The name to remove.
+    * @return Whether the name was in the dictionary.
+    */
+  def remove(name: String): Boolean = {
+    val bytes = name.getBytes(StandardCharsets.UTF_8)
+    remove(ByteBuffer.wrap(bytes), 0, bytes.length)
+  }
+
+  /**
+    * Removes the name with the given bytes from the dictionary.
+    *
+    * @param buffer The buffer holding the bytes of the name.
+    * @param offset The index of the first byte of the name.
+    * @param length The number of bytes in the name.
+    * @return Whether the name was in the dictionary.
+    */
+  def remove(buffer: ByteBuffer, offset: Int, length: Int): Boolean = {
+    val slot = slotOf(buffer, offset, length)
+    if (slot >= 0) {
+      namePages(slot) = REMOVED
+      live -= 1
+      removed += 1
+    }
+    slot >= 0
+  }
+
+  /**
+    * Finds the slot holding the name with the given bytes.
+    *
+    * @param buffer The buffer holding the bytes of the name.
+    * @param offset The index of the first byte of the name.
+    * @param length The number of bytes in the name.
+    * @param h      The hash of the name.
+    * @return The slot of the name, or -1 if there is none.
+    */
+  private def find(buffer: ByteBuffer, offset: Int, length: Int, h: Int): Int = {
+    val mask = capacity - 1
+    var slot = h & mask
+    var found = -1
+    //scalastyle:off while
+    while (found < 0 && namePages(slot) != EMPTY) {
+      //scalastyle:on while
+      if (namePages(slot) != REMOVED && hashes(slot) == h &&
+        equalAt(slot, buffer, offset, length)) {
+        found = slot
+      }
+      slot = (slot + 1) & mask
+    }
+    found
+  }
+
+  /**
+    * Finds the first slot not holding a name on the probe
+    * sequence of the given hash.
+    *
+    * @param h The hash to probe for.
+    * @return A slot that is either empty or removed.
+    */
+  private def freeSlot(h: Int): Int = {
+    val mask = capacity - 1
+    var slot = h & mask
+    //scalastyle:off while
+    while (namePages(slot) >= 0) {
+      //scalastyle:on while
+      slot = (slot + 1) & mask
+    }
+    slot
+  }
+
+  /**
+    * Compares the name in a slot to the given bytes.
+    *
+    * @param slot   The slot holding a name.
+    * @param buffer The buffer holding the bytes to compare to.
+    * @param offset The index of the first byte to compare to.
+    * @param length The number of bytes to compare to.
+    * @return Whether the name consists of the given bytes.
+    */
+  private def equalAt(slot: Int, buffer: ByteBuffer, offset: Int, length: Int): Boolean =
+    nameLengths(slot) == length && {
+      val page = pages(namePages(slot))
+      val nameOffset = nameOffsets(slot)
+      var i = 0
+      //scalastyle:off while
+      while (i < length && page.get(nameOffset + i) == buffer.get(offset + i)) {
+        //scalastyle:on while
+        i += 1
+      }
+      i == length
+    }
+
+  /**
+    * Interns the given name bytes and stores them in a slot.
+    *
+    * @param slot   The slot to store the name in.
+    * @param buffer The buffer holding the bytes of the name.
+    * @param offset The index of the first byte of the name.
+    * @param length The number of bytes in the name.
+    * @param h      The hash of the name.
+    */
+  private def store(slot: Int, buffer: ByteBuffer, offset: Int, length: Int, h: Int): Unit = {
+    if (pages.isEmpty || pages.last.remaining() < length) {
+      pages += ByteBuffer.allocateDirect(Math.max(PAGE_BYTES, length))
+    }
+    val page = pages.last
+    val start = page.position()
+    namePages(slot) = pages.length - 1
+    nameOffsets(slot) = start
+    nameLengths(slot) = length
+    hashes(slot) = h
+    var i = 0
+    //scalastyle:off while
+    while (i < length) {
+      //scalastyle:on while
+      page.put(start + i, buffer.get(offset + i))
+      i += 1
+    }
+    page.position(start + length)
+  }
+
+  /**
+    * Rebuilds the table without tombstones, doubling its capacity
+    * when it is more than a quarter full, and copies the names
+    * still present to fresh pages.
+    */
+  private def rehash(): Unit = {
+    val oldPages = pages
+    val oldNamePages = namePages
+    val oldOffsets = nameOffsets
+    val oldLengths = nameLengths
+    val oldHashes = hashes
+    val oldIds = ids
+    val oldLayers = layers
+
+    if (live * MIN_LOAD_DENOMINATOR >= capacity) {
+      capacity *= 2
+    }
+    namePages = Array.fill(capacity)(EMPTY)
+    nameOffsets = new Array[Int](capacity)
+    nameLengths = new Array[Int](capacity)
+    hashes = new Array[Int](capacity)
+    ids = new Array[Int](capacity)
+    layers = new Array[Int](capacity)
+    pages = mutable.ArrayBuffer[ByteBuffer]()
+    removed = 0
+
+    for (old <- oldNamePages.indices if oldNamePages(old) >= 0) {
+      val slot = freeSlot(oldHashes(old))
+      store(slot, oldPages(oldNamePages(old)), oldOffsets(old), oldLengths(old), oldHashes(old))
+      ids(slot) = oldIds(old)
+      layers(slot) = oldLayers(old)
+    }
+  }
+}
+
+/**
+  * Companion object to the [[NameDictionary]].
+  */
+object NameDictionary {
+  /**
+    * The default number of names expected.
+    */
+  final val INITIAL_CAPACITY = 1024
+
+  /**
+    * The minimum number of bytes in a page of interned names.
+    */
+  final val PAGE_BYTES: Int = 1024 * 1024
+
+  /**
+    * Marks a slot that never held a name.
+    */
+  private final val EMPTY = -1
+
+  /**
+    * Marks a slot that held a name that was removed.
+    */
+  private final val REMOVED = -2
+
+  /**
+    * The table is rehashed when more than 3/4 of its slots
+    * are occupied by names or tombstones.
+    */
+  private final val MAX_LOAD_NUMERATOR = 3
+  private final val MAX_LOAD_DENOMINATOR = 4
+
+  /**
+    * The table grows when rehashing it while more than
+    * 1/4 of its slots hold names.
+    */
+  private final val MIN_LOAD_DENOMINATOR = 4
+
+  /**
+    * Computes the size of a table for the given number of names.
+    *
+    * @param names The number of names expected.
+    * @return The smallest power of two fitting the names.
+    */
+  private def tableSize(names: Int): Int =
+    Integer.highestOneBit(Math.max(2, names) * 2 - 1) * 2
+
+  /**
+    * The multiplier used to hash the bytes of a name.
+    */
+  private final val HASH_MULTIPLIER = 31
+
+  /**
+    * Hashes the bytes of a name, spreading the higher bits
+    * of the hash to the lower bits used for indexing.
+    *
+    * @param buffer The buffer holding the bytes of the name.
+    * @param offset The index of the first byte of the name.
+    * @param length The number of bytes in the name.
+    * @return The hash of the name.
+    */
+  private def hash(buffer: ByteBuffer, offset: Int, length: Int): Int = {
+    var h = 1
+    var i = offset
+    //scalastyle:off while
+    while (i < offset + length) {
+      //scalastyle:on while
+      h = HASH_MULTIPLIER * h + buffer.get(i)
+      i += 1
+    }
+    h ^ (h >>> (Integer.SIZE / 2))
+  }
+}
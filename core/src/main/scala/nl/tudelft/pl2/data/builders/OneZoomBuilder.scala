@@ -3,9 +3,8 @@ package nl.tudelft.pl2.data.builders
 import java.util.Observer
 
 import nl.tudelft.pl2.data.caches.SubCache
-import nl.tudelft.pl2.data.indexing.{BytesIndexReader, Index, Indexer}
+import nl.tudelft.pl2.data.indexing.Indexer
 import nl.tudelft.pl2.data.loaders.GraphPathCollection
-import nl.tudelft.pl2.data.storage.readers.CtagReader
 import nl.tudelft.pl2.data.storage.writers.{CtagWriter, HeaderWriter}
 import nl.tudelft.pl2.representation.exceptions.CTagException
 import nl.tudelft.pl2.representation.external.Node
@@ -27,21 +26,19 @@ case class InvalidConditionCombinationException(str: String, loc: String)
 /**
   * Builds the files needed for 1st semantic zoom level.
   *
-  * @param paths Paths to generated files.
+  * @param paths  Paths to generated files.
+  * @param source The source of the 0-level nodes.
+  * @param output The queue to pass the stored 1-level nodes to,
+  *               if the 2nd level is built at the same time.
   */
-class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBuilderData {
+class OneZoomBuilder(paths: GraphPathCollection,
+                     override val source: BuilderNodeSource,
+                     output: Option[BuilderNodeQueue] = None)
+  extends ZoomBuilder with ZoomBuilderData {
   /**
     * Writer of the 1st zoom level file.
     */
   override val currLvlWriter = new CtagWriter(paths.oneFilePath)
-  /**
-    * The zero level Index.
-    */
-  override val prevLvlIndex: Index = BytesIndexReader.loadIndex(paths.zeroIndexPath)
-  /**
-    * Reads the 0-level compressed file.
-    */
-  override val prevLvlReader = new CtagReader(paths.zeroFilePath)
   /**
     * Log4J [[Logger]] used to log debug information
     * and other significant events.
@@ -51,9 +48,7 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
     * Builds the index.
     */
 
-  override val indexer = new Indexer(paths.oneIndexPath)
-
-  override val chunksRetrieved: Array[Boolean] = Array.fill[Boolean](this.prevLvlIndex.size)(false)
+  override val indexer = new Indexer(paths.oneIndexPath, blocks = Some(currLvlWriter))
 
   override val nodeDataByID: mutable.SortedMap[Int, BuilderNode] = mutable.SortedMap[Int,
     BuilderNode]()
@@ -66,11 +61,11 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
     */
   override def build(): Unit = {
     expandNodeDataMapsByID(0, this)
-    var root = nodeDataByID(nodeDataByLayer.minBy(ndbl => ndbl._1)._2.min)
 
     //scalastyle:off while
-    while (nodeDataByID.nonEmpty) {
+    while (nodeDataByID.nonEmpty || expandNodeDataMaps(this)) {
       //scalastyle:on while
+      val root = nodeDataByID(nodeDataByLayer.minBy(ndbl => ndbl._1)._2.min)
       val outEdges = root.outgoing
 
       if (outEdges.size == 2) {
@@ -78,9 +73,6 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
       } else {
         registerNode(root)
       }
-      if (nodeDataByID.nonEmpty) {
-        root = nodeDataByID(nodeDataByLayer.minBy(ndbl => ndbl._1)._2.min)
-      }
     }
   }
 
@@ -167,8 +159,10 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
   override def registerNode(node: BuilderNode): Unit = {
     //TODO: filter options
     val nodeLen = currLvlWriter.storeNode(node.id, node.name, node.layer, node.content,
-      node.incoming, node.outgoing, node.options, node.genomes)
+      node.incoming, node.outgoing, node.options)
     indexer.indexNode(node.id, nodeLen, node.layer)
+    output.foreach(_.put(new BuilderNode(node.id, node.name, node.layer, node.content,
+      node.incoming.toBuffer, node.outgoing.toBuffer, node.options, node.genomes)))
 
     nodeDataByID.remove(node.id)
     nodeDataByLayer.removeBinding(node.layer, node.id)
@@ -186,12 +180,15 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
     * @param lo   The second middle Node.
     */
   def registerBubble(root: BuilderNode, hi: BuilderNode, lo: BuilderNode): Unit = {
+    val options = mergeOptions(root.options, hi.options, lo.options)
     val bubLen = currLvlWriter.storeBubble(
       root.id, root.layer,
       root.name, root.content,
       (hi.content(0), lo.content(0)),
-      mergeOptions(root.options, hi.options, lo.options), root.incoming, lo.outgoing.head)
+      options, root.incoming, lo.outgoing.head)
     indexer.indexNode(root.id, bubLen, root.layer)
+    output.foreach(_.put(BuilderBubble(root.id, root.name, root.layer, root.content,
+      hi.content(0), lo.content(0), options, root.incoming.toBuffer, lo.outgoing.head)))
 
     nodeDataByID.remove(root.id)
     nodeDataByID.remove(hi.id)
@@ -215,11 +212,13 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
     * @param end  The end Node.
     */
   def registerIndel(root: BuilderNode, mid: BuilderNode, end: BuilderNode): Unit = {
+    val options = mergeOptions(root.options, mid.options, Map())
     val indelLen = currLvlWriter.storeIndel(root.id, root.layer, root.name,
-      root.content, mid.content,
-      mergeOptions(root.options, mid.options, Map()),
+      root.content, mid.content, options,
       root.incoming, end.id)
     indexer.indexNode(root.id, indelLen, root.layer)
+    output.foreach(_.put(BuilderIndel(root.id, root.name, root.layer, root.content,
+      mid.content, options, root.incoming.toBuffer, end.id)))
 
     nodeDataByID.remove(root.id)
     nodeDataByID.remove(mid.id)
@@ -244,7 +243,7 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
     * [[Indexer]] associated with this [[ZeroZoomBuilder]].
     */
   override def close(): Unit = {
-    prevLvlReader.close()
+    source.close()
     currLvlWriter.close()
     indexer.close()
   }
@@ -255,22 +254,46 @@ class OneZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
   */
 object OneZoomBuilder {
   /**
-    * Builds the files needed for a [[SubCache]]
+    * Builds the files needed for a [[SubCache]] from the
+    * 0-level files.
     *
     * @param paths Paths for generating files.
     */
-  def buildFiles(paths: GraphPathCollection, observer: Observer): Unit = {
-    val builder = new OneZoomBuilder(paths)
+  def buildFiles(paths: GraphPathCollection, observer: Observer): Unit =
+    buildFiles(new OneZoomBuilder(paths,
+      new IndexedNodeSource(paths.zeroIndexPath, paths.zeroFilePath)), observer)
 
-    //scalastyle:off null
-    observer.update(null, LoadingState.INDEX_WRITTEN)
-    //scalastyle:on null
+  /**
+    * Builds the files needed for a [[SubCache]] from the 0-level
+    * nodes passed through the given queue while the 0th level is
+    * being built.
+    *
+    * @param paths  Paths for generating files.
+    * @param input  The queue the 0-level nodes are passed through.
+    * @param output The queue to pass the 1-level nodes to.
+    */
+  def buildFiles(paths: GraphPathCollection,
+                 observer: Observer,
+                 input: BuilderNodeQueue,
+                 output: Option[BuilderNodeQueue]): Unit =
+    buildFiles(new OneZoomBuilder(paths, new StreamingNodeSource(input), output), observer)
 
+  /**
+    * Builds, flushes and closes the given builder.
+    *
+    * @param builder  The builder to build with.
+    * @param observer The observer notified when the files are built.
+    */
+  private def buildFiles(builder: OneZoomBuilder, observer: Observer): Unit = {
     try {
       builder.build()
       builder.flush()
     } finally {
       builder.close()
     }
+
+    //scalastyle:off null
+    observer.update(null, LoadingState.INDEX_WRITTEN)
+    //scalastyle:on null
   }
 }
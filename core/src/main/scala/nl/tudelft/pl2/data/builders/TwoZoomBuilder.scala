@@ -5,9 +5,8 @@ import java.util.Observer
 
 import nl.tudelft.pl2.data.Graph.Options
 import nl.tudelft.pl2.data.caches.SubCache
-import nl.tudelft.pl2.data.indexing.{BytesIndexReader, Index, Indexer}
+import nl.tudelft.pl2.data.indexing.Indexer
 import nl.tudelft.pl2.data.loaders.GraphPathCollection
-import nl.tudelft.pl2.data.storage.readers.CtagReader
 import nl.tudelft.pl2.data.storage.writers.CtagWriter
 import nl.tudelft.pl2.representation.external.Node
 import nl.tudelft.pl2.representation.graph.LoadingState
@@ -17,23 +16,19 @@ import scala.collection.mutable
 
 
 /**
-  * Builds the files needed for 1st semantic zoom level.
+  * Builds the files needed for 2nd semantic zoom level.
   *
-  * @param paths Paths to generated files.
+  * @param paths  Paths to generated files.
+  * @param source The source of the 1-level nodes.
   */
-class TwoZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBuilderData {
+class TwoZoomBuilder(paths: GraphPathCollection,
+                     override val source: BuilderNodeSource)
+  extends ZoomBuilder with ZoomBuilderData {
   override val currLvlWriter = new CtagWriter(paths.twoFilePath)
 
-  override val prevLvlIndex: Index = BytesIndexReader.loadIndex(paths.oneIndexPath)
-
-  override val prevLvlReader = new CtagReader(paths.oneFilePath)
-
   override val LOGGER: Logger = LogManager.getLogger("TwoZoomBuilder")
 
-  override val indexer = new Indexer(paths.twoIndexPath)
-
-  override val chunksRetrieved: Array[Boolean] =
-    Array.fill[Boolean](prevLvlIndex.size)(false)
+  override val indexer = new Indexer(paths.twoIndexPath, blocks = Some(currLvlWriter))
 
   override val nodeDataByID: mutable.SortedMap[Int, BuilderNode] =
     mutable.SortedMap[Int, BuilderNode]()
@@ -44,9 +39,9 @@ class TwoZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
 
   override def build(): Unit = {
     expandNodeDataMapsByID(0, this)
-    var root = nodeDataByID(nodeDataByLayer.minBy(ndbl => ndbl._1)._2.min)
     //scalastyle:off while
-    while (nodeDataByID.nonEmpty) {
+    while (nodeDataByID.nonEmpty || expandNodeDataMaps(this)) {
+      val root = nodeDataByID(nodeDataByLayer.minBy(ndbl => ndbl._1)._2.min)
       val outEdges = root.outgoing
 
       if (outEdges.size == 1) {
@@ -76,9 +71,6 @@ class TwoZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
       } else {
         registerNode(root)
       }
-      if (nodeDataByID.nonEmpty) {
-        root = nodeDataByID(nodeDataByLayer.minBy(ndbl => ndbl._1)._2.min)
-      }
     }
   }
 
@@ -107,7 +99,7 @@ class TwoZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
   }
 
   override def close(): Unit = {
-    prevLvlReader.close()
+    source.close()
     currLvlWriter.close()
     indexer.close()
   }
@@ -124,7 +116,7 @@ class TwoZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
         .incoming, bi.end)
     } else {
       currLvlWriter.storeNode(node.id, node.name, node.layer, node.content,
-        node.incoming, node.outgoing, node.options, node.genomes)
+        node.incoming, node.outgoing, node.options)
     }
     indexer.indexNode(node.id, nodeLen, node.layer)
     nodeDataByID.remove(node.id)
@@ -140,22 +132,42 @@ class TwoZoomBuilder(paths: GraphPathCollection) extends ZoomBuilder with ZoomBu
   */
 object TwoZoomBuilder {
   /**
-    * Builds the files needed for a 2-level [[SubCache]]
+    * Builds the files needed for a 2-level [[SubCache]] from
+    * the 1-level files.
     *
     * @param paths Paths for generating files.
     */
-  def buildFiles(paths: GraphPathCollection, observer: Observer): Unit = {
-    val builder = new TwoZoomBuilder(paths)
+  def buildFiles(paths: GraphPathCollection, observer: Observer): Unit =
+    buildFiles(new TwoZoomBuilder(paths,
+      new IndexedNodeSource(paths.oneIndexPath, paths.oneFilePath)), observer)
 
-    //scalastyle:off null
-    observer.update(null, LoadingState.INDEX_WRITTEN)
-    //scalastyle:on null
+  /**
+    * Builds the files needed for a 2-level [[SubCache]] from the
+    * 1-level nodes passed through the given queue while the 1st
+    * level is being built.
+    *
+    * @param paths Paths for generating files.
+    * @param input The queue the 1-level nodes are passed through.
+    */
+  def buildFiles(paths: GraphPathCollection, observer: Observer, input: BuilderNodeQueue): Unit =
+    buildFiles(new TwoZoomBuilder(paths, new StreamingNodeSource(input)), observer)
 
+  /**
+    * Builds, flushes and closes the given builder.
+    *
+    * @param builder  The builder to build with.
+    * @param observer The observer notified when the files are built.
+    */
+  private def buildFiles(builder: TwoZoomBuilder, observer: Observer): Unit = {
     try {
       builder.build()
       builder.flush()
     } finally {
       builder.close()
     }
+
+    //scalastyle:off null
+    observer.update(null, LoadingState.INDEX_WRITTEN)
+    //scalastyle:on null
   }
 }
@@ -1,15 +1,17 @@
 package nl.tudelft.pl2.data.builders
 
-import java.io.{BufferedReader, File, FileReader}
+import java.io.File
+import java.nio.ByteBuffer
 import java.util.Observer
 import java.util.logging.Logger
 
-import nl.tudelft.pl2.data.Gfa1Parser
+import nl.tudelft.pl2.data.{Gfa1Parser, Gfa1Tokenizer, IntMultiMap}
 import nl.tudelft.pl2.data.Graph.{Coordinates, Options}
 import nl.tudelft.pl2.data.caches.SubCache
 import nl.tudelft.pl2.data.indexing.Indexer
 import nl.tudelft.pl2.data.loaders.GraphPathCollection
-import nl.tudelft.pl2.data.storage.writers.{CtagWriter, HeaderWriter, HeatMapWriter}
+import nl.tudelft.pl2.data.storage.writers.{CoordinateWriter, CtagWriter, HeaderWriter,
+  HeatMapWriter}
 import nl.tudelft.pl2.representation.exceptions.CTagException
 import nl.tudelft.pl2.representation.external.{Edge, Node}
 import nl.tudelft.pl2.representation.ui.InfoSidePanel.SampleSelectionController
@@ -28,10 +30,13 @@ case class EmptyGraphException(reason: String, loc: String)
 /**
   * Builds the files needed for 0th semantic zoom level.
   *
-  * @param paths The collection of paths to different
-  *              files used and written during building.
+  * @param paths  The collection of paths to different
+  *               files used and written during building.
+  * @param output The queue to pass the stored nodes to, if
+  *               the 1st level is built at the same time.
   */
-class ZeroZoomBuilder(paths: GraphPathCollection) {
+class ZeroZoomBuilder(paths: GraphPathCollection,
+                      output: Option[BuilderNodeQueue] = None) {
   /**
     * Log4J [[Logger]] used to log debug information
     * and other significant events.
@@ -51,23 +56,29 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
   /**
     * Writer and builder of the index.
     */
-  private val indexer = new Indexer(paths.zeroIndexPath)
+  private val indexer = new Indexer(paths.zeroIndexPath, blocks = Some(zoomWriter))
 
   /**
     * Writer of the heat map.
     */
   private val heatMapWriter = new HeatMapWriter(paths.heatMapPath)
 
+  /**
+    * Writer of the genome coordinates. It is created when the first
+    * [[Node]] is registered, as the genomes are known from the
+    * header by then.
+    */
+  private lazy val coordinateWriter = new CoordinateWriter(paths.coordinatesPath, genomes.size)
+
   /**
     * Maps [[Node]] names to their ID and layer.
     */
-  private val nameToNodeDat = new mutable.TreeMap[String, (Int, Int)]()
+  private val nameToNodeDat = new NameDictionary()
 
   /**
     * Points from to to from.
     */
-  private val incomingMap = new mutable.HashMap[Int, mutable.Set[Int]]
-    with mutable.MultiMap[Int, Int]
+  private val incomingMap = new IntMultiMap()
 
   /**
     * The [[Node]] currently being built.
@@ -75,9 +86,22 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
   private var nodeBeingBuilt: Option[BuilderNode] = None
 
   /**
-    * Currently registering links from this [[Node]].
+    * The buffer holding the name of the [[Node]] links are
+    * currently registered from.
+    */
+  private var linksFromBytes = ByteBuffer.allocate(0)
+
+  /**
+    * The index of the name of the [[Node]] links are
+    * currently registered from.
     */
-  private var registeringLinksFromNode = ""
+  private var linksFromName = 0
+
+  /**
+    * The number of bytes in the name of the [[Node]] links
+    * are currently registered from.
+    */
+  private var linksFromLength = 0
 
   /**
     * The index of the current [[Node]].
@@ -109,6 +133,14 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
     })
   }
 
+  /**
+    * Resolves the genomes passing through a node once, at import.
+    * They are stored as the membership row of the node, from which
+    * nodes read their genome set when they are loaded.
+    *
+    * @param options The [[Options]] of the node.
+    * @return The indices of the genomes passing through the node.
+    */
   private def getGenomes(options: Options): Array[Int] =
     options.getOrElse(SampleSelectionController.GENOME_TAG, (' ', ""))._2
       .split(';').filterNot(_.isEmpty).map(s => {
@@ -121,35 +153,44 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
 
   /**
     * Builds a [[Node]] with [[Edge]] references to be
-    * stored to disk.
+    * stored to disk. The name and content are given as ranges
+    * of the buffer the segment line was read from, and are only
+    * decoded to [[String]]s to be stored.
     *
-    * @param name    The [[Node]] name.
-    * @param content The [[Node]] content.
-    * @param options The [[Options]] that apply to this [[Node]].
+    * @param bytes         The buffer holding the segment line.
+    * @param name          The index of the [[Node]] name.
+    * @param nameLength    The number of bytes in the name.
+    * @param content       The index of the [[Node]] content.
+    * @param contentLength The number of bytes in the content.
+    * @param options       The [[Options]] that apply to this [[Node]].
     */
-  def registerNode(name: String, content: String, options: Options): Unit = {
+  def registerNode(bytes: ByteBuffer,
+                   name: Int,
+                   nameLength: Int,
+                   content: Int,
+                   contentLength: Int,
+                   options: Options): Unit = {
     registerCurrentNode()
-    if (nameToNodeDat.contains(registeringLinksFromNode)) {
-      nameToNodeDat.remove(registeringLinksFromNode)
-    }
+    nameToNodeDat.remove(linksFromBytes, linksFromName, linksFromLength)
 
-    val (id, layer) = if (nameToNodeDat.contains(name)) {
-      nameToNodeDat(name)
-    } else {
-      nameToNodeDat.put(name, (nodeIndex, 0))
+    var slot = nameToNodeDat.slotOf(bytes, name, nameLength)
+    if (slot < 0) {
+      slot = nameToNodeDat.put(bytes, name, nameLength, nodeIndex, 0)
       nodeIndex += 1
-      nameToNodeDat(name)
     }
+    val id = nameToNodeDat.id(slot)
+    val layer = nameToNodeDat.layer(slot)
 
     val nodeGenomes = getGenomes(options)
+    coordinateWriter.storeNode(id, layer, nodeGenomes, nodeGenomes.map(genomeCoordinates))
 
-    nodeBeingBuilt = Some(new BuilderNode(id, name, layer, content,
-      incomingMap.getOrElse(id, mutable.Set[Int]()).toBuffer, mutable.Buffer[Int](),
-      options, nodeGenomes.map(gen => (new Integer(gen), genomeCoordinates.apply
-      (gen))).toMap))
+    nodeBeingBuilt = Some(new BuilderNode(id,
+      Gfa1Tokenizer.decode(bytes, name, nameLength),
+      layer,
+      Gfa1Tokenizer.decode(bytes, content, contentLength),
+      incomingMap.remove(id).toBuffer, mutable.Buffer[Int](), options, Map()))
 
-    incomingMap.remove(id)
-    nodeGenomes.foreach(gen => genomeCoordinates(gen) += content.length)
+    nodeGenomes.foreach(gen => genomeCoordinates(gen) += contentLength)
   }
 
   /**
@@ -167,41 +208,56 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
         builtNode.content,
         builtNode.incoming,
         builtNode.outgoing,
-        builtNode.options,
-        builtNode.genomes)
+        builtNode.options)
 
       indexer.indexNode(builtNode.id, nodeLen, builtNode.layer)
       builtNode.outgoing.foreach(e => incomingMap.addBinding(e, builtNode.id))
       heatMapWriter.incrementLayerAt(builtNode.layer)
+      output.foreach(_.put(builtNode))
       nodeBeingBuilt = None: Option[BuilderNode]
     }
 
   /**
     * Adds a reference to the [[Edge]] to the [[Node]] currently
-    * being built for later storage.
+    * being built for later storage. The names of the [[Node]]s
+    * are given as ranges of the buffer the link line was read
+    * from and are looked up without decoding them.
     *
-    * @param from         The origin [[Node]] of this [[Edge]].
+    * @param bytes        The buffer holding the link line.
+    * @param from         The index of the name of the origin [[Node]].
+    * @param fromLength   The number of bytes in the name of the origin.
     * @param reversedFrom Whether the origin [[Node]] is reversed.
-    * @param to           The destination [[Node]] of this [[Edge]].
+    * @param to           The index of the name of the destination [[Node]].
+    * @param toLength     The number of bytes in the name of the destination.
     * @param reversedTo   Whether the destination [[Node]] is reversed.
-    * @param options      The [[Options]] that apply to this [[Edge]].
     */
-  def registerEdge(from: String,
+  def registerEdge(bytes: ByteBuffer,
+                   from: Int,
+                   fromLength: Int,
                    reversedFrom: Boolean,
-                   to: String,
-                   reversedTo: Boolean,
-                   options: Options): Unit = {
-    registeringLinksFromNode = from
-    val (fromId, fromLayer) = nameToNodeDat(from)
-    var layer = -1
-    if (nameToNodeDat.contains(to)) {
-      val (toId, toLayer) = nameToNodeDat(to)
-      layer = Math.max(toLayer, fromLayer + 1)
-      nameToNodeDat.put(to, (toId, layer))
+                   to: Int,
+                   toLength: Int,
+                   reversedTo: Boolean): Unit = {
+    linksFromBytes = bytes
+    linksFromName = from
+    linksFromLength = fromLength
+    val fromSlot = nameToNodeDat.slotOf(bytes, from, fromLength)
+    if (fromSlot < 0) {
+      throw new NoSuchElementException(
+        s"key not found: ${Gfa1Tokenizer.decode(bytes, from, fromLength)}")
+    }
+    val fromId = nameToNodeDat.id(fromSlot)
+    val fromLayer = nameToNodeDat.layer(fromSlot)
+
+    val toSlot = nameToNodeDat.slotOf(bytes, to, toLength)
+    val toId = if (toSlot >= 0) {
+      nameToNodeDat.setLayer(toSlot,
+        Math.max(nameToNodeDat.layer(toSlot), fromLayer + 1))
+      nameToNodeDat.id(toSlot)
     } else {
-      layer = fromLayer + 1
-      nameToNodeDat.put(to, (nodeIndex, layer))
+      nameToNodeDat.put(bytes, to, toLength, nodeIndex, fromLayer + 1)
       nodeIndex += 1
+      nodeIndex - 1
     }
 
     val node = nodeBeingBuilt.getOrElse(
@@ -210,7 +266,7 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
 
     assert(fromId == node.id)
 
-    node.outgoing += nameToNodeDat(to)._1
+    node.outgoing += toId
   }
 
   /**
@@ -227,17 +283,19 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
     }
     indexer.flush()
     heatMapWriter.flush()
+    coordinateWriter.finish()
   }
 
   /**
-    * Closes the [[HeaderWriter]], [[CtagWriter]], and
-    * [[Indexer]] associated with this [[ZeroZoomBuilder]].
+    * Closes the [[HeaderWriter]], [[CtagWriter]], [[Indexer]] and
+    * [[CoordinateWriter]] associated with this [[ZeroZoomBuilder]].
     */
   def close(): Unit = {
     zoomWriter.close()
     headerWriter.close()
     indexer.close()
     heatMapWriter.close()
+    coordinateWriter.close()
     LOGGER.debug("Closed all files.")
   }
 
@@ -257,20 +315,30 @@ class ZeroZoomBuilder(paths: GraphPathCollection) {
   */
 object ZeroZoomBuilder {
   /**
-    * Builds the files needed for a [[SubCache]]
+    * Builds the files needed for a [[SubCache]]. Files of at least
+    * [[Gfa1Parser.PARALLEL_MIN_BYTES]] are parsed using all available
+    * processors, smaller files are parsed from memory mapped
+    * windows on the calling thread.
     *
-    * @param paths The paths used for building additional files.
+    * @param paths  The paths used for building additional files.
+    * @param output The queue to pass the stored nodes to, if
+    *               the 1st level is built at the same time.
     */
-  def buildFiles(paths: GraphPathCollection, observer: Observer): Unit = {
-    val builder = new ZeroZoomBuilder(paths)
+  def buildFiles(paths: GraphPathCollection,
+                 observer: Observer,
+                 output: Option[BuilderNodeQueue] = None): Unit = {
+    val builder = new ZeroZoomBuilder(paths, output)
     val size = new File(paths.gfaPath.toUri).length()
-    val reader = new BufferedReader(new FileReader(paths.gfaPath.toString))
+    val workers = Runtime.getRuntime.availableProcessors()
     try {
-      Gfa1Parser.parse(reader, builder, observer, size)
+      if (workers > 1 && size >= Gfa1Parser.PARALLEL_MIN_BYTES) {
+        Gfa1Parser.parseParallel(paths.gfaPath, builder, observer, workers)
+      } else {
+        Gfa1Parser.parseMapped(paths.gfaPath, builder, observer)
+      }
     } catch {
       case any: Any => any.printStackTrace()
     } finally {
-      reader.close()
       try {
         builder.flush()
       } finally {
@@ -19,21 +19,32 @@ trait ZoomBuilder {
   def expandNodeDataMapsByID(id: Int, data: ZoomBuilderData): Unit = {
     if (!data.nodeDataByID.contains(id)) {
       LOGGER.debug("Expand data with id {}", id)
-      val chunks = data.prevLvlIndex.getIndexedChunksByNodeID(id)
-      chunks.foreach(ic => if (!data.chunksRetrieved(ic.index)) {
-        data.prevLvlReader.readDataChunkToBuilderNodes(ic.offset, ic.length).foreach(
-          bn => {
-            data.nodeDataByID.put(bn.id, bn)
-            data.nodeDataByLayer.addBinding(bn.layer, bn.id)
-          }
-
-        )
-        LOGGER.debug("Chunk {} was retrieved.", ic.index)
-        data.chunksRetrieved(ic.index) = true
-      })
+      data.source.loadNodeByID(id, bn => addNodeData(bn, data))
     }
   }
 
+  /**
+    * Loads nodes of the previous level that were not loaded
+    * before, such that nodes not reachable from the nodes built
+    * so far are built as well.
+    *
+    * @param data The data to load the nodes into.
+    * @return Whether any node was loaded.
+    */
+  def expandNodeDataMaps(data: ZoomBuilderData): Boolean =
+    data.source.loadNext(bn => addNodeData(bn, data))
+
+  /**
+    * Adds a node of the previous level to the node data maps.
+    *
+    * @param bn   The node to add.
+    * @param data The data to add the node to.
+    */
+  private def addNodeData(bn: BuilderNode, data: ZoomBuilderData): Unit = {
+    data.nodeDataByID.put(bn.id, bn)
+    data.nodeDataByLayer.addBinding(bn.layer, bn.id)
+  }
+
   /**
     * Removes non-ORI or START and
     * double options.
@@ -75,6 +75,18 @@ trait Cache {
     **/
   def retrieveChunksByLayer(layer: Int): List[Chunk]
 
+  /**
+    * Retrieves a list of [[Chunk]]s that contain [[Node]]s
+    * in any layer of the specified range, resolving the
+    * covering chunks once for the whole range.
+    *
+    * @param from The first layer of the range.
+    * @param to   The last layer of the range.
+    * @return A list of [[Chunk]]s containing the [[Node]]s
+    *         of interest, each listed once.
+    */
+  def retrieveChunksInLayerRange(from: Int, to: Int): List[Chunk]
+
   /**
     * Closes the connections between the [[Cache]] and
     * any files.
@@ -14,6 +14,8 @@ import scala.collection.mutable
   * @param nodeIndices The indexes of the segments in this chunk.
   * @param nodes       The segments in this chunk.
   * @param timestamp   The last time this chunk was accessed.
+  * @param bytes       The estimated number of bytes this chunk
+  *                    takes in main memory.
   */
 case class CacheChunk(index: Int,
                       layers: List[Int],
@@ -21,13 +23,57 @@ case class CacheChunk(index: Int,
                       maxLayer: Int,
                       nodeIndices: List[Int],
                       nodes: mutable.Buffer[Node],
-                      var timestamp: Long)
+                      var timestamp: Long,
+                      bytes: Long) {
+
+  /**
+    * The nodes in this chunk by their ID, built on the first
+    * lookup. The first node with an ID wins.
+    */
+  private lazy val nodesByID: mutable.LongMap[Node] = {
+    val map = new mutable.LongMap[Node](nodes.length)
+    nodes.foreach(node => map.getOrElseUpdate(node.id, node))
+    map
+  }
+
+  /**
+    * Finds a node in this chunk by its ID in constant time.
+    *
+    * @param id The ID of the node.
+    * @return The node with the ID, if it is in this chunk.
+    */
+  def nodeByID(id: Int): Option[Node] = nodesByID.get(id)
+}
 
 /**
   * The companion object for CacheChunk.
   */
 object CacheChunk {
 
+  /**
+    * The estimated number of bytes a node of a chunk takes in
+    * main memory besides its record and edges.
+    */
+  final val NODE_BYTES = 192
+
+  /**
+    * The estimated number of bytes an edge of a node takes
+    * in main memory.
+    */
+  final val EDGE_BYTES = 32
+
+  /**
+    * Estimates the number of bytes a chunk takes in main memory.
+    * Content that nodes decode on access is not accounted for.
+    *
+    * @param length The length of the chunk in its file.
+    * @param nodes  The nodes in the chunk.
+    * @return The estimated size of the chunk.
+    */
+  def estimateBytes(length: Int, nodes: Seq[Node]): Long =
+    length + nodes.foldLeft(0L)((bytes, node) =>
+      bytes + NODE_BYTES + EDGE_BYTES * (node.incoming.length + node.outgoing.length))
+
   /**
     * Ordering by timestamp and index for CacheChunks.
     *
@@ -0,0 +1,45 @@
+package nl.tudelft.pl2.data.caches
+
+/**
+  * The policy by which a [[SubCache]] keeps chunks in main memory.
+  * Chunks are evicted in least recently used order once the
+  * estimated size of the cached chunks exceeds the budget.
+  *
+  * @param maxBytes The number of bytes the cached chunks may take.
+  */
+case class CachePolicy(maxBytes: Long)
+
+/**
+  * Companion object to the [[CachePolicy]].
+  */
+object CachePolicy {
+  /**
+    * The system property overriding the budget of a zoom level
+    * is this prefix followed by the level and [[PROPERTY_SUFFIX]],
+    * e.g. `ctag.cache.0.bytes`.
+    */
+  final val PROPERTY_PREFIX = "ctag.cache."
+  final val PROPERTY_SUFFIX = ".bytes"
+
+  /**
+    * The part of the maximum heap size given to the 0th zoom
+    * level, whose chunks hold the most content, and to each of
+    * the other zoom levels by default.
+    */
+  private final val ZERO_LEVEL_SHARE = 4
+  private final val LEVEL_SHARE = 8
+
+  /**
+    * Gives the policy of a zoom level, which is read from the
+    * system property of the level when it is set and otherwise
+    * is a share of the maximum heap size.
+    *
+    * @param level The zoom level.
+    * @return The policy of the zoom level.
+    */
+  def forLevel(level: Int): CachePolicy = {
+    val share = if (level == 0) ZERO_LEVEL_SHARE else LEVEL_SHARE
+    CachePolicy(java.lang.Long.getLong(PROPERTY_PREFIX + level + PROPERTY_SUFFIX,
+      Runtime.getRuntime.maxMemory / share))
+  }
+}
@@ -0,0 +1,56 @@
+package nl.tudelft.pl2.data.caches
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+  * Counts the lookups, evictions and prefetches of a [[SubCache]].
+  */
+class CacheStatistics {
+  private val _hits = new AtomicLong()
+  private val _misses = new AtomicLong()
+  private val _evictions = new AtomicLong()
+  private val _prefetches = new AtomicLong()
+
+  /**
+    * @return The number of lookups answered from cached chunks.
+    */
+  def hits: Long = _hits.get()
+
+  /**
+    * @return The number of lookups that had to read chunks.
+    */
+  def misses: Long = _misses.get()
+
+  /**
+    * @return The number of chunks evicted from the cache.
+    */
+  def evictions: Long = _evictions.get()
+
+  /**
+    * @return The number of chunks read in the background.
+    */
+  def prefetches: Long = _prefetches.get()
+
+  /**
+    * Registers a lookup answered from cached chunks.
+    */
+  def hit(): Unit = _hits.incrementAndGet()
+
+  /**
+    * Registers a lookup that had to read chunks.
+    */
+  def miss(): Unit = _misses.incrementAndGet()
+
+  /**
+    * Registers the eviction of a chunk.
+    */
+  def evicted(): Unit = _evictions.incrementAndGet()
+
+  /**
+    * Registers a chunk read in the background.
+    */
+  def prefetched(): Unit = _prefetches.incrementAndGet()
+
+  override def toString: String =
+    s"$hits hits, $misses misses, $evictions evictions, $prefetches prefetches"
+}
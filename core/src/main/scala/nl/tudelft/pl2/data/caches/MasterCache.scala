@@ -5,6 +5,7 @@ import java.util.logging.Logger
 
 import nl.tudelft.pl2.data.Graph.Options
 import nl.tudelft.pl2.data.storage.HeatMap
+import nl.tudelft.pl2.data.storage.readers.CoordinateReader
 import nl.tudelft.pl2.representation.external.{Edge, Node}
 import nl.tudelft.pl2.representation.external.chunking.Chunk
 import org.apache.logging.log4j.{Logger, LogManager}
@@ -16,13 +17,15 @@ import scala.collection.JavaConverters.mapAsJavaMapConverter
   * Point of contact between the GUI and sub-caches. Retrieves
   * different kinds of information based on the zoom level.
   *
-  * @param headers The headers of the graph file.
-  * @param heatMap The heat map of the graph.
-  * @param caches  The sub-caches.
+  * @param headers     The headers of the graph file.
+  * @param heatMap     The heat map of the graph.
+  * @param caches      The sub-caches.
+  * @param coordinates The reader of the genome coordinates, if any.
   */
 case class MasterCache(headers: mutable.Buffer[Options],
                   heatMap: HeatMap,
-                  caches: Array[SubCache]) extends Cache {
+                  caches: Array[SubCache],
+                  coordinates: Option[CoordinateReader] = None) extends Cache {
 
   /**
     * Log4J [[Logger]] used to log debug information
@@ -79,6 +82,42 @@ case class MasterCache(headers: mutable.Buffer[Options],
     caches(zoomLevel).retrieveChunksByLayer(layer)
   }
 
+  override def retrieveChunksInLayerRange(from: Int, to: Int): List[Chunk] =
+    caches(zoomLevel).retrieveChunksInLayerRange(from, to)
+
+  /**
+    * Reads the chunks covering a range of layers of the current
+    * zoom level in the background.
+    *
+    * @param from The first layer to prefetch, nearest to the view.
+    * @param to   The last layer to prefetch.
+    */
+  def prefetch(from: Int, to: Int): Unit =
+    caches(zoomLevel).prefetch(from, to)
+
+  /**
+    * Retrieves the IDs of the nodes a genome passes through from
+    * the genome index of the graph, without loading any chunk.
+    * Nodes that are not merged at higher zoom levels keep these
+    * IDs at every zoom level.
+    *
+    * @param genome The index of the genome.
+    * @return The IDs of the nodes of the genome, in ascending order.
+    */
+  def retrieveNodesByGenome(genome: Int): Array[Int] =
+    coordinates.map(_.nodesOf(genome)).getOrElse(Array())
+
+  /**
+    * Retrieves the range of layers a genome passes through from
+    * the genome index of the graph.
+    *
+    * @param genome The index of the genome.
+    * @return The first and last layer of the genome, if the
+    *         genome passes through any node.
+    */
+  def retrieveLayersByGenome(genome: Int): Option[(Int, Int)] =
+    coordinates.flatMap(_.layersOf(genome))
+
   /**
     * Sets the zoom level of the [[MasterCache]].
     *
@@ -108,6 +147,7 @@ case class MasterCache(headers: mutable.Buffer[Options],
 
   override def close(): Unit = {
     caches.foreach(c => c.close())
+    coordinates.foreach(_.close())
   }
 
   def clear(): Unit =
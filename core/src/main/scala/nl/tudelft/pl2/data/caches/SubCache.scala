@@ -1,6 +1,9 @@
 package nl.tudelft.pl2.data.caches
 
-import nl.tudelft.pl2.data.indexing.{Index, IndexChunk}
+import java.util.concurrent.Callable
+
+import nl.tudelft.pl2.data.Scheduler
+import nl.tudelft.pl2.data.indexing.{ChunkIndex, IndexChunk}
 import nl.tudelft.pl2.data.storage.readers.CtagReader
 import nl.tudelft.pl2.representation.exceptions.NodeNotFoundException
 import nl.tudelft.pl2.representation.external.{Edge, Node}
@@ -8,25 +11,50 @@ import nl.tudelft.pl2.representation.external.chunking.Chunk
 import org.apache.logging.log4j.LogManager
 
 import scala.collection.mutable
-import scala.collection.JavaConverters.asScalaSetConverter
+import scala.collection.JavaConverters.collectionAsScalaIterableConverter
 
 /**
   * A a sub-cache.
   *
-  * @param index  The [[Index]] of this cache.
+  * Chunks are kept in main memory until their estimated size
+  * exceeds the budget of the [[CachePolicy]], after which the
+  * least recently used chunks are evicted.
+  *
+  * @param index  The [[ChunkIndex]] of this cache.
   * @param reader The reader for the file containing the zero zoom level information.
+  * @param policy The policy deciding which chunks are kept in main memory.
   */
-class SubCache(index: Index, reader: CtagReader) extends Cache {
+class SubCache(index: ChunkIndex,
+               reader: CtagReader,
+               policy: CachePolicy = CachePolicy.forLevel(0)) extends Cache {
+
+  /**
+    * The [[CacheChunk]]s that currently reside in main memory by
+    * their index, from least to most recently used.
+    */
+  private val chunks = new java.util.LinkedHashMap[Integer, CacheChunk](
+    SubCache.INITIAL_CHUNKS, SubCache.LOAD_FACTOR, true)
 
   /**
-    * The [[CacheChunk]]s that currently reside in main memory.
+    * The estimated number of bytes taken by the cached chunks.
     */
-  val cachedChunks: mutable.TreeSet[CacheChunk] = mutable.TreeSet()
+  private var cachedBytes = 0L
 
   /**
-    * The maximum number of [[CacheChunk]]s in this [[Cache]].
+    * The indices of the chunks being read in the background.
     */
-  private val CACHE_SIZE = 11
+  private val prefetching = mutable.HashSet[Int]()
+
+  /**
+    * Whether this cache was closed, after which no chunks
+    * are prefetched anymore.
+    */
+  @volatile private var closed = false
+
+  /**
+    * The hits, misses and evictions of this cache.
+    */
+  val statistics = new CacheStatistics()
 
   /**
     * Logger for this class.
@@ -47,20 +75,26 @@ class SubCache(index: Index, reader: CtagReader) extends Cache {
 
   override def retrieveNodeID(nodeName: String): Int = ???
 
+  /**
+    * @return The [[CacheChunk]]s that currently reside in main
+    *         memory, from least to most recently used.
+    */
+  def cachedChunks: List[CacheChunk] = synchronized {
+    chunks.values().asScala.toList
+  }
+
   override def retrieveNodeByID(id: Int): Node = {
     try {
-      val nodes = treeFilter(cachedChunks)(cc => cc.nodeIndices.contains(id))
-        .getOrElse(index
-          .getIndexedChunksByNodeID(id)
-          .filterNot(ic => cachedChunks.exists(cc => ic.index == cc.index))
-          .map(ic => addChunkToCache(buildCacheChunk(ic))))
-        .flatMap(a => a.nodes)
-      if (nodes.nonEmpty) {
-        nodes.minBy(v => math.abs(v.id - id))
-      } else {
-        throw new NodeNotFoundException("Node " + id + " could not be found.",
-          "In " + this.getClass)
-      }
+      val found = chunksOf(index.getIndexedChunksByNodeID(id))
+      found.view.flatMap(cc => cc.nodeByID(id)).headOption.getOrElse({
+        val nodes = found.flatMap(a => a.nodes)
+        if (nodes.nonEmpty) {
+          nodes.minBy(v => math.abs(v.id - id))
+        } else {
+          throw new NodeNotFoundException("Node " + id + " could not be found.",
+            "In " + this.getClass)
+        }
+      })
     } catch {
       case e: Exception =>
         LOGGER.error("Something something: ", e)
@@ -69,6 +103,54 @@ class SubCache(index: Index, reader: CtagReader) extends Cache {
     }
   }
 
+  /**
+    * Gives the cached chunks of the given indexed chunks, marking
+    * them as recently used, and reads the indexed chunks that are
+    * not cached yet into the cache. Cached chunks are found by their
+    * index, such that the lookup does not depend on the number of
+    * chunks in the cache.
+    *
+    * @param indexChunks The indexed chunks to retrieve.
+    * @return The cached chunks in the order of the indexed chunks.
+    */
+  private def chunksOf(indexChunks: Seq[IndexChunk]): Seq[CacheChunk] = {
+    val now = System.currentTimeMillis / SubCache.MILLIS_PER_SECOND
+    val cached = synchronized {
+      indexChunks.map(ic => Option(chunks.get(ic.index)))
+    }
+    if (cached.forall(_.isDefined)) statistics.hit() else statistics.miss()
+    val read = readChunks(indexChunks.zip(cached).collect { case (ic, None) => ic })
+    indexChunks.zip(cached).map {
+      case (_, Some(cc)) =>
+        cc.timestamp = now
+        cc
+      case (ic, None) =>
+        read(ic.index)
+    }
+  }
+
+  /**
+    * Reads indexed chunks into the cache. When more than one chunk
+    * is read, the chunks are read and decoded in parallel on the
+    * [[Scheduler]], such that a range of chunks takes about as long
+    * as its largest chunk.
+    *
+    * @param indexChunks The indexed chunks to read.
+    * @return The read chunks by their index.
+    */
+  private def readChunks(indexChunks: Seq[IndexChunk]): Map[Int, CacheChunk] = {
+    indexChunks.foreach(ic =>
+      LOGGER.debug(s"Retrieving chunk: ${ic.index} with layers ${ic.layerRange}"))
+    val built = if (indexChunks.lengthCompare(1) > 0) {
+      indexChunks.map(ic => Scheduler.schedule(new Callable[CacheChunk] {
+        override def call(): CacheChunk = buildCacheChunk(ic)
+      })).map(_.get())
+    } else {
+      indexChunks.map(buildCacheChunk)
+    }
+    built.map(cc => (cc.index, addChunkToCache(cc))).toMap
+  }
+
   /**
     * Takes an IndexedChunk, retrieves the data it points to
     * from disk, and creates a CachedChunk.
@@ -78,7 +160,8 @@ class SubCache(index: Index, reader: CtagReader) extends Cache {
     * @return A Cachechunk with the retrieved information.
     */
   def buildCacheChunk(indexChunk: IndexChunk): CacheChunk = {
-    val nodes = reader.readDataChunk(indexChunk.offset, indexChunk.length)
+    val nodes = reader.readDataChunk(indexChunk.offset, indexChunk.length,
+      indexChunk.storedLength)
     var maxLayer = Integer.MIN_VALUE
     var minLayer = Integer.MAX_VALUE
     val layers = nodes.map(s => {
@@ -94,7 +177,8 @@ class SubCache(index: Index, reader: CtagReader) extends Cache {
       minLayer, maxLayer,
       segmentIds,
       nodes,
-      System.currentTimeMillis / 1000
+      System.currentTimeMillis / SubCache.MILLIS_PER_SECOND,
+      CacheChunk.estimateBytes(indexChunk.length, nodes)
     )
   }
 
@@ -114,57 +198,136 @@ class SubCache(index: Index, reader: CtagReader) extends Cache {
     * @param cacheChunk The chunk to add to the cache.
     * @return The chunk that was added to the cache.
     */
-  def addChunkToCache(cacheChunk: CacheChunk): CacheChunk = {
-    if (cachedChunks.size >= CACHE_SIZE) {
-      cachedChunks.remove(cachedChunks.min)
-    }
+  def addChunkToCache(cacheChunk: CacheChunk): CacheChunk = synchronized {
+    Option(chunks.put(cacheChunk.index, cacheChunk)).foreach(old => cachedBytes -= old.bytes)
+    cachedBytes += cacheChunk.bytes
+    evictExcept(cacheChunk.index)
     _maxLayer = Math.max(cacheChunk.layers.max, _maxLayer)
-    cachedChunks.add(cacheChunk)
 
     LOGGER.debug(s"Chunk ${cacheChunk.index} was added to the cache.")
     cacheChunk
   }
 
+  /**
+    * Evicts the least recently used chunks until the cached chunks
+    * fit the budget of the policy. The given chunk is never evicted,
+    * such that a chunk larger than the budget can still be used.
+    *
+    * @param keep The index of the chunk to keep.
+    */
+  private def evictExcept(keep: Int): Unit = {
+    val lru = chunks.values().iterator()
+    //scalastyle:off while
+    while (cachedBytes > policy.maxBytes && lru.hasNext) {
+      //scalastyle:on while
+      val cc = lru.next()
+      if (cc.index != keep) {
+        lru.remove()
+        cachedBytes -= cc.bytes
+        statistics.evicted()
+        LOGGER.debug(s"Chunk ${cc.index} was evicted from the cache.")
+      }
+    }
+  }
+
   override def retrieveChunksByLayer(layer: Int): List[Chunk] =
-    treeFilter(cachedChunks)(cc => {
-      cc.layers.contains(layer)
-    }).getOrElse({
-      index.getIndexedChunksByLayer(layer)
-        .filterNot(ic => cachedChunks.exists(cc => ic.index == cc.index))
-        .map({
-          ic => {
-            LOGGER.debug(s"Retrieving chunk: ${ic.index} with layers ${ic.layerRange}")
-            addChunkToCache(buildCacheChunk(ic))
-          }
-        })
-    }).map(cc => {
-      val ec = new Chunk(cc.index, cc.layers, Nil, Nil, Map())
-      ec.addCacheChunk(cc)
-      ec
-    }).toList
+    chunksOf(index.getIndexedChunksByLayer(layer)).map(toChunk).toList
+
+  override def retrieveChunksInLayerRange(from: Int, to: Int): List[Chunk] =
+    if (from > to) {
+      Nil
+    } else {
+      chunksOf(index.getIndexedChunksInLayerRange(from, to)).map(toChunk).toList
+    }
 
   /**
-    * Filters a TreeSet by a certain predicate and checks whether or not
-    * it is empty. Converts the result to a mutable.Buffer
+    * @param cc A cached chunk.
+    * @return The [[Chunk]] handed out for the cached chunk.
+    */
+  private def toChunk(cc: CacheChunk): Chunk = {
+    val ec = new Chunk(cc.index, cc.layers, Nil, Nil, Map())
+    ec.addCacheChunk(cc)
+    ec
+  }
+
+  /**
+    * Reads the chunks covering a range of layers into the cache in
+    * the background, nearest to the start of the range first. At
+    * most [[SubCache.MAX_PREFETCH_CHUNKS]] chunks that are neither
+    * cached nor being prefetched already are read per call.
     *
-    * @param tree      The tree to filter.
-    * @param predicate The predicate to filter on.
-    * @tparam A The type of the TreeSet
-    * @return A filtered buffer of type A.
+    * @param from The first layer to prefetch, nearest to the view.
+    * @param to   The last layer to prefetch, which may be lower than
+    *             `from` when prefetching to the left.
     */
-  def treeFilter[A](tree: mutable.TreeSet[A])
-                   (predicate: A => Boolean): Option[mutable.Buffer[A]] =
-    Some(tree.filter(predicate).toBuffer).filter(_.nonEmpty)
+  def prefetch(from: Int, to: Int): Unit = {
+    val candidates = index.getIndexedChunksInLayerRange(Math.min(from, to), Math.max(from, to))
+    val ordered = if (from <= to) candidates else candidates.reverse
+    val toLoad = synchronized {
+      val missing = ordered.filterNot(ic => chunks.containsKey(ic.index) || prefetching(ic.index))
+        .take(SubCache.MAX_PREFETCH_CHUNKS)
+      missing.foreach(ic => prefetching += ic.index)
+      missing
+    }
+    if (toLoad.nonEmpty && !closed) {
+      Scheduler.schedule(() => toLoad.foreach(prefetchChunk))
+    }
+  }
+
+  /**
+    * Reads a chunk into the cache in the background, unless it was
+    * cached in the meantime.
+    *
+    * @param indexChunk The indexed chunk to read.
+    */
+  private def prefetchChunk(indexChunk: IndexChunk): Unit =
+    try {
+      if (!closed && !synchronized(chunks.containsKey(indexChunk.index))) {
+        addChunkToCache(buildCacheChunk(indexChunk))
+        statistics.prefetched()
+      }
+    } catch {
+      case e: Exception =>
+        LOGGER.debug(s"Could not prefetch chunk ${indexChunk.index}.", e)
+    } finally {
+      synchronized {
+        prefetching -= indexChunk.index
+      }
+    }
 
   override def createNodeList: List[Node] =
-    index.indexTreeMap.keySet().asScala.toList.sorted.flatMap(id => {
-      buildCacheChunk(index.getIndexedChunkByIndex(id)).nodes
-    })
+    index.chunks.toList.flatMap(ic => buildCacheChunk(ic).nodes)
 
   override def close(): Unit = {
+    LOGGER.info(s"Closing cache with $statistics.")
+    closed = true
     reader.close()
   }
 
-  def clear(): Unit =
-    cachedChunks.clear()
+  def clear(): Unit = synchronized {
+    chunks.clear()
+    cachedBytes = 0
+  }
+}
+
+/**
+  * Companion object to the [[SubCache]].
+  */
+object SubCache {
+  /**
+    * The number of chunks the cache table is sized for initially.
+    */
+  private final val INITIAL_CHUNKS = 64
+
+  /**
+    * The load factor of the cache table.
+    */
+  private final val LOAD_FACTOR = 0.75f
+
+  private final val MILLIS_PER_SECOND = 1000
+
+  /**
+    * The maximum number of chunks read per call to [[SubCache.prefetch]].
+    */
+  final val MAX_PREFETCH_CHUNKS = 8
 }
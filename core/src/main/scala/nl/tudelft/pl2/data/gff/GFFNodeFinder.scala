@@ -25,13 +25,13 @@ case class GFFNodeFinder(featurePair: FeaturePair,
         .filter(t => t._2.contains(featurePair.id()))
         .reduce((t1, t2) => if (t1._2.length < t2._2.length) t1 else t2)
 
-    val oldChunks: Set[CacheChunk] = cache.cachedChunks.toSet
-    cache.cachedChunks.clear()
+    val oldChunks: List[CacheChunk] = cache.cachedChunks
+    cache.clear()
 
     val node = findNodeInRange(0, cache.maxLayer, cache, genome)
 
-    cache.cachedChunks.clear()
-    oldChunks.foreach(cache.cachedChunks.add)
+    cache.clear()
+    oldChunks.foreach(cache.addChunkToCache)
     node
   }
 
@@ -114,7 +114,7 @@ case class GFFNodeFinder(featurePair: FeaturePair,
     }).filter(_.genomeCoordinates.contains(genome._1))
       .map((node) => (node.genomeCoordinates(genome._1), node))
       .map(tuple => (IntegerInterval(
-        tuple._1, tuple._1 + tuple._2.content.length.toLong), tuple._2))
+        tuple._1, tuple._1 + tuple._2.contentLength.toLong), tuple._2))
 
     //scalastyle:off null
     var returnTuple: (Node, Boolean, Boolean) = (null, false, false)
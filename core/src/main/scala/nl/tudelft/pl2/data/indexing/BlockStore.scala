@@ -0,0 +1,21 @@
+package nl.tudelft.pl2.data.indexing
+
+/**
+  * Stores the data of the [[IndexChunk]]s an [[Indexer]] creates
+  * as separate blocks, such that every chunk can be read on its own.
+  *
+  * The data of a chunk is passed to the store before the chunk is
+  * indexed. When the [[Indexer]] closes a chunk, the store turns the
+  * data of that chunk into a block and tells where it is stored.
+  */
+trait BlockStore {
+
+  /**
+    * Stores the oldest data not stored yet as a block.
+    *
+    * @param length The number of bytes of data in the block.
+    * @return The offset of the block in the file and the number
+    *         of bytes it takes in the file.
+    */
+  def storeBlock(length: Int): (Long, Int)
+}
@@ -6,10 +6,18 @@ import java.nio.channels.FileChannel
 import java.nio.file.Path
 import java.util.logging.Logger
 
+import nl.tudelft.pl2.data.indexing.{IndexFormat => IF}
 import org.apache.logging.log4j.LogManager
 
+import scala.collection.mutable
+
 /**
-  * Writes an [[Index]] as a string of bytes.
+  * Writes an [[Index]] as a string of bytes laid out as
+  * described by [[IndexFormat]]. Records are streamed to the
+  * file as chunks are written, while the interval trees and
+  * the final header are only written by [[finish]].
+  *
+  * Chunks are expected to be written in the order of their index.
   *
   * @param indexPath The path to the index file.
   */
@@ -33,6 +41,19 @@ class BytesIndexChunkWriter(indexPath: Path) extends IndexChunkWriter {
     */
   val writeChannel: FileChannel = writeFile.getChannel
 
+  /**
+    * The chunks written so far, in the order of their records.
+    */
+  private val written = mutable.ArrayBuffer[IndexChunk]()
+
+  /**
+    * Whether the trees and header were written.
+    */
+  private var finished = false
+
+  writeChannel.truncate(0)
+  writeHeader(0)
+  writeChannel.position(IF.HEADER_BYTES)
 
   /**
     * Writes an [[IndexChunk]] to file as a string of bytes.
@@ -40,23 +61,49 @@ class BytesIndexChunkWriter(indexPath: Path) extends IndexChunkWriter {
     * @param indexChunk The [[IndexChunk]] to write.
     */
   override def writeIndexChunk(indexChunk: IndexChunk): Unit = {
-    val len = IndexChunk.BYTES_PER_CHUNK
-    val buf = ByteBuffer.allocateDirect(len)
-    buf.putInt(indexChunk.index)
-    buf.putInt(indexChunk.length)
-    buf.putLong(indexChunk.offset)
-    buf.putInt(indexChunk.layerRange._1)
-    buf.putInt(indexChunk.layerRange._2)
-    buf.putInt(indexChunk.nodeRange._1)
-    buf.putInt(indexChunk.nodeRange._2)
+    val buf = ByteBuffer.allocateDirect(IF.RECORD_BYTES)
+    IF.putRecord(buf, indexChunk)
     buf.flip()
     writeChannel.write(buf)
+    written += indexChunk
+  }
+
+  /**
+    * Writes the interval trees over the chunks written and
+    * the header, after which the file can be mapped as an
+    * index. Calling this more than once has no effect.
+    */
+  override def finish(): Unit = if (!finished) {
+    finished = true
+    val chunks = written.toVector
+    val buf = ByteBuffer.allocateDirect(2 * IF.TREE_ENTRY_BYTES * chunks.size)
+    IF.putTree(buf, new ChunkIntervals(chunks, _.layerRange))
+    IF.putTree(buf, new ChunkIntervals(chunks, _.nodeRange))
+    buf.flip()
+    writeChannel.write(buf, IF.layerTreePos(chunks.size))
+    writeHeader(chunks.size)
+    LOGGER.debug("Index with {} chunks finished.", chunks.size)
+  }
+
+  /**
+    * Writes the header of the file, leaving the position
+    * of the channel untouched.
+    *
+    * @param count The number of chunks in the index.
+    */
+  private def writeHeader(count: Int): Unit = {
+    val buf = ByteBuffer.allocate(IF.HEADER_BYTES)
+    buf.putInt(IF.MAGIC_POS, IF.MAGIC)
+    buf.putInt(IF.VERSION_POS, IF.VERSION)
+    buf.putInt(IF.COUNT_POS, count)
+    writeChannel.write(buf, 0)
   }
 
   /**
     * Closes the file accesses.
     */
   def close(): Unit = {
+    finish()
     writeChannel.close()
     writeFile.close()
     LOGGER.debug("BytesIndexChunkWriter with {} closed.", indexPath.getFileName)
@@ -1,18 +1,22 @@
 package nl.tudelft.pl2.data.indexing
 
 import java.nio.ByteBuffer
-import java.nio.channels.AsynchronousFileChannel
-import java.nio.file.Path
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, Path, StandardOpenOption}
 import java.util.logging.Logger
 
+import nl.tudelft.pl2.data.indexing.{IndexFormat => IF}
 import nl.tudelft.pl2.representation.exceptions.CTagException
 import org.apache.logging.log4j.LogManager
 
 case class EmptyIndexException(reason: String, loc: String)
   extends CTagException(reason, loc)
 
+case class InvalidIndexException(reason: String, loc: String)
+  extends CTagException(reason, loc)
+
 /**
-  * Creates and [[Index]] from a file.
+  * Creates a [[ChunkIndex]] from a file.
   */
 object BytesIndexReader extends IndexReader {
 
@@ -22,42 +26,77 @@ object BytesIndexReader extends IndexReader {
     */
   private val LOGGER = LogManager.getLogger("BytesIndexReader")
 
-  override def loadIndex(indexPath: Path): Index = {
+  /**
+    * Loads the index in a file laid out as described by the
+    * current version of [[IndexFormat]], which is mapped and
+    * queried in place. Older files are rejected, as the data files
+    * they point into are laid out differently and must be rebuilt.
+    *
+    * @param indexPath The [[Path]] where the index file can
+    *                  be found.
+    * @return The new [[ChunkIndex]].
+    */
+  override def loadIndex(indexPath: Path): ChunkIndex = {
     LOGGER.debug("Reading index from " + indexPath.getFileName)
-    val index = new Index(indexPath)
-    val channel: AsynchronousFileChannel = AsynchronousFileChannel.open(indexPath)
-
-
-    assert(channel.size() < Int.MaxValue)
-
-    if (channel.size() == 0) {
-      channel.close()
-    } else {
-
-      val buf = ByteBuffer.allocateDirect(channel.size().toInt)
-
-      //TODO: convert to observable pattern
-      channel.read(buf, 0).get()
-
-      val numChunks = channel.size().toInt / IndexChunk.BYTES_PER_CHUNK
-      channel.close()
-
-      buf.flip()
-      for (i <- 0 until numChunks) {
-        val layer = buf.getInt
-        val length = buf.getInt
-        val offset = buf.getLong
-        val loLayer = buf.getInt
-        val hiLayer = buf.getInt
-        val loNode = buf.getInt
-        val hiNode = buf.getInt
-        index.insertChunk(
-          IndexChunk(layer, length, offset, (loLayer, hiLayer), (loNode, hiNode))
-        )
+    val channel = FileChannel.open(indexPath, StandardOpenOption.READ)
+    val index = try {
+      val header = ByteBuffer.allocate(IF.HEADER_BYTES)
+      if (channel.size() >= IF.HEADER_BYTES) {
+        channel.read(header, 0)
+      }
+      if (header.getInt(IF.MAGIC_POS) != IF.MAGIC) {
+        throw InvalidIndexException("Index file has no header.",
+          "While reading " + indexPath.getFileName)
       }
+      mapIndex(indexPath, channel, header)
+    } finally {
+      channel.close()
     }
     LOGGER.debug("Done reading index.")
     LOGGER.debug("Index has {} chunks.", index.size)
     index
   }
+
+  /**
+    * Checks whether an index file and the data file it points
+    * into are laid out as described by the current version of
+    * [[IndexFormat]].
+    *
+    * @param indexPath The [[Path]] of the index file.
+    * @return Whether the index file exists and is of the current version.
+    */
+  def isCurrent(indexPath: Path): Boolean = Files.exists(indexPath) && {
+    val channel = FileChannel.open(indexPath, StandardOpenOption.READ)
+    try {
+      val header = ByteBuffer.allocate(IF.HEADER_BYTES)
+      channel.size() >= IF.HEADER_BYTES && channel.read(header, 0) == IF.HEADER_BYTES &&
+        header.getInt(IF.MAGIC_POS) == IF.MAGIC && header.getInt(IF.VERSION_POS) == IF.VERSION
+    } finally {
+      channel.close()
+    }
+  }
+
+  /**
+    * Maps an index file with a header into memory.
+    *
+    * @param indexPath The [[Path]] of the index file.
+    * @param channel   A channel to the index file.
+    * @param header    The header of the index file.
+    * @return The mapped [[ChunkIndex]].
+    */
+  private def mapIndex(indexPath: Path, channel: FileChannel, header: ByteBuffer): ChunkIndex = {
+    val version = header.getInt(IF.VERSION_POS)
+    if (version != IF.VERSION) {
+      throw InvalidIndexException(s"Index version $version is not supported.",
+        "While reading " + indexPath.getFileName)
+    }
+    val count = header.getInt(IF.COUNT_POS)
+    val bytes = IF.fileBytes(count)
+    if (count < 0 || bytes > channel.size() || bytes > Int.MaxValue) {
+      throw InvalidIndexException(s"Index of $count chunks does not fit the file.",
+        "While reading " + indexPath.getFileName)
+    }
+    new MappedIndex(indexPath,
+      channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes), count)
+  }
 }
@@ -0,0 +1,69 @@
+package nl.tudelft.pl2.data.indexing
+
+import java.nio.file.Path
+
+import nl.tudelft.pl2.representation.external.Node
+
+import scala.collection.mutable
+
+/**
+  * The queries answered by an index of a parsed graph file,
+  * which find the [[IndexChunk]]s holding a layer or [[Node]].
+  *
+  * Readers of an index only depend on these queries, such that
+  * an index built on the heap and an index queried in place in
+  * its file can be used alike.
+  */
+trait ChunkIndex {
+
+  /**
+    * @return The path at which the index is stored.
+    */
+  def indexPath: Path
+
+  /**
+    * Retrieves an [[IndexChunk]] by [[Node]] id.
+    *
+    * @param id The index the chunk should contain.
+    * @return The matching [[IndexChunk]].
+    */
+  def getIndexedChunksByNodeID(id: Int): mutable.Buffer[IndexChunk]
+
+  /**
+    * Retrieve a list of IndexedChunks by layer.
+    *
+    * @param layer The layer the chunks should contain.
+    * @return A list of matching IndexedChunks.
+    */
+  def getIndexedChunksByLayer(layer: Int): mutable.Buffer[IndexChunk]
+
+  /**
+    * Retrieve the IndexedChunks with layers in a range of layers,
+    * ordered by their lowest layer.
+    *
+    * @param from The lowest layer of the range.
+    * @param to   The highest layer of the range.
+    * @return A list of IndexedChunks overlapping the range.
+    */
+  def getIndexedChunksInLayerRange(from: Int, to: Int): mutable.Buffer[IndexChunk]
+
+  /**
+    * Retrieve an IndexedChunk based on id.
+    *
+    * @param id The id of the Chunk.
+    * @return The IndexedChunk, or null if there is no such chunk.
+    */
+  def getIndexedChunkByIndex(id: Int): IndexChunk
+
+  /**
+    * @return All IndexedChunks, ordered by their index.
+    */
+  def chunks: IndexedSeq[IndexChunk]
+
+  /**
+    * Gets the number of chunks in the index.
+    *
+    * @return The number of chunks in the index.
+    */
+  def size: Int
+}
@@ -0,0 +1,70 @@
+package nl.tudelft.pl2.data.indexing
+
+/**
+  * An [[IntervalTree]] over one of the ranges of a set of
+  * [[IndexChunk]]s, kept in arrays on the heap.
+  *
+  * @param chunks The chunks to build the tree over.
+  * @param range  Gives the range of a chunk to build the tree over.
+  */
+class ChunkIntervals(chunks: IndexedSeq[IndexChunk],
+                     range: IndexChunk => (Int, Int)) extends IntervalTree {
+
+  /**
+    * The positions of the chunks in the given sequence, sorted by
+    * the lower bound of their range. Chunks with the same lower
+    * bound keep their original order.
+    */
+  private val order: Array[Int] = chunks.indices.sortBy(i => range(chunks(i))._1).toArray
+
+  /**
+    * The lower bounds of the ranges of the sorted chunks.
+    */
+  private val los: Array[Int] = order.map(i => range(chunks(i))._1)
+
+  /**
+    * The upper bounds of the ranges of the sorted chunks.
+    */
+  private val his: Array[Int] = order.map(i => range(chunks(i))._2)
+
+  /**
+    * The highest upper bound in the subtree rooted at each
+    * element of the sorted chunks.
+    */
+  private val maxHis: Array[Int] = new Array[Int](order.length)
+  buildMaxHis(0, order.length)
+
+  /**
+    * Fills [[maxHis]] for the subtree spanning a part of the array.
+    *
+    * @param first The first element of the subtree.
+    * @param end   The element after the last element of the subtree.
+    * @return The highest upper bound in the subtree.
+    */
+  private def buildMaxHis(first: Int, end: Int): Int =
+    if (first >= end) {
+      Int.MinValue
+    } else {
+      val mid = (first + end) >>> 1
+      maxHis(mid) = Math.max(his(mid),
+        Math.max(buildMaxHis(first, mid), buildMaxHis(mid + 1, end)))
+      maxHis(mid)
+    }
+
+  override def size: Int = order.length
+
+  override def lo(i: Int): Int = los(i)
+
+  override def hi(i: Int): Int = his(i)
+
+  override def maxHi(i: Int): Int = maxHis(i)
+
+  override def chunk(i: Int): IndexChunk = chunks(order(i))
+
+  /**
+    * @param i The position of an element in the sorted order.
+    * @return The position of the chunk of the element in the
+    *         sequence the tree was built over.
+    */
+  def position(i: Int): Int = order(i)
+}
@@ -0,0 +1,46 @@
+package nl.tudelft.pl2.data.indexing
+
+/**
+  * The policy by which an [[Indexer]] divides the nodes it
+  * indexes into [[IndexChunk]]s. A chunk is closed before a node
+  * would take it past its byte budget or layer span, such that
+  * reading a chunk takes a predictable amount of I/O and a chunk
+  * covers only layers close to each other. A node larger than
+  * the byte budget gets a chunk of its own.
+  *
+  * @param maxBytes     The number of encoded bytes a chunk may hold.
+  * @param maxLayerSpan The number of layers a chunk may span.
+  * @param maxNodes     The number of nodes a chunk may hold, which
+  *                     bounds the objects decoded per chunk.
+  */
+case class ChunkPolicy(maxBytes: Int, maxLayerSpan: Int, maxNodes: Int)
+
+/**
+  * Companion object to the [[ChunkPolicy]].
+  */
+object ChunkPolicy {
+  /**
+    * The system properties overriding the default limits.
+    */
+  final val BYTES_PROPERTY = "ctag.chunk.bytes"
+  final val LAYERS_PROPERTY = "ctag.chunk.layers"
+  final val NODES_PROPERTY = "ctag.chunk.nodes"
+
+  /**
+    * The default limits of a chunk.
+    */
+  final val DEFAULT_MAX_BYTES: Int = 256 * 1024
+  final val DEFAULT_MAX_LAYER_SPAN = 512
+  final val DEFAULT_MAX_NODES = 4096
+
+  /**
+    * Gives the policy with the default limits, each of which
+    * is replaced by its system property when that is set.
+    *
+    * @return The configured policy.
+    */
+  def fromProperties(): ChunkPolicy =
+    ChunkPolicy(Integer.getInteger(BYTES_PROPERTY, DEFAULT_MAX_BYTES),
+      Integer.getInteger(LAYERS_PROPERTY, DEFAULT_MAX_LAYER_SPAN),
+      Integer.getInteger(NODES_PROPERTY, DEFAULT_MAX_NODES))
+}
@@ -1,13 +1,10 @@
 package nl.tudelft.pl2.data.indexing
 
-import java.util
 import java.nio.file.Path
 
 import nl.tudelft.pl2.representation.external.Node
 
-import scala.collection.JavaConverters.mapAsScalaMapConverter
 import scala.collection.mutable
-import scala.collection.mutable.ListBuffer
 
 /**
   * An entry in the [[Index]]. Each [[IndexChunk]] stores a number
@@ -24,92 +21,155 @@ import scala.collection.mutable.ListBuffer
   * search trees that allow for fast retrieval of an [[IndexChunk]]
   * based on the provided information.
   *
-  * @param index      The index of this chunk in the [[Index]].
-  * @param offset     Offset of this chunk within the parsed graph file.
-  * @param length     Length of this chunk within the parsed graph file.
-  * @param layerRange Set of layers that have nodes in this chunk. A set of layers
-  *                   is used instead of a a range, since some layers may be skipped.
-  * @param nodeRange  Lowest and highest [[Node]] id in this [[IndexChunk]].
+  * A chunk may be stored as a compressed block, in which case the
+  * stored length differs from the length of the decoded chunk.
+  *
+  * @param index        The index of this chunk in the [[Index]].
+  * @param offset       Offset of this chunk within the parsed graph file.
+  * @param length       Length of this chunk once decoded.
+  * @param layerRange   Set of layers that have nodes in this chunk. A set of layers
+  *                     is used instead of a a range, since some layers may be skipped.
+  * @param nodeRange    Lowest and highest [[Node]] id in this [[IndexChunk]].
+  * @param storedLength Length of this chunk within the parsed graph file.
   */
 case class IndexChunk(index: Int,
                       length: Int,
                       offset: Long,
                       layerRange: (Int, Int),
-                      nodeRange: (Int, Int))
+                      nodeRange: (Int, Int),
+                      storedLength: Int) {
+
+  /**
+    * @return Whether this chunk is stored as a compressed block.
+    */
+  def compressed: Boolean = storedLength != length
+}
 
 object IndexChunk {
   val BYTES_PER_CHUNK: Int = 6 * 4 + 8
+
+  /**
+    * Creates a chunk that is stored uncompressed.
+    *
+    * @param index      The index of the chunk in the [[Index]].
+    * @param length     Length of the chunk within the parsed graph file.
+    * @param offset     Offset of the chunk within the parsed graph file.
+    * @param layerRange Lowest and highest layer in the chunk.
+    * @param nodeRange  Lowest and highest [[Node]] id in the chunk.
+    * @return The chunk.
+    */
+  def apply(index: Int,
+            length: Int,
+            offset: Long,
+            layerRange: (Int, Int),
+            nodeRange: (Int, Int)): IndexChunk =
+    IndexChunk(index, length, offset, layerRange, nodeRange, length)
 }
 
 /**
-  * An index for a parsed graph file.
+  * An index for a parsed graph file, built on the heap.
+  *
+  * Chunks are inserted while the index is read and kept in
+  * arrays afterwards: sorted by their index to find a chunk
+  * by binary search, and in a [[ChunkIntervals]] tree per range
+  * to find the chunks of a layer or node in O(log n + k). The
+  * arrays are built on the first query after chunks were inserted.
   *
   * @param indexPath The path at which the index is stored.
   * @author Maaike Visser
   */
-class Index(val indexPath: Path) {
+class Index(val indexPath: Path) extends ChunkIndex {
+
   /**
-    * Tree ordered by minimum layer ID.
+    * The chunks inserted into this index, in insertion order.
     */
-  val minLayerTreeMap: util.TreeMap[Int, ListBuffer[IndexChunk]] =
-    new util.TreeMap[Int, ListBuffer[IndexChunk]]()
+  private val inserted = mutable.ArrayBuffer[IndexChunk]()
+
   /**
-    * Index tree ordered by minimum [[Node]] ID.
+    * The lookup arrays over the inserted chunks, or [[None]]
+    * when chunks were inserted since they were built.
     */
-  val minNodeTreeMap: util.TreeMap[Int, IndexChunk] = new util.TreeMap()
+  @volatile private var lookup: Option[IndexLookup] = None
+
   /**
-    * Index tree ordered by Chunk index.
+    * @return The lookup arrays over the inserted chunks,
+    *         building them if necessary.
     */
-  val indexTreeMap: util.TreeMap[Int, IndexChunk] = new util.TreeMap()
+  private def tables: IndexLookup = lookup.getOrElse(synchronized {
+    if (lookup.isEmpty) {
+      lookup = Some(new IndexLookup(inserted))
+    }
+    lookup.get
+  })
+
+  override def getIndexedChunksByNodeID(id: Int): mutable.Buffer[IndexChunk] =
+    tables.byNode.overlapping(id, id)
+
+  override def getIndexedChunksByLayer(layer: Int): mutable.Buffer[IndexChunk] =
+    tables.byLayer.overlapping(layer, layer)
+
+  override def getIndexedChunksInLayerRange(from: Int, to: Int): mutable.Buffer[IndexChunk] =
+    tables.byLayer.overlapping(from, to)
+
+  override def getIndexedChunkByIndex(id: Int): IndexChunk = tables.byIndex(id)
+
+  override def chunks: IndexedSeq[IndexChunk] = tables.chunks
+
+  override def size: Int = synchronized(inserted.size)
 
   /**
-    * Retrieves an [[IndexChunk]] by [[Node]] id.
+    * Inserts an [[IndexChunk]] into the index.
     *
-    * @param id The index the chunk should contain.
-    * @return The matching [[IndexChunk]].
+    * @param chunk the chunk to enter into the tree
     */
-  def getIndexedChunksByNodeID(id: Int): mutable.Buffer[IndexChunk] =
-    minNodeTreeMap.headMap(id, true).asScala.filter(entry => entry._2.nodeRange
-    ._2 >= id).values.toBuffer
+  def insertChunk(chunk: IndexChunk): Unit = synchronized {
+    inserted += chunk
+    lookup = None
+  }
+}
 
+/**
+  * The lookup arrays of an [[Index]] over a fixed set of chunks.
+  *
+  * @param inserted The chunks in insertion order.
+  */
+private class IndexLookup(inserted: Seq[IndexChunk]) {
 
   /**
-    * Retrieve a list of IndexedChunks by layer.
-    *
-    * @param layer The layer the chunks should contain.
-    * @return A list of matching IndexedChunks.
+    * The chunks in insertion order.
     */
-  def getIndexedChunksByLayer(layer: Int): mutable.Buffer[IndexChunk] =
-    minLayerTreeMap.headMap(layer, true)
-      .asScala.flatMap(entry => entry._2).filter(ic => ic.layerRange._2 >= layer).toBuffer
+  private val snapshot: IndexedSeq[IndexChunk] = inserted.toVector
 
   /**
-    * Retrieve an IndexedChunk based on id.
-    *
-    * @param id The id of the Chunk.
-    * @return The IndexedChunk.
+    * The chunks ordered by their index.
     */
-  def getIndexedChunkByIndex(id: Int): IndexChunk = indexTreeMap.get(id)
+  val chunks: IndexedSeq[IndexChunk] = snapshot.sortBy(c => c.index)
 
   /**
-    * Gets the size of the trees in the index.
-    *
-    * @return The size of the trees in the index.
+    * The indices of the chunks, ordered.
     */
-  def size: Int = indexTreeMap.size()
+  private val indices: Array[Int] = chunks.map(c => c.index).toArray
 
   /**
-    * Inserts an [[IndexChunk]] into the index.
+    * The chunks by the range of their layers.
+    */
+  val byLayer = new ChunkIntervals(snapshot, c => c.layerRange)
+
+  /**
+    * The chunks by the range of their node IDs.
+    */
+  val byNode = new ChunkIntervals(snapshot, c => c.nodeRange)
+
+  /**
+    * Finds the chunk with the given index.
     *
-    * @param chunk the chunk to enter into the tree
+    * @param index The index of the chunk.
+    * @return The chunk, or null if there is no such chunk.
     */
-  def insertChunk(chunk: IndexChunk): Unit = {
-    if (minLayerTreeMap.containsKey(chunk.layerRange._1)) {
-      minLayerTreeMap.get(chunk.layerRange._1) += chunk
-    } else {
-      minLayerTreeMap.put(chunk.layerRange._1, ListBuffer(chunk))
-    }
-    minNodeTreeMap.put(chunk.nodeRange._1, chunk)
-    indexTreeMap.put(chunk.index, chunk)
+  def byIndex(index: Int): IndexChunk = {
+    val at = java.util.Arrays.binarySearch(indices, index)
+    //scalastyle:off null
+    if (at >= 0) chunks(at) else null
+    //scalastyle:on null
   }
 }
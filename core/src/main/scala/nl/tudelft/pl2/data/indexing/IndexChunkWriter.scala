@@ -18,4 +18,10 @@ trait IndexChunkWriter {
     * @param indexChunk The [[IndexChunk]] to write.
     */
   def writeIndexChunk(indexChunk: IndexChunk): Unit
+
+  /**
+    * Completes the stored index after its last [[IndexChunk]]
+    * was written.
+    */
+  def finish(): Unit
 }
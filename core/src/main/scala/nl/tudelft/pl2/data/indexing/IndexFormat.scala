@@ -0,0 +1,131 @@
+package nl.tudelft.pl2.data.indexing
+
+import java.nio.ByteBuffer
+
+/**
+  * The layout of index files, which can be queried in place
+  * once they are mapped into memory:
+  *
+  * [MAGIC][VERSION][COUNT][RESERVED][records      ][layer tree   ][node tree    ]
+  * [4    ][4      ][4    ][4       ][40*COUNT     ][16*COUNT     ][16*COUNT     ]
+  *
+  * The records hold the [[IndexChunk]]s ordered by their index:
+  *
+  * [index][length][offset][layers][nodes][stored length][RESERVED]
+  * [4    ][4     ][8     ][8     ][8    ][4            ][4       ]
+  *
+  * Each tree section is an [[IntervalTree]] over the layer or node
+  * ranges of the chunks, of which every entry holds the position of
+  * its record, the range and the highest upper bound of its subtree:
+  *
+  * [record][lo][hi][maxHi]
+  * [4     ][4 ][4 ][4    ]
+  *
+  * The version also covers the layout of the records in the data
+  * file the index points into. Version 3 stores the content of
+  * nodes as a [[nl.tudelft.pl2.data.PackedSequence]], version 4
+  * stores the links and genome coordinates of nodes as varints and
+  * version 5 moves the genome coordinates to a separate file. Only
+  * the current version is read, as data files indexed by older
+  * versions are laid out differently and are to be rebuilt.
+  */
+object IndexFormat {
+  /**
+    * The magic number opening an index file, "CTIX" in ASCII.
+    */
+  final val MAGIC = 0x43544958
+
+  /**
+    * The version of the layout written.
+    */
+  final val VERSION = 5
+
+  final val MAGIC_POS = 0
+  final val VERSION_POS = 4
+  final val COUNT_POS = 8
+  final val HEADER_BYTES = 16
+
+  final val RECORD_BYTES = 40
+  final val R_INDEX_POS = 0
+  final val R_LENGTH_POS = 4
+  final val R_OFFSET_POS = 8
+  final val R_LO_LAYER_POS = 16
+  final val R_HI_LAYER_POS = 20
+  final val R_LO_NODE_POS = 24
+  final val R_HI_NODE_POS = 28
+  final val R_STORED_LENGTH_POS = 32
+
+  final val TREE_ENTRY_BYTES = 16
+  final val T_RECORD_POS = 0
+  final val T_LO_POS = 4
+  final val T_HI_POS = 8
+  final val T_MAX_HI_POS = 12
+
+  /**
+    * @param count The number of chunks in the index.
+    * @return The offset of the layer tree section.
+    */
+  def layerTreePos(count: Int): Long =
+    HEADER_BYTES + RECORD_BYTES.toLong * count
+
+  /**
+    * @param count The number of chunks in the index.
+    * @return The offset of the node tree section.
+    */
+  def nodeTreePos(count: Int): Long =
+    layerTreePos(count) + TREE_ENTRY_BYTES.toLong * count
+
+  /**
+    * @param count The number of chunks in the index.
+    * @return The number of bytes in an index file with the chunks.
+    */
+  def fileBytes(count: Int): Long =
+    nodeTreePos(count) + TREE_ENTRY_BYTES.toLong * count
+
+  /**
+    * Puts the record of a chunk at the position of a buffer.
+    *
+    * @param buf   The buffer to put the record in.
+    * @param chunk The chunk to put.
+    */
+  def putRecord(buf: ByteBuffer, chunk: IndexChunk): Unit = {
+    buf.putInt(chunk.index)
+    buf.putInt(chunk.length)
+    buf.putLong(chunk.offset)
+    buf.putInt(chunk.layerRange._1)
+    buf.putInt(chunk.layerRange._2)
+    buf.putInt(chunk.nodeRange._1)
+    buf.putInt(chunk.nodeRange._2)
+    buf.putInt(chunk.storedLength)
+    buf.putInt(0)
+  }
+
+  /**
+    * Reads the record of a chunk at an offset in a buffer.
+    *
+    * @param buf The buffer holding the record.
+    * @param pos The offset of the record.
+    * @return The chunk of the record.
+    */
+  def readRecord(buf: ByteBuffer, pos: Int): IndexChunk =
+    IndexChunk(buf.getInt(pos + R_INDEX_POS),
+      buf.getInt(pos + R_LENGTH_POS),
+      buf.getLong(pos + R_OFFSET_POS),
+      (buf.getInt(pos + R_LO_LAYER_POS), buf.getInt(pos + R_HI_LAYER_POS)),
+      (buf.getInt(pos + R_LO_NODE_POS), buf.getInt(pos + R_HI_NODE_POS)),
+      buf.getInt(pos + R_STORED_LENGTH_POS))
+
+  /**
+    * Puts the entries of a tree at the position of a buffer.
+    *
+    * @param buf  The buffer to put the entries in.
+    * @param tree The tree over the chunks in record order.
+    */
+  def putTree(buf: ByteBuffer, tree: ChunkIntervals): Unit =
+    for (i <- 0 until tree.size) {
+      buf.putInt(tree.position(i))
+      buf.putInt(tree.lo(i))
+      buf.putInt(tree.hi(i))
+      buf.putInt(tree.maxHi(i))
+    }
+}
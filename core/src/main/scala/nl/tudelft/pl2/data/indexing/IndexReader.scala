@@ -5,8 +5,7 @@ import java.nio.file.Path
 /**
   * The IndexReader interface declares the functions
   * that may be used to read in an index file with
-  * a certain file format and parse it to an [[Index]]
-  * object in memory.
+  * a certain file format and parse it to a [[ChunkIndex]].
   *
   * Implementations of this interface should define
   * behaviour that describes how index files with
@@ -17,11 +16,11 @@ import java.nio.file.Path
 trait IndexReader {
 
   /**
-    * Loads an [[Index]] into memory from the specified file.
+    * Loads a [[ChunkIndex]] from the specified file.
     *
     * @param indexPath The [[Path]] where the index file can
     *                  be found.
-    * @return The new [[Index]].
+    * @return The new [[ChunkIndex]].
     */
-  def loadIndex(indexPath: Path): Index
+  def loadIndex(indexPath: Path): ChunkIndex
 }
@@ -7,11 +7,21 @@ import nl.tudelft.pl2.representation.external.Node
 import org.apache.logging.log4j.LogManager
 
 /**
-  * Indexes [[Node]]s and creates an [[Index]].
+  * Indexes [[Node]]s and creates an [[Index]]. Nodes are
+  * divided into [[IndexChunk]]s in the order in which they
+  * are indexed, as limited by the [[ChunkPolicy]].
   *
-  * @param indexPath
+  * When a [[BlockStore]] is given, the data of each chunk is stored
+  * as a block by that store and the chunk points to that block.
+  * Otherwise chunks point to the data as it was written.
+  *
+  * @param indexPath The path to the index file.
+  * @param policy    The policy dividing nodes into chunks.
+  * @param blocks    The store of the blocks of data of the chunks.
   */
-class Indexer(indexPath: Path) {
+class Indexer(indexPath: Path,
+              val policy: ChunkPolicy = ChunkPolicy.fromProperties(),
+              blocks: Option[BlockStore] = None) {
 
   /**
     * Log4J [[Logger]] used to log debug information
@@ -19,11 +29,6 @@ class Indexer(indexPath: Path) {
     */
   private val LOGGER = LogManager.getLogger("Indexer")
 
-  /**
-    * The max number of [[Node]]s per [[IndexChunk]].
-    */
-  final val MAX_NODES = 1000
-
   /**
     * Stores the [[IndexChunk]]s to disk.
     */
@@ -68,13 +73,20 @@ class Indexer(indexPath: Path) {
   private final var chunkNumOfSegs = 0
 
   /**
-    * Adds the [[Node]] to an [[IndexChunk]].
+    * Adds the [[Node]] to an [[IndexChunk]]. The current chunk
+    * is stored first when the node would take it past the byte
+    * budget or layer span of the policy, and afterwards when it
+    * holds the maximum number of nodes.
     *
     * @param id     The ID of the [[Node]].
     * @param length The length of the [[Node]] in bytes.
     * @param layer  The layer of the [[Node]].
     */
   def indexNode(id: Int, length: Int, layer: Int): Unit = {
+    if (chunkNumOfSegs > 0 && !fits(length, layer)) {
+      writeChunk()
+    }
+
     chunkNumOfSegs += 1
     chunkLength += length
     if (layer < chunkMinLayer) {
@@ -90,36 +102,53 @@ class Indexer(indexPath: Path) {
       chunkMaxNodeID = id
     }
 
-    if (chunkNumOfSegs >= MAX_NODES) {
-      val indexedChunk =
-        IndexChunk(chunkIndex, chunkLength, chunkOffset,
-          (chunkMinLayer, chunkMaxLayer),
-          (chunkMinNodeID, chunkMaxNodeID))
-      writer.writeIndexChunk(indexedChunk)
-
-      chunkIndex += 1
-      chunkOffset += chunkLength
-      chunkLength = 0
-      chunkMinLayer = Int.MaxValue
-      chunkMaxLayer = -1
-      chunkMinNodeID = Int.MaxValue
-      chunkMaxNodeID = -1
-      chunkNumOfSegs = 0
+    if (chunkNumOfSegs >= policy.maxNodes) {
+      writeChunk()
     }
   }
 
+  /**
+    * Checks whether a node fits in the current chunk.
+    *
+    * @param length The length of the node in bytes.
+    * @param layer  The layer of the node.
+    * @return Whether the chunk stays within the byte budget
+    *         and layer span with the node added.
+    */
+  private def fits(length: Int, layer: Int): Boolean =
+    chunkLength.toLong + length <= policy.maxBytes &&
+      Math.max(chunkMaxLayer, layer).toLong - Math.min(chunkMinLayer, layer) < policy.maxLayerSpan
+
+  /**
+    * Stores the current [[IndexChunk]] and starts a new one.
+    */
+  private def writeChunk(): Unit = {
+    val (offset, storedLength) = blocks.map(_.storeBlock(chunkLength))
+      .getOrElse((chunkOffset, chunkLength))
+    writer.writeIndexChunk(IndexChunk(chunkIndex, chunkLength, offset,
+      (chunkMinLayer, chunkMaxLayer),
+      (chunkMinNodeID, chunkMaxNodeID),
+      storedLength))
+
+    chunkIndex += 1
+    chunkOffset += chunkLength
+    chunkLength = 0
+    chunkMinLayer = Int.MaxValue
+    chunkMaxLayer = -1
+    chunkMinNodeID = Int.MaxValue
+    chunkMaxNodeID = -1
+    chunkNumOfSegs = 0
+  }
+
   /**
     * Flushes the [[Indexer]] by storing
     * any remaining [[IndexChunk]]s to disk.
     */
   def flush(): Unit = {
     if (chunkNumOfSegs > 0) {
-      val indexedChunk =
-        IndexChunk(chunkIndex, chunkLength, chunkOffset,
-          (chunkMinLayer, chunkMaxLayer),
-          (chunkMinNodeID, chunkMaxNodeID))
-      writer.writeIndexChunk(indexedChunk)
+      writeChunk()
     }
+    writer.finish()
   }
 
   /**
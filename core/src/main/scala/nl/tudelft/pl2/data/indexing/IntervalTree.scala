@@ -0,0 +1,89 @@
+package nl.tudelft.pl2.data.indexing
+
+import scala.collection.mutable
+
+/**
+  * A static interval tree over one of the ranges of a set of
+  * [[IndexChunk]]s, such as their layer range or node range.
+  *
+  * The chunks are sorted by the lower bound of their range and
+  * the sorted sequence is read as an implicit balanced search tree,
+  * in which the root of every subsequence is its middle element.
+  * For every element the highest upper bound within its subtree
+  * is kept, such that subtrees holding no range that reaches a
+  * query can be skipped. Finding the chunks overlapping a query
+  * therefore takes O(log n + k) for k matching chunks, instead
+  * of walking all chunks with a lower bound below the query.
+  *
+  * Implementations decide where the sorted elements are stored.
+  */
+trait IntervalTree {
+
+  /**
+    * @return The number of chunks in the tree.
+    */
+  def size: Int
+
+  /**
+    * @param i The position of an element in the sorted order.
+    * @return The lower bound of the range of the element.
+    */
+  def lo(i: Int): Int
+
+  /**
+    * @param i The position of an element in the sorted order.
+    * @return The upper bound of the range of the element.
+    */
+  def hi(i: Int): Int
+
+  /**
+    * @param i The position of an element in the sorted order.
+    * @return The highest upper bound in the subtree rooted
+    *         at the element.
+    */
+  def maxHi(i: Int): Int
+
+  /**
+    * @param i The position of an element in the sorted order.
+    * @return The chunk of the element.
+    */
+  def chunk(i: Int): IndexChunk
+
+  /**
+    * Finds the chunks whose range overlaps the given range.
+    *
+    * @param from The lowest value of the range.
+    * @param to   The highest value of the range.
+    * @return The overlapping chunks, ordered by their lower bound.
+    */
+  def overlapping(from: Int, to: Int): mutable.Buffer[IndexChunk] = {
+    val result = mutable.ArrayBuffer[IndexChunk]()
+    collect(0, size, from, to, result)
+    result
+  }
+
+  /**
+    * Adds the chunks in a subtree overlapping a range to a buffer
+    * in the order of their lower bound.
+    *
+    * @param first  The first element of the subtree.
+    * @param end    The element after the last element of the subtree.
+    * @param from   The lowest value of the range.
+    * @param to     The highest value of the range.
+    * @param result The buffer to add the chunks to.
+    */
+  private def collect(first: Int, end: Int, from: Int, to: Int,
+                      result: mutable.Buffer[IndexChunk]): Unit =
+    if (first < end) {
+      val mid = (first + end) >>> 1
+      if (maxHi(mid) >= from) {
+        collect(first, mid, from, to, result)
+        if (lo(mid) <= to) {
+          if (hi(mid) >= from) {
+            result += chunk(mid)
+          }
+          collect(mid + 1, end, from, to, result)
+        }
+      }
+    }
+}
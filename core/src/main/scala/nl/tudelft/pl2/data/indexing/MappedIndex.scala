@@ -0,0 +1,126 @@
+package nl.tudelft.pl2.data.indexing
+
+import java.nio.ByteBuffer
+import java.nio.file.Path
+
+import nl.tudelft.pl2.data.indexing.{IndexFormat => IF}
+
+import scala.collection.mutable
+
+/**
+  * A [[ChunkIndex]] queried in place in a memory mapped index file
+  * laid out as described by [[IndexFormat]]. Opening the index
+  * only reads its header, so it takes the same time for any
+  * number of chunks, and chunks are decoded when a query
+  * returns them.
+  *
+  * A mapped index is read-only, so unlike an [[Index]] on the
+  * heap it takes no chunks.
+  *
+  * @param indexPath The path at which the index is stored.
+  * @param buf       The mapped index file.
+  * @param count     The number of chunks in the index.
+  */
+class MappedIndex(val indexPath: Path,
+                  buf: ByteBuffer,
+                  count: Int) extends ChunkIndex {
+
+  /**
+    * The chunks by the range of their layers.
+    */
+  private val byLayer = new MappedTree(IF.layerTreePos(count).toInt)
+
+  /**
+    * The chunks by the range of their node IDs.
+    */
+  private val byNode = new MappedTree(IF.nodeTreePos(count).toInt)
+
+  override def getIndexedChunksByNodeID(id: Int): mutable.Buffer[IndexChunk] =
+    byNode.overlapping(id, id)
+
+  override def getIndexedChunksByLayer(layer: Int): mutable.Buffer[IndexChunk] =
+    byLayer.overlapping(layer, layer)
+
+  override def getIndexedChunksInLayerRange(from: Int, to: Int): mutable.Buffer[IndexChunk] =
+    byLayer.overlapping(from, to)
+
+  override def getIndexedChunkByIndex(id: Int): IndexChunk =
+    if (id >= 0 && id < count && indexAt(id) == id) {
+      record(id)
+    } else {
+      val at = search(id, 0, count - 1)
+      //scalastyle:off null
+      if (at >= 0) record(at) else null
+      //scalastyle:on null
+    }
+
+  override def chunks: IndexedSeq[IndexChunk] = (0 until count).map(record)
+
+  override def size: Int = count
+
+  /**
+    * @param position The position of a record in the file.
+    * @return The offset of the record in the file.
+    */
+  private def recordPos(position: Int): Int =
+    IF.HEADER_BYTES + position * IF.RECORD_BYTES
+
+  /**
+    * @param position The position of a record in the file.
+    * @return The chunk of the record.
+    */
+  private def record(position: Int): IndexChunk = IF.readRecord(buf, recordPos(position))
+
+  /**
+    * @param position The position of a record in the file.
+    * @return The index of the chunk of the record.
+    */
+  private def indexAt(position: Int): Int = buf.getInt(recordPos(position) + IF.R_INDEX_POS)
+
+  /**
+    * Binary searches the records, which are ordered by index.
+    *
+    * @param index The index of the chunk to find.
+    * @param first The first position to search.
+    * @param last  The last position to search.
+    * @return The position of the chunk, or -1 if there is none.
+    */
+  private def search(index: Int, first: Int, last: Int): Int =
+    if (first > last) {
+      -1
+    } else {
+      val mid = (first + last) >>> 1
+      val found = indexAt(mid)
+      if (found < index) {
+        search(index, mid + 1, last)
+      } else if (found > index) {
+        search(index, first, mid - 1)
+      } else {
+        mid
+      }
+    }
+
+  /**
+    * An [[IntervalTree]] stored in a tree section of the file.
+    *
+    * @param pos The offset of the tree section.
+    */
+  private class MappedTree(pos: Int) extends IntervalTree {
+
+    /**
+      * @param i The position of an element in the sorted order.
+      * @return The offset of the entry of the element.
+      */
+    private def entry(i: Int): Int = pos + i * IF.TREE_ENTRY_BYTES
+
+    override def size: Int = count
+
+    override def lo(i: Int): Int = buf.getInt(entry(i) + IF.T_LO_POS)
+
+    override def hi(i: Int): Int = buf.getInt(entry(i) + IF.T_HI_POS)
+
+    override def maxHi(i: Int): Int = buf.getInt(entry(i) + IF.T_MAX_HI_POS)
+
+    override def chunk(i: Int): IndexChunk = record(buf.getInt(entry(i) + IF.T_RECORD_POS))
+  }
+}
@@ -97,6 +97,11 @@ class GraphPathCollection(val gfaPath: Path) extends java.util.AbstractList[Path
     */
   private val BOOKMARK_EXT = ".bkm"
 
+  /**
+    * Genome coordinate file extension.
+    */
+  private val COORDINATES_EXT = ".gco"
+
   /**
     * Path to the generated header file.
     */
@@ -146,6 +151,12 @@ class GraphPathCollection(val gfaPath: Path) extends java.util.AbstractList[Path
   val bookmarkPath: Path =
     cacheDirectory.resolve(timeStamp + gfaName + BOOKMARK_EXT)
 
+  /**
+    * Path to the generated genome coordinate file.
+    */
+  val coordinatesPath: Path =
+    cacheDirectory.resolve(timeStamp + gfaName + COORDINATES_EXT)
+
   /**
     * List of paths used as the underlying structure
     * that is used when querying this [[GraphPathCollection]]
@@ -154,7 +165,7 @@ class GraphPathCollection(val gfaPath: Path) extends java.util.AbstractList[Path
   private val listOfPaths: java.util.List[Path] =
     JavaConverters.seqAsJavaList(List(headerPath, zeroFilePath, zeroIndexPath, oneFilePath,
       oneIndexPath,
-      heatMapPath))
+      heatMapPath, coordinatesPath))
 
   override def get(index: Int): Path =
     listOfPaths.get(index)
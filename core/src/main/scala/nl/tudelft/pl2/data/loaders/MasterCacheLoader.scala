@@ -2,16 +2,23 @@ package nl.tudelft.pl2.data.loaders
 
 import java.nio.file.{Files, Path}
 import java.util.Observer
+import java.util.concurrent.{ExecutionException, Future}
 
 import javafx.application.Platform
-import nl.tudelft.pl2.data.builders.{OneZoomBuilder, TwoZoomBuilder, ZeroZoomBuilder}
-import nl.tudelft.pl2.data.caches.MasterCache
-import nl.tudelft.pl2.data.storage.readers.{BookmarkReader, HeaderReader, HeatMapReader}
+import nl.tudelft.pl2.data.Scheduler
+import nl.tudelft.pl2.data.builders.{BuilderNodeQueue, OneZoomBuilder, TwoZoomBuilder,
+  ZeroZoomBuilder}
+import nl.tudelft.pl2.data.caches.{CachePolicy, MasterCache}
+import nl.tudelft.pl2.data.indexing.BytesIndexReader
+import nl.tudelft.pl2.data.storage.readers.{BookmarkReader, CoordinateReader, HeaderReader,
+  HeatMapReader}
 import nl.tudelft.pl2.representation.graph.LoadingState
 import nl.tudelft.pl2.representation.ui.bookmark.BookmarkManager
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.core.Logger
 
+import scala.util.Try
+
 /**
   * Loads a [[MasterCache]] associated with a certain .gfa file.
   * If the necessary compressed files and index files do not exist,
@@ -36,15 +43,13 @@ object MasterCacheLoader {
 
     val paths = new GraphPathCollection(gfaPath)
 
-    if (paths.stream().anyMatch(p => !Files.exists(p))) {
+    if (paths.stream().anyMatch(p => !Files.exists(p)) || outdated(paths)) {
       clearFiles(gfaPath)
 
       paths.forEach(p => LOGGER.debug("Building: {}.", p.getFileName))
       LOGGER.debug("Creating ZeroZoomBuilder...")
 
-      ZeroZoomBuilder.buildFiles(paths, observer)
-      OneZoomBuilder.buildFiles(paths, observer)
-      TwoZoomBuilder.buildFiles(paths, observer)
+      buildLevels(paths, observer)
 
       LOGGER.debug("Done building.")
     } else {
@@ -61,20 +66,117 @@ object MasterCacheLoader {
 
     loadBookmarks(paths)
 
+    val coordinates = Some(new CoordinateReader(paths.coordinatesPath))
     val masterCache = MasterCache(
       headers,
       heatMap,
       Array(
-        SubCacheLoader.loadSubCache(paths.zeroFilePath, paths.zeroIndexPath),
-        SubCacheLoader.loadSubCache(paths.oneFilePath, paths.oneIndexPath),
-        SubCacheLoader.loadSubCache(paths.twoFilePath, paths.twoIndexPath)
-      ))
+        SubCacheLoader.loadSubCache(paths.zeroFilePath, paths.zeroIndexPath,
+          CachePolicy.forLevel(0), coordinates),
+        SubCacheLoader.loadSubCache(paths.oneFilePath, paths.oneIndexPath,
+          CachePolicy.forLevel(1), coordinates),
+        SubCacheLoader.loadSubCache(paths.twoFilePath, paths.twoIndexPath,
+          CachePolicy.forLevel(2), coordinates)
+      ),
+      coordinates)
 
     observer.update(null, LoadingState.CACHES_LOADED)
     //scalastyle:on null
     masterCache
   }
 
+  /**
+    * Checks whether the files of any zoom level were written in
+    * an older format, in which case they are built again.
+    *
+    * @param paths The paths of the files of the graph.
+    * @return Whether any zoom level is outdated.
+    */
+  private def outdated(paths: GraphPathCollection): Boolean =
+    List(paths.zeroIndexPath, paths.oneIndexPath, paths.twoIndexPath)
+      .exists(p => !BytesIndexReader.isCurrent(p)) ||
+      !CoordinateReader.isCurrent(paths.coordinatesPath)
+
+  /**
+    * Builds the files of all three zoom levels at the same time.
+    * The 1st level consumes the nodes of the 0th level while they
+    * are parsed and the 2nd level consumes the nodes of the 1st level
+    * while they are detected, such that no level waits for the files
+    * of the previous level to be written and read back.
+    *
+    * @param paths    The paths of the files to build.
+    * @param observer The observer notified of the building progress.
+    */
+  private[loaders] def buildLevels(paths: GraphPathCollection, observer: Observer): Unit =
+    buildLevels(paths, observer,
+      output => ZeroZoomBuilder.buildFiles(paths, observer, Some(output)))
+
+  /**
+    * Builds the files of all three zoom levels at the same time,
+    * building the 0th level with the given function.
+    *
+    * @param paths     The paths of the files to build.
+    * @param observer  The observer notified of the building progress.
+    * @param buildZero Builds the 0th level, passing its nodes
+    *                  to the given queue.
+    */
+  private[loaders] def buildLevels(paths: GraphPathCollection,
+                                   observer: Observer,
+                                   buildZero: BuilderNodeQueue => Unit): Unit = {
+    val zeroToOne = new BuilderNodeQueue()
+    val oneToTwo = new BuilderNodeQueue()
+
+    val one = Scheduler.schedule(() => pipe(Some(zeroToOne), Some(oneToTwo)) {
+      OneZoomBuilder.buildFiles(paths, observer, zeroToOne, Some(oneToTwo))
+    })
+    val two = Scheduler.schedule(() => pipe(Some(oneToTwo), None) {
+      TwoZoomBuilder.buildFiles(paths, observer, oneToTwo)
+    })
+
+    val zero = Try(pipe(None, Some(zeroToOne))(buildZero(zeroToOne)))
+    if (zero.isFailure) {
+      oneToTwo.abort()
+    }
+
+    // Wait for all levels to stop before reporting the first failure.
+    List(zero, Try(awaitLevel(one)), Try(awaitLevel(two))).foreach(_.get)
+  }
+
+  /**
+    * Builds a level that passes its nodes on to the next level.
+    * When building succeeds the next level is told no more nodes
+    * follow, when it fails both queues are aborted such that the
+    * neighbouring levels do not wait for this level forever.
+    *
+    * @param input  The queue this level reads from, if any.
+    * @param output The queue this level writes to, if any.
+    * @param build  Builds the level.
+    */
+  private def pipe(input: Option[BuilderNodeQueue], output: Option[BuilderNodeQueue])
+                  (build: => Unit): Unit =
+    try {
+      build
+      output.foreach(_.finish())
+    } catch {
+      case any: Throwable =>
+        input.foreach(_.abort())
+        output.foreach(_.abort())
+        throw any
+    }
+
+  /**
+    * Waits for a level to be built, rethrowing the exception
+    * thrown while building it.
+    *
+    * @param future The future of the level being built.
+    */
+  private def awaitLevel(future: Future[_]): Unit =
+    try {
+      future.get()
+    } catch {
+      case e: ExecutionException => throw e.getCause
+    }
+
   /**
     * Load the bookmarks belonging to this graph into the bookmark controller.
     *
@@ -3,9 +3,9 @@ package nl.tudelft.pl2.data.loaders
 import java.nio.file.Path
 import java.util.logging.Logger
 
-import nl.tudelft.pl2.data.caches.SubCache
+import nl.tudelft.pl2.data.caches.{CachePolicy, SubCache}
 import nl.tudelft.pl2.data.indexing.BytesIndexReader
-import nl.tudelft.pl2.data.storage.readers.CtagReader
+import nl.tudelft.pl2.data.storage.readers.{CoordinateReader, CtagReader}
 import org.apache.logging.log4j.LogManager
 
 /**
@@ -19,13 +19,22 @@ object SubCacheLoader {
   private val LOGGER = LogManager.getLogger("SubCacheLoader")
 
   /**
-    * Loads the [[SubCache]].
+    * Loads the [[SubCache]]. Chunks are decoded from a memory
+    * mapping of the compressed file, such that reloading a chunk
+    * after it was evicted costs no reads from disk.
     *
-    * @param filePath  The path to the compressed file.
-    * @param indexPath The path to the index file.
+    * @param filePath    The path to the compressed file.
+    * @param indexPath   The path to the index file.
+    * @param policy      The policy deciding which chunks are kept in memory.
+    * @param coordinates The reader of the genome coordinates of the nodes.
     * @return The [[SubCache]].
     */
-  def loadSubCache(filePath: Path, indexPath: Path): SubCache = {
-    new SubCache(BytesIndexReader.loadIndex(indexPath), new CtagReader(filePath))
+  def loadSubCache(filePath: Path,
+                   indexPath: Path,
+                   policy: CachePolicy = CachePolicy.forLevel(0),
+                   coordinates: Option[CoordinateReader] = None): SubCache = {
+    new SubCache(BytesIndexReader.loadIndex(indexPath),
+      new CtagReader(filePath, mapped = true, coordinates = coordinates),
+      policy)
   }
 }
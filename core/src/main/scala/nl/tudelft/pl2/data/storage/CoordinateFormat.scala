@@ -0,0 +1,88 @@
+package nl.tudelft.pl2.data.storage
+
+/**
+  * The layout of genome coordinate files, which hold the offset of
+  * every node in every genome passing through it apart from the
+  * node records, such that they can be queried in place once they
+  * are mapped into memory:
+  *
+  * [MAGIC][VERSION][GENOMES][NODES][column table][membership        ][columns   ]
+  * [4    ][4      ][4      ][4    ][24*GENOMES  ][ROW_BYTES*NODES   ][12*ENTRIES]
+  *
+  * The column table holds an entry per genome, pointing at the
+  * column of the nodes the genome passes through, along with the
+  * first and last layer the genome passes through, which are -1
+  * for genomes passing through no node:
+  *
+  * [position][count][first layer][last layer][RESERVED]
+  * [8       ][4    ][4          ][4         ][4       ]
+  *
+  * A column holds the IDs of its nodes in ascending order, followed
+  * by the offsets of the nodes in the genome in the same order:
+  *
+  * [ids    ][offsets]
+  * [4*count][8*count]
+  *
+  * The membership section holds a row of ROW_BYTES bytes per node
+  * ID, of which bit g is set when genome g passes through the node.
+  */
+object CoordinateFormat {
+  /**
+    * The magic number opening a coordinate file, "CTGC" in ASCII.
+    */
+  final val MAGIC = 0x43544743
+
+  /**
+    * The version of the layout written.
+    */
+  final val VERSION = 2
+
+  final val MAGIC_POS = 0
+  final val VERSION_POS = 4
+  final val GENOMES_POS = 8
+  final val NODES_POS = 12
+  final val HEADER_BYTES = 16
+
+  final val COLUMN_BYTES = 24
+  final val C_POSITION_POS = 0
+  final val C_COUNT_POS = 8
+  final val C_FIRST_LAYER_POS = 12
+  final val C_LAST_LAYER_POS = 16
+
+  /**
+    * The layer stored for genomes passing through no node.
+    */
+  final val NO_LAYER = -1
+
+  /**
+    * The number of bytes taken by an entry of a column.
+    */
+  final val ENTRY_BYTES: Int = Integer.BYTES + java.lang.Long.BYTES
+
+  /**
+    * @param genomes The number of genomes in the file.
+    * @return The number of bytes in a membership row.
+    */
+  def rowBytes(genomes: Int): Int = (genomes + java.lang.Byte.SIZE - 1) / java.lang.Byte.SIZE
+
+  /**
+    * @param genome The genome.
+    * @return The offset of the entry of the genome in the column table.
+    */
+  def columnEntryPos(genome: Int): Long = HEADER_BYTES + COLUMN_BYTES.toLong * genome
+
+  /**
+    * @param genomes The number of genomes in the file.
+    * @param id      The ID of a node.
+    * @return The offset of the membership row of the node.
+    */
+  def rowPos(genomes: Int, id: Int): Long =
+    columnEntryPos(genomes) + rowBytes(genomes).toLong * id
+
+  /**
+    * @param genomes The number of genomes in the file.
+    * @param nodes   The number of node IDs in the file.
+    * @return The offset of the first column.
+    */
+  def columnsPos(genomes: Int, nodes: Int): Long = rowPos(genomes, nodes)
+}
@@ -7,7 +7,6 @@ import nl.tudelft.pl2.data.storage.{ReadWriteConstants => RWC}
 import nl.tudelft.pl2.representation.external.Edge
 
 import scala.collection.mutable
-import scala.collection.mutable.ListBuffer
 
 /**
   * Constants for reading and writing compressed files.
@@ -22,6 +21,14 @@ object ReadWriteConstants {
   val SHORT_BYTES = 2
   val CHAR_BYTES = 1
 
+  /**
+    * The number of value bits in a byte of a varint, the mask
+    * selecting them and the bit telling another byte follows.
+    */
+  val VARINT_BITS = 7
+  val VARINT_MASK = 0x7F
+  val VARINT_MORE = 0x80
+
   /**
     * Prefixes for different kinds of components.
     */
@@ -44,8 +51,7 @@ object ReadWriteConstants {
   val N_OPTLEN_POS: Int = CONTLEN_POS + RWC.INT_BYTES
   val N_ILNUM_POS: Int = N_OPTLEN_POS + RWC.SHORT_BYTES
   val N_OLNUM_POS: Int = N_ILNUM_POS + RWC.SHORT_BYTES
-  val N_GC_NUM_POS: Int = N_OLNUM_POS + RWC.SHORT_BYTES
-  val N_ID_POS: Int = N_GC_NUM_POS + RWC.SHORT_BYTES
+  val N_ID_POS: Int = N_OLNUM_POS + RWC.SHORT_BYTES
   val N_LAYER_POS: Int = N_ID_POS + RWC.INT_BYTES
   val N_NAME_POS: Int = N_LAYER_POS + RWC.INT_BYTES
 
@@ -80,13 +86,13 @@ object ReadWriteConstants {
   val C_ID_POS: Int = C_ILNUM_POS + RWC.SHORT_BYTES
   val C_LAYER_POS: Int = C_ID_POS + RWC.INT_BYTES
   val C_END_POS: Int = C_LAYER_POS + RWC.INT_BYTES
-  val C_OPT_POS: Int = C_LAYER_POS + RWC.INT_BYTES
+  val C_OPT_POS: Int = C_END_POS + RWC.INT_BYTES
 
 
   /**
     * Number of fields in a Node that take either a char, short, or int in bytes on disk.
     */
-  val N_SHORT_FIELDS = 5
+  val N_SHORT_FIELDS = 4
   val N_INT_FIELDS = 4
 
   /**
@@ -124,22 +130,35 @@ object ReadWriteMethods {
     * @param arr Array of bytes with the option information.
     * @return An [[Options]] map.
     */
-  def buildOptions(arr: Array[Byte]): Options = {
-    if (arr.length > 0) {
-      val optMap = mutable.Map[String, (Char, String)]()
+  def buildOptions(arr: Array[Byte]): Options =
+    buildOptions(ByteBuffer.wrap(arr), 0, arr.length)
+
+  /**
+    * Builds options from the bytes in a range of a buffer,
+    * reading the buffer by absolute offset only.
+    *
+    * @param buf  The buffer with the option information.
+    * @param from The offset of the first option.
+    * @param to   The offset after the last option.
+    * @return An [[Options]] map.
+    */
+  def buildOptions(buf: ByteBuffer, from: Int, to: Int): Options = {
+    if (to > from) {
+      val optMap = Map.newBuilder[String, (Char, String)]
       //scalastyle:off while
-      var i = 0
-      while (i < arr.length) {
-        val optLen = readShortFromBytes(arr(i), arr(i + 1))
-        val tagLen = readShortFromBytes(arr(i + 2), arr(i + 3))
-        val oType = arr(i + 4).toChar
-        val tag = new String(arr.slice(i + 5, i + 5 + tagLen))
-        val content = new String(arr.slice(i + 5 + tagLen, i + optLen))
-        optMap.put(tag, (oType, content))
+      var i = from
+      while (i < to) {
+        val optLen = buf.getShort(i)
+        val tagLen = buf.getShort(i + RWC.SHORT_BYTES)
+        val oType = buf.get(i + 2 * RWC.SHORT_BYTES).toChar
+        val tagPos = i + 2 * RWC.SHORT_BYTES + RWC.CHAR_BYTES
+        val tag = readString(buf, tagPos, tagLen)
+        val content = readString(buf, tagPos + tagLen, i + optLen - tagPos - tagLen)
+        optMap += tag -> (oType, content)
         i += optLen
       }
       //scalastyle:on while
-      optMap.toMap
+      optMap.result()
     } else {
       Map[String, (Char, String)]()
     }
@@ -150,13 +169,122 @@ object ReadWriteMethods {
     * @param arr The array.
     * @return A buffer of IDs.
     */
-  def buildEdgeIDs(arr: Array[Byte]): mutable.Buffer[Int] = {
-    ListBuffer(
-      arr.grouped(RWC.INT_BYTES).map(
-        linkArr =>
-          ByteBuffer.wrap(linkArr).getInt).toList: _*)
+  def buildEdgeIDs(arr: Array[Byte]): mutable.Buffer[Int] =
+    buildEdgeIDs(ByteBuffer.wrap(arr), 0, arr.length / RWC.INT_BYTES)
+
+  /**
+    * Builds a Buffer of IDs from the ints starting at an
+    * offset in a buffer.
+    *
+    * @param buf  The buffer.
+    * @param from The offset of the first ID.
+    * @param num  The number of IDs.
+    * @return A buffer of IDs.
+    */
+  def buildEdgeIDs(buf: ByteBuffer, from: Int, num: Int): mutable.Buffer[Int] = {
+    val ids = new mutable.ArrayBuffer[Int](num)
+    for (i <- 0 until num) {
+      ids += buf.getInt(from + i * RWC.INT_BYTES)
+    }
+    ids
   }
 
+  /**
+    * Reads the IDs of the edges of a node, which are stored as
+    * the zigzag varint of their difference with the ID of the node.
+    *
+    * @param in  The reader positioned at the first ID.
+    * @param id  The ID of the node.
+    * @param num The number of IDs.
+    * @return A buffer of IDs.
+    */
+  def readEdgeIDs(in: VarintReader, id: Int, num: Int): mutable.Buffer[Int] = {
+    val ids = new mutable.ArrayBuffer[Int](num)
+    for (_ <- 0 until num) {
+      ids += (id + in.readSignedVarLong()).toInt
+    }
+    ids
+  }
+
+  /**
+    * Puts the IDs of the edges of a node at the position of a
+    * buffer, as read by [[readEdgeIDs]].
+    *
+    * @param buf   The buffer to put the IDs in.
+    * @param id    The ID of the node.
+    * @param edges The IDs of the nodes on the other end of the edges.
+    */
+  def putEdgeIDs(buf: ByteBuffer, id: Int, edges: Seq[Int]): Unit =
+    edges.foreach(e => putVarLong(buf, zigZag(e.toLong - id)))
+
+  /**
+    * @param id    The ID of a node.
+    * @param edges The IDs of the nodes on the other end of its edges.
+    * @return The number of bytes taken by the IDs of the edges.
+    */
+  def edgesLength(id: Int, edges: Seq[Int]): Int =
+    edges.map(e => varLongBytes(zigZag(e.toLong - id))).sum
+
+  /**
+    * Puts a value as a varint at the position of a buffer.
+    *
+    * @param buf   The buffer to put the varint in.
+    * @param value The unsigned value.
+    */
+  def putVarLong(buf: ByteBuffer, value: Long): Unit = {
+    var rest = value
+    //scalastyle:off while
+    while ((rest & ~RWC.VARINT_MASK.toLong) != 0) {
+      //scalastyle:on while
+      buf.put(((rest & RWC.VARINT_MASK) | RWC.VARINT_MORE).toByte)
+      rest >>>= RWC.VARINT_BITS
+    }
+    buf.put(rest.toByte)
+  }
+
+  /**
+    * @param value An unsigned value.
+    * @return The number of bytes of the value as a varint.
+    */
+  def varLongBytes(value: Long): Int =
+    Math.max(1, (java.lang.Long.SIZE - java.lang.Long.numberOfLeadingZeros(value) +
+      RWC.VARINT_BITS - 1) / RWC.VARINT_BITS)
+
+  /**
+    * Maps a signed value to an unsigned one, such that values
+    * close to zero have few significant bits.
+    *
+    * @param value The signed value.
+    * @return The zigzag encoded value.
+    */
+  def zigZag(value: Long): Long = (value << 1) ^ (value >> (java.lang.Long.SIZE - 1))
+
+  /**
+    * @param value A zigzag encoded value.
+    * @return The signed value.
+    */
+  def unZigZag(value: Long): Long = (value >>> 1) ^ -(value & 1)
+
+  /**
+    * Decodes the bytes in a range of a buffer to a [[String]]
+    * without moving the position of the buffer.
+    *
+    * @param buf    The buffer.
+    * @param from   The offset of the first byte.
+    * @param length The number of bytes.
+    * @return The decoded [[String]].
+    */
+  def readString(buf: ByteBuffer, from: Int, length: Int): String =
+    if (buf.hasArray) {
+      new String(buf.array(), buf.arrayOffset() + from, length)
+    } else {
+      val bytes = new Array[Byte](length)
+      val view = buf.duplicate()
+      view.position(from)
+      view.get(bytes)
+      new String(bytes)
+    }
+
   /**
     * Converts two bytes to a short.
     *
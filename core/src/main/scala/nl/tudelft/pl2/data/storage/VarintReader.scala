@@ -0,0 +1,45 @@
+package nl.tudelft.pl2.data.storage
+
+import java.nio.ByteBuffer
+
+import nl.tudelft.pl2.data.storage.{ReadWriteConstants => RWC, ReadWriteMethods => RWM}
+
+/**
+  * Reads a sequence of varints from a buffer, starting at an
+  * offset and moving past every varint read. Each varint holds
+  * seven bits of its value per byte, least significant group
+  * first, of which the highest bit tells whether another byte
+  * follows.
+  *
+  * The buffer is read by absolute offset only, so its position
+  * is never changed by the reader.
+  *
+  * @param buf The buffer holding the varints.
+  * @param pos The offset of the next varint.
+  */
+class VarintReader(buf: ByteBuffer, var pos: Int) {
+
+  /**
+    * @return The next varint as an unsigned value.
+    */
+  def readVarLong(): Long = {
+    var value = 0L
+    var shift = 0
+    var b = buf.get(pos)
+    //scalastyle:off while
+    while ((b & RWC.VARINT_MORE) != 0) {
+      //scalastyle:on while
+      value |= (b & RWC.VARINT_MASK).toLong << shift
+      shift += RWC.VARINT_BITS
+      pos += 1
+      b = buf.get(pos)
+    }
+    pos += 1
+    value | (b.toLong << shift)
+  }
+
+  /**
+    * @return The next varint as a zigzag encoded signed value.
+    */
+  def readSignedVarLong(): Long = RWM.unZigZag(readVarLong())
+}
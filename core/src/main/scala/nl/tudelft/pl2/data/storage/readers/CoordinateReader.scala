@@ -0,0 +1,224 @@
+package nl.tudelft.pl2.data.storage.readers
+
+import java.nio.ByteBuffer
+import java.util
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, Path, StandardOpenOption}
+
+import nl.tudelft.pl2.data.Graph.Coordinates
+import nl.tudelft.pl2.data.storage.{CoordinateFormat => CF}
+import nl.tudelft.pl2.representation.exceptions.CTagException
+
+case class InvalidCoordinateFileException(reason: String, loc: String)
+  extends CTagException(reason, loc)
+
+/**
+  * Reads genome coordinates in place from a file laid out as
+  * described by [[nl.tudelft.pl2.data.storage.CoordinateFormat]],
+  * which is mapped into memory through [[MappedCtagFile]].
+  *
+  * The genomes passing through a node are read from its membership
+  * row, which is handed out as a bitset, after which its offset in
+  * each of them is found by a binary search over the column of the
+  * genome. The nodes a genome passes through are read from its
+  * column in order, and the layers it spans from its column entry.
+  *
+  * @param path The path to the coordinate file.
+  */
+class CoordinateReader(path: Path) extends AutoCloseable {
+
+  import CoordinateReader._
+
+  private val file = MappedCtagFile.acquire(path)
+
+  private val header = {
+    val valid = file.size >= CF.HEADER_BYTES && isCurrent(file.slice(0, CF.HEADER_BYTES))
+    if (!valid) {
+      MappedCtagFile.release(file)
+      throw InvalidCoordinateFileException("File is not a coordinate file of version "
+        + CF.VERSION + ".", "While reading " + path.getFileName)
+    }
+    file.slice(0, CF.HEADER_BYTES)
+  }
+
+  /**
+    * The number of genomes in the file.
+    */
+  val genomes: Int = header.getInt(CF.GENOMES_POS)
+
+  /**
+    * One more than the highest node ID in the file.
+    */
+  val nodes: Int = header.getInt(CF.NODES_POS)
+
+  private val table = file.slice(CF.HEADER_BYTES, CF.COLUMN_BYTES * genomes)
+
+  private val rowBytes = CF.rowBytes(genomes)
+
+  /**
+    * @param id     The ID of a node.
+    * @param genome A genome.
+    * @return Whether the genome passes through the node.
+    */
+  def passesThrough(id: Int, genome: Int): Boolean =
+    id >= 0 && id < nodes && genome >= 0 && genome < genomes && {
+      val bits = file.slice(CF.rowPos(genomes, id) + genome / java.lang.Byte.SIZE, 1).get(0)
+      (bits & (1 << (genome % java.lang.Byte.SIZE))) != 0
+    }
+
+  /**
+    * @param id The ID of a node.
+    * @return The membership row of the node, in which bit g is
+    *         set when genome g passes through the node.
+    */
+  def membership(id: Int): util.BitSet =
+    if (id < 0 || id >= nodes) {
+      new util.BitSet(0)
+    } else {
+      util.BitSet.valueOf(file.slice(CF.rowPos(genomes, id), rowBytes))
+    }
+
+  /**
+    * @param id The ID of a node.
+    * @return The genomes passing through the node, in ascending order.
+    */
+  def genomesOf(id: Int): Array[Int] = membership(id).stream().toArray
+
+  /**
+    * @param id     The ID of a node.
+    * @param genome A genome.
+    * @return The offset of the node in the genome, or
+    *         [[CoordinateReader.NO_COORDINATE]] if the genome
+    *         does not pass through the node.
+    */
+  def coordinate(id: Int, genome: Int): Long =
+    if (genome < 0 || genome >= genomes) {
+      NO_COORDINATE
+    } else {
+      val count = columnCount(genome)
+      val ids = file.slice(columnPosition(genome), count * Integer.BYTES)
+      val at = search(ids, count, id)
+      if (at < 0) {
+        NO_COORDINATE
+      } else {
+        file.slice(columnPosition(genome) + count.toLong * Integer.BYTES
+          + at.toLong * java.lang.Long.BYTES, java.lang.Long.BYTES).getLong(0)
+      }
+    }
+
+  /**
+    * @param id The ID of a node.
+    * @return The offset of the node in every genome passing through it.
+    */
+  def coordinatesOf(id: Int): Coordinates =
+    genomesOf(id).map(g => (new Integer(g), coordinate(id, g))).toMap
+
+  /**
+    * @param genome A genome.
+    * @return The IDs of the nodes the genome passes through,
+    *         in ascending order.
+    */
+  def nodesOf(genome: Int): Array[Int] =
+    if (genome < 0 || genome >= genomes) {
+      Array()
+    } else {
+      val count = columnCount(genome)
+      val ids = new Array[Int](count)
+      file.slice(columnPosition(genome), count * Integer.BYTES).asIntBuffer().get(ids)
+      ids
+    }
+
+  /**
+    * @param genome A genome.
+    * @return The first and last layer the genome passes through,
+    *         if it passes through any node.
+    */
+  def layersOf(genome: Int): Option[(Int, Int)] =
+    if (genome < 0 || genome >= genomes || columnCount(genome) == 0) {
+      None
+    } else {
+      Some((table.getInt(CF.COLUMN_BYTES * genome + CF.C_FIRST_LAYER_POS),
+        table.getInt(CF.COLUMN_BYTES * genome + CF.C_LAST_LAYER_POS)))
+    }
+
+  override def close(): Unit = MappedCtagFile.release(file)
+
+  /**
+    * @param genome A genome.
+    * @return The offset of the column of the genome.
+    */
+  private def columnPosition(genome: Int): Long =
+    table.getLong(CF.COLUMN_BYTES * genome + CF.C_POSITION_POS)
+
+  /**
+    * @param genome A genome.
+    * @return The number of nodes in the column of the genome.
+    */
+  private def columnCount(genome: Int): Int =
+    table.getInt(CF.COLUMN_BYTES * genome + CF.C_COUNT_POS)
+}
+
+/**
+  * Companion object to the [[CoordinateReader]].
+  */
+object CoordinateReader {
+  /**
+    * The coordinate of a node in a genome not passing through it.
+    */
+  final val NO_COORDINATE = -1L
+
+  /**
+    * Checks whether a coordinate file is laid out as described
+    * by the current version of the
+    * [[nl.tudelft.pl2.data.storage.CoordinateFormat]].
+    *
+    * @param path The [[Path]] of the coordinate file.
+    * @return Whether the file exists and is of the current version.
+    */
+  def isCurrent(path: Path): Boolean = Files.exists(path) && {
+    val channel = FileChannel.open(path, StandardOpenOption.READ)
+    try {
+      val header = ByteBuffer.allocate(CF.HEADER_BYTES)
+      channel.size() >= CF.HEADER_BYTES && channel.read(header, 0) == CF.HEADER_BYTES &&
+        isCurrent(header)
+    } finally {
+      channel.close()
+    }
+  }
+
+  /**
+    * @param header The header of a coordinate file.
+    * @return Whether the header is of the current version.
+    */
+  private def isCurrent(header: ByteBuffer): Boolean =
+    header.getInt(CF.MAGIC_POS) == CF.MAGIC && header.getInt(CF.VERSION_POS) == CF.VERSION
+
+  /**
+    * Searches the position of an ID among the ascending IDs
+    * of a column.
+    *
+    * @param ids   The IDs of the column.
+    * @param count The number of IDs.
+    * @param id    The ID to look for.
+    * @return The position of the ID, or -1 if it is absent.
+    */
+  private def search(ids: ByteBuffer, count: Int, id: Int): Int = {
+    var lo = 0
+    var hi = count - 1
+    var found = -1
+    //scalastyle:off while
+    while (found < 0 && lo <= hi) {
+      //scalastyle:on while
+      val mid = (lo + hi) >>> 1
+      val at = ids.getInt(mid * Integer.BYTES)
+      if (at == id) {
+        found = mid
+      } else if (at < id) {
+        lo = mid + 1
+      } else {
+        hi = mid - 1
+      }
+    }
+    found
+  }
+}
@@ -1,12 +1,13 @@
 package nl.tudelft.pl2.data.storage.readers
 
-import java.io.RandomAccessFile
 import java.nio.ByteBuffer
 import java.nio.channels.AsynchronousFileChannel
 import java.nio.file.Path
+import java.util.zip.{DataFormatException, Inflater}
 
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.builders.{BuilderBubble, BuilderChain, BuilderIndel, BuilderNode}
-import nl.tudelft.pl2.data.storage.{ReadWriteConstants => RWC, ReadWriteMethods => RWM}
+import nl.tudelft.pl2.data.storage.{VarintReader, ReadWriteConstants => RWC, ReadWriteMethods => RWM}
 import nl.tudelft.pl2.representation.exceptions.CTagException
 import nl.tudelft.pl2.representation.external.Node
 import org.apache.logging.log4j.{Logger, LogManager}
@@ -15,20 +16,46 @@ import scala.collection.mutable
 
 case class InvalidPrefixException(msg: String, loc: String) extends CTagException(msg, loc)
 
+case class CorruptBlockException(msg: String, loc: String) extends CTagException(msg, loc)
+
 /**
   * Reads data chunks from disks and parses them to Nodes or BuilderNodes.
   *
+  * A reader either reads every chunk from a file channel into a
+  * fresh buffer, or, when `mapped`, decodes chunks straight from a
+  * [[MappedCtagFile]] shared with all other mapped readers of the
+  * same file. The file is mapped on the first read, such that a
+  * mapped reader may be created before its file is written.
+  *
+  * Chunks stored as compressed blocks, whose stored length differs
+  * from their length, are inflated before they are decoded.
+  *
+  * @param filePath    The path to the compressed file.
+  * @param mapped      Whether to read chunks from a memory mapping.
+  * @param coordinates The reader of the genome coordinates of
+  *                    the nodes, if they are to be read.
   * @author Maaike Visser
   */
-class CtagReader(filePath: Path) extends AutoCloseable {
+class CtagReader(filePath: Path,
+                 mapped: Boolean = false,
+                 coordinates: Option[CoordinateReader] = None) extends AutoCloseable {
 
   val LOGGER: Logger = LogManager.getLogger("CtagReader")
 
-  val readFile: RandomAccessFile = new RandomAccessFile(filePath.toString, "r")
-  val readChannel: AsynchronousFileChannel = AsynchronousFileChannel.open(filePath)
+  /**
+    * The channel chunks are read from when not `mapped`.
+    */
+  private val readChannel: Option[AsynchronousFileChannel] =
+    if (mapped) None else Some(AsynchronousFileChannel.open(filePath))
 
   /**
-    * Reads a chunk of data from disk into memory to pass to the cache.
+    * The mapping of the file, once a chunk was read when `mapped`.
+    */
+  private var mappedFile: Option[MappedCtagFile] = None
+
+  /**
+    * Reads an uncompressed chunk of data from disk into memory
+    * to pass to the cache.
     *
     * @param offset The offset of this chunk in the file.
     * @param length The length of this chunk in the file.
@@ -36,212 +63,331 @@ class CtagReader(filePath: Path) extends AutoCloseable {
     *         this chunk.
     */
   def readDataChunk(offset: Long, length: Int): mutable.Buffer[Node] =
-    readDataChunkToBuilderNodes(offset, length).map(bn => bn.nodify())
+    readDataChunk(offset, length, length)
 
-  def readDataChunkToBuilderNodes(offset: Long, length: Int): mutable.Buffer[BuilderNode] = {
+  /**
+    * Reads a chunk of data from disk into memory to pass to the cache.
+    * Plain nodes are returned as [[EncodedNode]]s, which decode their
+    * content, options and genome coordinates only when accessed.
+    *
+    * @param offset       The offset of this chunk in the file.
+    * @param length       The length of this chunk once inflated.
+    * @param storedLength The length of this chunk in the file.
+    * @return A mutable.Buffer with the [[Node]]s from
+    *         this chunk.
+    */
+  def readDataChunk(offset: Long, length: Int, storedLength: Int): mutable.Buffer[Node] = {
     LOGGER.debug("Loading chunk from {} at offset {} with length {}.",
-      filePath, offset, length)
-
-    val builderNodeBuf = mutable.Buffer[BuilderNode]()
-    val buf = ByteBuffer.allocateDirect(length)
+      filePath, offset, storedLength)
 
-    //TODO: convert to observable pattern
-    readChannel.read(buf, offset).get()
+    val nodeBuf = mutable.Buffer[Node]()
+    val buf = readChunk(offset, length, storedLength)
+    foreachRecord(buf, length)((prefix, record) =>
+      nodeBuf += (if (prefix == RWC.NOD_PREFIX) {
+        EncodedNode(buf, record, coordinates)
+      } else {
+        buildBuilderRecord(prefix, buf, record).nodify()
+      }))
+    LOGGER.debug("Successfully read chunk.")
+    nodeBuf
+  }
 
-    val arr = Array.ofDim[Byte](length)
+  def readDataChunkToBuilderNodes(offset: Long, length: Int): mutable.Buffer[BuilderNode] =
+    readDataChunkToBuilderNodes(offset, length, length)
 
-    buf.flip()
-    buf.get(arr)
+  def readDataChunkToBuilderNodes(offset: Long,
+                                  length: Int,
+                                  storedLength: Int): mutable.Buffer[BuilderNode] = {
+    LOGGER.debug("Loading chunk from {} at offset {} with length {}.",
+      filePath, offset, storedLength)
 
-    var i = 0
+    val builderNodeBuf = mutable.Buffer[BuilderNode]()
+    val buf = readChunk(offset, length, storedLength)
+    foreachRecord(buf, length)((prefix, record) =>
+      builderNodeBuf += buildBuilderRecord(prefix, buf, record))
+    LOGGER.debug("Successfully read chunk.")
+    builderNodeBuf
+  }
 
+  /**
+    * Visits the records in a chunk in order.
+    *
+    * @param buf    The buffer holding the chunk.
+    * @param length The length of the chunk.
+    * @param visit  The function called with the prefix of each record
+    *               and the offset of the record right after its prefix.
+    */
+  private def foreachRecord(buf: ByteBuffer, length: Int)(visit: (Byte, Int) => Unit): Unit = {
     //scalastyle:off while
+    var i = 0
     while (i < length) {
-      val prefix = arr(i)
-      assert(prefix == RWC.NOD_PREFIX || prefix == RWC.BUB_PREFIX || prefix == RWC.IND_PREFIX ||
-        prefix == RWC.CHA_PREFIX)
-
-      var nodeLen = -1
-
-      if (prefix == RWC.NOD_PREFIX) {
-        nodeLen = RWM.readIntFromByteArray(arr.slice(i + 1, i + 1 + RWC.INT_BYTES))
-        builderNodeBuf += buildBuilderNode(arr.slice(i + 1, i + 1 + nodeLen))
-      } else if (prefix == RWC.BUB_PREFIX) {
-        nodeLen = RWM.readIntFromByteArray(arr.slice(i + 1, i + 1 + RWC.INT_BYTES))
-        builderNodeBuf += buildBuilderBubble(arr.slice(i + 1, i + 1 + nodeLen))
-      } else if (prefix == RWC.IND_PREFIX) {
-        nodeLen = RWM.readIntFromByteArray(arr.slice(i + 1, i + 1 + RWC.INT_BYTES))
-        builderNodeBuf += buildBuilderIndel(arr.slice(i + 1, i + 1 + nodeLen))
+      val prefix = buf.get(i)
+      val record = i + 1
+
+      val nodeLen = if (prefix == RWC.NOD_PREFIX
+        || prefix == RWC.BUB_PREFIX
+        || prefix == RWC.IND_PREFIX) {
+        buf.getInt(record + RWC.LEN_POS)
       } else if (prefix == RWC.CHA_PREFIX) {
-        nodeLen = RWM.readShortFromBytes(arr(i + 1), arr(i + 1 + 1))
-        builderNodeBuf += buildBuilderChain(arr.slice(i + 1, i + 1 + nodeLen))
+        buf.getShort(record + RWC.LEN_POS).toInt
       } else {
         throw InvalidPrefixException(s"$prefix is not a valid component prefix at this zoom level.",
           "While loading the TwoZoomCache.")
       }
+      visit(prefix, record)
       i += nodeLen + 1
     }
     //scalastyle:on while
-    LOGGER.debug("Successfully read chunk.")
-    builderNodeBuf
   }
 
   /**
-    * Builds a BuilderNode from a byte array.
-    * The array is formatted as follows:
+    * Builds the BuilderNode of a record with a valid prefix.
+    *
+    * @param prefix The prefix of the record.
+    * @param buf    The buffer holding the record.
+    * @param pos    The offset of the record, right after its prefix.
+    * @return The BuilderNode of the record.
+    */
+  private def buildBuilderRecord(prefix: Byte, buf: ByteBuffer, pos: Int): BuilderNode =
+    if (prefix == RWC.NOD_PREFIX) {
+      buildBuilderNode(buf, pos)
+    } else if (prefix == RWC.BUB_PREFIX) {
+      buildBuilderBubble(buf, pos)
+    } else if (prefix == RWC.IND_PREFIX) {
+      buildBuilderIndel(buf, pos)
+    } else {
+      buildBuilderChain(buf, pos)
+    }
+
+  /**
+    * Gives the bytes of a chunk, indexed from 0, inflating
+    * the chunk if it is stored as a compressed block.
+    *
+    * @param offset       The offset of the chunk in the file.
+    * @param length       The length of the chunk once inflated.
+    * @param storedLength The length of the chunk in the file.
+    * @return A buffer holding the chunk.
+    */
+  private def readChunk(offset: Long, length: Int, storedLength: Int): ByteBuffer =
+    if (storedLength == length) {
+      readStored(offset, length)
+    } else {
+      inflate(readStored(offset, storedLength), length)
+    }
+
+  /**
+    * Inflates a compressed block.
+    *
+    * @param block  The buffer holding the block.
+    * @param length The length of the block once inflated.
+    * @return A buffer holding the inflated block.
+    */
+  private def inflate(block: ByteBuffer, length: Int): ByteBuffer = {
+    val input = new Array[Byte](block.remaining())
+    block.duplicate().get(input)
+    val raw = new Array[Byte](length)
+    val inflater = new Inflater()
+    try {
+      inflater.setInput(input)
+      var inflated = 0
+      var progress = true
+      //scalastyle:off while
+      while (inflated < length && progress) {
+        //scalastyle:on while
+        val n = inflater.inflate(raw, inflated, length - inflated)
+        inflated += n
+        progress = n > 0
+      }
+      if (inflated < length || !inflater.finished()) {
+        throw CorruptBlockException(s"Block inflated to $inflated of $length bytes.",
+          "While reading " + filePath.getFileName)
+      }
+    } catch {
+      case e: DataFormatException =>
+        throw CorruptBlockException(e.getMessage, "While reading " + filePath.getFileName)
+    } finally {
+      inflater.end()
+    }
+    ByteBuffer.wrap(raw)
+  }
+
+  /**
+    * Gives the bytes stored for a chunk, indexed from 0.
+    *
+    * @param offset The offset of the chunk in the file.
+    * @param length The length of the chunk in the file.
+    * @return A buffer holding the stored chunk.
+    */
+  private def readStored(offset: Long, length: Int): ByteBuffer = readChannel match {
+    case Some(channel) =>
+      val buf = ByteBuffer.allocate(length)
+      //TODO: convert to observable pattern
+      //scalastyle:off while
+      while (buf.hasRemaining) {
+        //scalastyle:on while
+        if (channel.read(buf, offset + buf.position()).get() < 0) {
+          throw InvalidPrefixException(s"Chunk at offset $offset runs past the end of the file.",
+            "While reading " + filePath.getFileName)
+        }
+      }
+      buf.flip()
+      buf
+    case None => mapping().slice(offset, length)
+  }
+
+  /**
+    * @return The mapping of the file, mapping it if this
+    *         reader did not use it before.
+    */
+  private def mapping(): MappedCtagFile = synchronized {
+    if (mappedFile.isEmpty) {
+      mappedFile = Some(MappedCtagFile.acquire(filePath))
+    }
+    mappedFile.get
+  }
+
+  /**
+    * Builds a BuilderNode from the record at an offset in a buffer.
+    * The record is formatted as follows:
     *
-    * [N][LEN][N_LEN][C_LEN][O_LEN][IL_NUM][OL_NUM][id][layer][name ][content][options][links     ]
-    * [1][4  ][2    ][4    ][2    ][2     ][2     ][4 ][4    ][N_LEN][C_LEN  ][O_NUM  ][4*LINK_NUM]
+    * [N][LEN][N_LEN][C_LEN][O_LEN][IL_NUM][OL_NUM][id][layer][name ][content][options][links  ]
+    * [1][4  ][2    ][4    ][2    ][2     ][2     ][4 ][4    ][N_LEN][C_BYTES][O_LEN  ][L_BYTES]
     *
-    * @param arr The byte array with the Node information.
+    * The genome coordinates are not part of the record, such that
+    * the node is built without them.
+    *
+    * @param buf The buffer holding the record.
+    * @param pos The offset of the record, right after its prefix.
     * @return A Node.
     */
-  def buildBuilderNode(arr: Array[Byte]):
-  BuilderNode = {
-    val len =
-      RWM.readIntFromByteArray(arr.slice(RWC.LEN_POS, RWC.LEN_POS + RWC.INT_BYTES))
-    val nameLen =
-      RWM.readShortFromBytes(arr(RWC.NAMELEN_POS), arr(RWC.NAMELEN_POS + 1))
-    val contentLen =
-      RWM.readIntFromByteArray(arr.slice(RWC.CONTLEN_POS, RWC.CONTLEN_POS + RWC.INT_BYTES))
-
-    val optLen = RWM.readShortFromBytes(arr(RWC.N_OPTLEN_POS), arr(RWC.N_OPTLEN_POS + 1))
-    val inLinkNum = RWM.readShortFromBytes(arr(RWC.N_ILNUM_POS), arr(RWC.N_ILNUM_POS + 1))
-    val outLinkNum = RWM.readShortFromBytes(arr(RWC.N_OLNUM_POS), arr(RWC.N_OLNUM_POS + 1))
-    val numGenomes = RWM.readShortFromBytes(arr(RWC.N_GC_NUM_POS), arr(RWC.N_GC_NUM_POS + 1))
-
-    val id = ByteBuffer.wrap(arr.slice(RWC.N_ID_POS, RWC.N_ID_POS + RWC.INT_BYTES)).getInt
-    val layer = ByteBuffer.wrap(
-      arr.slice(RWC.N_LAYER_POS, RWC.N_LAYER_POS + RWC.INT_BYTES)).getInt
-
-    val name = new String(arr.slice(RWC.N_NAME_POS, RWC.N_NAME_POS + nameLen))
-    val content = new String(
-      arr.slice(RWC.N_NAME_POS + nameLen, RWC.N_NAME_POS + nameLen + contentLen))
-
-    val options = RWM.buildOptions(arr.slice(RWC.N_NAME_POS + nameLen + contentLen,
-      RWC.N_NAME_POS + nameLen + contentLen + optLen))
-
-    val incomingIDs = RWM.buildEdgeIDs(arr.slice(RWC.N_NAME_POS + nameLen + contentLen + optLen,
-      RWC.N_NAME_POS + nameLen + contentLen + optLen + RWC.INT_BYTES * inLinkNum))
-
-    val outgoingIDs = RWM.buildEdgeIDs(
-      arr.slice(RWC.N_NAME_POS + nameLen + contentLen + optLen + RWC.INT_BYTES * inLinkNum,
-        RWC.N_NAME_POS + nameLen + contentLen + optLen
-          + RWC.INT_BYTES * inLinkNum
-          + RWC.INT_BYTES * outLinkNum))
-
-    val genomeCoordinates = arr.slice(RWC.N_NAME_POS + nameLen + contentLen + optLen
-      + RWC.INT_BYTES * inLinkNum + RWC.INT_BYTES * outLinkNum, RWC.N_NAME_POS
-      + nameLen + contentLen + optLen + RWC.INT_BYTES * inLinkNum + RWC.INT_BYTES
-      * outLinkNum + (RWC.INT_BYTES + RWC.LONG_BYTES) * numGenomes)
-      .grouped(RWC.INT_BYTES + RWC.LONG_BYTES).map(genomeArr =>
-      (new Integer(ByteBuffer.wrap(genomeArr.slice(0, RWC.INT_BYTES)).getInt),
-        ByteBuffer.wrap(genomeArr.slice(RWC.INT_BYTES, genomeArr.length)).getLong)).toMap
-
-    new BuilderNode(id, name, layer, content, incomingIDs, outgoingIDs, options, genomeCoordinates)
+  def buildBuilderNode(buf: ByteBuffer, pos: Int): BuilderNode = {
+    val nameLen = buf.getShort(pos + RWC.NAMELEN_POS)
+    val contentLen = buf.getInt(pos + RWC.CONTLEN_POS)
+    val optLen = buf.getShort(pos + RWC.N_OPTLEN_POS)
+    val inLinkNum = buf.getShort(pos + RWC.N_ILNUM_POS)
+    val outLinkNum = buf.getShort(pos + RWC.N_OLNUM_POS)
+
+    val id = buf.getInt(pos + RWC.N_ID_POS)
+    val layer = buf.getInt(pos + RWC.N_LAYER_POS)
+
+    val namePos = pos + RWC.N_NAME_POS
+    val content = PackedSequence(buf, namePos + nameLen, contentLen)
+    val optPos = namePos + nameLen + content.encodedBytes
+    val inPos = optPos + optLen
+    val links = new VarintReader(buf, inPos)
+    val incoming = RWM.readEdgeIDs(links, id, inLinkNum)
+    val outgoing = RWM.readEdgeIDs(links, id, outLinkNum)
+
+    new BuilderNode(id,
+      RWM.readString(buf, namePos, nameLen),
+      layer,
+      content.toString,
+      incoming,
+      outgoing,
+      RWM.buildOptions(buf, optPos, inPos),
+      Map())
   }
 
   /**
-    * Builds a BuilderBubble from a byte array.
-    * The array is formatted as follows:
+    * Builds a BuilderBubble from the record at an offset in a buffer.
+    * The record is formatted as follows:
     *
     * [B][LEN][N_LEN][C_LEN][O_LEN][IL_NUM][id][layer][end][cHi][cLo][name ][content][options]
     * [inlinks]
     * [1][4  ][2    ][4    ][2    ][2     ][4 ][4    ][4  ][1  ][1  ][N_LEN][C_LEN  ][O_LEN  ]
     * [IL_NUM ]
     *
-    * @param arr The byte array with the Node information.
+    * @param buf The buffer holding the record.
+    * @param pos The offset of the record, right after its prefix.
     * @return A Node.
     */
-  def buildBuilderBubble(arr: Array[Byte]): BuilderBubble = {
-    val len = RWM.readIntFromByteArray(arr.slice(RWC.LEN_POS, RWC.LEN_POS + RWC.INT_BYTES))
-    val nameLen = RWM.readShortFromBytes(arr(RWC.NAMELEN_POS), arr(RWC.NAMELEN_POS + 1))
-    val contentLen = RWM.readIntFromByteArray(arr.slice(RWC.CONTLEN_POS,
-      RWC.CONTLEN_POS + RWC.INT_BYTES))
-    val optLen = RWM.readShortFromBytes(arr(RWC.B_OPTLEN_POS), arr(RWC.B_OPTLEN_POS + 1))
-    val inLinkNum = RWM.readShortFromBytes(arr(RWC.B_ILNUM_POS), arr(RWC.B_ILNUM_POS + 1))
-    val id = ByteBuffer.wrap(arr.slice(RWC.B_ID_POS, RWC.B_ID_POS + RWC.INT_BYTES)).getInt
-    val layer = ByteBuffer.wrap(arr.slice(RWC.B_LAYER_POS, RWC.B_LAYER_POS + RWC.INT_BYTES)).getInt
-    val end = ByteBuffer.wrap(arr.slice(RWC.B_END_POS, RWC.B_END_POS + RWC.INT_BYTES)).getInt
-    val cHi = arr(RWC.B_CHI_POS).toChar
-    val cLo = arr(RWC.B_CLO_POS).toChar
-    val name = new String(arr.slice(RWC.B_NAME_POS, RWC.B_NAME_POS + nameLen))
-    val content = new String(arr.slice(RWC.B_NAME_POS + nameLen,
-      RWC.B_NAME_POS + nameLen + contentLen))
-    val options = RWM.buildOptions(arr.slice(RWC.B_NAME_POS + nameLen + contentLen,
-      RWC.B_NAME_POS + nameLen + contentLen + optLen))
-    val inEdges = RWM.buildEdgeIDs(arr.slice(RWC.B_NAME_POS + nameLen +
-      contentLen + optLen,
-      RWC.B_NAME_POS + nameLen + contentLen + optLen + RWC.INT_BYTES * inLinkNum))
-
-    BuilderBubble(id, name, layer, content, cHi, cLo, options, inEdges, end)
+  def buildBuilderBubble(buf: ByteBuffer, pos: Int): BuilderBubble = {
+    val nameLen = buf.getShort(pos + RWC.NAMELEN_POS)
+    val contentLen = buf.getInt(pos + RWC.CONTLEN_POS)
+    val optLen = buf.getShort(pos + RWC.B_OPTLEN_POS)
+    val inLinkNum = buf.getShort(pos + RWC.B_ILNUM_POS)
+
+    val namePos = pos + RWC.B_NAME_POS
+    val contentPos = namePos + nameLen
+    val optPos = contentPos + contentLen
+    val inPos = optPos + optLen
+
+    BuilderBubble(buf.getInt(pos + RWC.B_ID_POS),
+      RWM.readString(buf, namePos, nameLen),
+      buf.getInt(pos + RWC.B_LAYER_POS),
+      RWM.readString(buf, contentPos, contentLen),
+      buf.get(pos + RWC.B_CHI_POS).toChar,
+      buf.get(pos + RWC.B_CLO_POS).toChar,
+      RWM.buildOptions(buf, optPos, inPos),
+      RWM.buildEdgeIDs(buf, inPos, inLinkNum),
+      buf.getInt(pos + RWC.B_END_POS))
   }
 
   /**
-    * Builds a BuilderIndel from a byte array.
-    * The array is formatted as follows:
+    * Builds a BuilderIndel from the record at an offset in a buffer.
+    * The record is formatted as follows:
     *
     * [I][LEN][N_LEN][C_LEN][CM_LEN][O_LEN][IL_NUM][id][layer][end][name ][content][midContent]
     * [options][incoming]
     * [1][4  ][2    ][4    ][4     ][2    ][2     ][4 ][4    ][4  ][N_LEN][C_LEN  ][CM_LEN    ]
     * [O_LEN  ][4*IL_NUM]
     *
-    * @param arr The byte array with the Node information.
+    * @param buf The buffer holding the record.
+    * @param pos The offset of the record, right after its prefix.
     * @return A Node.
     */
-  def buildBuilderIndel(arr: Array[Byte]): BuilderIndel = {
-    val len = RWM.readIntFromByteArray(arr.slice(RWC.LEN_POS, RWC.LEN_POS + RWC.INT_BYTES))
-    val nameLen = RWM.readShortFromBytes(arr(RWC.NAMELEN_POS), arr(RWC.NAMELEN_POS + 1))
-    val contentLen = RWM.readIntFromByteArray(arr.slice(RWC.CONTLEN_POS,
-      RWC.CONTLEN_POS + RWC.INT_BYTES))
-    val midContentLen = RWM.readIntFromByteArray(arr.slice(RWC.I_MIDLEN_POS,
-      RWC.I_MIDLEN_POS + RWC.INT_BYTES))
-    val optLen = RWM.readShortFromBytes(arr(RWC.I_OPTLEN_POS), arr(RWC.I_OPTLEN_POS + 1))
-    val inLinkNum = RWM.readShortFromBytes(arr(RWC.I_ILNUM_POS), arr(RWC.I_ILNUM_POS + 1))
-    val id = ByteBuffer.wrap(arr.slice(RWC.I_ID_OFFSET, RWC.I_ID_OFFSET + RWC.INT_BYTES)).getInt
-    val layer = ByteBuffer.wrap(arr.slice(RWC.I_LAYER_POS, RWC.I_LAYER_POS + RWC.INT_BYTES)).getInt
-    val end = ByteBuffer.wrap(arr.slice(RWC.I_END_POS, RWC.I_END_POS + RWC.INT_BYTES)).getInt
-    val name = new String(arr.slice(RWC.I_NAME_POS, RWC.I_NAME_POS + nameLen))
-    val content = new String(arr.slice(RWC.I_NAME_POS + nameLen,
-      RWC.I_NAME_POS + nameLen + contentLen))
-    val midContent = new String(arr.slice(RWC.I_NAME_POS + nameLen + contentLen,
-      RWC.I_NAME_POS + nameLen + contentLen + midContentLen))
-    val options = RWM.buildOptions(arr.slice(RWC.I_NAME_POS + nameLen + contentLen + midContentLen,
-      RWC.I_NAME_POS + nameLen + contentLen + midContentLen + optLen))
-    val inLinks = RWM.buildEdgeIDs(
-      arr.slice(RWC.I_NAME_POS + nameLen + contentLen + midContentLen + optLen,
-        RWC.I_NAME_POS + nameLen + contentLen + midContentLen + optLen + RWC.INT_BYTES * inLinkNum))
-
-    BuilderIndel(id, name, layer, content, midContent, options, inLinks, end)
+  def buildBuilderIndel(buf: ByteBuffer, pos: Int): BuilderIndel = {
+    val nameLen = buf.getShort(pos + RWC.NAMELEN_POS)
+    val contentLen = buf.getInt(pos + RWC.CONTLEN_POS)
+    val midContentLen = buf.getInt(pos + RWC.I_MIDLEN_POS)
+    val optLen = buf.getShort(pos + RWC.I_OPTLEN_POS)
+    val inLinkNum = buf.getShort(pos + RWC.I_ILNUM_POS)
+
+    val namePos = pos + RWC.I_NAME_POS
+    val contentPos = namePos + nameLen
+    val midPos = contentPos + contentLen
+    val optPos = midPos + midContentLen
+    val inPos = optPos + optLen
+
+    BuilderIndel(buf.getInt(pos + RWC.I_ID_OFFSET),
+      RWM.readString(buf, namePos, nameLen),
+      buf.getInt(pos + RWC.I_LAYER_POS),
+      RWM.readString(buf, contentPos, contentLen),
+      RWM.readString(buf, midPos, midContentLen),
+      RWM.buildOptions(buf, optPos, inPos),
+      RWM.buildEdgeIDs(buf, inPos, inLinkNum),
+      buf.getInt(pos + RWC.I_END_POS))
   }
 
   /**
-    * Builds a BuilderChain from a byte array.
-    * The array is formatted as follows:
+    * Builds a BuilderChain from the record at an offset in a buffer.
+    * The record is formatted as follows:
     *
     * [B][LEN][O_LEN][IL_NUM][id][layer][end][options][inlinks]
     * [1][2  ][2    ][2     ][4 ][4    ][4  ][O_LEN  ][IL_NUM ]
     *
-    * @param arr The byte array with the Node information.
+    * @param buf The buffer holding the record.
+    * @param pos The offset of the record, right after its prefix.
     * @return A Node.
     */
-  def buildBuilderChain(arr: Array[Byte]): BuilderChain = {
-    val len = RWM.readShortFromBytes(arr(RWC.LEN_POS), arr(RWC.LEN_POS + 1))
-    val optLen = RWM.readShortFromBytes(arr(RWC.C_OPTLEN_POS), arr(RWC.C_OPTLEN_POS + 1))
-    val inLinkNum = RWM.readShortFromBytes(arr(RWC.C_ILNUM_POS), arr(RWC.C_ILNUM_POS + 1))
-    val id = ByteBuffer.wrap(arr.slice(RWC.C_ID_POS, RWC.C_ID_POS + RWC.INT_BYTES)).getInt
-    val layer = ByteBuffer.wrap(arr.slice(RWC.C_LAYER_POS, RWC.C_LAYER_POS + RWC.INT_BYTES)).getInt
-    val end = ByteBuffer.wrap(arr.slice(RWC.C_END_POS, RWC.C_END_POS + RWC.INT_BYTES)).getInt
-    val options = RWM.buildOptions(arr.slice(RWC.C_OPT_POS, RWC.C_OPT_POS + optLen))
-    val inEdges = RWM.buildEdgeIDs(arr.slice(RWC.C_OPT_POS + optLen,
-      RWC.C_OPT_POS + optLen + RWC.INT_BYTES * inLinkNum))
-
-    BuilderChain(id, layer, options, inEdges, mutable.Buffer(end))
+  def buildBuilderChain(buf: ByteBuffer, pos: Int): BuilderChain = {
+    val optLen = buf.getShort(pos + RWC.C_OPTLEN_POS)
+    val inLinkNum = buf.getShort(pos + RWC.C_ILNUM_POS)
+    val optPos = pos + RWC.C_OPT_POS
+
+    BuilderChain(buf.getInt(pos + RWC.C_ID_POS),
+      buf.getInt(pos + RWC.C_LAYER_POS),
+      RWM.buildOptions(buf, optPos, optPos + optLen),
+      RWM.buildEdgeIDs(buf, optPos + optLen, inLinkNum),
+      mutable.Buffer(buf.getInt(pos + RWC.C_END_POS)))
   }
 
   def close(): Unit = {
-    readChannel.close()
-    readFile.close()
+    readChannel.foreach(_.close())
+    synchronized {
+      mappedFile.foreach(MappedCtagFile.release)
+      mappedFile = None
+    }
     LOGGER.debug(this.getClass + " with file {} closed.", filePath.getFileName)
   }
 }
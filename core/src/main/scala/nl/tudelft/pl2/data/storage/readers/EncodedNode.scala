@@ -0,0 +1,123 @@
+package nl.tudelft.pl2.data.storage.readers
+
+import java.nio.ByteBuffer
+import java.util
+
+import nl.tudelft.pl2.data.Graph.{Coordinates, Options}
+import nl.tudelft.pl2.data.PackedSequence
+import nl.tudelft.pl2.data.storage.{VarintReader, ReadWriteConstants => RWC, ReadWriteMethods => RWM}
+import nl.tudelft.pl2.representation.external.{Edge, Node}
+
+import scala.collection.mutable
+
+/**
+  * A [[Node]] backed by its encoded record in a chunk read by
+  * a [[CtagReader]]. Only the ID, layer and edges of the node
+  * are decoded when it is created, as those are needed for
+  * every node that is laid out. The name and options are decoded
+  * from the record on their first access and kept afterwards, as
+  * are the genome coordinates and genomes, which are read from
+  * the [[CoordinateReader]] of the graph. The content is read from its
+  * packed form in the record on every access, such that it is
+  * never kept as a [[String]].
+  *
+  * The record is read by absolute offset only, such that many
+  * nodes can share the buffer holding their chunk. Offsets are
+  * always derived from the record, as the edge buffers of a node
+  * may be extended after it was loaded.
+  *
+  * @param buf         The buffer holding the record.
+  * @param pos         The offset of the record, right after its prefix.
+  * @param coordinates The reader of the genome coordinates, if any.
+  * @param id          The ID of the node.
+  * @param layer       The layer of the node.
+  * @param incoming    The links coming into the node.
+  * @param outgoing    The links going out of the node.
+  */
+//scalastyle:off null
+class EncodedNode private(buf: ByteBuffer,
+                          pos: Int,
+                          coordinates: Option[CoordinateReader],
+                          id: Int,
+                          layer: Int,
+                          incoming: mutable.Buffer[Edge],
+                          outgoing: mutable.Buffer[Edge])
+  extends Node(id, null, layer, null, incoming, outgoing, null, null) {
+  //scalastyle:on null
+
+  override lazy val name: String =
+    RWM.readString(buf, pos + RWC.N_NAME_POS, nameLength)
+
+  override lazy val sequence: PackedSequence =
+    PackedSequence(buf, pos + RWC.N_NAME_POS + nameLength, contentLength)
+
+  override def content: String = sequence.toString
+
+  override def contentLength: Int = buf.getInt(pos + RWC.CONTLEN_POS)
+
+  override lazy val options: Options =
+    RWM.buildOptions(buf, optionsPos, optionsPos + buf.getShort(pos + RWC.N_OPTLEN_POS))
+
+  override lazy val genomeCoordinates: Coordinates =
+    coordinates.map(_.coordinatesOf(id)).getOrElse(Map())
+
+  /**
+    * The membership row of the node in the [[CoordinateReader]].
+    */
+  private lazy val membership: Option[util.BitSet] = coordinates.map(_.membership(id))
+
+  override def genomes(names: Array[String]): util.BitSet =
+    membership.getOrElse(super.genomes(names))
+
+  /**
+    * @return The number of bytes in the name of the node.
+    */
+  private def nameLength: Int = buf.getShort(pos + RWC.NAMELEN_POS)
+
+  /**
+    * @return The offset of the options of the node.
+    */
+  private def optionsPos: Int = pos + RWC.N_NAME_POS + nameLength + sequence.encodedBytes
+}
+
+/**
+  * Companion object to the [[EncodedNode]].
+  */
+object EncodedNode {
+
+  /**
+    * Creates a node backed by the record at an offset in a buffer.
+    * The record is formatted as follows:
+    *
+    * [N][LEN][N_LEN][C_LEN][O_LEN][IL_NUM][OL_NUM][id][layer][name ][content][options][links  ]
+    * [1][4  ][2    ][4    ][2    ][2     ][2     ][4 ][4    ][N_LEN][C_BYTES][O_LEN  ][L_BYTES]
+    *
+    * @param buf         The buffer holding the record.
+    * @param pos         The offset of the record, right after its prefix.
+    * @param coordinates The reader of the genome coordinates, if any.
+    * @return The node backed by the record.
+    */
+  def apply(buf: ByteBuffer,
+            pos: Int,
+            coordinates: Option[CoordinateReader] = None): EncodedNode = {
+    val id = buf.getInt(pos + RWC.N_ID_POS)
+    val inLinkNum = buf.getShort(pos + RWC.N_ILNUM_POS)
+    val outLinkNum = buf.getShort(pos + RWC.N_OLNUM_POS)
+    val contentPos = pos + RWC.N_NAME_POS + buf.getShort(pos + RWC.NAMELEN_POS)
+    val inPos = contentPos + buf.getShort(pos + RWC.N_OPTLEN_POS) +
+      PackedSequence(buf, contentPos, buf.getInt(pos + RWC.CONTLEN_POS)).encodedBytes
+    val links = new VarintReader(buf, inPos)
+
+    val incoming = new mutable.ArrayBuffer[Edge](inLinkNum)
+    for (_ <- 0 until inLinkNum) {
+      incoming += Edge((id + links.readSignedVarLong()).toInt, id)
+    }
+    val outgoing = new mutable.ArrayBuffer[Edge](outLinkNum)
+    for (_ <- 0 until outLinkNum) {
+      outgoing += Edge(id, (id + links.readSignedVarLong()).toInt)
+    }
+
+    new EncodedNode(buf, pos, coordinates, id, buf.getInt(pos + RWC.N_LAYER_POS),
+      incoming, outgoing)
+  }
+}
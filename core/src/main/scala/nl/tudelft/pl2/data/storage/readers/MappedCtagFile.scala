@@ -0,0 +1,148 @@
+package nl.tudelft.pl2.data.storage.readers
+
+import java.nio.{ByteBuffer, MappedByteBuffer}
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, Path, StandardOpenOption}
+import java.nio.file.attribute.FileTime
+
+import org.apache.logging.log4j.LogManager
+
+import scala.collection.mutable
+
+/**
+  * A compressed graph file mapped into memory as a whole. The
+  * file is mapped in read-only segments of at most
+  * [[MappedCtagFile.SEGMENT_BYTES]] bytes, such that files larger
+  * than 2GB can be mapped as well.
+  *
+  * Instances are shared between all readers of the same file
+  * through [[MappedCtagFile.acquire]], such that the pages of a
+  * file are only mapped once.
+  *
+  * @param path     The path to the mapped file.
+  * @param size     The size of the file when it was mapped.
+  * @param modified The time the file was last modified when it was mapped.
+  * @param segments The mapped segments of the file.
+  */
+class MappedCtagFile private(val path: Path,
+                             val size: Long,
+                             val modified: FileTime,
+                             segments: Array[MappedByteBuffer]) {
+
+  /**
+    * Gives a read-only view on a range of the file. The view
+    * starts at index 0 and shares its content with the mapping,
+    * unless the range crosses a segment boundary, in which case
+    * the range is copied.
+    *
+    * @param offset The offset of the range in the file.
+    * @param length The number of bytes in the range.
+    * @return A buffer holding the range.
+    */
+  def slice(offset: Long, length: Int): ByteBuffer = {
+    if (offset < 0 || offset + length > size) {
+      throw InvalidPrefixException(s"Chunk at offset $offset runs past the end of the file.",
+        "While reading " + path.getFileName)
+    }
+    val segment = (offset / MappedCtagFile.SEGMENT_BYTES).toInt
+    val start = (offset % MappedCtagFile.SEGMENT_BYTES).toInt
+    if (length == 0) {
+      ByteBuffer.allocate(0)
+    } else if (start + length <= segments(segment).capacity()) {
+      val view = segments(segment).duplicate()
+      view.position(start)
+      view.limit(start + length)
+      view.slice()
+    } else {
+      val copy = ByteBuffer.allocate(length)
+      val first = segments(segment).duplicate()
+      first.position(start)
+      copy.put(first)
+      val second = segments(segment + 1).duplicate()
+      second.limit(length - copy.position())
+      copy.put(second)
+      copy.flip()
+      copy
+    }
+  }
+}
+
+/**
+  * Registry of the [[MappedCtagFile]]s currently in use.
+  */
+object MappedCtagFile {
+  /**
+    * Log4J [[org.apache.logging.log4j.Logger]] used to log debug
+    * information and other significant events.
+    */
+  private val LOGGER = LogManager.getLogger("MappedCtagFile")
+
+  /**
+    * The maximum number of bytes in a mapped segment.
+    */
+  final val SEGMENT_BYTES: Long = 1L << 30
+
+  /**
+    * The mapped files in use, with the number of
+    * readers using them.
+    */
+  private val files = mutable.HashMap[Path, (MappedCtagFile, Int)]()
+
+  /**
+    * Gives the mapping of the file at the given path, mapping
+    * the file when no reader uses it yet or when it was
+    * rewritten since it was mapped.
+    *
+    * @param path The path to the file.
+    * @return The mapped file.
+    */
+  def acquire(path: Path): MappedCtagFile = synchronized {
+    val key = path.toAbsolutePath.normalize()
+    val size = Files.size(key)
+    val modified = Files.getLastModifiedTime(key)
+    val (file, users) = files.get(key)
+      .filter(f => f._1.size == size && f._1.modified == modified)
+      .getOrElse((map(key, size, modified), 0))
+    files.put(key, (file, users + 1))
+    file
+  }
+
+  /**
+    * Tells the registry a reader no longer uses the given file.
+    * The mapping is dropped once no reader uses it anymore and
+    * released by the garbage collector.
+    *
+    * @param file The file that is no longer used.
+    */
+  def release(file: MappedCtagFile): Unit = synchronized {
+    files.get(file.path) match {
+      case Some((current, users)) if current eq file =>
+        if (users > 1) {
+          files.put(file.path, (current, users - 1))
+        } else {
+          files.remove(file.path)
+        }
+      case _ =>
+    }
+  }
+
+  /**
+    * Maps the file at the given path in segments.
+    *
+    * @param path     The path to the file.
+    * @param size     The size of the file.
+    * @param modified The time the file was last modified.
+    * @return The mapped file.
+    */
+  private def map(path: Path, size: Long, modified: FileTime): MappedCtagFile = {
+    LOGGER.debug("Mapping {} with {} bytes.", path.getFileName, size)
+    val channel = FileChannel.open(path, StandardOpenOption.READ)
+    try {
+      val segments = (0L until size by SEGMENT_BYTES).map(start =>
+        channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, size - start)))
+      new MappedCtagFile(path, size, modified, segments.toArray)
+    } finally {
+      channel.close()
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package nl.tudelft.pl2.data.storage.writers
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, Path, StandardOpenOption}
+
+import nl.tudelft.pl2.data.storage.{CoordinateFormat => CF}
+import org.apache.logging.log4j.{LogManager, Logger}
+
+import scala.collection.mutable
+
+/**
+  * Writes the genome coordinates of the nodes of a graph to a file
+  * laid out as described by [[CoordinateFormat]].
+  *
+  * The membership row of a node is written in place as soon as the
+  * node is stored. The columns are collected per genome in blocks of
+  * [[CoordinateWriter.BLOCK_ENTRIES]] entries, of which full blocks
+  * are spilled to a temporary file, such that the memory used does
+  * not grow with the size of the graph. Once all nodes are stored,
+  * each column is read back, sorted by node ID and written after
+  * the membership section.
+  *
+  * @param path    The path to the file to write.
+  * @param genomes The number of genomes in the graph.
+  */
+class CoordinateWriter(path: Path, genomes: Int) extends AutoCloseable {
+
+  import CoordinateWriter._
+
+  val LOGGER: Logger = LogManager.getLogger("CoordinateWriter")
+
+  private val channel = FileChannel.open(path, StandardOpenOption.CREATE,
+    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+
+  private val spillChannel = FileChannel.open(
+    Files.createTempFile(path.toAbsolutePath.getParent, path.getFileName.toString, ".tmp"),
+    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)
+
+  /**
+    * The membership row of the node being stored.
+    */
+  private val row = ByteBuffer.allocate(CF.rowBytes(genomes))
+
+  /**
+    * The block of a column that is not spilled yet, per genome.
+    */
+  private val blockIds = Array.fill(genomes)(new Array[Int](BLOCK_ENTRIES))
+  private val blockOffsets = Array.fill(genomes)(new Array[Long](BLOCK_ENTRIES))
+  private val blockFill = new Array[Int](genomes)
+
+  /**
+    * The positions of the spilled blocks of each column, in the
+    * order in which they were spilled.
+    */
+  private val spilled = Array.fill(genomes)(mutable.ArrayBuffer[Long]())
+
+  /**
+    * The first and last layer each genome passes through.
+    */
+  private val firstLayers = Array.fill(genomes)(Int.MaxValue)
+  private val lastLayers = Array.fill(genomes)(CF.NO_LAYER)
+
+  private val spillBuffer = ByteBuffer.allocate(BLOCK_ENTRIES * CF.ENTRY_BYTES)
+  private var spillEnd = 0L
+
+  /**
+    * One more than the highest node ID stored.
+    */
+  private var nodes = 0
+
+  private var finished = false
+
+  /**
+    * Stores the coordinates of a node.
+    *
+    * @param id          The ID of the node.
+    * @param layer       The layer of the node.
+    * @param nodeGenomes The genomes passing through the node.
+    * @param offsets     The offset of the node in each of the genomes.
+    */
+  def storeNode(id: Int, layer: Int, nodeGenomes: Array[Int], offsets: Array[Long]): Unit = {
+    nodes = Math.max(nodes, id + 1)
+    if (nodeGenomes.nonEmpty) {
+      java.util.Arrays.fill(row.array(), 0.toByte)
+      for (i <- nodeGenomes.indices) {
+        val g = nodeGenomes(i)
+        row.put(g / java.lang.Byte.SIZE,
+          (row.get(g / java.lang.Byte.SIZE) | (1 << (g % java.lang.Byte.SIZE))).toByte)
+        append(g, id, offsets(i))
+        firstLayers(g) = Math.min(firstLayers(g), layer)
+        lastLayers(g) = Math.max(lastLayers(g), layer)
+      }
+      row.clear()
+      writeFully(channel, row, CF.rowPos(genomes, id))
+    }
+  }
+
+  /**
+    * Writes the header, column table and columns. Does nothing
+    * when they were written before.
+    */
+  def finish(): Unit =
+    if (!finished) {
+      finished = true
+      val table = ByteBuffer.allocate(CF.HEADER_BYTES + CF.COLUMN_BYTES * genomes)
+      table.putInt(CF.MAGIC).putInt(CF.VERSION).putInt(genomes).putInt(nodes)
+
+      var position = CF.columnsPos(genomes, nodes)
+      for (g <- 0 until genomes) {
+        val (ids, offsets) = sortColumn(readColumn(g))
+        val firstLayer = if (ids.isEmpty) CF.NO_LAYER else firstLayers(g)
+        table.putLong(position).putInt(ids.length).putInt(firstLayer).putInt(lastLayers(g))
+          .putInt(0)
+        position = writeColumn(position, ids, offsets)
+      }
+      table.flip()
+      writeFully(channel, table, 0)
+      LOGGER.debug("Wrote coordinates of {} genomes over {} nodes.", genomes, nodes)
+    }
+
+  override def close(): Unit = {
+    try {
+      finish()
+    } finally {
+      channel.close()
+      spillChannel.close()
+    }
+  }
+
+  /**
+    * Appends an entry to the column of a genome, spilling the
+    * block of the column when it is full.
+    *
+    * @param genome The genome.
+    * @param id     The ID of the node.
+    * @param offset The offset of the node in the genome.
+    */
+  private def append(genome: Int, id: Int, offset: Long): Unit = {
+    val fill = blockFill(genome)
+    blockIds(genome)(fill) = id
+    blockOffsets(genome)(fill) = offset
+    blockFill(genome) = fill + 1
+    if (fill + 1 == BLOCK_ENTRIES) {
+      spillBuffer.clear()
+      blockIds(genome).foreach(spillBuffer.putInt)
+      blockOffsets(genome).foreach(spillBuffer.putLong)
+      spillBuffer.flip()
+      writeFully(spillChannel, spillBuffer, spillEnd)
+      spilled(genome) += spillEnd
+      spillEnd += spillBuffer.capacity()
+      blockFill(genome) = 0
+    }
+  }
+
+  /**
+    * Reads the spilled blocks of the column of a genome back and
+    * appends the block that was not spilled.
+    *
+    * @param genome The genome.
+    * @return The IDs and offsets in the column, in the order stored.
+    */
+  private def readColumn(genome: Int): (Array[Int], Array[Long]) = {
+    val count = spilled(genome).length * BLOCK_ENTRIES + blockFill(genome)
+    val ids = new Array[Int](count)
+    val offsets = new Array[Long](count)
+    for (b <- spilled(genome).indices) {
+      spillBuffer.clear()
+      readFully(spillChannel, spillBuffer, spilled(genome)(b))
+      spillBuffer.flip()
+      spillBuffer.asIntBuffer().get(ids, b * BLOCK_ENTRIES, BLOCK_ENTRIES)
+      spillBuffer.position(BLOCK_ENTRIES * Integer.BYTES)
+      spillBuffer.asLongBuffer().get(offsets, b * BLOCK_ENTRIES, BLOCK_ENTRIES)
+    }
+    val start = spilled(genome).length * BLOCK_ENTRIES
+    System.arraycopy(blockIds(genome), 0, ids, start, blockFill(genome))
+    System.arraycopy(blockOffsets(genome), 0, offsets, start, blockFill(genome))
+    (ids, offsets)
+  }
+
+  /**
+    * Writes a column at a position of the file.
+    *
+    * @param position The offset of the column.
+    * @param ids      The IDs in the column.
+    * @param offsets  The offsets in the column.
+    * @return The offset after the column.
+    */
+  private def writeColumn(position: Long, ids: Array[Int], offsets: Array[Long]): Long = {
+    val idBuffer = ByteBuffer.allocate(ids.length * Integer.BYTES)
+    idBuffer.asIntBuffer().put(ids)
+    writeFully(channel, idBuffer, position)
+    val offsetBuffer = ByteBuffer.allocate(offsets.length * java.lang.Long.BYTES)
+    offsetBuffer.asLongBuffer().put(offsets)
+    writeFully(channel, offsetBuffer, position + idBuffer.capacity())
+    position + CF.ENTRY_BYTES.toLong * ids.length
+  }
+}
+
+/**
+  * Companion object to the [[CoordinateWriter]].
+  */
+object CoordinateWriter {
+  /**
+    * The number of entries in a block of a column.
+    */
+  final val BLOCK_ENTRIES = 1024
+
+  /**
+    * Sorts a column by node ID. Nodes are mostly stored in the
+    * order of their IDs, so columns that are sorted already are
+    * returned as they are.
+    *
+    * @param column The IDs and offsets in the column.
+    * @return The IDs and offsets ordered by ID.
+    */
+  private def sortColumn(column: (Array[Int], Array[Long])): (Array[Int], Array[Long]) = {
+    val (ids, offsets) = column
+    if ((1 until ids.length).forall(i => ids(i - 1) <= ids(i))) {
+      column
+    } else {
+      val keys = Array.tabulate(ids.length)(i => (ids(i).toLong << Integer.SIZE) | i)
+      java.util.Arrays.sort(keys)
+      (keys.map(k => (k >>> Integer.SIZE).toInt),
+        keys.map(k => offsets((k & 0xFFFFFFFFL).toInt)))
+    }
+  }
+
+  /**
+    * Writes all bytes remaining in a buffer at a position of a channel.
+    *
+    * @param channel  The channel to write to.
+    * @param buf      The buffer to write.
+    * @param position The position to write the buffer at.
+    */
+  private def writeFully(channel: FileChannel, buf: ByteBuffer, position: Long): Unit = {
+    val start = position - buf.position()
+    //scalastyle:off while
+    while (buf.hasRemaining) {
+      //scalastyle:on while
+      channel.write(buf, start + buf.position())
+    }
+  }
+
+  /**
+    * Fills the remainder of a buffer from a position of a channel.
+    *
+    * @param channel  The channel to read from.
+    * @param buf      The buffer to fill.
+    * @param position The position to read from.
+    */
+  private def readFully(channel: FileChannel, buf: ByteBuffer, position: Long): Unit = {
+    val start = position - buf.position()
+    //scalastyle:off while
+    while (buf.hasRemaining && channel.read(buf, start + buf.position()) >= 0) {
+      //scalastyle:on while
+    }
+  }
+}
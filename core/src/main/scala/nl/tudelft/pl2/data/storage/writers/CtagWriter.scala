@@ -4,9 +4,11 @@ import java.io.RandomAccessFile
 import java.nio.ByteBuffer
 import java.nio.channels.FileChannel
 import java.nio.file.Path
+import java.util.zip.Deflater
 
-import nl.tudelft.pl2.data.Graph
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.Graph.Options
+import nl.tudelft.pl2.data.indexing.BlockStore
 import nl.tudelft.pl2.data.storage.{ReadWriteConstants => RWC, ReadWriteMethods => RWM}
 import nl.tudelft.pl2.representation.external.{Bubble, Chain, Indel, Node}
 import org.apache.logging.log4j.{LogManager, Logger}
@@ -16,9 +18,17 @@ import scala.collection.mutable
 /**
   * Writes different kinds of Nodes to disk.
   *
+  * When `compress` is set, the records of every chunk are kept in
+  * memory until the chunk is stored as a block, which is deflated
+  * on its own such that it can be inflated without reading any
+  * other block. Blocks that do not shrink are stored as they are.
+  *
+  * @param filePath The path to the file to write.
+  * @param compress Whether to store chunks as compressed blocks.
   * @author Maaike Visser
   */
-class CtagWriter(filePath: Path) extends AutoCloseable {
+class CtagWriter(filePath: Path, compress: Boolean = CtagWriter.compressByDefault)
+  extends AutoCloseable with BlockStore {
 
   val LOGGER: Logger = LogManager.getLogger("CtagWriter")
 
@@ -29,11 +39,27 @@ class CtagWriter(filePath: Path) extends AutoCloseable {
 
   var buf: ByteBuffer = ByteBuffer.allocateDirect(BUFF_SIZE)
 
+  /**
+    * The compressor of blocks, if chunks are compressed.
+    */
+  private val deflater: Option[Deflater] =
+    if (compress) Some(new Deflater(Deflater.BEST_SPEED)) else None
+
+  /**
+    * The offset in the file of the next block to store.
+    */
+  private var blockOffset = 0L
+
   /**
     * Stores a [[Node]] to disk in the following format:
     *
-    * [S][LEN][N_LEN][C_LEN][O_LEN][IL_NUM][OL_NUM][id][layer][name ][content][options][links     ]
-    * [1][4  ][2    ][4    ][2    ][2     ][2     ][4 ][4    ][N_LEN][C_LEN  ][O_NUM  ][4*LINK_NUM]
+    * [N][LEN][N_LEN][C_LEN][O_LEN][IL_NUM][OL_NUM][id][layer][name ][content][options][links  ]
+    * [1][4  ][2    ][4    ][2    ][2     ][2     ][4 ][4    ][N_LEN][C_BYTES][O_LEN  ][L_BYTES]
+    *
+    * The content is stored as a [[PackedSequence]] of C_LEN characters
+    * taking C_BYTES bytes. The links are stored as varints relative to
+    * the ID of the node, as written by [[RWM.putEdgeIDs]]. The genome
+    * coordinates of nodes are stored apart by a [[CoordinateWriter]].
     *
     * @param id      The index of this [[Node]].
     * @param name    The name of this [[Node]].
@@ -48,18 +74,16 @@ class CtagWriter(filePath: Path) extends AutoCloseable {
                 content: String,
                 incoming: mutable.Buffer[Int],
                 outgoing: mutable.Buffer[Int],
-                options: Options,
-                genomeCoordinates: Graph.Coordinates): Int = {
+                options: Options): Int = {
 
     val optLen = RWM.optionLength(options)
     val len = (RWC.CHAR_BYTES + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
         + name.length
-        + content.length
+        + PackedSequence.encodedBytes(content)
         + optLen
-        + RWC.INT_BYTES * incoming.length
-        + RWC.INT_BYTES * outgoing.length
-        + (RWC.INT_BYTES + RWC.LONG_BYTES) * genomeCoordinates.size)
+        + RWM.edgesLength(id, incoming)
+        + RWM.edgesLength(id, outgoing))
 
     expandBuffer(len)
 
@@ -70,19 +94,14 @@ class CtagWriter(filePath: Path) extends AutoCloseable {
     buf.putShort(optLen.toShort)
     buf.putShort(incoming.length.toShort)
     buf.putShort(outgoing.length.toShort)
-    buf.putShort(genomeCoordinates.size.toShort)
 
     buf.putInt(id)
     buf.putInt(layer)
     buf.put(name.getBytes("US-ASCII"))
-    buf.put(content.getBytes("US-ASCII"))
+    PackedSequence.write(buf, content)
     buf.put(RWM.optionsToByteArray(options))
-    incoming.foreach(i => buf.putInt(i))
-    outgoing.foreach(o => buf.putInt(o))
-    genomeCoordinates.foreach(gen => {
-      buf.putInt(gen._1)
-      buf.putLong(gen._2)
-    })
+    RWM.putEdgeIDs(buf, id, incoming)
+    RWM.putEdgeIDs(buf, id, outgoing)
 
     len
   }
@@ -233,6 +252,46 @@ class CtagWriter(filePath: Path) extends AutoCloseable {
     len
   }
 
+  override def storeBlock(length: Int): (Long, Int) = {
+    val offset = blockOffset
+    val stored = deflater.map(d => writeBlock(d, length)).getOrElse(length)
+    blockOffset += stored
+    (offset, stored)
+  }
+
+  /**
+    * Deflates the oldest records in the buffer and writes them
+    * as a block, or writes them as they are if deflating does
+    * not make them smaller.
+    *
+    * @param compressor The compressor of the block.
+    * @param length     The number of bytes of records in the block.
+    * @return The number of bytes written.
+    */
+  private def writeBlock(compressor: Deflater, length: Int): Int = {
+    val raw = new Array[Byte](length)
+    buf.flip()
+    buf.get(raw)
+    buf.compact()
+
+    compressor.reset()
+    compressor.setInput(raw)
+    compressor.finish()
+    val packed = new Array[Byte](length)
+    val packedLength = compressor.deflate(packed)
+    val block = if (compressor.finished() && packedLength < length) {
+      ByteBuffer.wrap(packed, 0, packedLength)
+    } else {
+      ByteBuffer.wrap(raw)
+    }
+    //scalastyle:off while
+    while (block.hasRemaining) {
+      //scalastyle:on while
+      writeChannel.write(block)
+    }
+    block.limit()
+  }
+
   /**
     * Flushes the current buffer if there were bytes written
     * to it and clears the byte buffer afterwards.
@@ -259,22 +318,33 @@ class CtagWriter(filePath: Path) extends AutoCloseable {
   def clearFile(): Unit = {
     writeFile.setLength(0)
     buf.clear()
+    blockOffset = 0
   }
 
   override def close(): Unit = {
     flushBuffer()
+    deflater.foreach(_.end())
     writeChannel.close()
     writeFile.close()
     LOGGER.debug(this.getClass + " with {} closed.", filePath.getFileName)
   }
 
   /**
-    * Flushes the buffer and expands it if necessary.
+    * Flushes the buffer and expands it if necessary. When chunks
+    * are compressed, the buffer is only expanded, as its records
+    * are written once the chunk they belong to is complete.
     *
     * @param len The potential new length of the buffer.
     */
   private def expandBuffer(len: Int): Unit = {
-    if (buf.position + len > BUFF_SIZE) {
+    if (deflater.isDefined) {
+      if (buf.position + len > buf.capacity) {
+        val grown = ByteBuffer.allocateDirect(Math.max(buf.capacity * 2, buf.position + len))
+        buf.flip()
+        grown.put(buf)
+        buf = grown
+      }
+    } else if (buf.position + len > BUFF_SIZE) {
       flushBuffer()
       if (len > BUFF_SIZE) {
         buf = ByteBuffer.allocateDirect(len)
@@ -283,3 +353,19 @@ class CtagWriter(filePath: Path) extends AutoCloseable {
   }
 
 }
+
+/**
+  * Companion object to the [[CtagWriter]].
+  */
+object CtagWriter {
+  /**
+    * The system property that enables the compression of chunks.
+    */
+  final val COMPRESS_PROPERTY = "ctag.compress"
+
+  /**
+    * @return Whether chunks are compressed unless stated otherwise,
+    *         which is set through [[COMPRESS_PROPERTY]].
+    */
+  def compressByDefault: Boolean = java.lang.Boolean.getBoolean(COMPRESS_PROPERTY)
+}
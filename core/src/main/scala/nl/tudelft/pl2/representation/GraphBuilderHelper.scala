@@ -2,6 +2,7 @@ package nl.tudelft.pl2.representation
 
 import nl.tudelft.pl2.representation.exceptions.NodeNotFoundException
 import nl.tudelft.pl2.representation.external.{Node, Edge => ChunkLink}
+import nl.tudelft.pl2.representation.graph.helpers.IntObjectMap
 
 import scala.collection.mutable
 import scala.collection.JavaConverters.seqAsJavaListConverter
@@ -27,9 +28,11 @@ class GraphBuilderHelper {
   type JavaMap[K, V] = java.util.HashMap[K, V]
 
   /**
-    * Map that maps IDs of GraphNodes to ChunkNodes.
+    * Map that maps IDs of GraphNodes to ChunkNodes. The IDs are
+    * not boxed, as the map is queried for both ends of every link
+    * while dummy nodes are added.
     */
-  final val nodeMap = new mutable.HashMap[Int, Node]()
+  final val nodeMap = new IntObjectMap[Node]()
 
   /**
     * Max layer encountered while building.
@@ -172,7 +175,7 @@ class GraphBuilderHelper {
     * @return The Node with said id
     */
   def retrieveNode(node: Node): Node =
-    nodeMap(node.id)
+    getNodeByID(node.id)
 
   /**
     * Check if the graphBuilderHelper
@@ -182,7 +185,7 @@ class GraphBuilderHelper {
     * @return
     */
   def hasNode(id: Integer): Boolean =
-    nodeMap.contains(id)
+    nodeMap.containsKey(id)
 
   /**
     * Add a Node to the Node map stored at its id,
@@ -190,7 +193,7 @@ class GraphBuilderHelper {
     * @param node The Node to store
     */
   def addNodeToMap(node: ChunkNode): Option[Node] =
-    nodeMap.put(node.id, node)
+    Option(nodeMap.put(node.id, node))
 
   /**
     * Remove the given segment from the map of segments.
@@ -206,13 +209,16 @@ class GraphBuilderHelper {
     * @param id The id of the segment
     * @return The segment
     */
-  def getNodeByID(id: Integer): Node =
-    try {
-      nodeMap(id.toInt)
-    } catch {
-      case _: Exception => throw new NodeNotFoundException("We could not find"
+  //scalastyle:off null
+  def getNodeByID(id: Integer): Node = {
+    val node = nodeMap.get(id)
+    if (node == null) {
+      throw new NodeNotFoundException("We could not find"
         + " the segment with id " + id,
         "When trying to find the segment with id: " + id)
     }
+    node
+  }
+  //scalastyle:on null
 
 }
@@ -1,5 +1,8 @@
 package nl.tudelft.pl2.representation.external
 
+import java.util
+
+import nl.tudelft.pl2.data.GenomeSet
 import nl.tudelft.pl2.data.Graph.{Coordinates, Options}
 import nl.tudelft.pl2.representation.ui.UIHelper
 
@@ -15,31 +18,92 @@ import scala.collection.JavaConverters.mapAsJavaMapConverter
   * an actually sequenced Segment, it might as well be
   * a chunk of the graph represented as a single Segment.
   *
-  * @param id       The ID of the Segment.
-  * @param name     The name of this Segment.
-  * @param layer    The 'layer' of the graph this
-  *                 Segment should be in.
-  * @param content  The content represented by this
-  *                 Segment, might be a nucleotide string
-  *                 when representing an actual segment
-  *                 in the graph.
-  * @param outgoing The links going out of this
-  *                 Segment.
-  * @param incoming The links coming into this
-  *                 Segment.
-  * @param options  The additional information on
-  *                 this link as requested during
-  *                 the API call creating this object.
+  * The name, content, options and genome coordinates are
+  * accessed through methods, such that subclasses may decode
+  * them only when they are needed.
+  *
+  * @param id          The ID of the Segment.
+  * @param nodeName    The name of this Segment.
+  * @param layer       The 'layer' of the graph this
+  *                    Segment should be in.
+  * @param nodeContent The content represented by this
+  *                    Segment, might be a nucleotide string
+  *                    when representing an actual segment
+  *                    in the graph.
+  * @param incoming    The links coming into this
+  *                    Segment.
+  * @param outgoing    The links going out of this
+  *                    Segment.
+  * @param nodeOptions The additional information on
+  *                    this link as requested during
+  *                    the API call creating this object.
+  * @param nodeCoordinates The offsets of this Segment
+  *                    in the genomes passing through it.
   */
 //scalastyle:off covariant.equals
 class Node(val id: Int,
-           val name: String,
+           nodeName: String,
            val layer: Int,
-           val content: String,
+           nodeContent: String,
            val incoming: mutable.Buffer[Edge],
            val outgoing: mutable.Buffer[Edge],
-           val options: Options,
-           val genomeCoordinates: Coordinates) {
+           nodeOptions: Options,
+           nodeCoordinates: Coordinates) {
+
+  /**
+    * @return The name of this Segment.
+    */
+  def name: String = nodeName
+
+  /**
+    * @return The content represented by this Segment.
+    */
+  def content: String = nodeContent
+
+  /**
+    * @return The content represented by this Segment, which
+    *         may be read without materialising it as a whole.
+    */
+  def sequence: CharSequence = content
+
+  /**
+    * @return The number of characters in the content of
+    *         this Segment.
+    */
+  def contentLength: Int = content.length
+
+  /**
+    * @return The additional information on this Segment.
+    */
+  def options: Options = nodeOptions
+
+  /**
+    * @return The offsets of this Segment in the genomes
+    *         passing through it.
+    */
+  def genomeCoordinates: Coordinates = nodeCoordinates
+
+  /**
+    * The genomes passing through this Segment, built by
+    * [[GenomeSet]] on the first call and kept afterwards.
+    */
+  //scalastyle:off null
+  @volatile private var genomeSet: util.BitSet = _
+
+  /**
+    * @param names The names of the genomes in the graph, used
+    *              to resolve genomes given by name.
+    * @return The genomes passing through this Segment, in
+    *         which bit g is set for genome g. The set is shared
+    *         and must not be modified.
+    */
+  def genomes(names: Array[String]): util.BitSet = {
+    if (genomeSet == null) {
+      genomeSet = GenomeSet(genomeCoordinates, options, names)
+    }
+    genomeSet
+  }
+  //scalastyle:on null
 
   /**
     * Creates a java Mapping of option names to option values
@@ -68,19 +132,13 @@ class Node(val id: Int,
     */
   def isDummy: Boolean = false
 
-  override def hashCode: Int = {
-    val value =
-      (id + ":" + layer + ":" + name + ":" + content).toCharArray
-    var h = 0
-    if (h == 0 && value.nonEmpty) {
-      val temp = value
-
-      for (i <- 0 until value.length) {
-        h = 31 * h + temp(i)
-      }
-    }
-    h
-  }
+  /**
+    * The hash of a Segment is its ID, as Segments are equal when
+    * their IDs are. Hashing does not decode the name or content.
+    *
+    * @return The hash of this Segment.
+    */
+  override def hashCode: Int = id
 
   /**
     * Reconstructs the GFA line string representing this node.
@@ -101,7 +159,7 @@ class Node(val id: Int,
     s"Segment '$name',\n" +
       s"in layer: $layer,\n" +
       s"with id: $id\n\n" +
-      s"Content length: ${content.length}\n" +
+      s"Content length: $contentLength\n" +
       s"Content: $content\n\n" +
       s"Provided options:\n${
         options.map(o =>
@@ -110,7 +168,7 @@ class Node(val id: Int,
       s"Coordinates for genomes:\n${
         genomeCoordinates.map(gc =>
           s"\t${UIHelper.getGraph.getGenomes()(gc._1)}\t=> (" +
-            s"${gc._2}, ${gc._2 + content.length})").mkString("\n")
+            s"${gc._2}, ${gc._2 + contentLength})").mkString("\n")
       }"
 
   override def equals(obj: scala.Any): Boolean
@@ -5,6 +5,7 @@ import nl.tudelft.pl2.representation.external.Node;
 import nl.tudelft.pl2.representation.graph.GraphHandleTest;
 import nl.tudelft.pl2.representation.graph.MoveDirection;
 import nl.tudelft.pl2.representation.graph.loaders.ChunkedGraphLoader;
+import nl.tudelft.pl2.representation.graph.loaders.LayerStore;
 import nl.tudelft.pl2.representation.ui.DefaultThreadCompleter;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.assertj.core.api.AssertionsForInterfaceTypes;
@@ -16,9 +17,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Observer;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -30,8 +29,7 @@ import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
  */
 public class ChunkedGraphTest extends GraphHandleTest {
     private ChunkedGraph chunkedGraph;
-    private Map<Integer, Integer> verticalMap;
-    private Map<Integer, HashSet<Node>> layerMap;
+    private LayerStore layerStore;
 
     @Before
     public void before() throws ExecutionException, InterruptedException, URISyntaxException {
@@ -39,10 +37,9 @@ public class ChunkedGraphTest extends GraphHandleTest {
         assert u != null;
         graphBuilder = new ChunkedGraphLoader();
         graphHandle = graphBuilder.load(Paths.get(u.toURI()), new DefaultThreadCompleter());
-        verticalMap = new HashMap<>();
-        layerMap = new HashMap<>();
+        layerStore = new LayerStore();
         ChunkedGraphLoader loader = new ChunkedGraphLoader();
-        chunkedGraph = new ChunkedGraph(loader, verticalMap, layerMap, Paths.get(u.toURI()));
+        chunkedGraph = new ChunkedGraph(loader, layerStore, Paths.get(u.toURI()));
         super.before();
     }
 
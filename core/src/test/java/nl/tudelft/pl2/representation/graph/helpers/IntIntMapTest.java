@@ -0,0 +1,65 @@
+package nl.tudelft.pl2.representation.graph.helpers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntIntMapTest {
+    private static final int COUNT = 1000;
+
+    private IntIntMap map;
+
+    @Before
+    public void before() {
+        map = new IntIntMap();
+        for (int i = -COUNT; i < COUNT; i++) {
+            map.put(i, i * 2);
+        }
+    }
+
+    @Test
+    public void testKeysAreFoundAfterGrowing() {
+        assertThat(map.size()).isEqualTo(2 * COUNT);
+        assertThat(map.getOrDefault(0, -1)).isEqualTo(0);
+        assertThat(map.getOrDefault(-COUNT, -1)).isEqualTo(-2 * COUNT);
+        assertThat(map.getOrDefault(COUNT - 1, -1))
+                .isEqualTo(2 * COUNT - 2);
+        assertThat(map.getOrDefault(COUNT, -1)).isEqualTo(-1);
+        assertThat(map.containsKey(Integer.MIN_VALUE)).isFalse();
+        assertThat(map.maxValue()).isEqualTo(2 * COUNT - 2);
+    }
+
+    @Test
+    public void testPutReplacesValues() {
+        map.put(0, 7);
+        map.put(5, 7);
+        assertThat(map.size()).isEqualTo(2 * COUNT);
+        assertThat(map.getOrDefault(0, -1)).isEqualTo(7);
+        assertThat(map.getOrDefault(5, -1)).isEqualTo(7);
+    }
+
+    @Test
+    public void testRemovedKeysDoNotHideOthers() {
+        for (int i = -COUNT; i < COUNT; i += 2) {
+            assertThat(map.remove(i)).isTrue();
+        }
+        assertThat(map.remove(0)).isFalse();
+        assertThat(map.size()).isEqualTo(COUNT);
+        for (int i = -COUNT; i < COUNT; i++) {
+            assertThat(map.containsKey(i)).isEqualTo(i % 2 != 0);
+        }
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        IntIntMap copy = new IntIntMap(map);
+        copy.remove(1);
+        copy.put(COUNT, 0);
+
+        assertThat(map.containsKey(1)).isTrue();
+        assertThat(map.containsKey(COUNT)).isFalse();
+        map.putAll(copy);
+        assertThat(map.size()).isEqualTo(2 * COUNT + 1);
+    }
+}
@@ -0,0 +1,38 @@
+package nl.tudelft.pl2.representation.graph.helpers;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntObjectMapTest {
+    @Test
+    public void testNegativeAndZeroKeys() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = -100; i <= 100; i++) {
+            assertThat(map.put(i, Integer.toString(i))).isNull();
+        }
+
+        assertThat(map.size()).isEqualTo(201);
+        assertThat(map.get(0)).isEqualTo("0");
+        assertThat(map.get(-100)).isEqualTo("-100");
+        assertThat(map.put(-100, "dummy")).isEqualTo("-100");
+        assertThat(map.get(101)).isNull();
+    }
+
+    @Test
+    public void testRemove() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, Integer.toString(i));
+        }
+        for (int i = 0; i < 100; i += 3) {
+            assertThat(map.remove(i)).isEqualTo(Integer.toString(i));
+        }
+
+        assertThat(map.remove(0)).isNull();
+        assertThat(map.containsKey(0)).isFalse();
+        for (int i = 1; i < 100; i++) {
+            assertThat(map.containsKey(i)).isEqualTo(i % 3 != 0);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package nl.tudelft.pl2.representation.graph.helpers;
+
+import nl.tudelft.pl2.representation.GraphBuilderHelper;
+import nl.tudelft.pl2.representation.external.Edge;
+import nl.tudelft.pl2.representation.external.Node;
+import nl.tudelft.pl2.representation.external.components.DummyNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VerticalIndexingHelperTest {
+    private Map<Integer, HashSet<Node>> layerMap;
+    private IntIntMap verticalMap;
+    private VerticalIndexingHelper helper;
+    private GraphBuilderHelper builder;
+
+    @Before
+    public void before() {
+        layerMap = new HashMap<>();
+        verticalMap = new IntIntMap();
+        helper = new VerticalIndexingHelper(
+                layerMap, verticalMap, new ReentrantLock());
+        builder = new GraphBuilderHelper();
+    }
+
+    private Node node(final int id, final int layer, final int row) {
+        Node node = new DummyNode(id, layer);
+        layerMap.computeIfAbsent(layer, l -> new HashSet<>()).add(node);
+        if (row >= 0) {
+            verticalMap.put(id, row);
+        }
+        return node;
+    }
+
+    private void link(final Node from, final Node to) {
+        Edge edge = new Edge(from.id(), to.id());
+        builder.addOutgoing(from, edge);
+        builder.addIncoming(to, edge);
+    }
+
+    @Test
+    public void testAssignedRowsAreKept() {
+        Node a = node(1, 0, 0);
+        Node b = node(2, 0, 1);
+        Node c = node(3, 1, -1);
+        Node d = node(4, 1, 0);
+        link(a, d);
+        link(b, c);
+
+        helper.addVerticalOrientation(0, 1);
+        assertThat(verticalMap.getOrDefault(1, -1)).isEqualTo(0);
+        assertThat(verticalMap.getOrDefault(2, -1)).isEqualTo(1);
+        assertThat(verticalMap.getOrDefault(4, -1)).isEqualTo(0);
+        assertThat(verticalMap.getOrDefault(3, -1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testNewRowsArePackedInOrder() {
+        Node top = node(1, 0, 0);
+        Node bottom = node(2, 0, 9);
+        link(bottom, node(3, 1, -1));
+        link(top, node(4, 1, -1));
+
+        helper.addVerticalOrientation(0, 1);
+        assertThat(verticalMap.getOrDefault(4, -1)).isEqualTo(0);
+        assertThat(verticalMap.getOrDefault(3, -1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testNewRowsFollowOutgoingWhenAssigningLeft() {
+        Node top = node(1, 1, 0);
+        Node bottom = node(2, 1, 9);
+        link(node(3, 0, -1), bottom);
+        link(node(4, 0, -1), top);
+
+        helper.addVerticalOrientation(1, 0);
+        assertThat(verticalMap.getOrDefault(4, -1)).isEqualTo(0);
+        assertThat(verticalMap.getOrDefault(3, -1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testNeighboursNotLoadedGetNoRow() {
+        Node first = node(1, 0, 0);
+        Node second = node(2, 1, -1);
+        link(first, second);
+        builder.addIncoming(second, new Edge(99, 2));
+
+        helper.addVerticalOrientation(0, 1);
+        assertThat(verticalMap.containsKey(2)).isTrue();
+        assertThat(verticalMap.containsKey(99)).isFalse();
+    }
+}
@@ -0,0 +1,69 @@
+package nl.tudelft.pl2.representation.graph.loaders;
+
+import nl.tudelft.pl2.representation.external.Node;
+import nl.tudelft.pl2.representation.external.components.DummyNode;
+import nl.tudelft.pl2.representation.graph.helpers.IntIntMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper.NO_VERTICAL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LayerStoreTest {
+    private LayerStore layerStore;
+    private Node first;
+    private Node second;
+
+    @Before
+    public void before() {
+        layerStore = new LayerStore();
+        first = new DummyNode(0, 1);
+        second = new DummyNode(1, 1);
+        layerStore.addAll(Arrays.asList(first, second, new DummyNode(2, 3)));
+    }
+
+    @Test
+    public void testLayersAreStoredInOrder() {
+        assertThat(layerStore.layerSet()).containsExactly(1, 3);
+        assertThat(layerStore.get(1)).containsOnly(first, second);
+        assertThat(layerStore.contains(2)).isFalse();
+        assertThat(layerStore.get(2)).isEmpty();
+    }
+
+    @Test
+    public void testReadLayersAreNotModified() {
+        Set<Node> read = layerStore.get(1);
+        layerStore.removeAll(Collections.singletonList(first));
+
+        assertThat(read).containsOnly(first, second);
+        assertThat(layerStore.get(1)).containsOnly(second);
+        assertThatThrownBy(() -> read.add(first))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testVerticalsAreRemovedWithTheirSegments() {
+        IntIntMap verticals = new IntIntMap();
+        verticals.put(0, 0);
+        verticals.put(1, 1);
+        layerStore.putVerticals(verticals);
+        layerStore.removeAll(Collections.singletonList(second));
+
+        assertThat(layerStore.vertical(0)).isEqualTo(0);
+        assertThat(layerStore.vertical(1)).isEqualTo(NO_VERTICAL);
+        assertThat(verticals.containsKey(1)).isTrue();
+    }
+
+    @Test
+    public void testEmptyLayersAreRemoved() {
+        layerStore.removeAll(Arrays.asList(first, second));
+
+        assertThat(layerStore.contains(1)).isFalse();
+        assertThat(layerStore.layerSet()).containsExactly(3);
+    }
+}
@@ -0,0 +1,94 @@
+package nl.tudelft.pl2.representation.graph.loaders;
+
+import nl.tudelft.pl2.representation.GraphBuilderHelper;
+import nl.tudelft.pl2.representation.external.Edge;
+import nl.tudelft.pl2.representation.external.Node;
+import nl.tudelft.pl2.representation.external.components.DummyNode;
+import nl.tudelft.pl2.representation.graph.helpers.IntIntMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static nl.tudelft.pl2.representation.graph.helpers.VerticalIndexingHelper.NO_VERTICAL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StagedChunkTest {
+    private LayerStore layerStore;
+
+    @Before
+    public void before() {
+        layerStore = new LayerStore();
+        IntIntMap verticals = new IntIntMap();
+        for (int layer = 0; layer < 4; layer++) {
+            layerStore.addAll(Arrays.asList(
+                    new DummyNode(2 * layer, layer),
+                    new DummyNode(2 * layer + 1, layer)));
+            verticals.put(2 * layer, 0);
+            verticals.put(2 * layer + 1, 1);
+        }
+        layerStore.putVerticals(verticals);
+    }
+
+    @Test
+    public void testCopiesOnlyTheGivenLayers() {
+        StagedChunk staged = StagedChunk.copyOf(layerStore, 2, 5);
+
+        assertThat(staged.layers().keySet()).containsOnly(2, 3);
+        assertThat(staged.layers().get(2))
+                .isEqualTo(layerStore.get(2))
+                .isNotSameAs(layerStore.get(2));
+        assertThat(staged.verticals().size()).isEqualTo(6);
+        assertThat(staged.verticals().containsKey(1)).isFalse();
+        assertThat(staged.verticals().getOrDefault(7, -1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testSharedMapsAreOnlyChangedOnPublish() {
+        StagedChunk staged = StagedChunk.copyOf(layerStore, 3, 5);
+        Node added = new DummyNode(8, 4);
+        Node neighbour = new DummyNode(9, 3);
+
+        assertThat(staged.addNode(added)).isTrue();
+        assertThat(staged.addNode(neighbour)).isTrue();
+        staged.verticals().put(8, 0);
+        assertThat(layerStore.contains(4)).isFalse();
+        assertThat(layerStore.get(3)).doesNotContain(neighbour);
+        assertThat(layerStore.vertical(8)).isEqualTo(NO_VERTICAL);
+
+        staged.publishTo(layerStore);
+        assertThat(layerStore.get(4)).containsOnly(added);
+        assertThat(layerStore.get(3)).hasSize(3).contains(neighbour);
+        assertThat(layerStore.vertical(8)).isEqualTo(0);
+    }
+
+    @Test
+    public void testDummiesArePublished() {
+        StagedChunk staged = StagedChunk.copyOf(layerStore, 0, 1);
+        DummyNode dummy = new DummyNode(-1, 1);
+
+        staged.setDummies(new HashSet<>(Arrays.asList(dummy)));
+        staged.publishTo(layerStore);
+        assertThat(staged.dummies()).containsOnly(dummy);
+        assertThat(layerStore.get(1)).contains(dummy);
+    }
+
+    @Test
+    public void testSharedLinksAreOnlyChangedOnPublish() {
+        StagedChunk staged = StagedChunk.copyOf(layerStore, 3, 5);
+        GraphBuilderHelper builder = new GraphBuilderHelper();
+        Node shared = layerStore.get(3).iterator().next();
+        Node added = new DummyNode(8, 4);
+        Edge edge = new Edge(shared.id(), added.id());
+        staged.addNode(added);
+
+        staged.edit(shared, () -> builder.addOutgoing(shared, edge));
+        staged.edit(added, () -> builder.addIncoming(added, edge));
+        assertThat(shared.outgoing().isEmpty()).isTrue();
+        assertThat(added.incoming().contains(edge)).isTrue();
+
+        staged.publishTo(layerStore);
+        assertThat(shared.outgoing().contains(edge)).isTrue();
+    }
+}
@@ -1,44 +1,41 @@
 package nl.tudelft.pl2.data
 
 import java.io.{BufferedReader, ByteArrayInputStream, InputStreamReader}
+import java.nio.ByteBuffer
+import java.nio.file.{Path, Paths}
 import java.util.{Observable, Observer}
 
-import nl.tudelft.pl2.data.Gfa1ParserTest.{justParse, parseShouldVerify, parseShouldVerifyEachCall}
+import nl.tudelft.pl2.data.Gfa1ParserTest.{justParse, parseFile, parseShouldRegister,
+  parseShouldVerify}
 import nl.tudelft.pl2.data.builders.ZeroZoomBuilder
 import nl.tudelft.pl2.data.caches.Cache
+import nl.tudelft.pl2.representation.graph.LoadingState
 import org.junit.runner.RunWith
 import org.mockito.Mockito
-import org.mockito.Mockito.{mock, only, times, verify}
+import org.mockito.Mockito.mock
 import org.scalatest.FunSuite
-import org.scalatest.Matchers.{a, be}
+import org.scalatest.Matchers.{a, be, convertToAnyShouldWrapper}
 import org.scalatest.junit.JUnitRunner
 import org.scalatest.prop.PropertyChecks.forAll
 import org.scalatest.prop.TableDrivenPropertyChecks.Table
 
+import scala.collection.JavaConverters.collectionAsScalaIterableConverter
+import scala.collection.mutable
+
 object Gfa1ParserTest {
   private val observer = new Observer {
     override def update(o: Observable, arg: scala.Any): Unit = Unit
   }
 
   /**
-    * Parses the given string and calls the given verification
-    * function with the resulting (mock) [[Cache]] with each of the
-    * given checks.
+    * Parses the given string and checks that exactly the given
+    * calls were made on the resulting (mock) [[ZeroZoomBuilder]].
     *
-    * @param in      Input [[String]] to be parsed.
-    * @param checks  A list of some data to be checked individually
-    *                by the verify function.
-    * @param fVerify The verification function called for each check.
-    * @tparam R The type of the data given to the verification
-    *           function and provided in the checks list. In our use-case
-    *           this is some tuple containing call-information.
+    * @param in       Input [[String]] to be parsed.
+    * @param expected The calls expected, as listed by [[calls]].
     */
-  def parseShouldVerifyEachCall[R](in: String, checks: List[R])
-                                  (fVerify: (R, ZeroZoomBuilder) => Unit):
-  Unit =
-    parseShouldVerify(in, mc =>
-      checks.foreach(call =>
-        fVerify(call, verify(mc, times(1)))))
+  def parseShouldRegister(in: String, expected: List[(String, List[Any])]): Unit =
+    parseShouldVerify(in, mb => calls(mb) should be(expected))
 
   /**
     * Calls the parser on the given [[String]] and thereafter
@@ -92,6 +89,74 @@ object Gfa1ParserTest {
     Gfa1Parser.parse(is, b, observer, 1)
   }
 
+  /**
+    * Parses the file at the given path in parallel using
+    * the given range size to a mocked [[ZeroZoomBuilder]].
+    *
+    * @param path       The path of the file to parse.
+    * @param rangeBytes The number of bytes per range.
+    * @return The mocked builder.
+    */
+  def parseFileParallel(path: Path, rangeBytes: Int): ZeroZoomBuilder = {
+    val mb: ZeroZoomBuilder = mock(classOf[ZeroZoomBuilder])
+    Gfa1Parser.parseParallel(path, mb, observer, 2, rangeBytes)
+    mb
+  }
+
+  /**
+    * Parses the file at the given path from memory mapped
+    * windows of the given size to a mocked [[ZeroZoomBuilder]].
+    *
+    * @param path        The path of the file to parse.
+    * @param windowBytes The number of bytes per window.
+    * @param obs         The observer notified of the progress.
+    * @return The mocked builder.
+    */
+  def parseFileMapped(path: Path, windowBytes: Int,
+                      obs: Observer = observer): ZeroZoomBuilder = {
+    val mb: ZeroZoomBuilder = mock(classOf[ZeroZoomBuilder])
+    Gfa1Parser.parseMapped(path, mb, obs, windowBytes)
+    mb
+  }
+
+  /**
+    * Lists the methods called on a mock and their arguments
+    * in the order in which they were called. Names and contents
+    * passed as ranges of a buffer are decoded to [[String]]s.
+    *
+    * @param mb The mocked builder.
+    * @return The calls on the mock.
+    */
+  def calls(mb: ZeroZoomBuilder): List[(String, List[Any])] =
+    Mockito.mockingDetails(mb).getInvocations.asScala
+      .map(i => (i.getMethod.getName, decode(i.getArguments.toList))).toList
+
+  /**
+    * Decodes the ranges in the arguments of a call on the builder.
+    *
+    * @param args The arguments of the call.
+    * @return The arguments with every range decoded.
+    */
+  private def decode(args: List[Any]): List[Any] = args match {
+    case (bytes: ByteBuffer) :: rest => decodeRanges(bytes, rest)
+    case _ => args
+  }
+
+  /**
+    * Decodes every pair of an index and a length in the given
+    * arguments as a range of the given buffer.
+    *
+    * @param bytes The buffer the ranges are in.
+    * @param args  The arguments following the buffer.
+    * @return The arguments with every range decoded.
+    */
+  private def decodeRanges(bytes: ByteBuffer, args: List[Any]): List[Any] = args match {
+    case (index: Int) :: (length: Int) :: rest =>
+      Gfa1Tokenizer.decode(bytes, index, length) :: decodeRanges(bytes, rest)
+    case arg :: rest => arg :: decodeRanges(bytes, rest)
+    case Nil => Nil
+  }
+
 }
 
 /**
@@ -147,17 +212,15 @@ class Gfa1ParserTest extends FunSuite {
     * that should create and register
     * [[nl.tudelft.pl2.representation.external.Edge]]s.
     */
-  private val links = Table[String,
-    List[(String, Boolean, String, Boolean, Map[String, (Char, String)])]
-    ](
+  private val links = Table[String, List[(String, Boolean, String, Boolean)]](
     ("in", "calls"),
     (s"L\t$NAME1\t+\t$NAME2\t-\t0M\t${OPT1._1}",
-      List((NAME1, false, NAME2, true, Map(OPT1._2)))),
+      List((NAME1, false, NAME2, true))),
     (s"L\t$NAME1\t-\t$NAME2\t+\t0M\t${OPT1._1}",
-      List((NAME1, true, NAME2, false, Map(OPT1._2)))),
+      List((NAME1, true, NAME2, false))),
     (s"L\t$NAME1\t+\t$NAME2\t+\t0M\nL\t$NAME1\t-\t$NAME2\t-\t0M",
-      List((NAME1, false, NAME2, false, Map()),
-        (NAME1, true, NAME2, true, Map())))
+      List((NAME1, false, NAME2, false),
+        (NAME1, true, NAME2, true)))
   )
 
   /**
@@ -165,9 +228,7 @@ class Gfa1ParserTest extends FunSuite {
     */
   test("Simple headers should be parsed correctly") {
     forAll(headers) { (in, calls) =>
-      parseShouldVerifyEachCall(in, calls) { (call, mc) =>
-        mc.registerHeader(call)
-      }
+      parseShouldRegister(in, calls.map(call => ("registerHeader", List(call))))
     }
   }
 
@@ -177,9 +238,8 @@ class Gfa1ParserTest extends FunSuite {
     */
   test("Simple segments should be parsed correctly") {
     forAll(segments) { (in, calls) =>
-      parseShouldVerifyEachCall(in, calls) { (call, mc) =>
-        mc.registerNode(call._1, call._2, call._3)
-      }
+      parseShouldRegister(in, calls.map(call =>
+        ("registerNode", List(call._1, call._2, call._3))))
     }
   }
 
@@ -189,9 +249,8 @@ class Gfa1ParserTest extends FunSuite {
     */
   test("Simple links should be parsed correctly") {
     forAll(links) { (in, calls) =>
-      parseShouldVerifyEachCall(in, calls) { (call, mc) =>
-        mc.registerEdge(call._1, call._2, call._3, call._4, call._5)
-      }
+      parseShouldRegister(in, calls.map(call =>
+        ("registerEdge", List(call._1, call._2, call._3, call._4))))
     }
   }
 
@@ -199,8 +258,8 @@ class Gfa1ParserTest extends FunSuite {
     * Simple comment line test.
     */
   test("Comment lines should be ignored") {
-    parseShouldVerify("S\tb\tGCT\t*\n#\tsome comment here", mc =>
-      verify(mc, only).registerNode("b", "GCT", Map()))
+    parseShouldRegister("S\tb\tGCT\t*\n#\tsome comment here",
+      List(("registerNode", List("b", "GCT", Map()))))
   }
 
   /**
@@ -259,4 +318,59 @@ class Gfa1ParserTest extends FunSuite {
       justParse("L\tname1\t+\tname2\t++")
     }
   }
+
+  test("Option values may contain the option delimiter") {
+    parseShouldRegister("S\tb\tGCT\t*\tUR:Z:http://x.org/a:b",
+      List(("registerNode", List("b", "GCT", Map("UR" -> ('Z', "http://x.org/a:b"))))))
+  }
+
+  test("Carriage returns and empty lines are ignored") {
+    parseShouldRegister("S\tb\tGCT\t*\r\n\r\n\nS\tc\tA\t*\r\n",
+      List(("registerNode", List("b", "GCT", Map())),
+        ("registerNode", List("c", "A", Map()))))
+  }
+
+  test("Option parsing - missing type") {
+    a[Gfa1ParseException] should be thrownBy {
+      justParse("S\tname\tTCG\t*\tRC")
+    }
+  }
+
+  test("Parallel parsing registers the same records in file order") {
+    val path = Paths.get(Thread.currentThread().getContextClassLoader
+      .getResource("TB10_small.gfa").toURI)
+    val serial: ZeroZoomBuilder = mock(classOf[ZeroZoomBuilder])
+    parseFile("TB10_small.gfa", serial)
+
+    List(7, 64, 1 << 20).foreach(rangeBytes =>
+      Gfa1ParserTest.calls(Gfa1ParserTest.parseFileParallel(path, rangeBytes)) should be(
+        Gfa1ParserTest.calls(serial)))
+  }
+
+  test("Mapped parsing registers the same records in file order") {
+    val path = Paths.get(Thread.currentThread().getContextClassLoader
+      .getResource("TB10_small.gfa").toURI)
+    val serial: ZeroZoomBuilder = mock(classOf[ZeroZoomBuilder])
+    parseFile("TB10_small.gfa", serial)
+
+    List(7, 64, 1 << 20).foreach(windowBytes =>
+      Gfa1ParserTest.calls(Gfa1ParserTest.parseFileMapped(path, windowBytes)) should be(
+        Gfa1ParserTest.calls(serial)))
+  }
+
+  test("Mapped parsing reports progress independent of the window size") {
+    val path = Paths.get(Thread.currentThread().getContextClassLoader
+      .getResource("TB10_small.gfa").toURI)
+    val progress = List(7, 1 << 20).map(windowBytes => {
+      val states = mutable.Buffer[Any]()
+      Gfa1ParserTest.parseFileMapped(path, windowBytes, new Observer {
+        override def update(o: Observable, arg: scala.Any): Unit = states += arg
+      })
+      states.last should be(LoadingState.FULLY_PARSED)
+      states.count(_ == LoadingState.MILESTONE)
+    })
+
+    progress.head should be > 0
+    progress.head should be(progress.last)
+  }
 }
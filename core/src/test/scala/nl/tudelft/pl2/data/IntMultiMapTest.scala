@@ -0,0 +1,55 @@
+package nl.tudelft.pl2.data
+
+import org.junit.runner.RunWith
+import org.scalatest.{BeforeAndAfter, FunSuite}
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.Matchers.{be, convertToAnyShouldWrapper}
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class IntMultiMapTest extends FunSuite with BeforeAndAfter {
+
+  private var underTest: IntMultiMap = _
+
+  before {
+    underTest = new IntMultiMap(4)
+  }
+
+  test("Removing a key returns its values in binding order") {
+    underTest.addBinding(1, 5)
+    underTest.addBinding(1, 3)
+    underTest.addBinding(2, 4)
+
+    underTest.remove(1).toList should be(List(5, 3))
+    underTest.contains(1) should be(false)
+    underTest.remove(2).toList should be(List(4))
+    underTest.size should be(0)
+  }
+
+  test("Values are bound to a key at most once") {
+    underTest.addBinding(1, 5)
+    underTest.addBinding(1, 5)
+
+    underTest.remove(1).toList should be(List(5))
+  }
+
+  test("Removing an unbound key returns no values") {
+    underTest.remove(7).toList should be(List())
+  }
+
+  test("Many keys survive growing and removing") {
+    for (i <- 0 until 10000) {
+      underTest.addBinding(i, i + 1)
+      underTest.addBinding(i, i + 2)
+      if (i % 3 == 0) {
+        underTest.remove(i)
+      }
+    }
+
+    underTest.size should be(10000 - 3334)
+    for (i <- 0 until 10000) {
+      underTest.remove(i).toList should be(
+        if (i % 3 == 0) List() else List(i + 1, i + 2))
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package nl.tudelft.pl2.data
+
+import java.nio.ByteBuffer
+
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+import scala.util.Random
+
+//scalastyle:off underscore.import
+import org.scalatest.Matchers._
+//scalastyle:on underscore.import
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class PackedSequenceTest extends FunSuite {
+
+  test("Bases are packed at 2 bits each") {
+    val bases = "ACGT" * 100
+    PackedSequence.encodedBytes(bases) should be(4 + 100)
+    PackedSequence(bases).toString should be(bases)
+  }
+
+  test("Runs of other characters are restored in place") {
+    val seq = "ACGT" * 10 + "N" * 50 + "GATTACA" + "R" + "TTGA" * 10 + "NN"
+    val packed = PackedSequence(seq)
+    packed.toString should be(seq)
+    packed.length() should be(seq.length)
+    packed.charAt(40) should be('N')
+    packed.charAt(97) should be('R')
+    packed.charAt(seq.length - 1) should be('N')
+    packed.subSequence(38, 93).toString should be(seq.substring(38, 93))
+    packed.encodedBytes should be < seq.length
+  }
+
+  test("Soft-masked bases are packed and keep their case") {
+    val seq = "ACGT" * 10 + "acgt" * 25 + "nnn" + "GATTACA" + "ttga" * 10
+    val packed = PackedSequence(seq)
+    packed.toString should be(seq)
+    packed.encodedBytes should be < seq.length
+    packed.charAt(40) should be('a')
+    packed.charAt(142) should be('n')
+    packed.charAt(143) should be('G')
+    packed.charAt(seq.length - 1) should be('a')
+    packed.subSequence(35, 150).toString should be(seq.substring(35, 150))
+    PackedSequence.encodedBytes("acgt" * 100) should be(4 + 9 + 100)
+  }
+
+  test("Sequences holding the lower-case marker are kept as ASCII") {
+    val seq = "ACGT" * 10 + PackedSequence.LOWER_CASE + "ACGT" * 10
+    PackedSequence.encodedBytes(seq) should be(4 + seq.length)
+    PackedSequence(seq).toString should be(seq)
+  }
+
+  test("Sequences that do not shrink are kept as ASCII") {
+    PackedSequence.encodedBytes("content") should be(4 + "content".length)
+    PackedSequence("content").toString should be("content")
+    PackedSequence("").toString should be("")
+  }
+
+  test("Packed sequences are read in place at an offset") {
+    val seq = "ACGTNNNAC"
+    val buf = ByteBuffer.allocate(3 + PackedSequence.encodedBytes(seq))
+    buf.position(3)
+    PackedSequence.write(buf, seq)
+    buf.position() should be(buf.capacity())
+    PackedSequence(buf, 3, seq.length).toString should be(seq)
+  }
+
+  test("Random sequences survive packing") {
+    val random = new Random(42)
+    for (_ <- 0 until 100) {
+      val seq = Seq.fill(random.nextInt(300))("ACGTACGTacgtNRYn".charAt(random.nextInt(16))).mkString
+      val packed = PackedSequence(seq)
+      packed.toString should be(seq)
+      for (i <- seq.indices) {
+        packed.charAt(i) should be(seq.charAt(i))
+      }
+      if (seq.nonEmpty) {
+        val from = random.nextInt(seq.length)
+        val to = from + random.nextInt(seq.length - from + 1)
+        packed.subSequence(from, to).toString should be(seq.substring(from, to))
+      }
+    }
+  }
+}
+//scalastyle:on magic.number
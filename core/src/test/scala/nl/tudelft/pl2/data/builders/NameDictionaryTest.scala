@@ -0,0 +1,93 @@
+package nl.tudelft.pl2.data.builders
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+import org.junit.runner.RunWith
+import org.scalatest.{BeforeAndAfter, FunSuite}
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.Matchers.{be, convertToAnyShouldWrapper}
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class NameDictionaryTest extends FunSuite with BeforeAndAfter {
+
+  private var underTest: NameDictionary = _
+
+  before {
+    underTest = new NameDictionary(4)
+  }
+
+  test("Put names can be found with their id and layer") {
+    underTest.put("1", 0, 0)
+    underTest.put("node2", 1, 3)
+
+    val slot = underTest.slotOf("node2")
+    underTest.id(slot) should be(1)
+    underTest.layer(slot) should be(3)
+    underTest.contains("1") should be(true)
+    underTest.contains("node") should be(false)
+    underTest.size should be(2)
+  }
+
+  test("Putting a name twice replaces its id and layer") {
+    underTest.put("a", 0, 0)
+    underTest.put("a", 5, 7)
+
+    underTest.size should be(1)
+    underTest.id(underTest.slotOf("a")) should be(5)
+    underTest.layer(underTest.slotOf("a")) should be(7)
+  }
+
+  test("Layers can be updated through a slot") {
+    val slot = underTest.put("a", 0, 0)
+    underTest.setLayer(slot, 4)
+
+    underTest.layer(underTest.slotOf("a")) should be(4)
+  }
+
+  test("Removed names are no longer found") {
+    underTest.put("a", 0, 0)
+    underTest.put("b", 1, 0)
+
+    underTest.remove("a") should be(true)
+    underTest.remove("a") should be(false)
+    underTest.contains("a") should be(false)
+    underTest.id(underTest.slotOf("b")) should be(1)
+    underTest.size should be(1)
+  }
+
+  test("Names in a range of a buffer match the same names as strings") {
+    val line = ByteBuffer.allocateDirect(16)
+    line.put("L\tab\t+\tnode2".getBytes(StandardCharsets.US_ASCII))
+    underTest.put("node2", 1, 3)
+    underTest.put(line, 2, 2, 0, 0)
+
+    underTest.id(underTest.slotOf(line, 7, 5)) should be(1)
+    underTest.id(underTest.slotOf("ab")) should be(0)
+    underTest.slotOf(line, 2, 1) should be(-1)
+    underTest.remove(line, 7, 5) should be(true)
+    underTest.contains("node2") should be(false)
+    underTest.size should be(1)
+  }
+
+  test("Many names survive growing and removing") {
+    for (i <- 0 until 10000) {
+      underTest.put(s"segment$i", i, i / 10)
+      if (i % 3 == 0) {
+        underTest.remove(s"segment$i")
+      }
+    }
+
+    underTest.size should be(10000 - 3334)
+    for (i <- 0 until 10000) {
+      val slot = underTest.slotOf(s"segment$i")
+      if (i % 3 == 0) {
+        slot should be(-1)
+      } else {
+        underTest.id(slot) should be(i)
+        underTest.layer(slot) should be(i / 10)
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package nl.tudelft.pl2.data.builders
+
+import org.junit.runner.RunWith
+import org.scalatest.{BeforeAndAfter, FunSuite}
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.Matchers.{be, convertToAnyShouldWrapper}
+
+import scala.collection.mutable
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class StreamingNodeSourceTest extends FunSuite with BeforeAndAfter {
+
+  private var queue: BuilderNodeQueue = _
+  private var underTest: StreamingNodeSource = _
+  private var loaded: mutable.Buffer[Int] = _
+
+  before {
+    queue = new BuilderNodeQueue(16)
+    underTest = new StreamingNodeSource(queue)
+    loaded = mutable.Buffer()
+  }
+
+  private def node(id: Int): BuilderNode =
+    new BuilderNode(id, id.toString, 0, "A", mutable.Buffer(), mutable.Buffer(), Map(), Map())
+
+  private def load(bn: BuilderNode): Unit = loaded += bn.id
+
+  test("Nodes are taken until the requested node was taken") {
+    List(0, 2, 1, 3).foreach(id => queue.put(node(id)))
+    queue.finish()
+
+    underTest.loadNodeByID(1, load)
+    loaded should be(List(0, 2, 1))
+  }
+
+  test("Nodes taken before are not taken again") {
+    List(0, 1).foreach(id => queue.put(node(id)))
+    queue.finish()
+
+    underTest.loadNodeByID(1, load)
+    underTest.loadNodeByID(0, load)
+    loaded should be(List(0, 1))
+  }
+
+  test("Loading stops when the producer finished") {
+    List(0, 1).foreach(id => queue.put(node(id)))
+    queue.finish()
+
+    underTest.loadNodeByID(5, load)
+    loaded should be(List(0, 1))
+    underTest.loadNext(load) should be(false)
+  }
+
+  test("Loading stops when the queue was aborted") {
+    queue.put(node(0))
+    queue.abort()
+
+    underTest.loadNext(load) should be(false)
+    loaded should be(List())
+  }
+}
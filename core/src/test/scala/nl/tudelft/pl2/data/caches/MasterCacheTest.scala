@@ -51,6 +51,11 @@ class MasterCacheTest extends FunSuite with BeforeAndAfter {
     .getContextClassLoader
     .getResource("test5.gfa").toURI)
 
+  val GENOMES_PATH: Path = Paths.get(Thread
+    .currentThread
+    .getContextClassLoader
+    .getResource("genomes.gfa").toURI)
+
   private val TB10ML_NUM_NODES = 256
 
   private var cache: MasterCache = _
@@ -228,4 +233,26 @@ class MasterCacheTest extends FunSuite with BeforeAndAfter {
       MasterCacheLoader.clearFiles(TEST1_PATH)
     }
   }
+
+  test("Retrieve the nodes and layers of a genome") {
+    try {
+      val observer = new Observer {
+        override def update(o: Observable, arg: scala.Any): Unit = Unit
+      }
+      cache = MasterCacheLoader.loadGraph(GENOMES_PATH, observer)
+      cache.setZoomLevel(0)
+      cache.retrieveNodesByGenome(0) should be(Array(0, 1, 3))
+      cache.retrieveNodesByGenome(1) should be(Array(0, 2, 3, 4))
+      cache.retrieveLayersByGenome(0) should be(Some((0, 2)))
+      cache.retrieveLayersByGenome(1) should be(Some((0, 3)))
+      cache.retrieveNodeByID(3).genomeCoordinates should be(Map(0 -> 5L, 1 -> 5L))
+      cache.retrieveNodeByID(4).genomeCoordinates should be(Map(1 -> 7L))
+      cache.retrieveNodesByGenome(2) should be(empty)
+      cache.retrieveNodesByGenome(-1) should be(empty)
+      cache.retrieveLayersByGenome(-1) should be(None)
+    } finally {
+      MasterCacheLoader.unload(cache)
+      MasterCacheLoader.clearFiles(GENOMES_PATH)
+    }
+  }
 }
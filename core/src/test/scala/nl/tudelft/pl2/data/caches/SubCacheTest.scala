@@ -0,0 +1,151 @@
+package nl.tudelft.pl2.data.caches
+
+import java.io.File
+import java.nio.file.{Path, Paths}
+
+import nl.tudelft.pl2.data.indexing.{Index, IndexChunk}
+import nl.tudelft.pl2.data.storage.readers.CtagReader
+import nl.tudelft.pl2.data.storage.writers.CtagWriter
+import org.junit.runner.RunWith
+import org.scalatest.{BeforeAndAfter, FunSuite}
+import org.scalatest.concurrent.Eventually
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.time.{Seconds, Span}
+
+import scala.collection.mutable
+
+//scalastyle:off underscore.import
+import org.scalatest.Matchers._
+//scalastyle:on underscore.import
+
+@RunWith(classOf[JUnitRunner])
+class SubCacheTest extends FunSuite with BeforeAndAfter with Eventually {
+
+  val TEMP: File = File.createTempFile("temp", ".ctg.c")
+  val TEMP_PATH: Path = Paths.get(TEMP.getAbsolutePath)
+
+  var index: Index = _
+
+  before {
+    val writer = new CtagWriter(TEMP_PATH)
+    index = new Index(TEMP_PATH)
+    var offset = 0L
+    for (id <- 0 until 3) {
+      val length = writer.storeNode(id,
+        "name" + id,
+        id,
+        "content",
+        mutable.Buffer(),
+        mutable.Buffer(id + 1),
+        Map())
+      index.insertChunk(IndexChunk(id, length, offset, (id, id), (id, id)))
+      offset += length
+    }
+    writer.close()
+  }
+
+  /**
+    * Creates a cache fitting the given number of chunks.
+    *
+    * @param numChunks The number of chunks that fit the cache.
+    * @return The cache.
+    */
+  def cacheFitting(numChunks: Int): SubCache = {
+    val reader = new CtagReader(TEMP_PATH)
+    val chunkBytes = new SubCache(index, reader, CachePolicy(0))
+      .buildCacheChunk(index.getIndexedChunkByIndex(0)).bytes
+    new SubCache(index, reader, CachePolicy(numChunks * chunkBytes))
+  }
+
+  test("The least recently used chunk is evicted") {
+    val cache = cacheFitting(2)
+    try {
+      cache.retrieveNodeByID(0)
+      cache.retrieveNodeByID(1)
+      cache.retrieveNodeByID(0)
+      cache.retrieveNodeByID(2)
+
+      cache.cachedChunks.map(cc => cc.index) shouldBe List(0, 2)
+      cache.statistics.hits shouldBe 1
+      cache.statistics.misses shouldBe 3
+      cache.statistics.evictions shouldBe 1
+    } finally {
+      cache.close()
+    }
+  }
+
+  test("A chunk larger than the budget is still cached") {
+    val cache = new SubCache(index, new CtagReader(TEMP_PATH), CachePolicy(0))
+    try {
+      cache.retrieveNodeByID(1).name shouldBe "name1"
+      cache.cachedChunks.map(cc => cc.index) shouldBe List(1)
+      cache.retrieveNodeByID(2).name shouldBe "name2"
+      cache.cachedChunks.map(cc => cc.index) shouldBe List(2)
+      cache.statistics.evictions shouldBe 1
+    } finally {
+      cache.close()
+    }
+  }
+
+  test("A cached node is found by its ID without reading its chunk again") {
+    val cache = cacheFitting(2)
+    try {
+      val node = cache.retrieveNodeByID(1)
+      cache.retrieveNodeByID(1) should be theSameInstanceAs node
+      cache.statistics.hits shouldBe 1
+      cache.statistics.misses shouldBe 1
+    } finally {
+      cache.close()
+    }
+  }
+
+  test("Retrieving chunks by layer marks them as used") {
+    val cache = cacheFitting(2)
+    try {
+      cache.retrieveChunksByLayer(0)
+      cache.retrieveChunksByLayer(1)
+      cache.retrieveChunksByLayer(0)
+      cache.retrieveChunksByLayer(2)
+
+      cache.cachedChunks.map(cc => cc.index) shouldBe List(0, 2)
+    } finally {
+      cache.close()
+    }
+  }
+
+  test("Retrieving chunks in a layer range reads each covering chunk once") {
+    val cache = cacheFitting(3)
+    try {
+      cache.retrieveChunksInLayerRange(0, 1).map(c => c.cacheChunk.index) shouldBe List(0, 1)
+      cache.retrieveChunksInLayerRange(1, 2).map(c => c.cacheChunk.index) shouldBe List(1, 2)
+      cache.retrieveChunksInLayerRange(2, 1) shouldBe empty
+
+      cache.cachedChunks.map(cc => cc.index) shouldBe List(0, 1, 2)
+      cache.statistics.misses shouldBe 2
+      cache.retrieveNodeByID(2).name shouldBe "name2"
+      cache.statistics.hits shouldBe 1
+    } finally {
+      cache.close()
+    }
+  }
+
+  test("Prefetched chunks are read in the background") {
+    val cache = cacheFitting(3)
+    try {
+      cache.prefetch(2, 1)
+      eventually(timeout(Span(2, Seconds))) {
+        cache.statistics.prefetches shouldBe 2
+      }
+      cache.cachedChunks.map(cc => cc.index) shouldBe List(2, 1)
+      cache.retrieveNodeByID(1).name shouldBe "name1"
+      cache.statistics.hits shouldBe 1
+      cache.statistics.misses shouldBe 0
+    } finally {
+      cache.close()
+    }
+  }
+
+  after {
+    TEMP.delete()
+  }
+}
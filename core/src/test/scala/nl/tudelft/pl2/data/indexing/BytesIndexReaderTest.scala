@@ -1,7 +1,8 @@
 package nl.tudelft.pl2.data.indexing
 
 import java.io.File
-import java.nio.file.{Path, Paths}
+import java.nio.ByteBuffer
+import java.nio.file.{Files, Path, Paths}
 
 import org.junit.runner.RunWith
 import org.scalatest.junit.JUnitRunner
@@ -15,6 +16,8 @@ import org.scalatest.{BeforeAndAfter, FunSuite}
 @RunWith(classOf[JUnitRunner])
 class BytesIndexReaderTest extends FunSuite with BeforeAndAfter {
   private val SEG_LEN = 10
+  private val MAX_NODES = 1000
+  private val POLICY = ChunkPolicy(Int.MaxValue, Int.MaxValue, MAX_NODES)
 
   private var temp: File = _
   private var TEMP_IDXPATH: Path = _
@@ -24,7 +27,7 @@ class BytesIndexReaderTest extends FunSuite with BeforeAndAfter {
   before {
     temp = File.createTempFile("temp", ".idx")
     TEMP_IDXPATH = Paths.get(temp.getAbsolutePath)
-    indexer = new Indexer(TEMP_IDXPATH)
+    indexer = new Indexer(TEMP_IDXPATH, POLICY)
 
   }
 
@@ -44,7 +47,7 @@ class BytesIndexReaderTest extends FunSuite with BeforeAndAfter {
 
   test("Add a number times the max number of nodes, write, then read") {
     val times = 2
-    for (i <- 0 until indexer.MAX_NODES * times) {
+    for (i <- 0 until MAX_NODES * times) {
       //      println(i)
       indexer.indexNode(i, SEG_LEN, i)
     }
@@ -55,12 +58,57 @@ class BytesIndexReaderTest extends FunSuite with BeforeAndAfter {
     }
     idx.getIndexedChunkByIndex(0) should be {
       IndexChunk(0,
-        SEG_LEN * indexer.MAX_NODES,
+        SEG_LEN * MAX_NODES,
         0,
-        (0, indexer.MAX_NODES - 1),
-        (0, indexer.MAX_NODES - 1))
+        (0, MAX_NODES - 1),
+        (0, MAX_NODES - 1))
     }
   }
 
+  test("Mapped index answers layer and node queries") {
+    val times = 3
+    for (i <- 0 until MAX_NODES * times) {
+      indexer.indexNode(i, SEG_LEN, i / 2)
+    }
+    indexer.flush()
+    val idx = BytesIndexReader.loadIndex(TEMP_IDXPATH)
+    idx shouldBe a[MappedIndex]
+    idx.getIndexedChunksByNodeID(MAX_NODES + 1).map(_.index) should be {
+      Seq(1)
+    }
+    idx.getIndexedChunksByLayer(MAX_NODES / 2).map(_.index) should be {
+      Seq(1)
+    }
+    idx.getIndexedChunksInLayerRange(0, MAX_NODES).map(_.index).sorted should be {
+      Seq(0, 1, 2)
+    }
+    idx.chunks.map(_.index) should be {
+      0 until times
+    }
+    idx.getIndexedChunkByIndex(times) should be {
+      null
+    }
+  }
+
+  test("Index files without a header are rejected") {
+    val chunk = IndexChunk(0, SEG_LEN, 0, (0, 1), (0, 1))
+    val buf = ByteBuffer.allocate(IndexFormat.RECORD_BYTES)
+    IndexFormat.putRecord(buf, chunk)
+    Files.write(TEMP_IDXPATH, buf.array())
+    an[InvalidIndexException] should be thrownBy BytesIndexReader.loadIndex(TEMP_IDXPATH)
+  }
 
+  test("Index files of another version are rejected") {
+    val buf = ByteBuffer.allocate(IndexFormat.HEADER_BYTES)
+    buf.putInt(IndexFormat.MAGIC).putInt(IndexFormat.VERSION + 1)
+    Files.write(TEMP_IDXPATH, buf.array())
+    an[InvalidIndexException] should be thrownBy BytesIndexReader.loadIndex(TEMP_IDXPATH)
+  }
+
+  test("Index files of an older version are rejected") {
+    val buf = ByteBuffer.allocate(IndexFormat.HEADER_BYTES)
+    buf.putInt(IndexFormat.MAGIC).putInt(IndexFormat.VERSION - 1)
+    Files.write(TEMP_IDXPATH, buf.array())
+    an[InvalidIndexException] should be thrownBy BytesIndexReader.loadIndex(TEMP_IDXPATH)
+  }
 }
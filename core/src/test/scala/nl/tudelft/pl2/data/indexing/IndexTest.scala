@@ -52,20 +52,15 @@ class IndexTest extends FunSuite with BeforeAndAfter {
   }
 
   /**
-    * We want to make sure that the [[IndexChunk]]s in the different
-    * index trees are ordered by the specified ordering (instead of
-    * by just the first field)
+    * We want to make sure that the [[IndexChunk]]s are ordered by
+    * their index regardless of the order in which they are inserted.
     */
   test("Inserting chunks should lead to the correct ordering") {
-    IDX.minLayerTreeMap.firstKey() should be {
-      MIN_LAYER2
+    IDX.chunks should be {
+      IndexedSeq(CHUNK1, CHUNK2)
     }
-    IDX.minNodeTreeMap.firstKey() should be {
-      MIN_SEG2
-    }
-    val idxmap = IDX.indexTreeMap
-    idxmap.firstKey() should be {
-      FIRST_INDEX
+    IDX.size should be {
+      2
     }
   }
 
@@ -82,6 +77,50 @@ class IndexTest extends FunSuite with BeforeAndAfter {
     }
   }
 
+  test("Getting indexed chunks in a layer range") {
+    IDX.getIndexedChunksInLayerRange(MAX_LAYER2, MAX_LAYER2 + 1) should be {
+      mutable.Buffer(CHUNK2)
+    }
+    IDX.getIndexedChunksInLayerRange(0, MIN_LAYER1) should be {
+      mutable.Buffer(CHUNK2, CHUNK1)
+    }
+  }
+
+  test("Chunks inserted after a query are found") {
+    val chunk3 = IndexChunk(2, LENGTH, OFFSET, (MAX_LAYER2, MAX_LAYER2), (MAX_SEG1, MAX_SEG1))
+    IDX.getIndexedChunksByLayer(MAX_LAYER2) should be {
+      mutable.Buffer(CHUNK2)
+    }
+    IDX.insertChunk(chunk3)
+    IDX.getIndexedChunksByLayer(MAX_LAYER2) should be {
+      mutable.Buffer(CHUNK2, chunk3)
+    }
+    IDX.getIndexedChunksByNodeID(MAX_SEG1) should be {
+      mutable.Buffer(CHUNK1, chunk3)
+    }
+    IDX.getIndexedChunkByIndex(2) should be {
+      chunk3
+    }
+  }
+
+  test("Overlapping ranges are found like a scan over all chunks") {
+    //scalastyle:off magic.number
+    val random = new scala.util.Random(42)
+    val chunks = (0 until 200).map(i => {
+      val lo = random.nextInt(1000)
+      IndexChunk(i, LENGTH, OFFSET, (lo, lo + random.nextInt(50)), (i, i))
+    })
+    val intervals = new ChunkIntervals(chunks, c => c.layerRange)
+    for (_ <- 0 until 100) {
+      val from = random.nextInt(1100)
+      val to = from + random.nextInt(20)
+      intervals.overlapping(from, to).toSet should be {
+        chunks.filter(c => c.layerRange._1 <= to && c.layerRange._2 >= from).toSet
+      }
+    }
+    //scalastyle:on magic.number
+  }
+
   test("Getting indexed chunk by id") {
     val chunk = IDX.getIndexedChunkByIndex(0)
     chunk should be {
@@ -21,23 +21,25 @@ class IndexerTest extends FunSuite with BeforeAndAfter {
 
   private var temp: File = _
   private val SEG_LEN = 10
+  private val MAX_NODES = 1000
+  private val POLICY = ChunkPolicy(Int.MaxValue, Int.MaxValue, MAX_NODES)
   private var TEMP_IDXPATH: Path = _
   private var indexer: Indexer = _
 
   before {
     temp = File.createTempFile("temp", ".idx")
     TEMP_IDXPATH = Paths.get(temp.getAbsolutePath)
-    indexer = new Indexer(TEMP_IDXPATH)
+    indexer = new Indexer(TEMP_IDXPATH, POLICY)
   }
 
   test("Adding twice the maximum number of segments to an empty Index " +
     "should add two chunks to the index tree") {
-    for (i <- 0 until 2 * indexer.MAX_NODES) {
+    for (i <- 0 until 2 * MAX_NODES) {
       indexer.indexNode(i, SEG_LEN, i)
     }
     indexer.flush()
     temp.length() should be {
-      IndexChunk.BYTES_PER_CHUNK * 2
+      IndexFormat.fileBytes(2)
     }
   }
 
@@ -48,8 +50,32 @@ class IndexerTest extends FunSuite with BeforeAndAfter {
     }
     indexer.flush()
     temp.length() should be {
-      IndexChunk.BYTES_PER_CHUNK
+      IndexFormat.fileBytes(1)
     }
   }
 
+  test("A node that would exceed the byte budget starts a new chunk") {
+    val chunked = new Indexer(TEMP_IDXPATH, ChunkPolicy(SEG_LEN * 3, Int.MaxValue, MAX_NODES))
+    for (i <- 0 until 4) {
+      chunked.indexNode(i, SEG_LEN, 0)
+    }
+    chunked.indexNode(4, SEG_LEN * 5, 0)
+    chunked.flush()
+    BytesIndexReader.loadIndex(TEMP_IDXPATH).chunks should be {
+      Seq(IndexChunk(0, SEG_LEN * 3, 0, (0, 0), (0, 2)),
+        IndexChunk(1, SEG_LEN, SEG_LEN * 3, (0, 0), (3, 3)),
+        IndexChunk(2, SEG_LEN * 5, SEG_LEN * 4, (0, 0), (4, 4)))
+    }
+  }
+
+  test("A node that would exceed the layer span starts a new chunk") {
+    val chunked = new Indexer(TEMP_IDXPATH, ChunkPolicy(Int.MaxValue, 2, MAX_NODES))
+    for (i <- 0 until 5) {
+      chunked.indexNode(i, SEG_LEN, i)
+    }
+    chunked.flush()
+    BytesIndexReader.loadIndex(TEMP_IDXPATH).chunks.map(_.layerRange) should be {
+      Seq((0, 1), (2, 3), (4, 4))
+    }
+  }
 }
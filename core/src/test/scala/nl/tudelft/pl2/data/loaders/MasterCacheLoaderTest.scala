@@ -1,9 +1,15 @@
 package nl.tudelft.pl2.data.loaders
 
 import java.nio.file.{Path, Paths}
+import java.util.concurrent.{ExecutionException, TimeUnit}
 import java.util.{Observable, Observer}
 
+import nl.tudelft.pl2.data.Scheduler
+import nl.tudelft.pl2.data.builders.{BuilderNode, OneZoomBuilder, TwoZoomBuilder,
+  ZeroZoomBuilder}
 import nl.tudelft.pl2.data.caches.MasterCache
+import nl.tudelft.pl2.data.indexing.BytesIndexReader
+import nl.tudelft.pl2.data.storage.readers.CtagReader
 import org.junit.runner.RunWith
 import org.scalatest.junit.JUnitRunner
 
@@ -13,6 +19,8 @@ import org.scalatest.Matchers._
 
 import org.scalatest.{BeforeAndAfter, FunSuite}
 
+import scala.collection.mutable
+
 @RunWith(classOf[JUnitRunner])
 class MasterCacheLoaderTest extends FunSuite with BeforeAndAfter {
   private val observer = new Observer {
@@ -58,6 +66,85 @@ class MasterCacheLoaderTest extends FunSuite with BeforeAndAfter {
 
   var cache: MasterCache = _
 
+  /**
+    * Reads back the nodes of a zoom level, such that levels built
+    * in a different order can be compared.
+    *
+    * @param filePath  The path to the file of the level.
+    * @param indexPath The path to the index of the level.
+    * @return The fields of the nodes of the level by their id,
+    *         together with the lowest and highest node id.
+    */
+  private def readLevel(filePath: Path, indexPath: Path): (Map[Int, List[Any]], (Int, Int)) = {
+    val index = BytesIndexReader.loadIndex(indexPath)
+    val reader = new CtagReader(filePath)
+    try {
+      val nodes = index.chunks.flatMap(c =>
+        reader.readDataChunkToBuilderNodes(c.offset, c.length, c.storedLength))
+      (nodes.map(n => n.id -> fields(n)).toMap,
+        (index.chunks.map(_.nodeRange._1).min, index.chunks.map(_.nodeRange._2).max))
+    } finally {
+      reader.close()
+    }
+  }
+
+  /**
+    * @param node The node to get the fields of.
+    * @return The fields of the node, including those of its subclass.
+    */
+  private def fields(node: BuilderNode): List[Any] = node match {
+    case product: Product => node.getClass :: product.productIterator.toList
+    case _ => List(node.getClass, node.name, node.layer, node.content,
+      node.incoming.toList, node.outgoing.toList, node.options)
+  }
+
+  /**
+    * @param paths The paths of the files of a graph.
+    * @return The nodes of every zoom level of the graph.
+    */
+  private def readLevels(paths: GraphPathCollection): List[(Map[Int, List[Any]], (Int, Int))] =
+    List(readLevel(paths.zeroFilePath, paths.zeroIndexPath),
+      readLevel(paths.oneFilePath, paths.oneIndexPath),
+      readLevel(paths.twoFilePath, paths.twoIndexPath))
+
+  test("Building all levels at once yields the nodes of building them in turn") {
+    val paths = new GraphPathCollection(TB10S_PATH)
+    try {
+      MasterCacheLoader.clearFiles(TB10S_PATH)
+      MasterCacheLoader.buildLevels(paths, observer)
+      val pipelined = readLevels(paths)
+
+      MasterCacheLoader.clearFiles(TB10S_PATH)
+      ZeroZoomBuilder.buildFiles(paths, observer)
+      OneZoomBuilder.buildFiles(paths, observer)
+      TwoZoomBuilder.buildFiles(paths, observer)
+      val sequential = readLevels(paths)
+
+      pipelined.foreach(_._1 should not be empty)
+      pipelined shouldBe sequential
+    } finally {
+      MasterCacheLoader.clearFiles(TB10S_PATH)
+    }
+  }
+
+  test("A failing 0th level aborts the levels consuming its nodes") {
+    val paths = new GraphPathCollection(TB10S_PATH)
+    val failure = new IllegalStateException("level 0 failed")
+    try {
+      val building = Scheduler.schedule(() => MasterCacheLoader.buildLevels(paths, observer,
+        output => {
+          output.put(new BuilderNode(0, "1", 0, "ACGT",
+            mutable.Buffer(), mutable.Buffer(), Map(), Map()))
+          throw failure
+        }))
+
+      val thrown = the[ExecutionException] thrownBy building.get(30, TimeUnit.SECONDS)
+      thrown.getCause shouldBe failure
+    } finally {
+      MasterCacheLoader.clearFiles(TB10S_PATH)
+    }
+  }
+
 
   test("Load small mastercache") {
     try {
@@ -0,0 +1,45 @@
+package nl.tudelft.pl2.data.storage
+
+import java.nio.ByteBuffer
+
+import nl.tudelft.pl2.data.storage.{ReadWriteMethods => RWM}
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+//scalastyle:off underscore.import
+import org.scalatest.Matchers._
+//scalastyle:on underscore.import
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class VarintReaderTest extends FunSuite {
+
+  test("Varints are read back in order") {
+    val values = Seq(0L, 1L, 127L, 128L, 300L, Int.MaxValue.toLong, Long.MaxValue, -1L)
+    val buf = ByteBuffer.allocate(values.map(RWM.varLongBytes).sum)
+    values.foreach(v => RWM.putVarLong(buf, v))
+    buf.position() should be(buf.capacity())
+
+    val in = new VarintReader(buf, 0)
+    values.map(_ => in.readVarLong()) should be(values)
+    in.pos should be(buf.capacity())
+  }
+
+  test("Small signed values take a single byte") {
+    Seq(-64L, -1L, 0L, 1L, 63L).map(v => RWM.varLongBytes(RWM.zigZag(v))) should be(
+      Seq(1, 1, 1, 1, 1))
+    RWM.varLongBytes(RWM.zigZag(64L)) should be(2)
+    Seq(Long.MinValue, -5L, 5L, Long.MaxValue).map(v => RWM.unZigZag(RWM.zigZag(v))) should be(
+      Seq(Long.MinValue, -5L, 5L, Long.MaxValue))
+  }
+
+  test("Edges are stored relative to their node") {
+    val edges = Seq(9, 11, 12, 0, Int.MaxValue)
+    val buf = ByteBuffer.allocate(RWM.edgesLength(10, edges))
+    RWM.putEdgeIDs(buf, 10, edges)
+    RWM.edgesLength(10, edges.take(3)) should be(3)
+
+    RWM.readEdgeIDs(new VarintReader(buf, 0), 10, edges.length) should be(edges)
+  }
+}
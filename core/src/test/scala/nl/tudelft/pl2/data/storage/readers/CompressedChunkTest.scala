@@ -0,0 +1,83 @@
+package nl.tudelft.pl2.data.storage.readers
+
+import java.io.File
+import java.nio.file.{Path, Paths}
+
+import nl.tudelft.pl2.data.indexing.{BytesIndexReader, ChunkPolicy, Indexer}
+import nl.tudelft.pl2.data.storage.writers.CtagWriter
+import org.junit.runner.RunWith
+import org.scalatest.{BeforeAndAfter, FunSuite}
+import org.scalatest.junit.JUnitRunner
+
+import scala.collection.mutable
+
+//scalastyle:off underscore.import
+import org.scalatest.Matchers._
+//scalastyle:on underscore.import
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class CompressedChunkTest extends FunSuite with BeforeAndAfter {
+
+  val TEMP: File = File.createTempFile("temp", ".ctg.c")
+  val TEMP_PATH: Path = Paths.get(TEMP.getAbsolutePath)
+  val TEMP_IDX: File = File.createTempFile("temp", ".idx.c")
+  val TEMP_IDX_PATH: Path = Paths.get(TEMP_IDX.getAbsolutePath)
+
+  val NODES = 10
+  val NODES_PER_CHUNK = 4
+
+  before {
+    val writer = new CtagWriter(TEMP_PATH, compress = true)
+    val indexer = new Indexer(TEMP_IDX_PATH,
+      ChunkPolicy(Int.MaxValue, Int.MaxValue, NODES_PER_CHUNK), Some(writer))
+    for (id <- 0 until NODES) {
+      val len = writer.storeNode(id, "name" + id, id, "ACGT" * 64,
+        mutable.Buffer(), mutable.Buffer(id + 1), Map())
+      indexer.indexNode(id, len, id)
+    }
+    indexer.flush()
+    indexer.close()
+    writer.close()
+  }
+
+  test("Chunks are stored as compressed blocks") {
+    val index = BytesIndexReader.loadIndex(TEMP_IDX_PATH)
+    index.chunks should have size 3
+    index.chunks.foreach(ic => {
+      ic.compressed shouldBe true
+      ic.storedLength should be < ic.length
+    })
+    TEMP.length() should be {
+      index.chunks.map(_.storedLength.toLong).sum
+    }
+  }
+
+  test("Compressed chunks are read back by mapped and channel readers") {
+    val index = BytesIndexReader.loadIndex(TEMP_IDX_PATH)
+    for (mapped <- List(true, false)) {
+      val reader = new CtagReader(TEMP_PATH, mapped)
+      try {
+        val nodes = index.chunks.flatMap(ic =>
+          reader.readDataChunk(ic.offset, ic.length, ic.storedLength))
+        nodes.map(_.id) should be(0 until NODES)
+        nodes.map(_.content).distinct should be(Seq("ACGT" * 64))
+        nodes.map(_.outgoing.head.to) should be(1 to NODES)
+      } finally {
+        reader.close()
+      }
+    }
+  }
+
+  test("A damaged block is reported") {
+    val ic = BytesIndexReader.loadIndex(TEMP_IDX_PATH).chunks.head
+    val reader = new CtagReader(TEMP_PATH)
+    try {
+      a[CorruptBlockException] should be thrownBy
+        reader.readDataChunk(ic.offset + 1, ic.length, ic.storedLength - 1)
+    } finally {
+      reader.close()
+    }
+  }
+}
+//scalastyle:on magic.number
@@ -0,0 +1,116 @@
+package nl.tudelft.pl2.data.storage.readers
+
+import java.io.File
+import java.nio.file.{Files, Path, Paths}
+
+import nl.tudelft.pl2.data.storage.writers.{CoordinateWriter, CtagWriter}
+import org.junit.runner.RunWith
+import org.scalatest.FunSuite
+import org.scalatest.junit.JUnitRunner
+
+import scala.collection.mutable
+
+//scalastyle:off underscore.import
+import org.scalatest.Matchers._
+//scalastyle:on underscore.import
+
+//scalastyle:off magic.number
+@RunWith(classOf[JUnitRunner])
+class CoordinateReaderTest extends FunSuite {
+
+  /**
+    * Writes a coordinate file and reads it back.
+    *
+    * @param genomes The number of genomes.
+    * @param store   Stores the nodes through the writer.
+    * @param verify  Verifies the file through the reader.
+    */
+  def withCoordinates(genomes: Int)
+                     (store: CoordinateWriter => Unit)
+                     (verify: CoordinateReader => Unit): Unit = {
+    val path = tempPath(".gco")
+    val writer = new CoordinateWriter(path, genomes)
+    store(writer)
+    writer.close()
+    val reader = new CoordinateReader(path)
+    try {
+      verify(reader)
+    } finally {
+      reader.close()
+      Files.delete(path)
+    }
+  }
+
+  def tempPath(suffix: String): Path =
+    Paths.get(File.createTempFile("temp", suffix).getAbsolutePath)
+
+  test("Coordinates are read back by node and by genome") {
+    withCoordinates(3) { writer =>
+      writer.storeNode(2, 3, Array(0, 2), Array(10L, 5L))
+      writer.storeNode(0, 0, Array(0, 1), Array(0L, 0L))
+      writer.storeNode(1, 1, Array(1), Array(4L))
+    } { reader =>
+      reader.genomes should be(3)
+      reader.nodes should be(3)
+      reader.genomesOf(2) should be(Array(0, 2))
+      reader.membership(1).get(1) should be(true)
+      reader.membership(1).cardinality() should be(1)
+      reader.membership(7).isEmpty should be(true)
+      reader.coordinatesOf(2) should be(Map(new Integer(0) -> 10L, new Integer(2) -> 5L))
+      reader.coordinate(1, 1) should be(4L)
+      reader.coordinate(1, 0) should be(CoordinateReader.NO_COORDINATE)
+      reader.passesThrough(0, 1) should be(true)
+      reader.passesThrough(0, 2) should be(false)
+      reader.nodesOf(0) should be(Array(0, 2))
+      reader.nodesOf(1) should be(Array(0, 1))
+      reader.layersOf(0) should be(Some((0, 3)))
+      reader.layersOf(1) should be(Some((0, 1)))
+      reader.layersOf(3) should be(None)
+      reader.coordinatesOf(7) should be(empty)
+    }
+  }
+
+  test("Columns spilled in blocks are read back in order of ID") {
+    val count = CoordinateWriter.BLOCK_ENTRIES * 2 + 5
+    withCoordinates(2) { writer =>
+      for (id <- (0 until count).reverse) {
+        writer.storeNode(id, id, Array(0), Array(id * 3L))
+      }
+    } { reader =>
+      reader.nodesOf(0) should be((0 until count).toArray)
+      reader.nodesOf(1) should be(empty)
+      reader.layersOf(0) should be(Some((0, count - 1)))
+      reader.layersOf(1) should be(None)
+      (0 until count by 97).map(id => reader.coordinate(id, 0)) should be(
+        (0 until count by 97).map(_ * 3L))
+    }
+  }
+
+  test("Files that are not coordinate files are rejected") {
+    val path = tempPath(".gco")
+    Files.write(path, Array.fill[Byte](32)(1))
+    CoordinateReader.isCurrent(path) should be(false)
+    an[InvalidCoordinateFileException] should be thrownBy new CoordinateReader(path)
+    Files.delete(path)
+  }
+
+  test("Encoded nodes read their coordinates from the coordinate file") {
+    val ctagPath = tempPath(".ctg.c")
+    val writer = new CtagWriter(ctagPath)
+    val length = writer.storeNode(4, "name", 1, "ACGT", mutable.Buffer(), mutable.Buffer(), Map())
+    writer.close()
+
+    withCoordinates(2) { coordinates =>
+      coordinates.storeNode(4, 1, Array(1), Array(40L))
+    } { coordinates =>
+      val reader = new CtagReader(ctagPath, coordinates = Some(coordinates))
+      try {
+        reader.readDataChunk(0, length).head.genomeCoordinates should be(
+          Map(new Integer(1) -> 40L))
+      } finally {
+        reader.close()
+        Files.delete(ctagPath)
+      }
+    }
+  }
+}
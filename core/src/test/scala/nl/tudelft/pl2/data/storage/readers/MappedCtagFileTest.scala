@@ -0,0 +1,71 @@
+package nl.tudelft.pl2.data.storage.readers
+
+import java.io.File
+import java.nio.file.{Path, Paths}
+
+import nl.tudelft.pl2.data.storage.writers.CtagWriter
+import org.junit.runner.RunWith
+import org.scalatest.{BeforeAndAfter, FunSuite}
+import org.scalatest.junit.JUnitRunner
+
+import scala.collection.mutable
+
+//scalastyle:off underscore.import
+import org.scalatest.Matchers._
+//scalastyle:on underscore.import
+
+@RunWith(classOf[JUnitRunner])
+class MappedCtagFileTest extends FunSuite with BeforeAndAfter {
+
+  val TEMP: File = File.createTempFile("temp", ".ctg.m")
+  val TEMP_PATH: Path = Paths.get(TEMP.getAbsolutePath)
+
+  var nodeLens: List[Int] = _
+
+  before {
+    val writer = new CtagWriter(TEMP_PATH)
+    nodeLens = List(1, 2).map(id => writer.storeNode(id,
+      "name" + id,
+      id,
+      "content",
+      mutable.Buffer(),
+      mutable.Buffer(id + 1),
+      Map("ORI" -> ('Z', "0"))))
+    writer.close()
+  }
+
+  test("A mapped reader reads the same chunks as a channel reader") {
+    val mapped = new CtagReader(TEMP_PATH, mapped = true)
+    val channel = new CtagReader(TEMP_PATH)
+    try {
+      val fromMap = mapped.readDataChunkToBuilderNodes(nodeLens.head, nodeLens(1))
+      val fromChannel = channel.readDataChunkToBuilderNodes(nodeLens.head, nodeLens(1))
+      fromMap.map(bn => (bn.id, bn.name, bn.layer, bn.content, bn.outgoing, bn.options)) should be(
+        fromChannel.map(bn => (bn.id, bn.name, bn.layer, bn.content, bn.outgoing, bn.options)))
+    } finally {
+      mapped.close()
+      channel.close()
+    }
+  }
+
+  test("Readers of the same file share its mapping") {
+    val first = MappedCtagFile.acquire(TEMP_PATH)
+    val second = MappedCtagFile.acquire(TEMP_PATH)
+    try {
+      first should be theSameInstanceAs second
+    } finally {
+      MappedCtagFile.release(first)
+      MappedCtagFile.release(second)
+    }
+  }
+
+  test("Reading past the end of a mapped file fails") {
+    val mapped = new CtagReader(TEMP_PATH, mapped = true)
+    try {
+      an[InvalidPrefixException] should be thrownBy
+        mapped.readDataChunkToBuilderNodes(nodeLens.head, nodeLens.sum)
+    } finally {
+      mapped.close()
+    }
+  }
+}
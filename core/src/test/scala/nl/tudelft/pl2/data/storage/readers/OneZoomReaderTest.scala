@@ -3,6 +3,7 @@ package nl.tudelft.pl2.data.storage.readers
 import java.io.File
 import java.nio.file.{Path, Paths}
 
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.storage.writers.CtagWriter
 import nl.tudelft.pl2.representation.external.{Bubble, Indel, Node}
 import org.junit.runner.RunWith
@@ -42,14 +43,13 @@ class OneZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map(),
       Map())
     writer.close()
     val chunk = reader.readDataChunk(0,
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length)
+        + "name".length + PackedSequence.encodedBytes("content"))
     chunk should be {
       mutable.Buffer(
         new Node(1,
@@ -3,6 +3,7 @@ package nl.tudelft.pl2.data.storage.readers
 import java.io.File
 import java.nio.file.{Path, Paths}
 
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.storage.writers.CtagWriter
 import nl.tudelft.pl2.representation.external.{Chain, Edge, Node}
 import org.junit.runner.RunWith
@@ -40,14 +41,13 @@ class TwoZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map(),
       Map())
     writer.close()
     val chunk = reader.readDataChunk(0,
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length)
+        + "name".length + PackedSequence.encodedBytes("content"))
     chunk should be {
       mutable.Buffer(
         new Node(1,
@@ -80,6 +80,19 @@ class TwoZoomReaderTest extends FunSuite with BeforeAndAfter {
     }
   }
 
+  test("Store one chain with incoming links and options and read") {
+    val chainLen = writer.storeChain(1,
+      1,
+      Map("ORI" -> ('Z', "1")),
+      ListBuffer(3, 4),
+      7)
+    writer.close()
+    val chain = reader.readDataChunkToBuilderNodes(0, chainLen).head
+    chain.incoming should be(ListBuffer(3, 4))
+    chain.outgoing should be(ListBuffer(7))
+    chain.options should be(Map("ORI" -> ('Z', "1")))
+  }
+
   after {
     reader.close()
   }
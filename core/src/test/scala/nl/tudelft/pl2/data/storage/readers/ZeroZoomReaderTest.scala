@@ -3,6 +3,7 @@ package nl.tudelft.pl2.data.storage.readers
 import java.io.File
 import java.nio.file.{Path, Paths}
 
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.storage.writers.CtagWriter
 import nl.tudelft.pl2.representation.external.{Edge, Node}
 import org.junit.runner.RunWith
@@ -37,14 +38,13 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map(),
       Map())
     writer.close()
     reader.readDataChunk(0,
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length) should be {
+        + "name".length + PackedSequence.encodedBytes("content")) should be {
       mutable.Buffer(
         new Node(1,
           "name",
@@ -63,15 +63,14 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map())
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
     writer.close()
 
     val chunk = reader.readDataChunk(0,
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2"))))
 
     chunk.head.id should be {
@@ -115,7 +114,6 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map(),
       Map())
     writer.close()
 
@@ -123,8 +121,8 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
-        + 3 * RWC.INT_BYTES) should be {
+        + "name".length + PackedSequence.encodedBytes("content")
+        + RWM.edgesLength(1, Seq(0, 2, 3))) should be {
       mutable.Buffer(
         new Node(1, "name", 1, "content",
           mutable.ListBuffer(
@@ -146,17 +144,16 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map())
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
     writer.close()
 
     reader.readDataChunk(0,
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + 3 * RWC.INT_BYTES) should be {
+        + RWM.edgesLength(1, Seq(0, 2, 3))) should be {
       mutable.Buffer(
         new Node(1, "name", 1, "content",
           mutable.ListBuffer(
@@ -180,25 +177,23 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map())
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
     writer.storeNode(2,
       "name",
       2,
       "content",
       mutable.Buffer(1),
       mutable.Buffer(3, secondToLink),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map())
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
     writer.close()
 
     reader.readDataChunk(0,
       2 * (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + 3 * RWC.INT_BYTES)) should be {
+        + RWM.edgesLength(1, Seq(0, 2, 3)))) should be {
       mutable.Buffer(
         new Node(1, "name", 1, "content",
           mutable.ListBuffer(Edge(0, 1)),
@@ -219,15 +214,15 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + 3 * RWC.INT_BYTES,
+        + RWM.edgesLength(1, Seq(0, 2, 3)),
       RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + 3 * RWC.INT_BYTES) should be {
+        + RWM.edgesLength(2, Seq(1, 3, 4))) should be {
 
       mutable.Buffer(
         new Node(2, "name", 2, "content", mutable.ListBuffer(
@@ -239,6 +234,36 @@ class ZeroZoomReaderTest extends FunSuite with BeforeAndAfter {
     }
   }
 
+  //scalastyle:off magic.number
+  test("Read node decodes its record lazily") {
+    val options = Map("A1" -> ('B', "C1"))
+    writer.storeNode(1,
+      "name",
+      1,
+      "content",
+      mutable.Buffer(0),
+      mutable.Buffer(2, 3),
+      options)
+    writer.close()
+
+    val chunk = reader.readDataChunk(0,
+      RWC.CHAR_BYTES
+        + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
+        + RWC.N_INT_FIELDS * RWC.INT_BYTES
+        + "name".length + PackedSequence.encodedBytes("content")
+        + RWM.optionLength(options)
+        + RWM.edgesLength(1, Seq(0, 2, 3)))
+
+    chunk.head shouldBe an[EncodedNode]
+    chunk.head.contentLength shouldBe "content".length
+    chunk.head.outgoing += Edge(1, 4)
+    chunk.head.genomeCoordinates shouldBe empty
+    chunk.head.options shouldBe options
+    chunk.head.hashCode shouldBe new Node(1, "other", 2, "",
+      mutable.Buffer(), mutable.Buffer(), Map(), Map()).hashCode
+  }
+  //scalastyle:on magic.number
+
   after {
     reader.close()
   }
@@ -13,6 +13,7 @@ import scala.collection.mutable.ListBuffer
 import org.scalatest.Matchers._
 //scalastyle:on underscore.import
 
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.storage.{ReadWriteConstants => RWC, ReadWriteMethods => RWM}
 import org.scalatest.{BeforeAndAfter, FunSuite}
 
@@ -33,13 +34,12 @@ class OneZoomWriterTest extends FunSuite with BeforeAndAfter {
       1, "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map(),
       Map()) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
         + "name".length
-        + "content".length)
+        + PackedSequence.encodedBytes("content"))
     }
   }
   test("Store bubble with no options") {
@@ -81,13 +81,12 @@ class OneZoomWriterTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map("A" -> ('B', "C")),
-      Map()) should be {
+      Map("A" -> ('B', "C"))) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
         + "name".length
-        + "content".length
+        + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A" -> ('B', "C"))))
     }
     writer.storeBubble(1,
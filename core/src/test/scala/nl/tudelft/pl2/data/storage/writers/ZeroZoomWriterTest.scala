@@ -12,6 +12,7 @@ import scala.collection.mutable
 import org.scalatest.Matchers._
 //scalastyle:on underscore.import
 
+import nl.tudelft.pl2.data.PackedSequence
 import nl.tudelft.pl2.data.storage.{ReadWriteConstants => RWC, ReadWriteMethods => RWM}
 import org.scalatest.{BeforeAndAfter, FunSuite}
 
@@ -28,12 +29,12 @@ class ZeroZoomWriterTest extends FunSuite with BeforeAndAfter {
 
   test("Store one node with no options or links") {
     writer.storeNode(1, "name", 1, "content",
-      mutable.Buffer(), mutable.Buffer(), Map(), Map()) should be {
+      mutable.Buffer(), mutable.Buffer(), Map()) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
         + "name".length
-        + "content".length)
+        + PackedSequence.encodedBytes("content"))
     }
   }
   test("Store one node with options and no links") {
@@ -43,67 +44,60 @@ class ZeroZoomWriterTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(),
       mutable.Buffer(),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map()) should be {
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2"))) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2"))))
     }
   }
   test("Store one node with no options but with links") {
-    val NUM_LINKS = 3
     writer.storeNode(1,
       "name",
       1,
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map(),
       Map()) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
-        + NUM_LINKS * RWC.INT_BYTES)
+        + "name".length + PackedSequence.encodedBytes("content")
+        + RWM.edgesLength(1, Seq(0, 2, 3)))
     }
   }
   test("Store one node with options and links") {
-    val NUM_LINKS = 3
     writer.storeNode(1,
       "name",
       1,
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map()) should be {
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2"))) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + NUM_LINKS * RWC.INT_BYTES)
+        + RWM.edgesLength(1, Seq(0, 2, 3)))
     }
   }
   test("Store two nodes with options and links") {
-    val NUM_LINKS = 3
     writer.storeNode(1,
       "name",
       1,
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map()) should be {
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2"))) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
         + "name".length
-        + "content".length
+        + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + NUM_LINKS * RWC.INT_BYTES)
+        + RWM.edgesLength(1, Seq(0, 2, 3)))
     }
     writer.storeNode(1,
       "name",
@@ -111,23 +105,22 @@ class ZeroZoomWriterTest extends FunSuite with BeforeAndAfter {
       "content",
       mutable.Buffer(0),
       mutable.Buffer(2, 3),
-      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")),
-      Map()) should be {
+      Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2"))) should be {
       (RWC.CHAR_BYTES
         + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
         + RWC.N_INT_FIELDS * RWC.INT_BYTES
-        + "name".length + "content".length
+        + "name".length + PackedSequence.encodedBytes("content")
         + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-        + NUM_LINKS * RWC.INT_BYTES)
+        + RWM.edgesLength(1, Seq(0, 2, 3)))
     }
     writer.getFileLength should be {
       2 *
         (RWC.CHAR_BYTES
           + RWC.N_SHORT_FIELDS * RWC.SHORT_BYTES
           + RWC.N_INT_FIELDS * RWC.INT_BYTES
-          + "name".length + "content".length
+          + "name".length + PackedSequence.encodedBytes("content")
           + RWM.optionLength(Map("A1" -> ('B', "C1"), "A2" -> ('B', "C2")))
-          + NUM_LINKS * RWC.INT_BYTES)
+          + RWM.edgesLength(1, Seq(0, 2, 3)))
     }
   }
 
@@ -1,10 +1,9 @@
 package nl.tudelft.pl2.representation.graph.handles
 
-import java.util
 import java.nio.file.{Path, Paths}
 
 import nl.tudelft.pl2.representation.external.Node
-import nl.tudelft.pl2.representation.graph.loaders.ChunkedGraphLoader
+import nl.tudelft.pl2.representation.graph.loaders.{ChunkedGraphLoader, LayerStore}
 import org.junit.runner.RunWith
 import org.scalatest.FunSuite
 import org.scalatest.junit.JUnitRunner
@@ -18,16 +17,14 @@ class ChunkedGraphScalaTest extends FunSuite {
     .getContextClassLoader
     .getResource("TB10_small.gfa").toURI)
 
-  private var vMap: util.Map[Integer, Integer] = _
-  private var lMap: util.HashMap[Integer, util.HashSet[Node]] = _
+  private var layerStore: LayerStore = _
   private var loader: ChunkedGraphLoader = _
   private var chunkedGraph: ChunkedGraph = _
 
   def before(): Unit = {
-    vMap = new util.HashMap[Integer, Integer]()
-    lMap = new util.HashMap[Integer, util.HashSet[Node]]()
+    layerStore = new LayerStore()
     loader = new ChunkedGraphLoader()
-    chunkedGraph = new ChunkedGraph(loader, vMap, lMap, TB10S_PATH)
+    chunkedGraph = new ChunkedGraph(loader, layerStore, TB10S_PATH)
   }
 
   test("Test sample compare string") {
@@ -44,8 +41,11 @@ class ChunkedGraphScalaTest extends FunSuite {
     //scalastyle:on null
     val nodeSet = new java.util.HashSet[Node]()
     nodeSet.add(node)
-    lMap.put(0, nodeSet)
+    layerStore.addAll(nodeSet)
+    val headers = new java.util.HashMap[String, String]()
+    headers.put(key, value)
     assertResult(node) {
+      chunkedGraph.updateHeaders(headers)
       chunkedGraph.getNodesByGenome(value).iterator().next()
     }
   }
@@ -65,7 +65,7 @@ class ChunkedGraphScalaTest extends FunSuite {
     //scalastyle:on null
     val nodeSet = new java.util.HashSet[Node]()
     nodeSet.add(node)
-    lMap.put(0, nodeSet)
+    layerStore.addAll(nodeSet)
     val headers = new java.util.HashMap[String, String]()
     headers.put(key, valueString)
     assertResult(node) {
@@ -90,7 +90,7 @@ class ChunkedGraphScalaTest extends FunSuite {
     //scalastyle:on null
     val nodeSet = new java.util.HashSet[Node]()
     nodeSet.add(node)
-    lMap.put(0, nodeSet)
+    layerStore.addAll(nodeSet)
     val headers = new java.util.HashMap[String, String]()
     headers.put(key, valueString)
     assertResult(true) {
@@ -98,4 +98,28 @@ class ChunkedGraphScalaTest extends FunSuite {
       chunkedGraph.getNodesByGenome(valueString).isEmpty
     }
   }
+
+  test("Test sample unknown to the graph") {
+    before()
+    //scalastyle:off null
+    val node = new Node(0, "1", 0, "ACT", null, null, Map("ORI" -> ('z', "0")), null)
+    //scalastyle:on null
+    val nodeSet = new java.util.HashSet[Node]()
+    nodeSet.add(node)
+    layerStore.addAll(nodeSet)
+    assertResult(true) {
+      chunkedGraph.getNodesByGenome("sample").isEmpty
+    }
+  }
+
+  test("Test genome set from coordinates") {
+    //scalastyle:off null
+    val node = new Node(0, "1", 0, "ACT", null, null, Map("ORI" -> ('z', "0")),
+      Map(new Integer(2) -> 5L))
+    //scalastyle:on null
+    val genomes = node.genomes(Array("a", "b", "c"))
+    assertResult(Seq(2)) {
+      Seq(genomes.stream().toArray: _*)
+    }
+  }
 }